@@ -0,0 +1,98 @@
+package redestransporte;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Buscas por nome: inserção de todas as estações (na ordem do arquivo, como
+ * na carga da rede) e consultas na BST (nome completo) e na Trie (prefixo).
+ * Os nomes e prefixos consultados são sorteados uma vez e percorridos em ordem.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArvoresBenchmark {
+
+    private static final int NUM_CONSULTAS = 1024;
+
+    /** Quantidade de estações da rede. */
+    @Param({"1000", "10000", "100000"})
+    public int tamanho;
+
+    private List<Estacao> estacoes;
+    private BST bst;
+    private Trie trie;
+    private String[] nomes;
+    private String[] prefixos;
+    private int proxima;
+
+    @Setup(Level.Trial)
+    public void montarArvores() {
+        estacoes = RedeSintetica.gerar(tamanho, 42).getEstacoes();
+        bst = inserirBST();
+        trie = inserirTrie();
+
+        // Prefixos: o tipo e os primeiros 1 a 3 dígitos ("Parada 12")
+        Random sorteio = new Random(7);
+        nomes = new String[NUM_CONSULTAS];
+        prefixos = new String[NUM_CONSULTAS];
+        for (int i = 0; i < NUM_CONSULTAS; i++) {
+            String nome = estacoes.get(sorteio.nextInt(tamanho)).getNome();
+            nomes[i] = nome;
+            int espaco = nome.indexOf(' ');
+            prefixos[i] = nome.substring(0, Math.min(nome.length(), espaco + 2 + sorteio.nextInt(3)));
+        }
+    }
+
+    private int proximaConsulta() {
+        int consulta = proxima;
+        proxima = (proxima + 1) % NUM_CONSULTAS;
+        return consulta;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BST inserirBST() {
+        BST arvore = new BST();
+        for (Estacao e : estacoes) {
+            arvore.inserir(e);
+        }
+        return arvore;
+    }
+
+    @Benchmark
+    public Estacao buscarBST() {
+        return bst.buscar(nomes[proximaConsulta()]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Trie inserirTrie() {
+        Trie arvore = new Trie();
+        for (Estacao e : estacoes) {
+            arvore.inserir(e);
+        }
+        return arvore;
+    }
+
+    @Benchmark
+    public String buscarPorPrefixoTrie() {
+        return trie.buscarPorPrefixoFormatado(prefixos[proximaConsulta()]);
+    }
+}
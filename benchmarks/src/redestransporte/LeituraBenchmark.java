@@ -0,0 +1,73 @@
+package redestransporte;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leitura dos arquivos de entrada ({@link LeitorArquivos}) gerados a partir
+ * de uma {@link RedeSintetica} em um diretório temporário.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeituraBenchmark {
+
+    /** Quantidade de estações da rede. */
+    @Param({"1000", "10000", "100000"})
+    public int tamanho;
+
+    private Path diretorio;
+    private String arquivoEstacoes;
+    private String arquivoConexoes;
+
+    @Setup(Level.Trial)
+    public void gravarArquivos() throws IOException {
+        diretorio = Files.createTempDirectory("redes-benchmark");
+        Path estacoes = diretorio.resolve("estacoes.txt");
+        Path conexoes = diretorio.resolve("conexoes.txt");
+        RedeSintetica.gerar(tamanho, 42).gravar(estacoes, conexoes);
+        arquivoEstacoes = estacoes.toString();
+        arquivoConexoes = conexoes.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void apagarArquivos() throws IOException {
+        Files.deleteIfExists(Path.of(arquivoEstacoes));
+        Files.deleteIfExists(Path.of(arquivoConexoes));
+        Files.deleteIfExists(diretorio);
+    }
+
+    @Benchmark
+    public List<Estacao> lerEstacoes() throws IOException {
+        return LeitorArquivos.lerEstacoes(arquivoEstacoes);
+    }
+
+    @Benchmark
+    public List<Conexao> lerConexoes() throws IOException {
+        return LeitorArquivos.lerConexoes(arquivoConexoes);
+    }
+
+    @Benchmark
+    public LoteConexoes lerLoteConexoes() throws IOException {
+        return LeitorArquivos.lerLoteConexoes(arquivoConexoes);
+    }
+}
@@ -0,0 +1,122 @@
+package redestransporte;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mapeamento ID <-> índice do {@link Grafo}: dois HashMap&lt;Integer, Integer&gt;
+ * contra os mapas primitivos usados pelo grafo ({@link MapaIntInt} e {@link VetorInt}).
+ *
+ * As consultas fazem ID -> índice -> ID com IDs sorteados uma vez e
+ * percorridos em ordem. A montagem mede o tempo para preencher os mapas;
+ * com o profiler de GC (-prof gc), gc.alloc.rate.norm dá os bytes alocados
+ * por montagem, ou seja, a memória que cada versão ocupa:
+ *
+ *     ant benchmark -Dbenchmark.args="-prof gc Mapas"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapasBenchmark {
+
+    private static final int NUM_CONSULTAS = 1 << 20;
+
+    /** Quantidade de estações (IDs espalhados, não sequenciais). */
+    @Param({"100000", "1000000"})
+    public int numEstacoes;
+
+    private int[] ids;
+    private int[] consultas;
+    private int proxima;
+
+    private Map<Integer, Integer> idParaIndice;
+    private Map<Integer, Integer> indiceParaId;
+    private MapaIntInt idParaIndicePrimitivo;
+    private VetorInt indiceParaIdPrimitivo;
+
+    @Setup(Level.Trial)
+    public void montarMapas() {
+        Random sorteio = new Random(1);
+        ids = new int[numEstacoes];
+        for (int i = 0; i < numEstacoes; i++) {
+            ids[i] = i * 7 + sorteio.nextInt(7); // Crescentes, como após a ordenação
+        }
+        consultas = new int[NUM_CONSULTAS];
+        for (int i = 0; i < NUM_CONSULTAS; i++) {
+            consultas[i] = ids[sorteio.nextInt(numEstacoes)];
+        }
+
+        idParaIndice = new HashMap<>();
+        indiceParaId = new HashMap<>();
+        preencherHashMap(idParaIndice, indiceParaId);
+        idParaIndicePrimitivo = new MapaIntInt(numEstacoes);
+        indiceParaIdPrimitivo = preencherPrimitivo(idParaIndicePrimitivo);
+    }
+
+    private void preencherHashMap(Map<Integer, Integer> porId, Map<Integer, Integer> porIndice) {
+        for (int i = 0; i < numEstacoes; i++) {
+            porId.put(ids[i], i);
+            porIndice.put(i, ids[i]);
+        }
+    }
+
+    // Preenche o mapa ID -> índice e retorna o vetor índice -> ID
+    private VetorInt preencherPrimitivo(MapaIntInt porId) {
+        for (int i = 0; i < numEstacoes; i++) {
+            porId.colocar(ids[i], i);
+        }
+        return VetorInt.de(ids, 0, numEstacoes);
+    }
+
+    private int proximaConsulta() {
+        int id = consultas[proxima];
+        proxima = (proxima + 1) & (NUM_CONSULTAS - 1);
+        return id;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void montarHashMap(Blackhole consumidor) {
+        Map<Integer, Integer> porId = new HashMap<>();
+        Map<Integer, Integer> porIndice = new HashMap<>();
+        preencherHashMap(porId, porIndice);
+        consumidor.consume(porId);
+        consumidor.consume(porIndice);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void montarPrimitivo(Blackhole consumidor) {
+        MapaIntInt porId = new MapaIntInt(numEstacoes);
+        consumidor.consume(preencherPrimitivo(porId));
+        consumidor.consume(porId);
+    }
+
+    @Benchmark
+    public int consultarHashMap() {
+        return indiceParaId.get(idParaIndice.get(proximaConsulta()));
+    }
+
+    @Benchmark
+    public int consultarPrimitivo() {
+        return indiceParaIdPrimitivo.obter(idParaIndicePrimitivo.obter(proximaConsulta(), -1));
+    }
+}
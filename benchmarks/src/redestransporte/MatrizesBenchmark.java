@@ -0,0 +1,52 @@
+package redestransporte;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Geração das representações do grafo: a adjacência (CSR) e a incidência.
+ * A incidência é montada sob demanda, então o benchmark a marca para ser
+ * remontada e pede a incidência logo em seguida.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatrizesBenchmark {
+
+    /** Quantidade de estações da rede. */
+    @Param({"1000", "10000", "100000"})
+    public int tamanho;
+
+    private Grafo grafo;
+
+    @Setup(Level.Trial)
+    public void montarGrafo() {
+        grafo = RedeSintetica.gerar(tamanho, 42).montarGrafo();
+    }
+
+    @Benchmark
+    public AdjacenciaCSR gerarMatrizAdjacencia() {
+        grafo.gerarMatrizAdjacencia();
+        return grafo.getAdjacencia();
+    }
+
+    @Benchmark
+    public IncidenciaEsparsa gerarMatrizIncidencia() {
+        grafo.gerarMatrizIncidencia();
+        return grafo.getIncidencia();
+    }
+}
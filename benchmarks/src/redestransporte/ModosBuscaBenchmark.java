@@ -0,0 +1,103 @@
+package redestransporte;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tempo de uma consulta em cada modo de busca ({@link ModoBusca}) em uma
+ * rede em grade ({@link RedeSintetica#grade}), com os pré-processamentos
+ * (ALT, Contraction Hierarchies e tabela de todos os pares) já prontos.
+ *
+ * Na grade de lado 60 (3600 estações) a tabela de todos os pares cabe no
+ * limite; na de lado 200 o modo {@link ModoBusca#TODOS_OS_PARES} usa o
+ * Dijkstra bidirecional, como no programa.
+ *
+ * Antes de medir, o setup confere que o modo encontra o mesmo custo que o
+ * Dijkstra em todos os pares sorteados.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModosBuscaBenchmark {
+
+    private static final int NUM_PARES = 1024;
+
+    /** Lado da grade (lado² estações). */
+    @Param({"60", "200"})
+    public int lado;
+
+    /** Modo de busca medido (todos, se não filtrado com -p modo=...). */
+    @Param
+    public ModoBusca modo;
+
+    private Grafo grafo;
+    private int[] origens;
+    private int[] destinos;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void prepararGrafo() {
+        grafo = RedeSintetica.grade(lado, 42).montarGrafo();
+        switch (modo) {
+            case ALT:
+                grafo.prepararALT(LandmarksALT.K_PADRAO, LandmarksALT.Selecao.EVITAR);
+                break;
+            case CONTRACTION_HIERARCHIES:
+                grafo.prepararCH();
+                break;
+            case TODOS_OS_PARES:
+                grafo.prepararTodosPares();
+                break;
+            default:
+                break;
+        }
+
+        int numVertices = grafo.getNumIndices();
+        Random sorteio = new Random(7);
+        origens = new int[NUM_PARES];
+        destinos = new int[NUM_PARES];
+        for (int i = 0; i < NUM_PARES; i++) {
+            origens[i] = sorteio.nextInt(numVertices);
+            destinos[i] = sorteio.nextInt(numVertices);
+            long esperado = custo(grafo.calcularCaminho(origens[i], destinos[i], ModoBusca.DIJKSTRA));
+            if (custo(grafo.calcularCaminho(origens[i], destinos[i], modo)) != esperado) {
+                throw new IllegalStateException(modo.getNome() + " diverge do Dijkstra em "
+                        + origens[i] + " -> " + destinos[i]);
+            }
+        }
+    }
+
+    // Soma dos pesos do caminho, ou -1 se não há caminho
+    private long custo(int[] caminho) {
+        if (caminho == null) {
+            return -1;
+        }
+        long total = 0;
+        for (int i = 0; i + 1 < caminho.length; i++) {
+            total += grafo.getAdjacencia().pesoEntre(caminho[i], caminho[i + 1]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int[] consultar() {
+        int par = proximo;
+        proximo = (proximo + 1) % NUM_PARES;
+        return grafo.calcularCaminho(origens[par], destinos[par], modo);
+    }
+}
@@ -0,0 +1,81 @@
+package redestransporte;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operações do menu 2: caminho por paradas (BFS), caminho por peso
+ * (Dijkstra) e grau dos vértices, como o usuário as chama (com o texto
+ * do resultado montado).
+ *
+ * Cada chamada usa o próximo de uma lista fixa de pares sorteados. A lista
+ * tem mais pares que o {@link CacheRotas} consegue guardar e é percorrida
+ * em ordem, então os pares já saíram do cache quando se repetem: toda
+ * chamada faz a busca.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OperacoesBenchmark {
+
+    private static final int NUM_PARES = 4 * CacheRotas.CAPACIDADE_PADRAO;
+
+    /** Quantidade de estações da rede. */
+    @Param({"1000", "10000", "100000"})
+    public int tamanho;
+
+    private Grafo grafo;
+    private int[] origens;
+    private int[] destinos;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void montarGrafo() {
+        grafo = RedeSintetica.gerar(tamanho, 42).montarGrafo();
+        Random sorteio = new Random(7);
+        origens = new int[NUM_PARES];
+        destinos = new int[NUM_PARES];
+        for (int i = 0; i < NUM_PARES; i++) {
+            origens[i] = 1 + sorteio.nextInt(tamanho);
+            destinos[i] = 1 + sorteio.nextInt(tamanho);
+        }
+    }
+
+    private int proximoPar() {
+        int par = proximo;
+        proximo = (proximo + 1) % NUM_PARES;
+        return par;
+    }
+
+    @Benchmark
+    public String bfs() {
+        int par = proximoPar();
+        return grafo.bfs(origens[par], destinos[par]);
+    }
+
+    @Benchmark
+    public String dijkstra() {
+        int par = proximoPar();
+        return grafo.dijkstra(origens[par], destinos[par]);
+    }
+
+    @Benchmark
+    public String calcularGraus() {
+        return grafo.calcularGraus();
+    }
+}
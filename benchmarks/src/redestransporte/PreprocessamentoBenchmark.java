@@ -0,0 +1,79 @@
+package redestransporte;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pré-processamentos das buscas em uma rede em grade: landmarks ALT
+ * (estratégia padrão, {@link LandmarksALT.Selecao#EVITAR}), Contraction
+ * Hierarchies e tabela de todos os pares. Cada chamada refaz o cálculo
+ * inteiro, então o tempo é medido por execução (SingleShotTime).
+ *
+ * A tabela de todos os pares só é montada até
+ * {@link TabelaTodosPares#LIMITE_VERTICES} estações: ela usa sempre a grade
+ * de lado {@link GradeTabela#LADO}, independente do parâmetro lado.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PreprocessamentoBenchmark {
+
+    @State(Scope.Thread)
+    public static class Grade {
+
+        /** Lado da grade (lado² estações). */
+        @Param({"60", "200"})
+        public int lado;
+
+        Grafo grafo;
+
+        @Setup(Level.Trial)
+        public void montarGrafo() {
+            grafo = RedeSintetica.grade(lado, 42).montarGrafo();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class GradeTabela {
+
+        /** Maior lado cuja grade cabe na tabela de todos os pares. */
+        static final int LADO = 64;
+
+        Grafo grafo;
+
+        @Setup(Level.Trial)
+        public void montarGrafo() {
+            grafo = RedeSintetica.grade(LADO, 42).montarGrafo();
+        }
+    }
+
+    @Benchmark
+    public boolean prepararALT(Grade grade) {
+        grade.grafo.prepararALT(LandmarksALT.K_PADRAO, LandmarksALT.Selecao.EVITAR);
+        return grade.grafo.isALTPronto();
+    }
+
+    @Benchmark
+    public boolean prepararCH(Grade grade) {
+        grade.grafo.prepararCH();
+        return grade.grafo.isCHPronta();
+    }
+
+    @Benchmark
+    public boolean prepararTodosPares(GradeTabela grade) {
+        return grade.grafo.prepararTodosPares();
+    }
+}
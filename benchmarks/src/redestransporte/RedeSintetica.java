@@ -0,0 +1,129 @@
+package redestransporte;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Rede sintética para os benchmarks, sempre a mesma para o mesmo tamanho e
+ * semente. Parecida com uma rede de transporte: cada estação se liga a uma
+ * das estações criadas pouco antes dela (o que deixa a rede conexa e com
+ * caminhos longos), mais uma conexão extra a cada duas estações entre
+ * estações próximas, com pesos entre 1 e 30 (grau médio 3).
+ *
+ * Os nomes seguem o padrão "Tipo número" ("Terminal 12", "Parada 345"...),
+ * com poucos tipos, para que a Trie tenha prefixos compartilhados.
+ */
+final class RedeSintetica {
+
+    private static final String[] TIPOS = {
+        "Terminal", "Estação", "Parada", "Ecoponto", "Praça", "Avenida", "Rua", "Largo"
+    };
+    // Distância máxima (em IDs) entre as estações de uma conexão
+    private static final int ALCANCE = 50;
+
+    private final List<Estacao> estacoes;
+    private final List<Conexao> conexoes;
+
+    private RedeSintetica(List<Estacao> estacoes, List<Conexao> conexoes) {
+        this.estacoes = estacoes;
+        this.conexoes = conexoes;
+    }
+
+    /**
+     * Gera a rede com IDs de 1 a numEstacoes.
+     */
+    static RedeSintetica gerar(int numEstacoes, long semente) {
+        Random sorteio = new Random(semente);
+        List<Estacao> estacoes = new ArrayList<>(numEstacoes);
+        for (int id = 1; id <= numEstacoes; id++) {
+            estacoes.add(new Estacao(id, TIPOS[sorteio.nextInt(TIPOS.length)] + " " + id));
+        }
+
+        List<Conexao> conexoes = new ArrayList<>(numEstacoes * 3 / 2);
+        for (int id = 2; id <= numEstacoes; id++) {
+            int anterior = id - 1 - sorteio.nextInt(Math.min(id - 1, ALCANCE));
+            conexoes.add(new Conexao(anterior, id, 1 + sorteio.nextInt(30)));
+        }
+        for (int i = 0; i < numEstacoes / 2; i++) {
+            int a = 1 + sorteio.nextInt(numEstacoes);
+            int b = Math.min(numEstacoes, a + 1 + sorteio.nextInt(ALCANCE));
+            if (a != b) {
+                conexoes.add(new Conexao(a, b, 1 + sorteio.nextInt(30)));
+            }
+        }
+        return new RedeSintetica(estacoes, conexoes);
+    }
+
+    /**
+     * Gera uma rede em grade lado x lado (IDs de 1 a lado², linha a linha)
+     * com pesos entre 5 e 24, parecida com uma malha viária: caminhos longos
+     * e muitos caminhos com custo parecido, o caso difícil para as buscas.
+     */
+    static RedeSintetica grade(int lado, long semente) {
+        Random sorteio = new Random(semente);
+        List<Estacao> estacoes = new ArrayList<>(lado * lado);
+        for (int id = 1; id <= lado * lado; id++) {
+            estacoes.add(new Estacao(id, "Estação " + id));
+        }
+        List<Conexao> conexoes = new ArrayList<>(2 * lado * lado);
+        for (int linha = 0; linha < lado; linha++) {
+            for (int coluna = 0; coluna < lado; coluna++) {
+                int id = linha * lado + coluna + 1;
+                if (coluna + 1 < lado) {
+                    conexoes.add(new Conexao(id, id + 1, 5 + sorteio.nextInt(20)));
+                }
+                if (linha + 1 < lado) {
+                    conexoes.add(new Conexao(id, id + lado, 5 + sorteio.nextInt(20)));
+                }
+            }
+        }
+        return new RedeSintetica(estacoes, conexoes);
+    }
+
+    List<Estacao> getEstacoes() {
+        return estacoes;
+    }
+
+    List<Conexao> getConexoes() {
+        return conexoes;
+    }
+
+    /**
+     * Monta o grafo da rede, com a adjacência já gerada.
+     */
+    Grafo montarGrafo() {
+        Grafo grafo = new Grafo();
+        for (Estacao e : estacoes) {
+            grafo.adicionarEstacao(e);
+        }
+        for (Conexao c : conexoes) {
+            grafo.adicionarConexao(c);
+        }
+        grafo.gerarMatrizAdjacencia();
+        return grafo;
+    }
+
+    /**
+     * Grava a rede no formato de estacoes.txt e conexoes.txt.
+     */
+    void gravar(Path arquivoEstacoes, Path arquivoConexoes) throws IOException {
+        try (BufferedWriter saida = Files.newBufferedWriter(arquivoEstacoes, StandardCharsets.UTF_8)) {
+            for (Estacao e : estacoes) {
+                saida.write(e.getId() + ";" + e.getNome());
+                saida.newLine();
+            }
+        }
+        try (BufferedWriter saida = Files.newBufferedWriter(arquivoConexoes, StandardCharsets.UTF_8)) {
+            for (Conexao c : conexoes) {
+                saida.write(c.getIdOrigem() + ";" + c.getIdDestino() + ";" + c.getPeso());
+                saida.newLine();
+            }
+        }
+    }
+}
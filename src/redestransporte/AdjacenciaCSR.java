@@ -0,0 +1,425 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Lista de adjacência compacta no formato CSR (Compressed Sparse Row).
+ *
+ * Os vizinhos do vértice v ficam em destinos[inicio(v) .. fim(v)),
+ * ordenados pelo índice do destino, com o peso correspondente em pesos[].
+ * Ocupa O(V + E) de memória, contra O(V²) da matriz de adjacência.
+ *
+ * A estrutura também aceita alterações incrementais (arestas e vértices
+ * novos, remoções) em O(grau): cada linha pode ter folga depois de fim(v).
+ * Quando uma linha enche, ela é realocada para o final dos arrays com o
+ * dobro da capacidade; o espaço abandonado é recuperado por
+ * {@link #compactar()} quando passa da metade do total.
+ *
+ * Os arrays ficam em blocos ({@link VetorInt}): uma cópia compartilha os
+ * blocos com a original e só copia os que alterar, ou seja, as linhas
+ * tocadas e as posições novas no final. As buscas leem uma cópia plana
+ * (ver {@link #plana()}), sem o acesso a mais de cada bloco.
+ */
+public class AdjacenciaCSR {
+
+    private static final int CAPACIDADE_MINIMA_LINHA = 4;
+
+    private int numVertices;
+    private VetorInt inicio;   // Primeira posição da linha de cada vértice
+    private VetorInt fim;      // Posição logo após o último arco da linha
+    private VetorInt limite;   // Posição logo após a capacidade da linha
+    private VetorInt destinos; // Vizinho de cada arco
+    private VetorInt pesos;    // Peso de cada arco
+    private int usados;     // Posições de destinos/pesos já reservadas para alguma linha
+    private int numArcos;
+    private int desperdicio; // Posições abandonadas por linhas realocadas
+    private volatile Plana plana; // Montada sob demanda; descartada a cada alteração
+
+    /**
+     * Os arrays da adjacência sem a divisão em blocos, para os laços internos
+     * das buscas: os arcos de v ficam em destinos/pesos[inicio[v] .. fim[v]).
+     */
+    static final class Plana {
+        final int[] inicio;
+        final int[] fim;
+        final int[] destinos;
+        final int[] pesos;
+
+        private Plana(AdjacenciaCSR adjacencia) {
+            inicio = adjacencia.inicio.paraArray(adjacencia.numVertices);
+            fim = adjacencia.fim.paraArray(adjacencia.numVertices);
+            destinos = adjacencia.destinos.paraArray(adjacencia.usados);
+            pesos = adjacencia.pesos.paraArray(adjacencia.usados);
+        }
+    }
+
+    private AdjacenciaCSR(int numVertices, int[] inicio, int[] destinos, int[] pesos) {
+        // inicio tem V + 1 posições; sem folga, o fim de uma linha é o início da
+        // próxima (destinos e pesos podem ter posições a mais, que são ignoradas)
+        this.numVertices = numVertices;
+        this.inicio = VetorInt.de(inicio, 0, numVertices);
+        this.fim = VetorInt.de(inicio, 1, numVertices + 1);
+        this.limite = VetorInt.de(inicio, 1, numVertices + 1);
+        this.destinos = VetorInt.de(destinos, 0, inicio[numVertices]);
+        this.pesos = VetorInt.de(pesos, 0, inicio[numVertices]);
+        this.usados = inicio[numVertices];
+        this.numArcos = inicio[numVertices];
+    }
+
+    // Cópia que compartilha os blocos da original (ver copiar())
+    private AdjacenciaCSR(AdjacenciaCSR original) {
+        this.numVertices = original.numVertices;
+        this.inicio = original.inicio.copiar();
+        this.fim = original.fim.copiar();
+        this.limite = original.limite.copiar();
+        this.destinos = original.destinos.copiar();
+        this.pesos = original.pesos.copiar();
+        this.usados = original.usados;
+        this.numArcos = original.numArcos;
+        this.desperdicio = original.desperdicio;
+    }
+
+    /**
+     * Constrói a adjacência de um grafo não direcionado a partir das arestas.
+     * Segue as mesmas regras da matriz de adjacência: se houver arestas repetidas
+     * entre o mesmo par, vale a última; arestas com peso <= 0 não são conexões.
+     * @param numVertices Quantidade de vértices (índices 0..V-1)
+     * @param origens Índice de origem de cada aresta
+     * @param destinosArestas Índice de destino de cada aresta
+     * @param pesosArestas Peso de cada aresta
+     * @param numArestas Quantidade de arestas válidas nos arrays
+     * @return A adjacência construída
+     */
+    public static AdjacenciaCSR construir(int numVertices, int[] origens, int[] destinosArestas,
+                                          int[] pesosArestas, int numArestas) {
+        // 1. Conta quantos arcos saem de cada vértice (cada aresta gera dois)
+        int[] inicio = new int[numVertices + 1];
+        for (int e = 0; e < numArestas; e++) {
+            inicio[origens[e] + 1]++;
+            inicio[destinosArestas[e] + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            inicio[v + 1] += inicio[v];
+        }
+
+        // 2. Distribui os arcos: (destino << 32 | número da aresta), para ordenar
+        // pelo destino e, entre repetidas, pela ordem de inserção
+        long[] chaves = new long[inicio[numVertices]];
+        int[] proximo = Arrays.copyOf(inicio, numVertices);
+        for (int e = 0; e < numArestas; e++) {
+            chaves[proximo[origens[e]]++] = ((long) destinosArestas[e] << 32) | e;
+            chaves[proximo[destinosArestas[e]]++] = ((long) origens[e] << 32) | e;
+        }
+
+        // 3. Ordena cada linha e compacta, mantendo só a última aresta de cada par
+        int[] destinos = new int[chaves.length];
+        int[] pesos = new int[chaves.length];
+        int escrita = 0;
+        for (int v = 0; v < numVertices; v++) {
+            int ini = inicio[v];
+            int fim = inicio[v + 1];
+            inicio[v] = escrita;
+            Arrays.sort(chaves, ini, fim);
+            for (int k = ini; k < fim; k++) {
+                int destino = (int) (chaves[k] >>> 32);
+                if (k + 1 < fim && (int) (chaves[k + 1] >>> 32) == destino) {
+                    continue; // Existe uma aresta mais recente para o mesmo par
+                }
+                int peso = pesosArestas[(int) chaves[k]];
+                if (peso > 0) {
+                    destinos[escrita] = destino;
+                    pesos[escrita] = peso;
+                    escrita++;
+                }
+            }
+        }
+        inicio[numVertices] = escrita;
+
+        return new AdjacenciaCSR(numVertices, inicio, destinos, pesos);
+    }
+
+    /**
+     * Recria uma adjacência já montada (sem folgas), como a gravada em um
+     * {@link SnapshotGrafo}. Os arrays são copiados para os blocos.
+     * @param inicio Início da linha de cada vértice (V + 1 posições)
+     * @param destinos Vizinhos, ordenados dentro de cada linha
+     * @param pesos Peso de cada arco
+     */
+    static AdjacenciaCSR deArrays(int numVertices, int[] inicio, int[] destinos, int[] pesos) {
+        return new AdjacenciaCSR(numVertices, inicio, destinos, pesos);
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumArcos() {
+        return numArcos;
+    }
+
+    /** Posição do primeiro arco do vértice v. */
+    public int inicio(int v) {
+        return inicio.obter(v);
+    }
+
+    /** Posição logo após o último arco do vértice v. */
+    public int fim(int v) {
+        return fim.obter(v);
+    }
+
+    /** Vizinho alcançado pelo arco k. */
+    public int destino(int k) {
+        return destinos.obter(k);
+    }
+
+    /** Peso do arco k. */
+    public int peso(int k) {
+        return pesos.obter(k);
+    }
+
+    public int grau(int v) {
+        return fim.obter(v) - inicio.obter(v);
+    }
+
+    /**
+     * Retorna a adjacência em arrays planos ({@link Plana}). A cópia custa
+     * O(V + E) na primeira chamada depois de uma alteração e é reaproveitada
+     * pelas chamadas seguintes: em um grafo publicado, que não muda mais, é
+     * montada uma vez só. Threads que chegam juntas podem montar uma cópia
+     * cada (iguais); nenhuma espera pela outra.
+     */
+    Plana plana() {
+        Plana atual = plana;
+        if (atual == null) {
+            atual = new Plana(this);
+            plana = atual;
+        }
+        return atual;
+    }
+
+    /**
+     * Retorna o peso da conexão entre u e v, ou 0 se não houver conexão.
+     * Usa busca binária, já que cada linha está ordenada pelo destino.
+     */
+    public int pesoEntre(int u, int v) {
+        int k = buscar(u, v);
+        return k >= 0 ? pesos.obter(k) : 0;
+    }
+
+    /**
+     * Preenche uma janela de colunas de uma linha da matriz de adjacência
+     * densa (peso da conexão ou 0), sem montar a matriz.
+     * @param v Linha (vértice)
+     * @param colunaInicial Primeira coluna da janela
+     * @param numColunasJanela Quantidade de colunas da janela
+     * @param valores Destino (pelo menos numColunasJanela posições)
+     */
+    public void preencherLinha(int v, int colunaInicial, int numColunasJanela, int[] valores) {
+        Arrays.fill(valores, 0, numColunasJanela, 0);
+        int k = buscar(v, colunaInicial);
+        if (k < 0) {
+            k = -k - 1;
+        }
+        int fimLinha = fim.obter(v);
+        for (; k < fimLinha && destinos.obter(k) < colunaInicial + numColunasJanela; k++) {
+            valores[destinos.obter(k) - colunaInicial] = pesos.obter(k);
+        }
+    }
+
+    /**
+     * Monta a matriz de adjacência densa (V x V). Só deve ser usada para
+     * exibição de grafos pequenos.
+     */
+    public int[][] paraMatriz() {
+        int[][] matriz = new int[numVertices][numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            for (int k = inicio.obter(v); k < fim.obter(v); k++) {
+                matriz[v][destinos.obter(k)] = pesos.obter(k);
+            }
+        }
+        return matriz;
+    }
+
+    // --- ALTERAÇÕES INCREMENTAIS ---
+
+    /**
+     * Acrescenta um vértice sem vizinhos.
+     * @return O índice do novo vértice (igual ao número anterior de vértices)
+     */
+    public int adicionarVertice() {
+        plana = null;
+        if (numVertices == inicio.tamanho()) {
+            int capacidade = Math.max(CAPACIDADE_MINIMA_LINHA, numVertices + (numVertices >> 1));
+            inicio.crescer(capacidade);
+            fim.crescer(capacidade);
+            limite.crescer(capacidade);
+        }
+        int v = numVertices++;
+        // Linha vazia e sem capacidade: o espaço é reservado na primeira aresta
+        inicio.definir(v, usados);
+        fim.definir(v, usados);
+        limite.definir(v, usados);
+        return v;
+    }
+
+    /**
+     * Define a aresta não direcionada u-v, com as mesmas regras de
+     * {@link #construir}: a nova aresta substitui a anterior entre o mesmo
+     * par, e peso <= 0 significa "sem conexão" (a aresta é removida).
+     */
+    public void definirAresta(int u, int v, int peso) {
+        plana = null;
+        if (peso <= 0) {
+            removerAresta(u, v);
+            return;
+        }
+        definirArco(u, v, peso);
+        if (u != v) {
+            definirArco(v, u, peso);
+        }
+    }
+
+    /**
+     * Remove a aresta u-v, se existir.
+     * @return true se a aresta existia
+     */
+    public boolean removerAresta(int u, int v) {
+        plana = null;
+        boolean removeu = removerArco(u, v);
+        if (u != v) {
+            removerArco(v, u);
+        }
+        return removeu;
+    }
+
+    /**
+     * Remove todas as arestas do vértice v (usado ao remover uma estação:
+     * o índice continua existindo, mas sem vizinhos). Custa O(grau de v)
+     * buscas binárias nas linhas dos vizinhos.
+     */
+    public void isolarVertice(int v) {
+        plana = null;
+        for (int k = inicio.obter(v); k < fim.obter(v); k++) {
+            int w = destinos.obter(k);
+            if (w != v) {
+                removerArco(w, v);
+            }
+        }
+        numArcos -= grau(v);
+        fim.definir(v, inicio.obter(v));
+    }
+
+    /**
+     * Retorna uma cópia da adjacência (com as mesmas folgas) que compartilha
+     * os blocos com esta: custa O((V + E) / {@link VetorInt#TAMANHO_BLOCO}),
+     * e as alterações da cópia copiam só os blocos que tocam. Esta adjacência
+     * não deve mais ser alterada depois.
+     */
+    public AdjacenciaCSR copiar() {
+        return new AdjacenciaCSR(this);
+    }
+
+    /**
+     * Regrava as linhas em sequência, sem folga, liberando o espaço
+     * deixado por linhas realocadas.
+     */
+    public void compactar() {
+        plana = null;
+        VetorInt novosDestinos = new VetorInt(numArcos);
+        VetorInt novosPesos = new VetorInt(numArcos);
+        int escrita = 0;
+        for (int v = 0; v < numVertices; v++) {
+            int ini = inicio.obter(v);
+            int grau = fim.obter(v) - ini;
+            for (int k = 0; k < grau; k++) {
+                novosDestinos.definir(escrita + k, destinos.obter(ini + k));
+                novosPesos.definir(escrita + k, pesos.obter(ini + k));
+            }
+            inicio.definir(v, escrita);
+            escrita += grau;
+            fim.definir(v, escrita);
+            limite.definir(v, escrita);
+        }
+        destinos = novosDestinos;
+        pesos = novosPesos;
+        usados = escrita;
+        desperdicio = 0;
+    }
+
+    // Insere (ou atualiza o peso de) um arco, mantendo a linha ordenada
+    private void definirArco(int u, int v, int peso) {
+        int k = buscar(u, v);
+        if (k >= 0) {
+            pesos.definir(k, peso);
+            return;
+        }
+        int deslocamento = -k - 1 - inicio.obter(u); // Posição de inserção dentro da linha
+        if (fim.obter(u) == limite.obter(u)) {
+            realocarLinha(u);
+        }
+        int posicao = inicio.obter(u) + deslocamento;
+        int fimLinha = fim.obter(u);
+        destinos.mover(posicao, posicao + 1, fimLinha - posicao);
+        pesos.mover(posicao, posicao + 1, fimLinha - posicao);
+        destinos.definir(posicao, v);
+        pesos.definir(posicao, peso);
+        fim.definir(u, fimLinha + 1);
+        numArcos++;
+    }
+
+    private boolean removerArco(int u, int v) {
+        int k = buscar(u, v);
+        if (k < 0) {
+            return false;
+        }
+        int fimLinha = fim.obter(u);
+        destinos.mover(k + 1, k, fimLinha - k - 1);
+        pesos.mover(k + 1, k, fimLinha - k - 1);
+        fim.definir(u, fimLinha - 1);
+        numArcos--;
+        return true;
+    }
+
+    // Busca binária de v na linha de u, com o mesmo retorno de Arrays.binarySearch
+    private int buscar(int u, int v) {
+        int baixo = inicio.obter(u);
+        int alto = fim.obter(u) - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int w = destinos.obter(meio);
+            if (w < v) {
+                baixo = meio + 1;
+            } else if (w > v) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -(baixo + 1);
+    }
+
+    // Move a linha cheia de u para o final dos arrays, com o dobro da capacidade
+    private void realocarLinha(int u) {
+        int ini = inicio.obter(u);
+        int grau = fim.obter(u) - ini;
+        int capacidade = Math.max(CAPACIDADE_MINIMA_LINHA, grau * 2);
+        if (usados + capacidade > destinos.tamanho()) {
+            if (desperdicio > usados / 2) {
+                compactar(); // Recupera o espaço antes de crescer
+                ini = inicio.obter(u);
+            }
+            if (usados + capacidade > destinos.tamanho()) {
+                int tamanho = Math.max(usados + capacidade, destinos.tamanho() + (destinos.tamanho() >> 1));
+                destinos.crescer(tamanho);
+                pesos.crescer(tamanho);
+            }
+        }
+        destinos.mover(ini, usados, grau);
+        pesos.mover(ini, usados, grau);
+        desperdicio += limite.obter(u) - ini;
+        inicio.definir(u, usados);
+        fim.definir(u, usados + grau);
+        limite.definir(u, usados + capacidade);
+        usados += capacidade;
+    }
+}
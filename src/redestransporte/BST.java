@@ -1,5 +1,8 @@
 package redestransporte;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class BST {
 
     // Nó interno da árvore
@@ -7,15 +10,29 @@ public class BST {
         Estacao estacao;
         No esquerda;
         No direita;
+        final Object dono; // Árvore que pode alterar o nó (ver copiar())
 
         public No(Estacao estacao) {
             this.estacao = estacao;
             this.esquerda = null;
             this.direita = null;
+            this.dono = BST.this.dono;
+        }
+
+        // Cópia do nó pertencente a esta árvore, com os mesmos filhos
+        No(No original) {
+            this.estacao = original.estacao;
+            this.esquerda = original.esquerda;
+            this.direita = original.direita;
+            this.dono = BST.this.dono;
         }
     }
 
     private No raiz; // A raiz da árvore
+    private boolean removeu; // Resultado da última remoção (ver removerRecursivo)
+    // Identifica os nós que esta árvore pode alterar; os demais são
+    // compartilhados com uma cópia e são copiados antes de mudar
+    private Object dono = new Object();
 
     public BST() {
         this.raiz = null;
@@ -30,6 +47,17 @@ public class BST {
         this.raiz = inserirRecursivo(this.raiz, estacao);
     }
 
+    /**
+     * Remove a estação da árvore (método público). Só remove se o nó com
+     * esse nome guarda a mesma estação (mesmo ID).
+     * @return true se a estação foi encontrada e removida
+     */
+    public boolean remover(Estacao estacao) {
+        this.removeu = false;
+        this.raiz = removerRecursivo(this.raiz, estacao);
+        return this.removeu;
+    }
+
     /**
      * Busca uma estação pelo nome (método público).
      */
@@ -49,8 +77,43 @@ public class BST {
         return sb.toString();
     }
 
+    /**
+     * Retorna as estações da árvore em ordem alfabética.
+     */
+    public List<Estacao> listarEmOrdem() {
+        List<Estacao> lista = new ArrayList<>();
+        listarRecursivo(this.raiz, lista);
+        return lista;
+    }
+
+    /**
+     * Substitui o conteúdo da árvore pelas estações dadas, já em ordem
+     * alfabética e sem nomes repetidos (como em {@link #listarEmOrdem()}),
+     * montando uma árvore balanceada em O(n).
+     */
+    public void construirBalanceada(List<Estacao> ordenadas) {
+        this.raiz = construirRecursivo(ordenadas, 0, ordenadas.size());
+    }
+
+    /**
+     * Retorna uma cópia da árvore em O(1): as duas compartilham os nós, e
+     * cada alteração posterior copia só o caminho da raiz até o nó alterado
+     * (a outra árvore continua vendo a versão anterior).
+     */
+    public BST copiar() {
+        BST copia = new BST();
+        copia.raiz = this.raiz;
+        this.dono = new Object(); // Os nós atuais passam a ser compartilhados
+        return copia;
+    }
+
     // --- MÉTODOS PRIVADOS RECURSIVOS ---
 
+    // O próprio nó, se a árvore pode alterá-lo; senão, uma cópia dele
+    private No editavel(No no) {
+        return no.dono == dono ? no : new No(no);
+    }
+
     /**
      * Método auxiliar recursivo para inserir.
      */
@@ -66,16 +129,65 @@ public class BST {
 
         if (comparacao < 0) {
             // Se for menor, vai para a esquerda
-            noAtual.esquerda = inserirRecursivo(noAtual.esquerda, estacao);
+            No esquerda = inserirRecursivo(noAtual.esquerda, estacao);
+            if (esquerda != noAtual.esquerda) {
+                noAtual = editavel(noAtual);
+                noAtual.esquerda = esquerda;
+            }
         } else if (comparacao > 0) {
             // Se for maior, vai para a direita
-            noAtual.direita = inserirRecursivo(noAtual.direita, estacao);
+            No direita = inserirRecursivo(noAtual.direita, estacao);
+            if (direita != noAtual.direita) {
+                noAtual = editavel(noAtual);
+                noAtual.direita = direita;
+            }
         }
         // (Se for igual, não faz nada, ignora duplicatas)
 
         return noAtual; // Retorna o nó (com a sub-árvore atualizada)
     }
 
+    /**
+     * Método auxiliar recursivo para remover.
+     */
+    private No removerRecursivo(No noAtual, Estacao estacao) {
+        if (noAtual == null) {
+            return null;
+        }
+        int comparacao = estacao.compareTo(noAtual.estacao);
+        if (comparacao < 0) {
+            No esquerda = removerRecursivo(noAtual.esquerda, estacao);
+            if (esquerda != noAtual.esquerda) {
+                noAtual = editavel(noAtual);
+                noAtual.esquerda = esquerda;
+            }
+        } else if (comparacao > 0) {
+            No direita = removerRecursivo(noAtual.direita, estacao);
+            if (direita != noAtual.direita) {
+                noAtual = editavel(noAtual);
+                noAtual.direita = direita;
+            }
+        } else if (noAtual.estacao.getId() == estacao.getId()) {
+            // Encontrou: com um filho só, ele toma o lugar do nó
+            removeu = true;
+            if (noAtual.esquerda == null) {
+                return noAtual.direita;
+            }
+            if (noAtual.direita == null) {
+                return noAtual.esquerda;
+            }
+            // Com dois filhos, o nó recebe o sucessor (menor da direita), que é removido de lá
+            No sucessor = noAtual.direita;
+            while (sucessor.esquerda != null) {
+                sucessor = sucessor.esquerda;
+            }
+            noAtual = editavel(noAtual);
+            noAtual.estacao = sucessor.estacao;
+            noAtual.direita = removerRecursivo(noAtual.direita, sucessor.estacao);
+        }
+        return noAtual;
+    }
+
     /**
      * Método auxiliar recursivo para buscar.
      */
@@ -100,6 +212,32 @@ public class BST {
         }
     }
 
+    /**
+     * Método auxiliar recursivo para listar em ordem.
+     */
+    private void listarRecursivo(No noAtual, List<Estacao> lista) {
+        if (noAtual != null) {
+            listarRecursivo(noAtual.esquerda, lista);
+            lista.add(noAtual.estacao);
+            listarRecursivo(noAtual.direita, lista);
+        }
+    }
+
+    /**
+     * Método auxiliar recursivo para montar a árvore balanceada com
+     * ordenadas[inicio .. fim): o elemento do meio vira a raiz.
+     */
+    private No construirRecursivo(List<Estacao> ordenadas, int inicio, int fim) {
+        if (inicio >= fim) {
+            return null;
+        }
+        int meio = (inicio + fim) >>> 1;
+        No no = new No(ordenadas.get(meio));
+        no.esquerda = construirRecursivo(ordenadas, inicio, meio);
+        no.direita = construirRecursivo(ordenadas, meio + 1, fim);
+        return no;
+    }
+
     /**
      * Método auxiliar recursivo para percorrer em-ordem (Esquerda, Raiz, Direita).
      */
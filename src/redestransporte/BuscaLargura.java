@@ -0,0 +1,247 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Buscas em largura sobre a adjacência CSR, com filas de int e marcas de
+ * visitado em bitset (long[]), sem Integer/LinkedList.
+ *
+ * - {@link #bidirecional}: caminho com menos paradas entre dois pontos,
+ *   expandindo alternadamente a partir da origem e do destino até as buscas
+ *   se encontrarem no meio.
+ * - {@link #niveis}: BFS completa a partir de uma origem com otimização de
+ *   direção (alterna entre top-down e bottom-up conforme o tamanho da fronteira).
+ */
+public class BuscaLargura {
+
+    // Parâmetros de troca de direção (valores usuais da literatura)
+    private static final int ALFA = 14; // top-down -> bottom-up quando arcosFronteira > arcosRestantes / ALFA
+    private static final int BETA = 24; // bottom-up -> top-down quando fronteira < V / BETA
+
+    private static final ThreadLocal<Espaco> DA_THREAD = ThreadLocal.withInitial(Espaco::new);
+
+    // Arrays reaproveitados entre buscas da mesma thread
+    private static class Espaco {
+        long[] visitadoOrigem = new long[0];
+        long[] visitadoDestino = new long[0];
+        int[] filaOrigem = new int[0];
+        int[] filaDestino = new int[0];
+        int[] anteriorOrigem = new int[0];
+        int[] anteriorDestino = new int[0];
+
+        void garantir(int numVertices) {
+            if (filaOrigem.length < numVertices) {
+                int palavras = (numVertices + 63) >>> 6;
+                visitadoOrigem = new long[palavras];
+                visitadoDestino = new long[palavras];
+                filaOrigem = new int[numVertices];
+                filaDestino = new int[numVertices];
+                anteriorOrigem = new int[numVertices];
+                anteriorDestino = new int[numVertices];
+            }
+        }
+    }
+
+    private BuscaLargura() {
+    }
+
+    /**
+     * Caminho com o menor número de paradas entre origem e destino (BFS bidirecional).
+     * @return Os índices do caminho (origem ... destino), ou null se não há caminho
+     */
+    public static int[] bidirecional(AdjacenciaCSR adjacencia, int origem, int destino) {
+        if (origem == destino) {
+            return new int[]{origem};
+        }
+        Espaco espaco = DA_THREAD.get();
+        espaco.garantir(adjacencia.getNumVertices());
+        AdjacenciaCSR.Plana plana = adjacencia.plana();
+        long[] visOrigem = espaco.visitadoOrigem;
+        long[] visDestino = espaco.visitadoDestino;
+        int[] filaO = espaco.filaOrigem;
+        int[] filaD = espaco.filaDestino;
+        int[] antO = espaco.anteriorOrigem;
+        int[] antD = espaco.anteriorDestino;
+
+        // As filas nunca são "esvaziadas": cada vértice entra uma única vez, então
+        // [0, fim) guarda todos os visitados e [inicioNivel, fim) a fronteira atual
+        int inicioO = 0, fimO = 0, inicioD = 0, fimD = 0;
+        filaO[fimO++] = origem;
+        marcar(visOrigem, origem);
+        antO[origem] = -1;
+        filaD[fimD++] = destino;
+        marcar(visDestino, destino);
+        antD[destino] = -1;
+
+        int encontroAntes = -1; // Último vértice do lado da origem
+        int encontroDepois = -1; // Primeiro vértice do lado do destino
+
+        while (inicioO < fimO && inicioD < fimD && encontroAntes < 0) {
+            // Expande um nível inteiro do lado com a menor fronteira
+            boolean ladoOrigem = (fimO - inicioO) <= (fimD - inicioD);
+            int[] fila = ladoOrigem ? filaO : filaD;
+            int[] anterior = ladoOrigem ? antO : antD;
+            long[] visitado = ladoOrigem ? visOrigem : visDestino;
+            long[] visitadoOutro = ladoOrigem ? visDestino : visOrigem;
+            int inicio = ladoOrigem ? inicioO : inicioD;
+            int fimNivel = ladoOrigem ? fimO : fimD;
+            int fim = fimNivel;
+
+            for (int i = inicio; i < fimNivel && encontroAntes < 0; i++) {
+                int atual = fila[i];
+                for (int k = plana.inicio[atual]; k < plana.fim[atual]; k++) {
+                    int vizinho = plana.destinos[k];
+                    if (marcado(visitadoOutro, vizinho)) {
+                        // As buscas se encontraram: como as bolas visitadas eram
+                        // disjuntas, o primeiro encontro já é um caminho mínimo
+                        encontroAntes = ladoOrigem ? atual : vizinho;
+                        encontroDepois = ladoOrigem ? vizinho : atual;
+                        break;
+                    }
+                    if (!marcado(visitado, vizinho)) {
+                        marcar(visitado, vizinho);
+                        anterior[vizinho] = atual;
+                        fila[fim++] = vizinho;
+                    }
+                }
+            }
+
+            if (ladoOrigem) {
+                inicioO = fimNivel;
+                fimO = fim;
+            } else {
+                inicioD = fimNivel;
+                fimD = fim;
+            }
+        }
+
+        int[] caminho = null;
+        if (encontroAntes >= 0) {
+            caminho = juntarCaminho(encontroAntes, encontroDepois, antO, antD);
+        }
+
+        // Limpa só os bits que foram marcados (todos estão nas filas)
+        desmarcarTodos(visOrigem, filaO, fimO);
+        desmarcarTodos(visDestino, filaD, fimD);
+        return caminho;
+    }
+
+    /**
+     * BFS completa a partir da origem com otimização de direção.
+     * @return Um array com o número de paradas da origem até cada vértice (-1 se inalcançável)
+     */
+    public static int[] niveis(AdjacenciaCSR adjacencia, int origem) {
+        int numVertices = adjacencia.getNumVertices();
+        AdjacenciaCSR.Plana plana = adjacencia.plana();
+        int[] nivel = new int[numVertices];
+        Arrays.fill(nivel, -1);
+
+        int[] fronteira = new int[numVertices];
+        int[] proxima = new int[numVertices];
+        long[] naFronteira = new long[(numVertices + 63) >>> 6];
+
+        int tamFronteira = 0;
+        fronteira[tamFronteira++] = origem;
+        nivel[origem] = 0;
+        long arcosRestantes = adjacencia.getNumArcos() - adjacencia.grau(origem);
+        int profundidade = 0;
+        boolean bottomUp = false;
+
+        while (tamFronteira > 0) {
+            long arcosFronteira = 0;
+            for (int i = 0; i < tamFronteira; i++) {
+                arcosFronteira += adjacencia.grau(fronteira[i]);
+            }
+            // Decide a direção do próximo passo
+            if (!bottomUp && arcosFronteira > arcosRestantes / ALFA) {
+                bottomUp = true;
+            } else if (bottomUp && tamFronteira < numVertices / BETA) {
+                bottomUp = false;
+            }
+
+            int tamProxima = 0;
+            profundidade++;
+            if (bottomUp) {
+                // Cada vértice não visitado procura um vizinho na fronteira
+                for (int i = 0; i < tamFronteira; i++) {
+                    marcar(naFronteira, fronteira[i]);
+                }
+                for (int v = 0; v < numVertices; v++) {
+                    if (nivel[v] >= 0) {
+                        continue;
+                    }
+                    for (int k = plana.inicio[v]; k < plana.fim[v]; k++) {
+                        if (marcado(naFronteira, plana.destinos[k])) {
+                            nivel[v] = profundidade;
+                            proxima[tamProxima++] = v;
+                            break;
+                        }
+                    }
+                }
+                desmarcarTodos(naFronteira, fronteira, tamFronteira);
+            } else {
+                // Cada vértice da fronteira visita seus vizinhos
+                for (int i = 0; i < tamFronteira; i++) {
+                    int atual = fronteira[i];
+                    for (int k = plana.inicio[atual]; k < plana.fim[atual]; k++) {
+                        int vizinho = plana.destinos[k];
+                        if (nivel[vizinho] < 0) {
+                            nivel[vizinho] = profundidade;
+                            proxima[tamProxima++] = vizinho;
+                        }
+                    }
+                }
+            }
+
+            for (int i = 0; i < tamProxima; i++) {
+                arcosRestantes -= adjacencia.grau(proxima[i]);
+            }
+            int[] troca = fronteira;
+            fronteira = proxima;
+            proxima = troca;
+            tamFronteira = tamProxima;
+        }
+        return nivel;
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    private static int[] juntarCaminho(int encontroAntes, int encontroDepois, int[] antO, int[] antD) {
+        int tamanho = 0;
+        for (int v = encontroAntes; v != -1; v = antO[v]) {
+            tamanho++;
+        }
+        for (int v = encontroDepois; v != -1; v = antD[v]) {
+            tamanho++;
+        }
+        int[] caminho = new int[tamanho];
+        int i = 0;
+        for (int v = encontroAntes; v != -1; v = antO[v]) {
+            caminho[i++] = v;
+        }
+        // Inverte a metade da origem (estava destino -> origem)
+        for (int a = 0, b = i - 1; a < b; a++, b--) {
+            int t = caminho[a];
+            caminho[a] = caminho[b];
+            caminho[b] = t;
+        }
+        for (int v = encontroDepois; v != -1; v = antD[v]) {
+            caminho[i++] = v;
+        }
+        return caminho;
+    }
+
+    private static boolean marcado(long[] bits, int v) {
+        return (bits[v >>> 6] & (1L << v)) != 0;
+    }
+
+    private static void marcar(long[] bits, int v) {
+        bits[v >>> 6] |= 1L << v;
+    }
+
+    private static void desmarcarTodos(long[] bits, int[] vertices, int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            bits[vertices[i] >>> 6] = 0;
+        }
+    }
+}
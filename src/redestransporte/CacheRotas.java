@@ -0,0 +1,203 @@
+package redestransporte;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache dos caminhos já calculados, por (algoritmo, origem, destino), para
+ * os pares que se repetem muito nas consultas. Guarda só os índices do
+ * caminho (ou a ausência de caminho); o texto é montado a cada consulta.
+ *
+ * Cada entrada leva a versão do grafo em que foi calculada
+ * ({@link Grafo#getVersao()}): uma consulta com outra versão é uma falha e
+ * a entrada é descartada. Assim qualquer alteração do grafo invalida tudo o
+ * que foi calculado antes dela, sem precisar saber quais caminhos mudaram.
+ *
+ * É limitado pela quantidade de entradas e pela soma dos tamanhos dos
+ * caminhos; quando passa de um dos limites, descarta os menos usados
+ * recentemente (LRU). Para várias threads consultarem ao mesmo tempo, as
+ * entradas são divididas em {@link #SEGMENTOS} segmentos pelo hash da
+ * chave, cada um com a sua trava e a sua lista LRU.
+ */
+public class CacheRotas {
+
+    /** Entradas por padrão. */
+    public static final int CAPACIDADE_PADRAO = 16_384;
+    /** Soma dos tamanhos dos caminhos (em vértices) por padrão: 4M índices, 16 MB. */
+    public static final int VERTICES_PADRAO = 1 << 22;
+    /** Quantidade de segmentos (potência de 2). */
+    public static final int SEGMENTOS = 16;
+    private static final int BITS_SEGMENTO = Integer.numberOfTrailingZeros(SEGMENTOS);
+
+    // Tipo da chave para o caminho por paradas (os demais usam o ordinal do ModoBusca)
+    static final int TIPO_PARADAS = -1;
+    // Retorno de obter() quando o par não está no cache (um caminho inexistente é guardado como null)
+    static final int[] AUSENTE = new int[0];
+
+    // Custo fixo de uma entrada, em "vértices", para o limite de tamanho
+    private static final int CUSTO_ENTRADA = 16;
+
+    private final Segmento[] segmentos;
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder descartes = new LongAdder();
+
+    public CacheRotas() {
+        this(CAPACIDADE_PADRAO, VERTICES_PADRAO);
+    }
+
+    /**
+     * @param capacidade Máximo de entradas
+     * @param maxVertices Máximo da soma dos tamanhos dos caminhos guardados
+     */
+    public CacheRotas(int capacidade, int maxVertices) {
+        segmentos = new Segmento[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(Math.max(1, capacidade / SEGMENTOS), Math.max(1, maxVertices / SEGMENTOS));
+        }
+    }
+
+    private record Chave(int tipo, int origem, int destino) {
+        // Os índices de pares vizinhos são parecidos: mistura os bits para
+        // espalhar as chaves entre os segmentos e dentro de cada mapa
+        @Override
+        public int hashCode() {
+            int h = (origem * 0x9E3779B1 + destino) * 0x9E3779B1 + tipo;
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            h ^= h >>> 13;
+            h *= 0xC2B2AE35;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private record Entrada(long versao, int[] caminho) {
+        int tamanho() {
+            return CUSTO_ENTRADA + (caminho != null ? caminho.length : 0);
+        }
+    }
+
+    /**
+     * Procura um caminho calculado na mesma versão do grafo.
+     * @return O caminho (null se não há caminho), ou {@link #AUSENTE} se não
+     *         está no cache. O array é compartilhado: não deve ser alterado.
+     */
+    int[] obter(long versao, int tipo, int origem, int destino) {
+        Chave chave = new Chave(tipo, origem, destino);
+        Entrada entrada = segmento(chave).obter(chave, versao);
+        if (entrada == null) {
+            falhas.increment();
+            return AUSENTE;
+        }
+        acertos.increment();
+        return entrada.caminho();
+    }
+
+    /**
+     * Guarda o caminho calculado na versão informada (null: sem caminho).
+     */
+    void guardar(long versao, int tipo, int origem, int destino, int[] caminho) {
+        Chave chave = new Chave(tipo, origem, destino);
+        segmento(chave).guardar(chave, new Entrada(versao, caminho));
+    }
+
+    /**
+     * Descarta todas as entradas (as estatísticas continuam).
+     */
+    public void limpar() {
+        for (Segmento segmento : segmentos) {
+            segmento.limpar();
+        }
+    }
+
+    private Segmento segmento(Chave chave) {
+        return segmentos[chave.hashCode() >>> (32 - BITS_SEGMENTO)]; // Bits altos; o HashMap usa os baixos
+    }
+
+    // --- ESTATÍSTICAS ---
+
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    /** Entradas descartadas por falta de espaço ou por serem de outra versão. */
+    public long getDescartes() {
+        return descartes.sum();
+    }
+
+    /** Fração das consultas respondidas pelo cache (0 a 1). */
+    public double getTaxaAcertos() {
+        long a = getAcertos();
+        long total = a + getFalhas();
+        return total == 0 ? 0 : (double) a / total;
+    }
+
+    public int getTamanho() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            total += segmento.tamanho();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Cache de rotas: %d entradas | acertos: %d | falhas: %d (%.1f%% de acertos) | descartes: %d",
+                getTamanho(), getAcertos(), getFalhas(), getTaxaAcertos() * 100, getDescartes());
+    }
+
+    // Parte das entradas, com a sua própria trava e ordem de uso
+    private final class Segmento {
+        private final int capacidade;
+        private final int maxVertices;
+        private final LinkedHashMap<Chave, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true); // Ordem de acesso
+        private int vertices; // Soma de Entrada.tamanho()
+
+        Segmento(int capacidade, int maxVertices) {
+            this.capacidade = capacidade;
+            this.maxVertices = maxVertices;
+        }
+
+        synchronized Entrada obter(Chave chave, long versao) {
+            Entrada entrada = entradas.get(chave);
+            if (entrada != null && entrada.versao() != versao) {
+                // Calculada em outra versão do grafo: não vale mais
+                entradas.remove(chave);
+                vertices -= entrada.tamanho();
+                descartes.increment();
+                return null;
+            }
+            return entrada;
+        }
+
+        synchronized void guardar(Chave chave, Entrada entrada) {
+            if (entrada.tamanho() > maxVertices) {
+                return; // Caminho maior que o segmento inteiro
+            }
+            Entrada anterior = entradas.put(chave, entrada);
+            vertices += entrada.tamanho() - (anterior != null ? anterior.tamanho() : 0);
+            Iterator<Map.Entry<Chave, Entrada>> menosRecentes = entradas.entrySet().iterator();
+            while (entradas.size() > capacidade || vertices > maxVertices) {
+                vertices -= menosRecentes.next().getValue().tamanho();
+                menosRecentes.remove();
+                descartes.increment();
+            }
+        }
+
+        synchronized void limpar() {
+            entradas.clear();
+            vertices = 0;
+        }
+
+        synchronized int tamanho() {
+            return entradas.size();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package redestransporte;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Execução de consultas em lote, sem janelas: lê um arquivo com uma
+ * consulta por linha, executa as consultas em paralelo sobre uma mesma
+ * versão da rede ({@link EstadoRede}, que não muda durante o lote) e grava
+ * uma linha de resultado por consulta, na ordem do arquivo.
+ *
+ * Consultas (campos separados por ';', como nos arquivos da rede; linhas em
+ * branco e começando com '#' são ignoradas):
+ *   BFS;origem;destino               caminho com menos paradas
+ *   DIJKSTRA;origem;destino[;modo]   caminho mais curto por peso ({@link ModoBusca}, padrão DIJKSTRA)
+ *   GRAU;id                          grau da estação
+ *   PREFIXO;texto                    estações cujo nome começa com o texto
+ *
+ * Resultados: linha;tipo;status;valor;ids
+ *   valor = paradas (BFS), custo (DIJKSTRA), grau (GRAU) ou quantidade (PREFIXO);
+ *   ids = IDs do caminho, em ordem, ou das estações encontradas, em ordem
+ *   crescente, separados por espaço. Os dois ficam vazios se o status não é OK.
+ *
+ * O arquivo é processado em blocos de {@link #TAMANHO_BLOCO} consultas:
+ * cada bloco é executado em paralelo e gravado antes de o próximo ser lido,
+ * então a memória usada não depende do tamanho do arquivo.
+ */
+public class ConsultasLote {
+
+    /** Quantidade de consultas lidas, executadas e gravadas de cada vez. */
+    public static final int TAMANHO_BLOCO = 8192;
+
+    /**
+     * Resultado de uma consulta.
+     */
+    public enum Status {
+        OK,
+        SEM_CAMINHO,     // As estações existem, mas não estão ligadas
+        NAO_ENCONTRADA,  // Alguma estação da consulta não existe
+        INVALIDA         // Linha mal formatada ou tipo/modo desconhecido
+    }
+
+    /**
+     * Totais do lote: consultas por status e tempo de execução.
+     */
+    public static class Resumo {
+        private final long[] porStatus;
+        private final long nanos;
+
+        private Resumo(long[] porStatus, long nanos) {
+            this.porStatus = porStatus;
+            this.nanos = nanos;
+        }
+
+        public long getTotal() {
+            return Arrays.stream(porStatus).sum();
+        }
+
+        public long getQuantidade(Status status) {
+            return porStatus[status.ordinal()];
+        }
+
+        /** Tempo total, da leitura da primeira consulta à gravação da última. */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /** Consultas por segundo. */
+        public double getVazao() {
+            return nanos == 0 ? 0 : getTotal() * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                    "Consultas: %d em %.2f s (%.0f consultas/s)", getTotal(), nanos / 1e9, getVazao()));
+            for (Status status : Status.values()) {
+                sb.append(" | ").append(status).append(": ").append(porStatus[status.ordinal()]);
+            }
+            return sb.toString();
+        }
+    }
+
+    private ConsultasLote() {
+    }
+
+    /**
+     * Executa todas as consultas do arquivo e grava os resultados.
+     * @param estado Versão da rede usada em todas as consultas
+     * @param arquivoConsultas Arquivo de consultas (UTF-8)
+     * @param arquivoResultados Arquivo de resultados (sobrescrito)
+     * @return Os totais do lote
+     */
+    public static Resumo executar(EstadoRede estado, String arquivoConsultas, String arquivoResultados)
+            throws IOException {
+        LongAdder[] contagem = new LongAdder[Status.values().length];
+        for (int s = 0; s < contagem.length; s++) {
+            contagem[s] = new LongAdder();
+        }
+        String[] linhas = new String[TAMANHO_BLOCO];
+        long[] numeros = new long[TAMANHO_BLOCO];
+        String[] respostas = new String[TAMANHO_BLOCO];
+        long inicio = System.nanoTime();
+
+        try (BufferedReader leitor = Files.newBufferedReader(Paths.get(arquivoConsultas), StandardCharsets.UTF_8);
+             BufferedWriter escritor = Files.newBufferedWriter(Paths.get(arquivoResultados), StandardCharsets.UTF_8)) {
+            escritor.write("linha;tipo;status;valor;ids");
+            escritor.newLine();
+            long numeroLinha = 0;
+            boolean fimArquivo = false;
+            while (!fimArquivo) {
+                // 1. Lê um bloco de consultas
+                int tamanho = 0;
+                while (tamanho < TAMANHO_BLOCO) {
+                    String linha = leitor.readLine();
+                    if (linha == null) {
+                        fimArquivo = true;
+                        break;
+                    }
+                    numeroLinha++;
+                    linha = linha.trim();
+                    if (linha.isEmpty() || linha.startsWith("#")) {
+                        continue;
+                    }
+                    linhas[tamanho] = linha;
+                    numeros[tamanho] = numeroLinha;
+                    tamanho++;
+                }
+
+                // 2. Executa o bloco em paralelo (as buscas usam espaços de trabalho por thread)
+                IntStream.range(0, tamanho).parallel().forEach(i ->
+                        respostas[i] = responder(estado, numeros[i], linhas[i], contagem));
+
+                // 3. Grava na ordem do arquivo
+                for (int i = 0; i < tamanho; i++) {
+                    escritor.write(respostas[i]);
+                    escritor.newLine();
+                }
+            }
+        }
+
+        long[] porStatus = new long[contagem.length];
+        for (int s = 0; s < contagem.length; s++) {
+            porStatus[s] = contagem[s].sum();
+        }
+        return new Resumo(porStatus, System.nanoTime() - inicio);
+    }
+
+    // Executa uma consulta e retorna a linha de resultado
+    private static String responder(EstadoRede estado, long numeroLinha, String linha, LongAdder[] contagem) {
+        String[] campos = linha.split(";");
+        String tipo = campos[0].trim().toUpperCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder();
+        sb.append(numeroLinha).append(';').append(tipo).append(';');
+        Status status;
+        try {
+            switch (tipo) {
+                case "BFS":
+                    status = campos.length == 3 ? caminho(estado.getGrafo(), campos, null, sb) : Status.INVALIDA;
+                    break;
+                case "DIJKSTRA":
+                    if (campos.length == 3 || campos.length == 4) {
+                        ModoBusca modo = campos.length == 4
+                                ? ModoBusca.valueOf(campos[3].trim().toUpperCase(Locale.ROOT)) : ModoBusca.DIJKSTRA;
+                        status = caminho(estado.getGrafo(), campos, modo, sb);
+                    } else {
+                        status = Status.INVALIDA;
+                    }
+                    break;
+                case "GRAU":
+                    status = campos.length == 2 ? grau(estado.getGrafo(), campos, sb) : Status.INVALIDA;
+                    break;
+                case "PREFIXO":
+                    status = campos.length == 2 ? prefixo(estado.getTrie(), campos[1].trim(), sb) : Status.INVALIDA;
+                    break;
+                default:
+                    status = Status.INVALIDA;
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException (ID) ou modo de busca desconhecido
+            status = Status.INVALIDA;
+        }
+        contagem[status.ordinal()].increment();
+        if (status != Status.OK) {
+            sb.setLength(0);
+            sb.append(numeroLinha).append(';').append(tipo).append(';').append(status).append(";;");
+        }
+        return sb.toString();
+    }
+
+    // BFS (modo null) ou caminho por peso; valor = paradas (BFS) ou custo
+    private static Status caminho(Grafo grafo, String[] campos, ModoBusca modo, StringBuilder sb) {
+        int idOrigem = Integer.parseInt(campos[1].trim());
+        int idDestino = Integer.parseInt(campos[2].trim());
+        ResultadoCaminho resultado = modo == null
+                ? grafo.caminhoPorParadas(idOrigem, idDestino)
+                : grafo.caminhoPorPeso(idOrigem, idDestino, modo);
+        if (resultado == null) {
+            return Status.NAO_ENCONTRADA;
+        }
+        if (!resultado.isAlcancavel()) {
+            return Status.SEM_CAMINHO;
+        }
+        long valor = modo == null ? resultado.getParadas() : resultado.getCusto();
+        sb.append(Status.OK).append(';').append(valor).append(';');
+        for (int i = 0; i < resultado.getNumEstacoes(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(resultado.getIdEstacao(i));
+        }
+        return Status.OK;
+    }
+
+    private static Status grau(Grafo grafo, String[] campos, StringBuilder sb) {
+        int indice = grafo.indiceDe(Integer.parseInt(campos[1].trim()));
+        if (indice < 0) {
+            return Status.NAO_ENCONTRADA;
+        }
+        sb.append(Status.OK).append(';').append(grafo.getAdjacencia().grau(indice)).append(';');
+        return Status.OK;
+    }
+
+    private static Status prefixo(Trie trie, String prefixo, StringBuilder sb) {
+        List<Estacao> encontradas = trie.listarPorPrefixo(prefixo);
+        int[] ids = new int[encontradas.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = encontradas.get(i).getId();
+        }
+        Arrays.sort(ids);
+        sb.append(Status.OK).append(';').append(ids.length).append(';');
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(ids[i]);
+        }
+        return Status.OK;
+    }
+}
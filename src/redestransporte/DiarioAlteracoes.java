@@ -0,0 +1,516 @@
+package redestransporte;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Diário (write-ahead log) das alterações feitas na rede depois da carga:
+ * cada estação/conexão adicionada ou removida vira um registro binário
+ * anexado ao fim do arquivo, e o método só retorna depois que o registro
+ * está gravado em disco (fsync).
+ *
+ * Gravação em grupo: os registros de várias threads que chegam enquanto um
+ * fsync está em andamento são gravados juntos no fsync seguinte, por quem
+ * chegou primeiro (os outros só esperam). Quem precisa anexar sob uma trava
+ * própria (para manter a ordem dos registros igual à das alterações) usa os
+ * métodos anexar* dentro dela e {@link #confirmar(long)} depois de soltá-la,
+ * para que a espera pelo disco não segure a trava.
+ *
+ * Na abertura, os registros são reaplicados sobre os arquivos base (um
+ * registro final incompleto ou com CRC inválido, de uma gravação
+ * interrompida, é descartado). Quando o diário passa de
+ * {@link #LIMITE_COMPACTACAO} bytes, {@link #compactarSeNecessario} grava
+ * novos arquivos base em segundo plano e reescreve o diário só com o que
+ * veio depois.
+ *
+ * Formato: cabeçalho (int mágico "RTD1", int versão, long último número de
+ * sequência já incluído nos arquivos base) e registros
+ * [int tamanho][byte tipo][long sequência][dados][int CRC32 de tipo..dados].
+ */
+public class DiarioAlteracoes implements Closeable {
+
+    /** Tamanho do diário (em bytes) a partir do qual ele é compactado. */
+    public static final long LIMITE_COMPACTACAO = 1L << 20;
+
+    private static final int MAGICO = 0x52544431; // "RTD1"
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 16;
+
+    private static final byte ADICIONAR_ESTACAO = 1;
+    private static final byte ADICIONAR_CONEXAO = 2;
+    private static final byte REMOVER_ESTACAO = 3;
+    private static final byte REMOVER_CONEXAO = 4;
+
+    /**
+     * Recebe as alterações lidas do diário, na ordem em que foram feitas.
+     */
+    public interface Aplicador {
+        void adicionarEstacao(Estacao estacao);
+        void adicionarConexao(Conexao conexao);
+        void removerEstacao(int idEstacao);
+        void removerConexao(int idOrigem, int idDestino);
+    }
+
+    private final Path arquivo;
+    private FileChannel canal;
+    private volatile long tamanho; // Bytes já gravados no arquivo (só muda com "gravando")
+
+    // Estado da gravação em grupo, protegido por "trava"
+    private final Object trava = new Object();
+    private final ByteArrayOutputStream pendentes = new ByteArrayOutputStream();
+    private long ultimaSequencia;  // Último número entregue a um registro
+    private long sequenciaGravada; // Último registro garantido em disco
+    private boolean gravando;      // Alguém está escrevendo no arquivo
+    private IOException falha;     // Falha de gravação: o diário não aceita mais registros
+
+    private final ExecutorService segundoPlano = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "compactacao-diario");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> compactacao;
+    private volatile BiConsumer<List<Estacao>, List<Conexao>> aoGravarBase;
+
+    private DiarioAlteracoes(Path arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    // --- ABERTURA E REPETIÇÃO ---
+
+    /**
+     * Abre (ou cria) o diário e reaplica as alterações gravadas nele.
+     * @param nomeArquivo Arquivo do diário
+     * @param aplicador Recebe cada alteração ainda não incluída nos arquivos base
+     * @return O diário, pronto para novos registros
+     */
+    public static DiarioAlteracoes abrir(String nomeArquivo, Aplicador aplicador) throws IOException {
+        DiarioAlteracoes diario = new DiarioAlteracoes(Paths.get(nomeArquivo).toAbsolutePath());
+        diario.repetir(aplicador);
+        return diario;
+    }
+
+    private void repetir(Aplicador aplicador) throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (canal.size() < TAMANHO_CABECALHO) {
+            // Diário novo (ou cabeçalho interrompido): começa do zero
+            canal.truncate(0);
+            canal.write(cabecalho(0), 0);
+            canal.force(true);
+            tamanho = TAMANHO_CABECALHO;
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(canal.size(), Integer.MAX_VALUE));
+        while (buffer.hasRemaining() && canal.read(buffer, buffer.position()) > 0) {
+            // Lê o arquivo inteiro
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGICO || buffer.getInt() != VERSAO) {
+            throw new IOException("Diário de alterações inválido: " + arquivo);
+        }
+        long sequenciaBase = buffer.getLong();
+        ultimaSequencia = sequenciaBase;
+        int fimValido = percorrerRegistros(buffer, (tipo, sequencia, dados) -> {
+            ultimaSequencia = Math.max(ultimaSequencia, sequencia);
+            if (sequencia > sequenciaBase) {
+                aplicar(tipo, dados, aplicador);
+            }
+        });
+        if (fimValido < canal.size()) {
+            System.err.println("Diário: descartando " + (canal.size() - fimValido)
+                    + " byte(s) de um registro incompleto no fim de " + arquivo.getFileName());
+            canal.truncate(fimValido);
+            canal.force(true);
+        }
+        sequenciaGravada = ultimaSequencia;
+        tamanho = fimValido;
+    }
+
+    private interface LeitorRegistro {
+        void registro(byte tipo, long sequencia, ByteBuffer dados) throws IOException;
+    }
+
+    // Percorre os registros a partir da posição atual; retorna o fim do último registro válido
+    private static int percorrerRegistros(ByteBuffer buffer, LeitorRegistro leitor) throws IOException {
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 4) {
+            int inicio = buffer.position();
+            int tamanhoRegistro = buffer.getInt();
+            if (tamanhoRegistro < 9 || (long) tamanhoRegistro + 4 > buffer.remaining()) {
+                return inicio; // Registro cortado no meio
+            }
+            ByteBuffer conteudo = buffer.slice(inicio + 4, tamanhoRegistro);
+            crc.reset();
+            crc.update(conteudo.duplicate());
+            buffer.position(inicio + 4 + tamanhoRegistro);
+            if ((int) crc.getValue() != buffer.getInt()) {
+                return inicio; // Registro corrompido
+            }
+            byte tipo = conteudo.get();
+            long sequencia = conteudo.getLong();
+            leitor.registro(tipo, sequencia, conteudo);
+        }
+        return buffer.position();
+    }
+
+    private static void aplicar(byte tipo, ByteBuffer dados, Aplicador aplicador) throws IOException {
+        switch (tipo) {
+            case ADICIONAR_ESTACAO: {
+                int id = dados.getInt();
+                byte[] nome = new byte[dados.remaining()];
+                dados.get(nome);
+                aplicador.adicionarEstacao(new Estacao(id, new String(nome, StandardCharsets.UTF_8)));
+                break;
+            }
+            case ADICIONAR_CONEXAO:
+                aplicador.adicionarConexao(new Conexao(dados.getInt(), dados.getInt(), dados.getInt()));
+                break;
+            case REMOVER_ESTACAO:
+                aplicador.removerEstacao(dados.getInt());
+                break;
+            case REMOVER_CONEXAO:
+                aplicador.removerConexao(dados.getInt(), dados.getInt());
+                break;
+            default:
+                throw new IOException("Tipo de registro desconhecido no diário: " + tipo);
+        }
+    }
+
+    // --- REGISTRO DAS ALTERAÇÕES ---
+
+    // Os métodos registrar* só retornam quando o registro está em disco
+
+    public void registrarAdicaoEstacao(Estacao estacao) throws IOException {
+        confirmar(anexarAdicaoEstacao(estacao));
+    }
+
+    public void registrarAdicaoConexao(Conexao conexao) throws IOException {
+        confirmar(anexarAdicaoConexao(conexao));
+    }
+
+    public void registrarRemocaoEstacao(int idEstacao) throws IOException {
+        confirmar(anexarRemocaoEstacao(idEstacao));
+    }
+
+    public void registrarRemocaoConexao(int idOrigem, int idDestino) throws IOException {
+        confirmar(anexarRemocaoConexao(idOrigem, idDestino));
+    }
+
+    // Os métodos anexar* só põem o registro na fila e retornam o número de
+    // sequência a passar para confirmar(long)
+
+    public long anexarAdicaoEstacao(Estacao estacao) throws IOException {
+        byte[] nome = estacao.getNome().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer dados = ByteBuffer.allocate(4 + nome.length).putInt(estacao.getId()).put(nome);
+        return anexar(ADICIONAR_ESTACAO, dados);
+    }
+
+    public long anexarAdicaoConexao(Conexao conexao) throws IOException {
+        return anexar(ADICIONAR_CONEXAO, ByteBuffer.allocate(12)
+                .putInt(conexao.getIdOrigem()).putInt(conexao.getIdDestino()).putInt(conexao.getPeso()));
+    }
+
+    public long anexarRemocaoEstacao(int idEstacao) throws IOException {
+        return anexar(REMOVER_ESTACAO, ByteBuffer.allocate(4).putInt(idEstacao));
+    }
+
+    public long anexarRemocaoConexao(int idOrigem, int idDestino) throws IOException {
+        return anexar(REMOVER_CONEXAO, ByteBuffer.allocate(8).putInt(idOrigem).putInt(idDestino));
+    }
+
+    // Anexa o registro aos pendentes (a ordem das sequências é a ordem das chamadas)
+    private long anexar(byte tipo, ByteBuffer dados) throws IOException {
+        synchronized (trava) {
+            if (falha != null) {
+                throw new IOException("Diário indisponível após falha de gravação", falha);
+            }
+            long sequencia = ++ultimaSequencia;
+            byte[] registro = codificar(tipo, sequencia, dados.array());
+            pendentes.write(registro, 0, registro.length);
+            return sequencia;
+        }
+    }
+
+    private static byte[] codificar(byte tipo, long sequencia, byte[] dados) {
+        ByteBuffer registro = ByteBuffer.allocate(4 + 9 + dados.length + 4);
+        registro.putInt(9 + dados.length).put(tipo).putLong(sequencia).put(dados);
+        CRC32 crc = new CRC32();
+        crc.update(registro.array(), 4, 9 + dados.length);
+        registro.putInt((int) crc.getValue());
+        return registro.array();
+    }
+
+    /**
+     * Espera o registro chegar ao disco. Se ninguém está gravando, esta
+     * thread grava todos os pendentes (inclusive os de outras threads) com
+     * um único fsync; senão espera a gravação atual e tenta de novo.
+     * @param sequencia Número retornado por um dos métodos anexar*
+     * @throws IOException se a gravação falhou (o diário não aceita mais registros)
+     */
+    public void confirmar(long sequencia) throws IOException {
+        byte[] lote;
+        long ate;
+        synchronized (trava) {
+            while (sequenciaGravada < sequencia && gravando) {
+                esperar();
+            }
+            if (sequenciaGravada >= sequencia) {
+                return;
+            }
+            if (falha != null) {
+                throw new IOException("Diário indisponível após falha de gravação", falha);
+            }
+            gravando = true;
+            lote = pendentes.toByteArray();
+            pendentes.reset();
+            ate = ultimaSequencia;
+        }
+        IOException erro = null;
+        try {
+            gravarNoFim(lote);
+        } catch (IOException e) {
+            erro = e;
+        }
+        synchronized (trava) {
+            gravando = false;
+            if (erro == null) {
+                sequenciaGravada = ate;
+            } else {
+                falha = erro;
+            }
+            trava.notifyAll();
+        }
+        if (erro != null) {
+            throw erro;
+        }
+    }
+
+    // Só quem está com "gravando" chama
+    private void gravarNoFim(byte[] lote) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(lote);
+        while (buffer.hasRemaining()) {
+            tamanho += canal.write(buffer, tamanho);
+        }
+        canal.force(false);
+    }
+
+    private void esperar() throws IOException {
+        try {
+            trava.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido esperando o diário");
+        }
+    }
+
+    /**
+     * Tamanho atual do diário em bytes.
+     */
+    public long getTamanho() {
+        return tamanho;
+    }
+
+    // --- COMPACTAÇÃO ---
+
+    /**
+     * Define quem é avisado (na thread da compactação) do conteúdo dos novos
+     * arquivos base, logo antes de eles substituírem os atuais.
+     */
+    public void setAoGravarBase(BiConsumer<List<Estacao>, List<Conexao>> aoGravarBase) {
+        this.aoGravarBase = aoGravarBase;
+    }
+
+    /**
+     * Se o diário passou de {@link #LIMITE_COMPACTACAO}, grava o estado atual
+     * do grafo como novos arquivos base e reescreve o diário só com as
+     * alterações posteriores. A cópia do estado é feita aqui (deve ser
+     * chamado pela mesma thread que altera o grafo); a gravação, em segundo plano.
+     * @return true se uma compactação foi iniciada
+     */
+    public boolean compactarSeNecessario(Grafo grafo, String arquivoEstacoes, String arquivoConexoes) {
+        if (getTamanho() < LIMITE_COMPACTACAO || (compactacao != null && !compactacao.isDone())) {
+            return false;
+        }
+        List<Estacao> estacoes = new ArrayList<>(grafo.getTodasEstacoes());
+        estacoes.sort(Comparator.comparingInt(Estacao::getId));
+        List<Conexao> conexoes = new ArrayList<>(grafo.getTodasConexoes());
+        long sequenciaBase;
+        synchronized (trava) {
+            sequenciaBase = ultimaSequencia; // Tudo até aqui está no estado copiado
+        }
+        compactacao = segundoPlano.submit(() -> {
+            try {
+                gravarBase(estacoes, conexoes, arquivoEstacoes, arquivoConexoes);
+                reescrever(sequenciaBase);
+            } catch (IOException e) {
+                System.err.println("Falha ao compactar o diário: " + e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    /*
+     * Grava os arquivos base (no formato lido por LeitorArquivos) em
+     * temporários e troca pelos atuais. Se o programa parar entre as trocas
+     * ou antes de o diário ser reescrito, o diário antigo ainda está completo
+     * e reaplicá-lo sobre a base nova (ou a mistura) dá o mesmo resultado:
+     * cada registro define ou apaga uma estação/conexão, o último registro
+     * de cada uma é o que vale e só alterações que tiveram efeito são registradas.
+     */
+    private void gravarBase(List<Estacao> estacoes, List<Conexao> conexoes,
+                                   String arquivoEstacoes, String arquivoConexoes) throws IOException {
+        Path temporarioEstacoes = temporario(Paths.get(arquivoEstacoes));
+        try (BufferedWriter out = Files.newBufferedWriter(temporarioEstacoes, StandardCharsets.UTF_8)) {
+            for (Estacao e : estacoes) {
+                out.write(e.getId() + ";" + e.getNome());
+                out.newLine();
+            }
+        }
+        Path temporarioConexoes = temporario(Paths.get(arquivoConexoes));
+        try (BufferedWriter out = Files.newBufferedWriter(temporarioConexoes, StandardCharsets.UTF_8)) {
+            for (Conexao c : conexoes) {
+                out.write(c.getIdOrigem() + ";" + c.getIdDestino() + ";" + c.getPeso());
+                out.newLine();
+            }
+        }
+        sincronizar(temporarioEstacoes);
+        sincronizar(temporarioConexoes);
+        BiConsumer<List<Estacao>, List<Conexao>> ouvinte = aoGravarBase;
+        if (ouvinte != null) {
+            ouvinte.accept(estacoes, conexoes);
+        }
+        Files.move(temporarioEstacoes, Paths.get(arquivoEstacoes),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(temporarioConexoes, Paths.get(arquivoConexoes),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * Troca o diário por um novo cujo cabeçalho marca sequenciaBase como já
+     * incluída na base, copiando os registros posteriores (inclusive os
+     * pendentes). Durante a troca ninguém mais grava no arquivo.
+     */
+    private void reescrever(long sequenciaBase) throws IOException {
+        byte[] lote;
+        long ate;
+        synchronized (trava) {
+            while (gravando) {
+                esperar();
+            }
+            if (falha != null) {
+                return;
+            }
+            gravando = true;
+            lote = pendentes.toByteArray();
+            pendentes.reset();
+            ate = ultimaSequencia;
+        }
+        IOException erro = null;
+        try {
+            ByteBuffer atual = ByteBuffer.allocate((int) tamanho);
+            while (atual.hasRemaining() && canal.read(atual, atual.position()) > 0) {
+                // Lê o diário inteiro
+            }
+            atual.flip();
+            atual.position(TAMANHO_CABECALHO);
+            ByteArrayOutputStream restantes = new ByteArrayOutputStream();
+            percorrerRegistros(atual, (tipo, sequencia, dados) -> {
+                if (sequencia > sequenciaBase) {
+                    byte[] conteudo = new byte[dados.remaining()];
+                    dados.get(conteudo);
+                    byte[] registro = codificar(tipo, sequencia, conteudo);
+                    restantes.write(registro, 0, registro.length);
+                }
+            });
+            restantes.write(lote, 0, lote.length);
+
+            Path novo = temporario(arquivo);
+            try (FileChannel saida = FileChannel.open(novo, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_CABECALHO + restantes.size());
+                buffer.put(cabecalho(sequenciaBase)).put(restantes.toByteArray()).flip();
+                while (buffer.hasRemaining()) {
+                    saida.write(buffer);
+                }
+                saida.force(true);
+            }
+            canal.close();
+            Files.move(novo, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            tamanho = canal.size();
+        } catch (IOException e) {
+            erro = e;
+        }
+        synchronized (trava) {
+            gravando = false;
+            if (erro == null) {
+                sequenciaGravada = ate;
+            } else {
+                falha = erro;
+            }
+            trava.notifyAll();
+        }
+        if (erro != null) {
+            throw erro;
+        }
+    }
+
+    private static ByteBuffer cabecalho(long sequenciaBase) {
+        return ByteBuffer.allocate(TAMANHO_CABECALHO)
+                .putInt(MAGICO).putInt(VERSAO).putLong(sequenciaBase).flip();
+    }
+
+    private static Path temporario(Path caminho) {
+        Path absoluto = caminho.toAbsolutePath();
+        return absoluto.resolveSibling(absoluto.getFileName() + ".tmp");
+    }
+
+    private static void sincronizar(Path caminho) throws IOException {
+        try (FileChannel c = FileChannel.open(caminho, StandardOpenOption.WRITE)) {
+            c.force(true);
+        }
+    }
+
+    /**
+     * Espera a compactação em andamento (se houver) e fecha o arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        segundoPlano.shutdown();
+        if (compactacao != null) {
+            try {
+                compactacao.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Falha ao compactar o diário: " + e.getCause());
+            }
+        }
+        synchronized (trava) {
+            while (gravando) {
+                esperar();
+            }
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package redestransporte;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diferença entre duas versões dos arquivos da rede (estações e conexões):
+ * o que foi adicionado, removido ou alterado. Aplicar a diferença ao grafo
+ * (e à BST e à Trie) custa O(tamanho da diferença), em vez de recarregar tudo.
+ */
+public class DiferencaRede {
+
+    /**
+     * Conteúdo dos arquivos da rede, com as mesmas regras da carga no grafo:
+     * uma estação por ID e uma conexão por par de estações (vale a última).
+     */
+    public static class Conteudo {
+        private final MapaIntObjeto<Estacao> estacoes;
+        private final Map<Long, Conexao> conexoes; // Pela chave do par (ver Grafo.chavePar)
+
+        private Conteudo(MapaIntObjeto<Estacao> estacoes, Map<Long, Conexao> conexoes) {
+            this.estacoes = estacoes;
+            this.conexoes = conexoes;
+        }
+
+        /**
+         * Monta o conteúdo a partir de listas de estações e conexões.
+         */
+        public static Conteudo de(Collection<Estacao> estacoes, Collection<Conexao> conexoes) {
+            MapaIntObjeto<Estacao> porId = new MapaIntObjeto<>(estacoes.size());
+            for (Estacao e : estacoes) {
+                porId.colocar(e.getId(), e);
+            }
+            Map<Long, Conexao> porPar = new LinkedHashMap<>();
+            for (Conexao c : conexoes) {
+                porPar.put(Grafo.chavePar(c.getIdOrigem(), c.getIdDestino()), c);
+            }
+            return new Conteudo(porId, porPar);
+        }
+
+        /**
+         * Conteúdo atual do grafo.
+         */
+        public static Conteudo deGrafo(Grafo grafo) {
+            return de(grafo.getTodasEstacoes(), grafo.getTodasConexoes());
+        }
+
+        /**
+         * Lê o conteúdo dos arquivos (ver {@link LeitorArquivos}).
+         */
+        public static Conteudo lerArquivos(String arquivoEstacoes, String arquivoConexoes) throws IOException {
+            return de(LeitorArquivos.lerEstacoes(arquivoEstacoes), LeitorArquivos.lerConexoes(arquivoConexoes));
+        }
+    }
+
+    private final List<Estacao> estacoesNovas = new ArrayList<>();
+    private final List<Estacao> estacoesRenomeadas = new ArrayList<>(); // Com o nome novo
+    private final List<Integer> estacoesRemovidas = new ArrayList<>();
+    private final List<Conexao> conexoesNovas = new ArrayList<>();
+    private final List<Conexao> conexoesAlteradas = new ArrayList<>(); // Peso (ou sentido) novo
+    private final List<Conexao> conexoesRemovidas = new ArrayList<>();
+    private final List<Registro> aplicadas = new ArrayList<>(); // Mudanças que tiveram efeito (ver aplicar)
+
+    // Grava uma mudança no diário; retorna o número de sequência do registro
+    private interface Registro {
+        long anexar(DiarioAlteracoes diario) throws IOException;
+    }
+
+    private DiferencaRede() {
+    }
+
+    /**
+     * Calcula o que mudou de "antes" para "depois".
+     */
+    public static DiferencaRede calcular(Conteudo antes, Conteudo depois) {
+        DiferencaRede diferenca = new DiferencaRede();
+        for (Estacao e : depois.estacoes.valores()) {
+            Estacao anterior = antes.estacoes.obter(e.getId());
+            if (anterior == null) {
+                diferenca.estacoesNovas.add(e);
+            } else if (!anterior.getNome().equals(e.getNome())) {
+                diferenca.estacoesRenomeadas.add(e);
+            }
+        }
+        for (Estacao e : antes.estacoes.valores()) {
+            if (!depois.estacoes.contem(e.getId())) {
+                diferenca.estacoesRemovidas.add(e.getId());
+            }
+        }
+        for (Map.Entry<Long, Conexao> entrada : depois.conexoes.entrySet()) {
+            Conexao c = entrada.getValue();
+            Conexao anterior = antes.conexoes.get(entrada.getKey());
+            if (anterior == null) {
+                diferenca.conexoesNovas.add(c);
+            } else if (anterior.getPeso() != c.getPeso() || anterior.getIdOrigem() != c.getIdOrigem()) {
+                diferenca.conexoesAlteradas.add(c);
+            }
+        }
+        for (Map.Entry<Long, Conexao> entrada : antes.conexoes.entrySet()) {
+            if (!depois.conexoes.containsKey(entrada.getKey())) {
+                diferenca.conexoesRemovidas.add(entrada.getValue());
+            }
+        }
+        return diferenca;
+    }
+
+    public boolean isVazia() {
+        return estacoesNovas.isEmpty() && estacoesRenomeadas.isEmpty() && estacoesRemovidas.isEmpty()
+                && conexoesNovas.isEmpty() && conexoesAlteradas.isEmpty() && conexoesRemovidas.isEmpty();
+    }
+
+    /**
+     * Aplica a diferença ao grafo e aos índices de busca por nome. Estações
+     * novas entram antes das conexões, e as removidas saem por último (levando
+     * junto as conexões que ainda tiverem). As mudanças que tiveram efeito
+     * ficam guardadas, na ordem, para {@link #anexarAoDiario}.
+     */
+    public void aplicar(Grafo grafo, BST bst, Trie trie) {
+        aplicadas.clear();
+        for (Estacao e : estacoesNovas) {
+            grafo.adicionarEstacao(e);
+            bst.inserir(e);
+            trie.inserir(e);
+            aplicadas.add(diario -> diario.anexarAdicaoEstacao(e));
+        }
+        for (Estacao e : estacoesRenomeadas) {
+            Estacao anterior = grafo.getEstacaoPorId(e.getId());
+            if (anterior != null) {
+                bst.remover(anterior);
+                trie.remover(anterior);
+            }
+            grafo.adicionarEstacao(e); // Mesmo ID: substitui, mantendo as conexões
+            bst.inserir(e);
+            trie.inserir(e);
+            aplicadas.add(diario -> diario.anexarAdicaoEstacao(e));
+        }
+        for (Conexao c : conexoesRemovidas) {
+            if (grafo.removerConexao(c.getIdOrigem(), c.getIdDestino())) {
+                aplicadas.add(diario -> diario.anexarRemocaoConexao(c.getIdOrigem(), c.getIdDestino()));
+            }
+        }
+        for (Conexao c : conexoesNovas) {
+            adicionarConexao(grafo, c);
+        }
+        for (Conexao c : conexoesAlteradas) {
+            adicionarConexao(grafo, c); // Substitui a conexão do mesmo par
+        }
+        for (int id : estacoesRemovidas) {
+            Estacao anterior = grafo.getEstacaoPorId(id);
+            if (anterior != null && grafo.removerEstacao(id)) {
+                bst.remover(anterior);
+                trie.remover(anterior);
+                aplicadas.add(diario -> diario.anexarRemocaoEstacao(id));
+            }
+        }
+    }
+
+    // O grafo ignora conexões com estações que não existem (removidas pelo
+    // CRUD, por exemplo); essas não vão para o diário
+    private void adicionarConexao(Grafo grafo, Conexao c) {
+        if (grafo.getEstacaoPorId(c.getIdOrigem()) != null && grafo.getEstacaoPorId(c.getIdDestino()) != null) {
+            grafo.adicionarConexao(c);
+            aplicadas.add(diario -> diario.anexarAdicaoConexao(c));
+        }
+    }
+
+    /**
+     * Anexa ao diário as mudanças que a última chamada de {@link #aplicar}
+     * fez, na mesma ordem. Assim a repetição do diário na próxima carga
+     * refaz a recarga depois das alterações do CRUD que vieram antes dela,
+     * em vez de deixar essas alterações valerem sobre os arquivos novos.
+     * Só entram mudanças que tiveram efeito (ver DiarioAlteracoes.gravarBase).
+     * @return Número de sequência do último registro (0 se nada mudou), para
+     *         {@link DiarioAlteracoes#confirmar(long)}
+     */
+    public long anexarAoDiario(DiarioAlteracoes diario) throws IOException {
+        long sequencia = 0;
+        for (Registro registro : aplicadas) {
+            sequencia = registro.anexar(diario);
+        }
+        return sequencia;
+    }
+
+    @Override
+    public String toString() {
+        return "Estações: +" + estacoesNovas.size() + " -" + estacoesRemovidas.size()
+                + " ~" + estacoesRenomeadas.size() + " | Conexões: +" + conexoesNovas.size()
+                + " -" + conexoesRemovidas.size() + " ~" + conexoesAlteradas.size();
+    }
+}
@@ -0,0 +1,118 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Área de trabalho reutilizável de uma busca (distâncias, anteriores e heap).
+ *
+ * Em vez de alocar e preencher arrays de tamanho V a cada consulta, cada
+ * posição guarda a "geração" em que foi escrita: ao iniciar uma nova busca
+ * basta incrementar a geração, e valores de buscas anteriores passam a ser
+ * tratados como "não visitado". Cada thread usa o seu próprio espaço
+ * (ver {@link #daThread()}), então não há sincronização.
+ */
+public class EspacoBusca {
+
+    public static final int INFINITO = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<EspacoBusca> DA_THREAD = ThreadLocal.withInitial(EspacoBusca::new);
+    private static final ThreadLocal<EspacoBusca> REVERSO_DA_THREAD = ThreadLocal.withInitial(EspacoBusca::new);
+
+    private int[] distancia = new int[0];
+    private int[] anterior = new int[0];
+    private int[] marcaTocado = new int[0];  // Geração em que distancia/anterior foram escritos
+    private int[] marcaFechado = new int[0]; // Geração em que o vértice foi finalizado
+    private int geracao = 0;
+    private HeapIndexado heap = new HeapIndexado(0);
+
+    /**
+     * Retorna o espaço de busca da thread atual.
+     */
+    public static EspacoBusca daThread() {
+        return DA_THREAD.get();
+    }
+
+    /**
+     * Retorna um segundo espaço da thread atual, usado pelo lado do destino
+     * nas buscas bidirecionais.
+     */
+    public static EspacoBusca reversoDaThread() {
+        return REVERSO_DA_THREAD.get();
+    }
+
+    /**
+     * Prepara o espaço para uma nova busca em um grafo com numVertices vértices.
+     * Só aloca quando o grafo cresceu além da capacidade atual.
+     */
+    public void iniciar(int numVertices) {
+        if (numVertices > distancia.length) {
+            int capacidade = Math.max(numVertices, distancia.length + (distancia.length >> 1));
+            distancia = new int[capacidade];
+            anterior = new int[capacidade];
+            marcaTocado = new int[capacidade];
+            marcaFechado = new int[capacidade];
+            heap = new HeapIndexado(capacidade);
+            geracao = 0;
+        } else {
+            heap.limpar();
+        }
+        if (geracao == Integer.MAX_VALUE) {
+            // Estouro do contador (raro): aí sim zera as marcas
+            Arrays.fill(marcaTocado, 0);
+            Arrays.fill(marcaFechado, 0);
+            geracao = 0;
+        }
+        geracao++;
+    }
+
+    public HeapIndexado getHeap() {
+        return heap;
+    }
+
+    public int distancia(int v) {
+        return marcaTocado[v] == geracao ? distancia[v] : INFINITO;
+    }
+
+    public int anterior(int v) {
+        return marcaTocado[v] == geracao ? anterior[v] : -1;
+    }
+
+    public boolean foiAlcancado(int v) {
+        return marcaTocado[v] == geracao;
+    }
+
+    public void definir(int v, int dist, int ant) {
+        distancia[v] = dist;
+        anterior[v] = ant;
+        marcaTocado[v] = geracao;
+    }
+
+    public boolean estaFechado(int v) {
+        return marcaFechado[v] == geracao;
+    }
+
+    public void fechar(int v) {
+        marcaFechado[v] = geracao;
+    }
+
+    /**
+     * Reconstrói o caminho origem -> destino seguindo os anteriores.
+     * @return Os índices do caminho, ou null se o destino não foi alcançado
+     */
+    public int[] extrairCaminho(int origem, int destino) {
+        if (!foiAlcancado(destino)) {
+            return null;
+        }
+        int tamanho = 1;
+        for (int v = destino; v != origem; v = anterior(v)) {
+            tamanho++;
+        }
+        int[] caminho = new int[tamanho];
+        int v = destino;
+        for (int i = tamanho - 1; i >= 0; i--) {
+            caminho[i] = v;
+            v = anterior(v);
+        }
+        return caminho;
+    }
+}
@@ -0,0 +1,141 @@
+package redestransporte;
+
+/**
+ * Uma versão da rede: o grafo e os índices de busca por nome (BST e Trie)
+ * como estavam em um momento. Depois de publicada, uma versão não muda
+ * mais, então pode ser lida por várias threads ao mesmo tempo, sem trava.
+ *
+ * Para alterar a rede, monta-se a próxima versão ao lado da atual com um
+ * {@link Rascunho}: o grafo compartilha com a versão anterior os blocos que
+ * não mudaram (ver {@link Grafo#copiar()}), e a BST e a Trie, os nós. Quem
+ * ainda está lendo a versão anterior continua vendo tudo como estava; quem
+ * pegar a nova a vê já completa.
+ */
+public final class EstadoRede {
+
+    private final Grafo grafo;
+    private final BST bst;
+    private final Trie trie;
+    private final long versao;
+
+    private EstadoRede(Grafo grafo, BST bst, Trie trie, long versao) {
+        this.grafo = grafo;
+        this.bst = bst;
+        this.trie = trie;
+        this.versao = versao;
+    }
+
+    /**
+     * Primeira versão, com as estruturas montadas na carga. Elas não devem
+     * mais ser alteradas diretamente depois desta chamada.
+     */
+    public static EstadoRede inicial(Grafo grafo, BST bst, Trie trie) {
+        prepararParaLeitura(grafo);
+        return new EstadoRede(grafo, bst, trie, 1);
+    }
+
+    public Grafo getGrafo() {
+        return grafo;
+    }
+
+    public BST getBst() {
+        return bst;
+    }
+
+    public Trie getTrie() {
+        return trie;
+    }
+
+    /**
+     * Número da versão: cresce a cada {@link Rascunho#publicar()}.
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Começa a montar a próxima versão a partir desta.
+     */
+    public Rascunho editar() {
+        return new Rascunho(this);
+    }
+
+    // Monta a adjacência, se ainda não existe, e congela o grafo. As lápides
+    // de estações removidas ficam (as leituras as pulam): a compactação só
+    // acontece ao passar do limite, em um rascunho (ver Grafo.removerEstacao)
+    private static void prepararParaLeitura(Grafo grafo) {
+        if (grafo.getAdjacencia() == null) {
+            grafo.gerarMatrizAdjacencia();
+        }
+        grafo.congelar();
+    }
+
+    /**
+     * Próxima versão em construção. As estruturas são copiadas na primeira
+     * vez que são pedidas (uma alteração só de conexões não copia a BST nem
+     * a Trie). Um rascunho é usado por uma thread só e pode ser descartado
+     * sem efeito algum sobre a versão de origem.
+     */
+    public static final class Rascunho {
+        private final EstadoRede base;
+        private Grafo grafo;
+        private BST bst;
+        private Trie trie;
+
+        private Rascunho(EstadoRede base) {
+            this.base = base;
+        }
+
+        /**
+         * Versão a partir da qual o rascunho foi criado (para consultas
+         * antes de alterar, sem copiar nada).
+         */
+        public EstadoRede getBase() {
+            return base;
+        }
+
+        /**
+         * Grafo da próxima versão: na primeira chamada, uma cópia do grafo da
+         * base que compartilha os blocos com ele (O((V + E) / tamanho do
+         * bloco), ver {@link Grafo#copiar()}).
+         */
+        public Grafo getGrafo() {
+            if (grafo == null) {
+                grafo = base.grafo.copiar();
+            }
+            return grafo;
+        }
+
+        public BST getBst() {
+            if (bst == null) {
+                bst = base.bst.copiar();
+            }
+            return bst;
+        }
+
+        public Trie getTrie() {
+            if (trie == null) {
+                trie = base.trie.copiar();
+            }
+            return trie;
+        }
+
+        /**
+         * Fecha o rascunho como uma nova versão. O rascunho não deve mais
+         * ser usado depois disso.
+         */
+        public EstadoRede publicar() {
+            Grafo novoGrafo = grafo != null ? grafo : base.grafo;
+            if (grafo != null) {
+                prepararParaLeitura(grafo); // O da base já está congelado
+                // Refaz os pré-processamentos em uso fora das consultas (ver Grafo.dijkstra)
+                base.grafo.marcarSubstituido();
+                grafo.prepararEmSegundoPlano();
+            }
+            return new EstadoRede(novoGrafo,
+                    bst != null ? bst : base.bst,
+                    trie != null ? trie : base.trie,
+                    base.versao + 1);
+        }
+    }
+}
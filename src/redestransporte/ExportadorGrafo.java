@@ -0,0 +1,537 @@
+package redestransporte;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Exporta a rede (ou parte dela) para ferramentas de visualização e
+ * análise: DOT (Graphviz), GraphML, Mermaid e lista de arestas em CSV.
+ *
+ * A exportação é escrita direto no {@link Writer}, estação por estação e
+ * conexão por conexão, lendo a adjacência do grafo: nada do texto fica em
+ * memória, só um bit por estação para o recorte. Cada conexão aparece uma
+ * vez (o grafo não é direcionado); conexões com peso <= 0 não ligam as
+ * estações e não são exportadas.
+ *
+ * Redes grandes não cabem em um diagrama: um {@link Recorte} limita a
+ * exportação à vizinhança de uma estação (até k paradas) ou ao componente
+ * conexo dela.
+ */
+public final class ExportadorGrafo {
+
+    /**
+     * Formatos de exportação.
+     */
+    public enum Formato {
+        DOT("DOT (Graphviz)", ".dot"),
+        GRAPHML("GraphML", ".graphml"),
+        MERMAID("Mermaid", ".mmd"),
+        CSV("Lista de Arestas (CSV)", ".csv");
+
+        private final String nome;
+        private final String extensao;
+
+        Formato(String nome, String extensao) {
+            this.nome = nome;
+            this.extensao = extensao;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        /** Extensão usual dos arquivos do formato (com o ponto). */
+        public String getExtensao() {
+            return extensao;
+        }
+
+        @Override
+        public String toString() {
+            return nome;
+        }
+    }
+
+    private ExportadorGrafo() {
+    }
+
+    // --- RECORTES ---
+
+    /**
+     * Estações incluídas na exportação. As conexões exportadas são as que
+     * ligam duas estações do recorte.
+     */
+    public static final class Recorte {
+        private final long[] incluidas; // Bit por índice interno; null: todas as estações
+        private final String descricao;
+
+        private Recorte(long[] incluidas, String descricao) {
+            this.incluidas = incluidas;
+            this.descricao = descricao;
+        }
+
+        /**
+         * A rede inteira.
+         */
+        public static Recorte redeInteira() {
+            return new Recorte(null, "rede inteira");
+        }
+
+        /**
+         * As estações a até maxParadas conexões da estação central. A busca
+         * para no último nível: o custo é proporcional à vizinhança, não à rede.
+         * @param grafo O grafo (com a adjacência já gerada)
+         * @param idCentro ID da estação central
+         * @param maxParadas Número máximo de paradas (0: só a própria estação)
+         * @throws IllegalArgumentException se a estação não existe ou maxParadas < 0
+         */
+        public static Recorte vizinhanca(Grafo grafo, int idCentro, int maxParadas) {
+            if (maxParadas < 0) {
+                throw new IllegalArgumentException("Número de paradas negativo: " + maxParadas);
+            }
+            AdjacenciaCSR adjacencia = grafo.getAdjacencia();
+            int centro = indiceExistente(grafo, idCentro);
+            long[] incluidas = new long[(adjacencia.getNumVertices() + 63) >>> 6];
+
+            // BFS por níveis: [inicioNivel, fimFila) é o nível atual
+            int[] fila = new int[16];
+            int fimFila = 0;
+            fila[fimFila++] = centro;
+            marcar(incluidas, centro);
+            int inicioNivel = 0;
+            for (int nivel = 0; nivel < maxParadas && inicioNivel < fimFila; nivel++) {
+                int fimNivel = fimFila;
+                for (int i = inicioNivel; i < fimNivel; i++) {
+                    int atual = fila[i];
+                    for (int k = adjacencia.inicio(atual); k < adjacencia.fim(atual); k++) {
+                        int vizinho = adjacencia.destino(k);
+                        if (!marcado(incluidas, vizinho)) {
+                            marcar(incluidas, vizinho);
+                            if (fimFila == fila.length) {
+                                fila = Arrays.copyOf(fila, fila.length * 2);
+                            }
+                            fila[fimFila++] = vizinho;
+                        }
+                    }
+                }
+                inicioNivel = fimNivel;
+            }
+            return new Recorte(incluidas, "até " + maxParadas + " parada(s) de [" + idCentro + "]");
+        }
+
+        /**
+         * O componente conexo da estação (todas as estações alcançáveis a partir dela).
+         * @param grafo O grafo (com a adjacência já gerada)
+         * @param idEstacao ID de uma estação do componente
+         * @throws IllegalArgumentException se a estação não existe
+         */
+        public static Recorte componente(Grafo grafo, int idEstacao) {
+            AdjacenciaCSR adjacencia = grafo.getAdjacencia();
+            int[] nivel = BuscaLargura.niveis(adjacencia, indiceExistente(grafo, idEstacao));
+            long[] incluidas = new long[(nivel.length + 63) >>> 6];
+            for (int v = 0; v < nivel.length; v++) {
+                if (nivel[v] >= 0) {
+                    marcar(incluidas, v);
+                }
+            }
+            return new Recorte(incluidas, "componente conexo de [" + idEstacao + "]");
+        }
+
+        private static int indiceExistente(Grafo grafo, int id) {
+            int indice = grafo.indiceDe(id);
+            if (indice < 0) {
+                throw new IllegalArgumentException("Estação não encontrada: " + id);
+            }
+            return indice;
+        }
+
+        boolean contem(int indice) {
+            return incluidas == null || marcado(incluidas, indice);
+        }
+
+        public String getDescricao() {
+            return descricao;
+        }
+
+        @Override
+        public String toString() {
+            return descricao;
+        }
+    }
+
+    private static boolean marcado(long[] bits, int v) {
+        return (bits[v >>> 6] & (1L << v)) != 0;
+    }
+
+    private static void marcar(long[] bits, int v) {
+        bits[v >>> 6] |= 1L << v;
+    }
+
+    // --- EXPORTAÇÃO ---
+
+    /**
+     * Quantidades exportadas.
+     */
+    public static final class Resumo {
+        private final int estacoes;
+        private final long conexoes;
+        private final long nanos;
+
+        private Resumo(int estacoes, long conexoes, long nanos) {
+            this.estacoes = estacoes;
+            this.conexoes = conexoes;
+            this.nanos = nanos;
+        }
+
+        public int getEstacoes() {
+            return estacoes;
+        }
+
+        public long getConexoes() {
+            return conexoes;
+        }
+
+        /** Tempo da exportação (escrita incluída). */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d estações e %d conexões exportadas em %d ms",
+                    estacoes, conexoes, nanos / 1_000_000);
+        }
+    }
+
+    /**
+     * Grava a exportação em um arquivo UTF-8 (sobrescrito).
+     * @param grafo O grafo (com a adjacência já gerada); não pode mudar durante a exportação
+     * @param formato O formato
+     * @param recorte Estações a exportar
+     * @param nomeArquivo Arquivo de saída
+     * @return As quantidades exportadas
+     */
+    public static Resumo exportar(Grafo grafo, Formato formato, Recorte recorte, String nomeArquivo)
+            throws IOException {
+        try (BufferedWriter saida = Files.newBufferedWriter(Paths.get(nomeArquivo), StandardCharsets.UTF_8)) {
+            return exportar(grafo, formato, recorte, saida);
+        }
+    }
+
+    /**
+     * Escreve a exportação no Writer (que não é fechado).
+     * @param grafo O grafo (com a adjacência já gerada); não pode mudar durante a exportação
+     * @param formato O formato
+     * @param recorte Estações a exportar
+     * @param saida Destino do texto
+     * @return As quantidades exportadas
+     */
+    public static Resumo exportar(Grafo grafo, Formato formato, Recorte recorte, Writer saida) throws IOException {
+        long inicio = System.nanoTime();
+        Escrita escrita = escritaDe(formato, saida);
+        AdjacenciaCSR adjacencia = grafo.getAdjacencia();
+        int numIndices = adjacencia.getNumVertices();
+
+        escrita.cabecalho(recorte);
+
+        // 1. Estações, na ordem dos índices internos
+        int estacoes = 0;
+        for (int v = 0; v < numIndices; v++) {
+            if (grafo.indiceAtivo(v) && recorte.contem(v)) {
+                int id = grafo.idDe(v);
+                escrita.estacao(id, String.valueOf(grafo.getEstacaoPorId(id).getNome()));
+                estacoes++;
+            }
+        }
+
+        // 2. Conexões: cada aresta sai da linha do menor índice (w >= v)
+        escrita.inicioConexoes();
+        long conexoes = 0;
+        for (int v = 0; v < numIndices; v++) {
+            if (!recorte.contem(v)) {
+                continue;
+            }
+            for (int k = adjacencia.inicio(v); k < adjacencia.fim(v); k++) {
+                int w = adjacencia.destino(k);
+                if (w >= v && recorte.contem(w)) {
+                    escrita.conexao(grafo.idDe(v), grafo.idDe(w), adjacencia.peso(k), grafo);
+                    conexoes++;
+                }
+            }
+        }
+
+        escrita.rodape();
+        saida.flush();
+        return new Resumo(estacoes, conexoes, System.nanoTime() - inicio);
+    }
+
+    private static Escrita escritaDe(Formato formato, Writer saida) {
+        switch (formato) {
+            case DOT:
+                return new EscritaDot(saida);
+            case GRAPHML:
+                return new EscritaGraphML(saida);
+            case MERMAID:
+                return new EscritaMermaid(saida);
+            case CSV:
+            default:
+                return new EscritaCsv(saida);
+        }
+    }
+
+    // Partes do arquivo de um formato, escritas nesta ordem: cabeçalho, as
+    // estações, início das conexões, as conexões e rodapé
+    private abstract static class Escrita {
+        protected final Writer saida;
+
+        Escrita(Writer saida) {
+            this.saida = saida;
+        }
+
+        void cabecalho(Recorte recorte) throws IOException {
+        }
+
+        abstract void estacao(int id, String nome) throws IOException;
+
+        void inicioConexoes() throws IOException {
+        }
+
+        // O grafo é passado para os formatos que repetem os nomes nas conexões
+        abstract void conexao(int idA, int idB, int peso, Grafo grafo) throws IOException;
+
+        void rodape() throws IOException {
+        }
+    }
+
+    // graph rede { 12 [label="Nome [12]"]; 12 -- 15 [label="5"]; }
+    private static final class EscritaDot extends Escrita {
+        EscritaDot(Writer saida) {
+            super(saida);
+        }
+
+        @Override
+        void cabecalho(Recorte recorte) throws IOException {
+            saida.write("// Rede de transporte (" + recorte.getDescricao() + ")\n");
+            saida.write("graph rede {\n");
+            saida.write("    node [shape=box];\n\n");
+        }
+
+        @Override
+        void estacao(int id, String nome) throws IOException {
+            saida.write("    ");
+            saida.write(Integer.toString(id));
+            saida.write(" [label=\"");
+            escreverTextoDot(saida, nome);
+            saida.write(" [");
+            saida.write(Integer.toString(id));
+            saida.write("]\"];\n");
+        }
+
+        @Override
+        void inicioConexoes() throws IOException {
+            saida.write('\n');
+        }
+
+        @Override
+        void conexao(int idA, int idB, int peso, Grafo grafo) throws IOException {
+            saida.write("    ");
+            saida.write(Integer.toString(idA));
+            saida.write(" -- ");
+            saida.write(Integer.toString(idB));
+            saida.write(" [label=\"");
+            saida.write(Integer.toString(peso));
+            saida.write("\"];\n");
+        }
+
+        @Override
+        void rodape() throws IOException {
+            saida.write("}\n");
+        }
+    }
+
+    private static final class EscritaGraphML extends Escrita {
+        EscritaGraphML(Writer saida) {
+            super(saida);
+        }
+
+        @Override
+        void cabecalho(Recorte recorte) throws IOException {
+            saida.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            saida.write("<!-- Rede de transporte (");
+            escreverTextoXml(saida, recorte.getDescricao());
+            saida.write(") -->\n");
+            saida.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+            saida.write("  <key id=\"nome\" for=\"node\" attr.name=\"nome\" attr.type=\"string\"/>\n");
+            saida.write("  <key id=\"peso\" for=\"edge\" attr.name=\"peso\" attr.type=\"int\"/>\n");
+            saida.write("  <graph id=\"rede\" edgedefault=\"undirected\">\n");
+        }
+
+        @Override
+        void estacao(int id, String nome) throws IOException {
+            saida.write("    <node id=\"n");
+            saida.write(Integer.toString(id));
+            saida.write("\"><data key=\"nome\">");
+            escreverTextoXml(saida, nome);
+            saida.write("</data></node>\n");
+        }
+
+        @Override
+        void conexao(int idA, int idB, int peso, Grafo grafo) throws IOException {
+            saida.write("    <edge source=\"n");
+            saida.write(Integer.toString(idA));
+            saida.write("\" target=\"n");
+            saida.write(Integer.toString(idB));
+            saida.write("\"><data key=\"peso\">");
+            saida.write(Integer.toString(peso));
+            saida.write("</data></edge>\n");
+        }
+
+        @Override
+        void rodape() throws IOException {
+            saida.write("  </graph>\n");
+            saida.write("</graphml>\n");
+        }
+    }
+
+    // Mesma sintaxe de Grafo.escreverCodigoMermaid, sem as instruções
+    private static final class EscritaMermaid extends Escrita {
+        EscritaMermaid(Writer saida) {
+            super(saida);
+        }
+
+        @Override
+        void cabecalho(Recorte recorte) throws IOException {
+            saida.write("graph LR;\n");
+            saida.write("    %% Rede de transporte (" + recorte.getDescricao() + ")\n");
+            saida.write("\n    %% --- Definição dos Nós (Estações) --- \n");
+        }
+
+        @Override
+        void estacao(int id, String nome) throws IOException {
+            escreverNoMermaid(saida, id, nome);
+        }
+
+        @Override
+        void inicioConexoes() throws IOException {
+            saida.write("\n    %% --- Definição das Arestas (Conexões) com Pesos --- \n");
+        }
+
+        @Override
+        void conexao(int idA, int idB, int peso, Grafo grafo) throws IOException {
+            escreverArestaMermaid(saida, idA, idB, peso);
+        }
+    }
+
+    // id_origem,nome_origem,id_destino,nome_destino,peso
+    private static final class EscritaCsv extends Escrita {
+        EscritaCsv(Writer saida) {
+            super(saida);
+        }
+
+        @Override
+        void cabecalho(Recorte recorte) throws IOException {
+            saida.write("id_origem,nome_origem,id_destino,nome_destino,peso\n");
+        }
+
+        @Override
+        void estacao(int id, String nome) {
+            // Só as arestas: estações isoladas não aparecem na lista
+        }
+
+        @Override
+        void conexao(int idA, int idB, int peso, Grafo grafo) throws IOException {
+            saida.write(Integer.toString(idA));
+            saida.write(',');
+            escreverCampoCsv(saida, String.valueOf(grafo.getEstacaoPorId(idA).getNome()));
+            saida.write(',');
+            saida.write(Integer.toString(idB));
+            saida.write(',');
+            escreverCampoCsv(saida, String.valueOf(grafo.getEstacaoPorId(idB).getNome()));
+            saida.write(',');
+            saida.write(Integer.toString(peso));
+            saida.write('\n');
+        }
+    }
+
+    // --- SINTAXE DE CADA FORMATO ---
+
+    /**
+     * Nó Mermaid: ID["Nome [ID]"] (as aspas do nome são removidas).
+     */
+    static void escreverNoMermaid(Writer saida, int id, String nome) throws IOException {
+        saida.write("    ");
+        saida.write(Integer.toString(id)); // Usa o ID numérico como ID do nó
+        saida.write("[\"");
+        saida.write(nome.replace("\"", ""));
+        saida.write(" [");
+        saida.write(Integer.toString(id));
+        saida.write("]\"];\n");
+    }
+
+    /**
+     * Aresta Mermaid sem seta: ID1 -- "Peso: p" --- ID2
+     */
+    static void escreverArestaMermaid(Writer saida, int idA, int idB, int peso) throws IOException {
+        saida.write("    ");
+        saida.write(Integer.toString(idA));
+        saida.write(" -- \"Peso: ");
+        saida.write(Integer.toString(peso));
+        saida.write("\" --- ");
+        saida.write(Integer.toString(idB));
+        saida.write(";\n");
+    }
+
+    // Conteúdo de uma string DOT entre aspas
+    private static void escreverTextoDot(Writer saida, String texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                saida.write('\\');
+                saida.write(c);
+            } else if (c == '\n' || c == '\r') {
+                saida.write("\\n");
+            } else {
+                saida.write(c);
+            }
+        }
+    }
+
+    // Texto XML, com os caracteres especiais como entidades e sem os de controle (inválidos no XML 1.0)
+    private static void escreverTextoXml(Writer saida, String texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&': saida.write("&amp;"); break;
+                case '<': saida.write("&lt;"); break;
+                case '>': saida.write("&gt;"); break;
+                case '"': saida.write("&quot;"); break;
+                case '\'': saida.write("&apos;"); break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        saida.write(c);
+                    }
+            }
+        }
+    }
+
+    // Campo CSV: entre aspas (com as aspas dobradas) se tiver vírgula, aspas ou quebra de linha
+    private static void escreverCampoCsv(Writer saida, String texto) throws IOException {
+        boolean precisaAspas = false;
+        for (int i = 0; i < texto.length() && !precisaAspas; i++) {
+            char c = texto.charAt(i);
+            precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!precisaAspas) {
+            saida.write(texto);
+            return;
+        }
+        saida.write('"');
+        saida.write(texto.replace("\"", "\"\""));
+        saida.write('"');
+    }
+}
@@ -1,52 +1,288 @@
 package redestransporte;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Grafo {
 
     // Guarda as estações usando o ID como chave (acesso rápido)
-    private Map<Integer, Estacao> estacoes;
-    // Guarda todas as conexões (arestas)
-    private List<Conexao> conexoes;
+    private MapaIntObjeto<Estacao> estacoes;
+    // Guarda todas as conexões (arestas), uma por par de estações, na ordem de
+    // inserção; a posição de uma conexão removida fica vaga (null) até a lista
+    // ser compactada (ver compactarConexoes())
+    private VetorObjeto<Conexao> conexoes;
+    private int fimConexoes; // Posições de conexoes já usadas, inclusive as vagas
+    private int numConexoes;
+    // Para cada estação, as estações ligadas a ela por alguma conexão, com a
+    // posição dessa conexão em conexoes
+    private MapaIntObjeto<MapaIntInt> vizinhosPorEstacao;
+    // Mapas de vizinhos que este grafo pode alterar; os demais são
+    // compartilhados com o grafo de origem (ver copiar()). null: todos são dele
+    private Set<MapaIntInt> vizinhosProprios;
     // Mapas para os IDs (útil para matrizes)
-    private Map<Integer, Integer> idParaIndice; // Mapeia ID da Estacao para o índice da matriz (0, 1, 2...)
-    private Map<Integer, Integer> indiceParaId; // Mapeia o índice da matriz de volta para o ID da Estacao
+    // (mapas de int primitivo: sem Integer por consulta nos laços das buscas)
+    private MapaIntInt idParaIndice; // Mapeia ID da Estacao para o índice da matriz (0, 1, 2...)
+    private VetorInt indiceParaId;   // Mapeia o índice da matriz de volta para o ID da Estacao
     
     // Representações do grafo
-    private int[][] matrizAdjacencia;
-    private int[][] matrizIncidencia;
+    private AdjacenciaCSR adjacencia; // Usada por todos os percursos (BFS, Dijkstra, graus...)
+    // (os campos gerados sob demanda são voláteis: podem ser montados por
+    // qualquer thread que esteja lendo um grafo publicado, ver EstadoRede)
+    private volatile IncidenciaEsparsa incidencia; // Esparsa, gerada sob demanda
+    private Conexao[] conexoesPorColuna;  // Conexão de cada coluna da incidência
+    // Índices de estações removidas ainda não reaproveitados (ver compactar())
+    private int indicesRemovidos;
+    private int maiorIdIndexado; // ID do último índice criado
+    // Publicado em um EstadoRede: não muda mais, e as cópias compartilham
+    // os seus blocos (ver congelar())
+    private boolean congelado;
+
+    // Acima disso a matriz de adjacência densa não é montada (V² inteiros)
+    public static final int LIMITE_MATRIZ_DENSA = 1000;
+    // Acima disso a matriz de incidência é exibida só em uma janela de linhas/colunas
+    public static final int JANELA_INCIDENCIA_LINHAS = 100;
+    public static final int JANELA_INCIDENCIA_COLUNAS = 200;
+    // Idem para a matriz de adjacência acima de LIMITE_MATRIZ_DENSA
+    public static final int JANELA_ADJACENCIA_LINHAS = 100;
+    public static final int JANELA_ADJACENCIA_COLUNAS = 100;
+    /** ID devolvido por {@link #idDe(int)} para o índice de uma estação removida (não é aceito como ID). */
+    public static final int ID_REMOVIDO = Integer.MIN_VALUE;
+    // Índices removidos tolerados antes de compactar: 1/4 dos vértices (mínimo 64)
+    private static final int MINIMO_REMOVIDOS_COMPACTAR = 64;
+
+    // Pré-processamentos (landmarks, Contraction Hierarchies e tabela de todos
+    // os pares); descartados a cada alteração do grafo
+    private volatile LandmarksALT alt;
+    private volatile HierarquiaContracao ch;
+    private volatile TabelaTodosPares todosPares;
+    // Modos que já pediram pré-processamento (nesta versão ou nas anteriores):
+    // refeitos em segundo plano quando uma nova versão é publicada
+    private final Set<ModoBusca> modosEmUso = EnumSet.noneOf(ModoBusca.class);
+    private volatile boolean substituido; // Há uma versão mais nova: não vale mais preparar esta
+    // Uma thread só para os preparos, fora das threads de consulta
+    private static final ExecutorService PREPARO = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "preprocessamento");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Incrementado a cada alteração (estação/conexão adicionada ou removida)
+    private long versao;
+    // Caminhos já calculados nesta versão (cada cópia do grafo começa com um vazio)
+    private final CacheRotas cacheRotas = new CacheRotas();
 
     public Grafo() {
-        this.estacoes = new HashMap<>();
-        this.conexoes = new ArrayList<>();
-        this.idParaIndice = new HashMap<>();
-        this.indiceParaId = new HashMap<>();
+        this.estacoes = new MapaIntObjeto<>();
+        this.conexoes = new VetorObjeto<>(0);
+        this.vizinhosPorEstacao = new MapaIntObjeto<>();
+        this.idParaIndice = new MapaIntInt();
+        this.indiceParaId = new VetorInt(0);
     }
 
     // --- MÉTODOS DE INICIALIZAÇÃO ---
 
     public void adicionarEstacao(Estacao estacao) {
-        estacoes.put(estacao.getId(), estacao);
+        verificarAlteravel();
+        if (estacao.getId() == ID_REMOVIDO) {
+            throw new IllegalArgumentException("ID de estação reservado: " + estacao.getId());
+        }
+        boolean nova = estacoes.colocar(estacao.getId(), estacao) == null;
+        if (nova && adjacencia != null) {
+            // Mantém os índices em ordem de ID: um ID maior que todos ganha o
+            // próximo índice; caso contrário (raro) remonta o mapeamento
+            if (adjacencia.getNumVertices() == 0 || estacao.getId() > maiorIdIndexado) {
+                int indice = adjacencia.adicionarVertice();
+                if (indice == indiceParaId.tamanho()) {
+                    indiceParaId.crescer(Math.max(16, indice + (indice >> 1)));
+                }
+                idParaIndice.colocar(estacao.getId(), indice);
+                indiceParaId.definir(indice, estacao.getId());
+                maiorIdIndexado = estacao.getId();
+            } else {
+                gerarMatrizAdjacencia();
+            }
+        }
+        registrarAlteracao();
     }
 
+    /**
+     * Adiciona uma conexão. O grafo guarda no máximo uma conexão por par de
+     * estações (em qualquer sentido): se o par já está ligado, a nova conexão
+     * substitui a anterior, ou seja, funciona como atualização do peso.
+     * Conexões com peso <= 0 são guardadas, mas não ligam as estações.
+     * @param conexao A conexão
+     */
     public void adicionarConexao(Conexao conexao) {
+        verificarAlteravel();
         // Verifica se as estações da conexão existem
-        if (estacoes.containsKey(conexao.getIdOrigem()) && estacoes.containsKey(conexao.getIdDestino())) {
-            conexoes.add(conexao);
+        int idOrigem = conexao.getIdOrigem();
+        int idDestino = conexao.getIdDestino();
+        if (estacoes.contem(idOrigem) && estacoes.contem(idDestino)) {
+            guardarConexao(conexao);
+            if (adjacencia != null) {
+                // Peso <= 0 remove a ligação da adjacência
+                adjacencia.definirAresta(idParaIndice.obter(idOrigem, -1),
+                        idParaIndice.obter(idDestino, -1), conexao.getPeso());
+            }
+            registrarAlteracao();
         } else {
             System.err.println("Conexão inválida: Estação não encontrada. " + conexao);
         }
     }
     
+    /**
+     * Adiciona todas as conexões de um lote lido do arquivo, na ordem do lote
+     * (ver {@link LeitorArquivos#lerLoteConexoes(String)}).
+     * @param lote As conexões
+     */
+    public void adicionarConexoes(LoteConexoes lote) {
+        for (int i = 0; i < lote.tamanho(); i++) {
+            adicionarConexao(lote.getConexao(i));
+        }
+    }
+    
+    /**
+     * Monta um grafo a partir de dados já processados, sem reconstruir a
+     * adjacência (usado ao abrir um {@link SnapshotGrafo}).
+     * @param estacoesPorIndice Estações na ordem dos índices (IDs crescentes)
+     * @param origens ID de origem de cada conexão, na ordem de inserção
+     * @param destinos ID de destino de cada conexão
+     * @param pesos Peso de cada conexão
+     * @param adjacencia Adjacência já montada para esses índices
+     * @return O grafo
+     */
+    static Grafo restaurar(Estacao[] estacoesPorIndice, int[] origens, int[] destinos, int[] pesos,
+                           AdjacenciaCSR adjacencia) {
+        Grafo grafo = new Grafo();
+        int numEstacoes = estacoesPorIndice.length;
+        grafo.estacoes = new MapaIntObjeto<>(numEstacoes);
+        grafo.vizinhosPorEstacao = new MapaIntObjeto<>(numEstacoes);
+        grafo.idParaIndice = new MapaIntInt(numEstacoes);
+        grafo.indiceParaId = new VetorInt(numEstacoes);
+        for (int i = 0; i < numEstacoes; i++) {
+            int id = estacoesPorIndice[i].getId();
+            grafo.estacoes.colocar(id, estacoesPorIndice[i]);
+            grafo.idParaIndice.colocar(id, i);
+            grafo.indiceParaId.definir(i, id);
+        }
+        grafo.maiorIdIndexado = numEstacoes == 0 ? 0 : grafo.indiceParaId.obter(numEstacoes - 1);
+        grafo.conexoes = new VetorObjeto<>(origens.length);
+        for (int e = 0; e < origens.length; e++) {
+            grafo.guardarConexao(new Conexao(origens[e], destinos[e], pesos[e]));
+        }
+        grafo.adjacencia = adjacencia;
+        return grafo;
+    }
+
+    /**
+     * Impede novas alterações neste grafo: é chamado ao publicá-lo em um
+     * {@link EstadoRede}, e só um grafo congelado pode ser copiado. As
+     * consultas e os pré-processamentos continuam valendo normalmente.
+     */
+    public void congelar() {
+        congelado = true;
+    }
+
+    /**
+     * Retorna uma cópia do grafo que pode ser alterada sem afetar este (ver
+     * {@link EstadoRede}). Nada é copiado por elemento: os mapas, a lista de
+     * conexões e a adjacência ficam em blocos ({@link VetorInt}) compartilhados
+     * com este grafo, e a cópia só duplica os blocos em que escrever (assim
+     * como os mapas de vizinhos das estações que alterar). O custo é
+     * O((V + E) / {@link VetorInt#TAMANHO_BLOCO}) na cópia, mais o dos blocos
+     * tocados em cada alteração; este grafo não é modificado.
+     * @return A cópia
+     * @throws IllegalStateException se este grafo não está congelado (ver {@link #congelar()})
+     */
+    public Grafo copiar() {
+        if (!congelado) {
+            throw new IllegalStateException("Só um grafo congelado pode ser copiado (ver congelar())");
+        }
+        Grafo copia = new Grafo();
+        copia.estacoes = estacoes.copiar();
+        copia.conexoes = conexoes.copiar();
+        copia.fimConexoes = fimConexoes;
+        copia.numConexoes = numConexoes;
+        copia.vizinhosPorEstacao = vizinhosPorEstacao.copiar();
+        copia.vizinhosProprios = Collections.newSetFromMap(new IdentityHashMap<>());
+        copia.idParaIndice = idParaIndice.copiar();
+        copia.indiceParaId = indiceParaId.copiar();
+        copia.adjacencia = adjacencia != null ? adjacencia.copiar() : null;
+        copia.incidencia = incidencia;
+        copia.conexoesPorColuna = conexoesPorColuna;
+        copia.indicesRemovidos = indicesRemovidos;
+        copia.maiorIdIndexado = maiorIdIndexado;
+        copia.alt = alt;
+        copia.ch = ch;
+        copia.todosPares = todosPares;
+        synchronized (modosEmUso) {
+            copia.modosEmUso.addAll(modosEmUso);
+        }
+        copia.versao = versao;
+        return copia;
+    }
+
+    // Alterações só são aceitas antes de o grafo ser publicado
+    private void verificarAlteravel() {
+        if (congelado) {
+            throw new IllegalStateException("Grafo já publicado não pode ser alterado (ver EstadoRede.editar())");
+        }
+    }
+
+    // Conexões na ordem de inserção (somente leitura)
+    Collection<Conexao> getTodasConexoes() {
+        return new AbstractCollection<Conexao>() {
+            @Override
+            public Iterator<Conexao> iterator() {
+                return new Iterator<Conexao>() {
+                    private int proxima = avancar(-1);
+
+                    @Override
+                    public boolean hasNext() {
+                        return proxima < fimConexoes;
+                    }
+
+                    @Override
+                    public Conexao next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Conexao conexao = conexoes.obter(proxima);
+                        proxima = avancar(proxima);
+                        return conexao;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return numConexoes;
+            }
+        };
+    }
+
+    // Próxima posição de conexoes depois de p que não está vaga
+    private int avancar(int p) {
+        p++;
+        while (p < fimConexoes && conexoes.obter(p) == null) {
+            p++;
+        }
+        return p;
+    }
+
     // --- MÉTODOS CRUD (NOVOS) ---
     
     /**
@@ -55,7 +291,7 @@ public class Grafo {
      * @return A Estacao ou null
      */
     public Estacao getEstacaoPorId(int id) {
-        return estacoes.get(id);
+        return estacoes.obter(id);
     }
 
     /**
@@ -67,15 +303,43 @@ public class Grafo {
             return 0; // Se não há estações, o próximo pode ser 1
         }
         // Encontra o maior valor nas chaves (IDs) do mapa
-        return Collections.max(estacoes.keySet());
+        int maior = Integer.MIN_VALUE;
+        for (int id : estacoes.chaves()) {
+            maior = Math.max(maior, id);
+        }
+        return maior;
     }
     
+    /**
+     * Retorna a conexão entre duas estações (em qualquer sentido), em O(1).
+     * @return A conexão, ou null se as estações não estão ligadas
+     */
+    public Conexao getConexao(int idA, int idB) {
+        int posicao = posicaoConexao(idA, idB);
+        return posicao >= 0 ? conexoes.obter(posicao) : null;
+    }
+
+    public int getNumEstacoes() {
+        return estacoes.tamanho();
+    }
+
+    public int getNumConexoes() {
+        return numConexoes;
+    }
+
+    /**
+     * Indica se existe conexão entre duas estações (em qualquer sentido).
+     */
+    public boolean existeConexao(int idA, int idB) {
+        return posicaoConexao(idA, idB) >= 0;
+    }
+
     /**
      * Retorna uma Coleção de todas as Estações no grafo.
      * @return Coleção de Estações
      */
     public Collection<Estacao> getTodasEstacoes() {
-        return estacoes.values();
+        return estacoes.valores();
     }
     
     /**
@@ -84,21 +348,38 @@ public class Grafo {
      * @return true se a estação foi encontrada e removida, false caso contrário.
      */
     public boolean removerEstacao(int idEstacao) {
-        if (!estacoes.containsKey(idEstacao)) {
+        verificarAlteravel();
+        if (!estacoes.contem(idEstacao)) {
             return false; // Estação não existe
         }
         
         // 1. Remove a estação
-        estacoes.remove(idEstacao);
+        estacoes.remover(idEstacao);
         
-        // 2. Remove todas as conexões ligadas a ela
-        // (Itera de trás para frente para evitar problemas ao remover da lista)
-        for (int i = conexoes.size() - 1; i >= 0; i--) {
-            Conexao c = conexoes.get(i);
-            if (c.getIdOrigem() == idEstacao || c.getIdDestino() == idEstacao) {
-                conexoes.remove(i);
+        // 2. Remove todas as conexões ligadas a ela (O(grau) pelo índice de vizinhos)
+        MapaIntInt vizinhos = vizinhosPorEstacao.remover(idEstacao);
+        if (vizinhos != null) {
+            for (int vizinho : vizinhos.chaves()) {
+                descartarConexao(vizinhos.obter(vizinho, -1));
+                if (vizinho != idEstacao) {
+                    vizinhosDe(vizinho).remover(idEstacao, -1);
+                }
             }
+            compactarConexoesSeNecessario();
         }
+
+        // 3. O índice da estação vira uma "lápide" sem vizinhos; os índices só
+        // são renumerados quando as lápides passam do limite
+        if (adjacencia != null) {
+            int indice = idParaIndice.remover(idEstacao, -1);
+            indiceParaId.definir(indice, ID_REMOVIDO);
+            adjacencia.isolarVertice(indice);
+            indicesRemovidos++;
+            if (indicesRemovidos > Math.max(MINIMO_REMOVIDOS_COMPACTAR, adjacencia.getNumVertices() / 4)) {
+                compactar();
+            }
+        }
+        registrarAlteracao();
         return true;
     }
     
@@ -109,186 +390,567 @@ public class Grafo {
      * @return true se a conexão foi encontrada e removida, false caso contrário.
      */
     public boolean removerConexao(int idOrigem, int idDestino) {
-        // Itera de trás para frente
-        for (int i = conexoes.size() - 1; i >= 0; i--) {
-            Conexao c = conexoes.get(i);
-            
-            // Verifica nos dois sentidos, já que o grafo não é direcionado
-            if ((c.getIdOrigem() == idOrigem && c.getIdDestino() == idDestino) ||
-                (c.getIdOrigem() == idDestino && c.getIdDestino() == idOrigem)) {
-                
-                conexoes.remove(i);
-                return true; // Encontrou e removeu
+        verificarAlteravel();
+        // A posição é a mesma nos dois sentidos, já que o grafo não é direcionado
+        int posicao = posicaoConexao(idOrigem, idDestino);
+        if (posicao < 0) {
+            return false; // Não encontrou a conexão
+        }
+        descartarConexao(posicao);
+        vizinhosDe(idOrigem).remover(idDestino, -1);
+        vizinhosDe(idDestino).remover(idOrigem, -1);
+        compactarConexoesSeNecessario();
+        if (adjacencia != null) {
+            adjacencia.removerAresta(idParaIndice.obter(idOrigem, -1), idParaIndice.obter(idDestino, -1));
+        }
+        registrarAlteracao();
+        return true;
+    }
+
+    // Posição em conexoes da conexão entre as estações, ou -1 se não existe
+    private int posicaoConexao(int idA, int idB) {
+        MapaIntInt vizinhos = vizinhosPorEstacao.obter(idA);
+        return vizinhos != null ? vizinhos.obter(idB, -1) : -1;
+    }
+
+    // Guarda a conexão no final da lista; se o par já tem conexão, a nova
+    // ocupa a posição da anterior (a ordem continua a da primeira inserção)
+    private void guardarConexao(Conexao conexao) {
+        int idOrigem = conexao.getIdOrigem();
+        int idDestino = conexao.getIdDestino();
+        int posicao = posicaoConexao(idOrigem, idDestino);
+        if (posicao >= 0) {
+            conexoes.definir(posicao, conexao);
+            return;
+        }
+        if (fimConexoes == conexoes.tamanho()) {
+            conexoes.crescer(Math.max(16, fimConexoes + (fimConexoes >> 1)));
+        }
+        conexoes.definir(fimConexoes, conexao);
+        vizinhosDe(idOrigem).colocar(idDestino, fimConexoes);
+        vizinhosDe(idDestino).colocar(idOrigem, fimConexoes);
+        fimConexoes++;
+        numConexoes++;
+    }
+
+    // Deixa vaga a posição de uma conexão removida
+    private void descartarConexao(int posicao) {
+        conexoes.definir(posicao, null);
+        numConexoes--;
+    }
+
+    // Regrava a lista de conexões sem as posições vagas quando elas passam do
+    // número de conexões (O(V + E), como a compactação dos índices)
+    private void compactarConexoesSeNecessario() {
+        if (fimConexoes - numConexoes > Math.max(MINIMO_REMOVIDOS_COMPACTAR, numConexoes)) {
+            compactarConexoes();
+        }
+    }
+
+    private void compactarConexoes() {
+        VetorObjeto<Conexao> compactadas = new VetorObjeto<>(Math.max(16, numConexoes));
+        int escrita = 0;
+        for (int p = 0; p < fimConexoes; p++) {
+            Conexao c = conexoes.obter(p);
+            if (c != null) {
+                compactadas.definir(escrita, c);
+                vizinhosDe(c.getIdOrigem()).colocar(c.getIdDestino(), escrita);
+                vizinhosDe(c.getIdDestino()).colocar(c.getIdOrigem(), escrita);
+                escrita++;
+            }
+        }
+        conexoes = compactadas;
+        fimConexoes = escrita;
+    }
+
+    // Mapa de vizinhos da estação, pronto para ser alterado: criado na
+    // primeira conexão, ou copiado se ainda é compartilhado com outro grafo
+    private MapaIntInt vizinhosDe(int idEstacao) {
+        MapaIntInt vizinhos = vizinhosPorEstacao.obter(idEstacao);
+        if (vizinhos == null || (vizinhosProprios != null && !vizinhosProprios.contains(vizinhos))) {
+            vizinhos = vizinhos == null ? new MapaIntInt(2) : vizinhos.copiar();
+            vizinhosPorEstacao.colocar(idEstacao, vizinhos);
+            if (vizinhosProprios != null) {
+                vizinhosProprios.add(vizinhos);
             }
         }
-        return false; // Não encontrou a conexão
+        return vizinhos;
+    }
+
+    // Chave de um par não ordenado de estações: (menor ID, maior ID) em 64 bits
+    static long chavePar(int idA, int idB) {
+        int menor = Math.min(idA, idB);
+        int maior = Math.max(idA, idB);
+        return ((long) menor << 32) | (maior & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Versão do grafo: muda a cada estação/conexão adicionada ou removida.
+     * @return O número da versão atual
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    // Chamado por toda operação que altera o grafo
+    private void registrarAlteracao() {
+        versao++;
+        alt = null; // As distâncias dos landmarks deixaram de valer
+        ch = null;
+        todosPares = null;
+        incidencia = null; // A matriz de incidência é remontada sob demanda
+    }
+
+    /**
+     * Renumera os índices das estações (sem lápides de estações removidas)
+     * e remonta a adjacência sem folgas. É feito automaticamente quando as
+     * lápides passam de 1/4 dos índices; abaixo disso as matrizes e as
+     * listas simplesmente pulam as lápides.
+     */
+    public void compactar() {
+        gerarMatrizAdjacencia();
+    }
+
+    /**
+     * Número de índices internos, incluindo os de estações removidas que
+     * ainda não foram compactados.
+     */
+    public int getNumIndices() {
+        return adjacencia != null ? adjacencia.getNumVertices() : 0;
     }
     
     // --- FIM DOS MÉTODOS CRUD ---
 
 
-    // --- MÉTODOS DE GERAÇÃO DAS MATRIZES (sem alterações) ---
+    // --- MÉTODOS DE GERAÇÃO DAS MATRIZES ---
 
     private void construirMapeamentoIndices() {
-        // Limpa mapas antigos
-        idParaIndice.clear();
-        indiceParaId.clear();
-        
         // Pega os IDs das estações, ordena e cria os mapas
-        List<Integer> idsOrdenados = new ArrayList<>(estacoes.keySet());
-        Collections.sort(idsOrdenados);
+        int[] idsOrdenados = estacoes.chaves();
+        Arrays.sort(idsOrdenados);
         
-        int indice = 0;
-        for (int id : idsOrdenados) {
-            idParaIndice.put(id, indice);
-            indiceParaId.put(indice, id);
-            indice++;
+        idParaIndice = new MapaIntInt(idsOrdenados.length);
+        indiceParaId = VetorInt.de(idsOrdenados, 0, idsOrdenados.length); // i-ésimo menor ID
+        for (int indice = 0; indice < idsOrdenados.length; indice++) {
+            idParaIndice.colocar(idsOrdenados[indice], indice);
         }
+        maiorIdIndexado = idsOrdenados.length == 0 ? 0 : idsOrdenados[idsOrdenados.length - 1];
     }
 
+    /**
+     * Gera a adjacência do grafo no formato CSR (ver {@link AdjacenciaCSR}).
+     * A matriz densa não é mais criada: a "Matriz de Adjacência" é escrita
+     * linha a linha a partir da CSR quando é exibida.
+     *
+     * Só precisa ser chamado uma vez, depois da carga inicial: a partir daí
+     * as operações de CRUD mantêm os índices e a adjacência atualizados.
+     */
     public void gerarMatrizAdjacencia() {
+        verificarAlteravel();
         construirMapeamentoIndices(); // Garante que os mapas de índice estão criados
-        int numEstacoes = estacoes.size();
-        matrizAdjacencia = new int[numEstacoes][numEstacoes];
+        indicesRemovidos = 0;
+        incidencia = null; // As linhas da incidência são os índices antigos
+        int numEstacoes = estacoes.tamanho();
 
-        // Inicializa com 0 (sem conexão)
-        for (int i = 0; i < numEstacoes; i++) {
-            Arrays.fill(matrizAdjacencia[i], 0);
-        }
+        int[] origens = new int[numConexoes];
+        int[] destinos = new int[numConexoes];
+        int[] pesos = new int[numConexoes];
+        int numArestas = 0;
 
-        // Preenche com os pesos
-        for (Conexao c : conexoes) {
+        for (Conexao c : getTodasConexoes()) {
             // Pode acontecer se uma estação foi removida mas as matrizes não
             // foram regeradas ainda
-            if (idParaIndice.get(c.getIdOrigem()) == null || idParaIndice.get(c.getIdDestino()) == null) {
-                continue; 
+            int idxOrigem = idParaIndice.obter(c.getIdOrigem(), -1);
+            int idxDestino = idParaIndice.obter(c.getIdDestino(), -1);
+            if (idxOrigem < 0 || idxDestino < 0) {
+                continue;
+            }
+            origens[numArestas] = idxOrigem;
+            destinos[numArestas] = idxDestino;
+            pesos[numArestas] = c.getPeso();
+            numArestas++;
+        }
+
+        // Adiciona o peso nos dois sentidos (grafo não direcionado)
+        adjacencia = AdjacenciaCSR.construir(numEstacoes, origens, destinos, pesos, numArestas);
+        cacheRotas.limpar(); // Os índices foram renumerados
+
+        // Pré-processamentos feitos sobre uma adjacência desatualizada não valem mais
+        if (alt != null || ch != null || todosPares != null) {
+            long assinatura = calcularAssinatura();
+            if (alt != null && alt.getAssinatura() != assinatura) {
+                alt = null;
+            }
+            if (ch != null && ch.getAssinatura() != assinatura) {
+                ch = null;
+            }
+            if (todosPares != null && todosPares.getAssinatura() != assinatura) {
+                todosPares = null;
             }
-            
-            int idxOrigem = idParaIndice.get(c.getIdOrigem());
-            int idxDestino = idParaIndice.get(c.getIdDestino());
-            
-            // Adiciona o peso nos dois sentidos (grafo não direcionado)
-            matrizAdjacencia[idxOrigem][idxDestino] = c.getPeso();
-            matrizAdjacencia[idxDestino][idxOrigem] = c.getPeso(); 
         }
     }
 
+    /**
+     * Marca a matriz de incidência para ser remontada: ela é montada sob
+     * demanda (ver {@link #getIncidencia()}), no formato esparso.
+     */
     public void gerarMatrizIncidencia() {
-        if (conexoes.isEmpty() || estacoes.isEmpty()) {
-            // Limpa a matriz se não houver estações ou conexões
-             int numEstacoes = estacoes.size();
-             matrizIncidencia = new int[numEstacoes][0];
-             construirMapeamentoIndices();
+        incidencia = null;
+    }
+
+    /**
+     * Retorna a incidência (linhas = índices das estações, colunas = conexões
+     * em ordem de inserção), montando-a se necessário. Ocupa O(V + E), em vez
+     * dos V x E inteiros da matriz densa. As linhas de índices de estações
+     * removidas ficam vazias.
+     */
+    IncidenciaEsparsa getIncidencia() {
+        if (adjacencia == null) {
+            gerarMatrizAdjacencia();
+        }
+        IncidenciaEsparsa atual = incidencia;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (incidencia != null) {
+                return incidencia;
+            }
+            int[] origens = new int[numConexoes];
+            int[] destinos = new int[numConexoes];
+            Conexao[] porColuna = new Conexao[numConexoes];
+            int j = 0;
+            for (Conexao c : getTodasConexoes()) {
+                // 1 para saída (origem), -1 para entrada (destino)
+                origens[j] = idParaIndice.obter(c.getIdOrigem(), -1);
+                destinos[j] = idParaIndice.obter(c.getIdDestino(), -1);
+                if (origens[j] < 0 || destinos[j] < 0) {
+                    origens[j] = -1;
+                    destinos[j] = -1;
+                }
+                porColuna[j] = c;
+                j++;
+            }
+            conexoesPorColuna = porColuna; // Antes de publicar a incidência (campo volátil)
+            incidencia = IncidenciaEsparsa.construir(adjacencia.getNumVertices(), origens, destinos, numConexoes);
+            return incidencia;
+        }
+    }
+
+    /**
+     * Retorna as conexões que tocam uma estação, pela matriz de incidência
+     * (as colunas com valor diferente de zero na linha da estação).
+     * @param idEstacao O ID da estação
+     * @return As conexões, em ordem de coluna (vazia se a estação não existe)
+     */
+    public List<Conexao> getConexoesIncidentes(int idEstacao) {
+        List<Conexao> resultado = new ArrayList<>();
+        IncidenciaEsparsa inc = getIncidencia();
+        int linha = idParaIndice.obter(idEstacao, -1);
+        if (linha >= 0) {
+            for (int k = inc.inicio(linha); k < inc.fim(linha); k++) {
+                resultado.add(conexoesPorColuna[inc.coluna(k)]);
+            }
+        }
+        return resultado;
+    }
+
+    // --- MÉTODOS PARA O MENU 1 (Representações) ---
+    // Cada representação é escrita em um Writer (ver RenderizadorTexto): os
+    // métodos que retornam String servem para os grafos pequenos; os grandes
+    // vão para arquivo ou são vistos em páginas/janelas.
+
+    public String getMatrizAdjacencia() {
+        if (adjacencia != null && estacoes.tamanho() > LIMITE_MATRIZ_DENSA) {
+            return "Matriz de Adjacência (IDs)\n\n(Grafo com " + estacoes.tamanho() + " estações: acima do limite de "
+                    + LIMITE_MATRIZ_DENSA + " para a matriz densa. Use a Lista de Sucessores.)";
+        }
+        return RenderizadorTexto.paraTexto(this::escreverMatrizAdjacencia);
+    }
+
+    /**
+     * Mostra só uma janela da matriz de adjacência (linhas e colunas em
+     * ordem de ID); o custo é proporcional ao tamanho da janela.
+     * @param linhaInicial Primeira linha (a partir de 0)
+     * @param numLinhas Quantidade máxima de linhas
+     * @param colunaInicial Primeira coluna (a partir de 0)
+     * @param numColunas Quantidade máxima de colunas
+     * @return A janela formatada
+     */
+    public String getMatrizAdjacencia(int linhaInicial, int numLinhas, int colunaInicial, int numColunas) {
+        return RenderizadorTexto.paraTexto(saida ->
+                escreverMatrizAdjacencia(saida, linhaInicial, numLinhas, colunaInicial, numColunas));
+    }
+
+    /**
+     * Escreve a matriz de adjacência inteira (V x V), uma linha por vez, a
+     * partir da adjacência: nem a matriz nem o texto ficam na memória.
+     */
+    public void escreverMatrizAdjacencia(Writer saida) throws IOException {
+        escreverMatrizAdjacencia(saida, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Escreve uma janela da matriz de adjacência (ver
+     * {@link #getMatrizAdjacencia(int, int, int, int)}).
+     */
+    public void escreverMatrizAdjacencia(Writer saida, int linhaInicial, int numLinhas,
+                                         int colunaInicial, int numColunas) throws IOException {
+        String titulo = "Matriz de Adjacência (IDs)";
+        if (adjacencia == null) {
+            saida.write(titulo + "\nMatriz ainda não gerada.");
             return;
         }
-        
-        construirMapeamentoIndices(); // Garante que os mapas de índice estão criados
-        int numEstacoes = estacoes.size();
-        int numConexoes = conexoes.size();
-        matrizIncidencia = new int[numEstacoes][numConexoes];
+        if (estacoes.isEmpty()) {
+            saida.write(titulo + "\n\n(Nenhuma estação para exibir)");
+            return;
+        }
+        // A matriz não tem linhas nem colunas de estações removidas
+        int[] ativos = indicesAtivos();
+        int total = estacoes.tamanho();
+        int[] janela = limitarJanela(linhaInicial, numLinhas, colunaInicial, numColunas, total, total);
+        saida.write(titulo + "\n\n");
+        if (!janelaCompleta(janela, total, total)) {
+            saida.write(String.format("(Linhas %d a %d de %d, colunas %d a %d de %d)%n%n",
+                    janela[0] + 1, janela[1], total, janela[2] + 1, janela[3], total));
+        }
 
-        // Inicializa com 0
-        for (int i = 0; i < numEstacoes; i++) {
-            Arrays.fill(matrizIncidencia[i], 0);
+        // Cabeçalho das colunas (IDs das Estações)
+        RenderizadorTexto.Celulas ids = new RenderizadorTexto.Celulas(3, " ");
+        saida.write("        "); // Espaço para o ID da linha
+        for (int j = janela[2]; j < janela[3]; j++) {
+            saida.write("ID ");
+            ids.escrever(saida, indiceParaId.obter(indiceNaPosicao(ativos, j)));
         }
+        saida.write('\n');
 
-        // Preenche a matriz
-        for (int j = 0; j < numConexoes; j++) {
-            Conexao c = conexoes.get(j);
-            
-            if (idParaIndice.get(c.getIdOrigem()) == null || idParaIndice.get(c.getIdDestino()) == null) {
-                continue;
+        // Linhas, montadas uma a uma a partir da adjacência. Com lápides, a
+        // linha da adjacência cobre também os índices removidos entre as
+        // colunas da janela, que são pulados
+        RenderizadorTexto.Celulas idLinha = new RenderizadorTexto.Celulas(3, " | ");
+        RenderizadorTexto.Celulas celulas = new RenderizadorTexto.Celulas(6, " ");
+        int largura = janela[3] - janela[2];
+        int primeiraColuna = largura > 0 ? indiceNaPosicao(ativos, janela[2]) : 0;
+        int[] valores = new int[largura];
+        int[] linha = ativos == null ? valores
+                : new int[largura > 0 ? ativos[janela[3] - 1] + 1 - primeiraColuna : 0];
+        for (int i = janela[0]; i < janela[1]; i++) {
+            int indice = indiceNaPosicao(ativos, i);
+            saida.write("ID ");
+            idLinha.escrever(saida, indiceParaId.obter(indice));
+            adjacencia.preencherLinha(indice, primeiraColuna, linha.length, linha);
+            if (ativos != null) {
+                for (int j = janela[2]; j < janela[3]; j++) {
+                    valores[j - janela[2]] = linha[ativos[j] - primeiraColuna];
+                }
+            }
+            for (int valor : valores) {
+                celulas.escrever(saida, valor);
             }
-            
-            int idxOrigem = idParaIndice.get(c.getIdOrigem());
-            int idxDestino = idParaIndice.get(c.getIdDestino());
+            saida.write('\n');
+        }
+    }
 
-            // 1 para saída (origem), -1 para entrada (destino)
-            matrizIncidencia[idxOrigem][j] = 1; 
-            matrizIncidencia[idxDestino][j] = -1; 
+    // Índices das estações atuais em ordem de ID (a i-ésima linha das matrizes),
+    // ou null se não há lápides de estações removidas (a linha i é o índice i)
+    private int[] indicesAtivos() {
+        if (indicesRemovidos == 0) {
+            return null;
+        }
+        int[] ativos = new int[estacoes.tamanho()];
+        int n = 0;
+        for (int indice = 0; indice < adjacencia.getNumVertices(); indice++) {
+            if (indiceAtivo(indice)) {
+                ativos[n++] = indice;
+            }
         }
+        return ativos;
     }
-    
-    // --- MÉTODOS PARA O MENU 1 (Representações) - (sem alterações) ---
 
-    public String getMatrizAdjacencia() {
-        return formatarMatriz("Matriz de Adjacência (IDs)", matrizAdjacencia);
+    private static int indiceNaPosicao(int[] ativos, int posicao) {
+        return ativos != null ? ativos[posicao] : posicao;
     }
 
+    // Janela [linhaInicial, linhaFinal) x [colunaInicial, colunaFinal) dentro da matriz
+    private static int[] limitarJanela(int linhaInicial, int numLinhas, int colunaInicial, int numColunas,
+                                       int totalLinhas, int totalColunas) {
+        linhaInicial = Math.max(0, Math.min(linhaInicial, totalLinhas));
+        colunaInicial = Math.max(0, Math.min(colunaInicial, totalColunas));
+        int linhaFinal = (int) Math.min(totalLinhas, (long) linhaInicial + Math.max(0, numLinhas));
+        int colunaFinal = (int) Math.min(totalColunas, (long) colunaInicial + Math.max(0, numColunas));
+        return new int[]{linhaInicial, linhaFinal, colunaInicial, colunaFinal};
+    }
+
+    private static boolean janelaCompleta(int[] janela, int totalLinhas, int totalColunas) {
+        return janela[0] == 0 && janela[2] == 0 && janela[1] == totalLinhas && janela[3] == totalColunas;
+    }
+
+    /**
+     * Matriz de incidência formatada. Grafos grandes são mostrados só na
+     * janela inicial (ver {@link #getMatrizIncidencia(int, int, int, int)}).
+     */
     public String getMatrizIncidencia() {
-        if (conexoes.isEmpty()) {
-            return "Matriz de Incidência\n\n(Nenhuma conexão para exibir)";
+        return getMatrizIncidencia(0, JANELA_INCIDENCIA_LINHAS, 0, JANELA_INCIDENCIA_COLUNAS);
+    }
+
+    /**
+     * Mostra só uma janela da matriz de incidência: as linhas (estações, em
+     * ordem de ID) e colunas (conexões) pedidas. O custo é proporcional ao
+     * tamanho da janela, não ao da matriz.
+     * @param linhaInicial Primeira linha (a partir de 0)
+     * @param numLinhas Quantidade máxima de linhas
+     * @param colunaInicial Primeira coluna (a partir de 0)
+     * @param numColunas Quantidade máxima de colunas
+     * @return A janela formatada
+     */
+    public String getMatrizIncidencia(int linhaInicial, int numLinhas, int colunaInicial, int numColunas) {
+        return RenderizadorTexto.paraTexto(saida ->
+                escreverMatrizIncidencia(saida, linhaInicial, numLinhas, colunaInicial, numColunas));
+    }
+
+    /**
+     * Escreve a matriz de incidência inteira (V x E), uma linha por vez.
+     */
+    public void escreverMatrizIncidencia(Writer saida) throws IOException {
+        escreverMatrizIncidencia(saida, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Escreve uma janela da matriz de incidência (ver
+     * {@link #getMatrizIncidencia(int, int, int, int)}).
+     */
+    public void escreverMatrizIncidencia(Writer saida, int linhaInicial, int numLinhas,
+                                         int colunaInicial, int numColunas) throws IOException {
+        if (numConexoes == 0) {
+            saida.write("Matriz de Incidência\n\n(Nenhuma conexão para exibir)");
+            return;
+        }
+        IncidenciaEsparsa inc = getIncidencia();
+        int[] ativos = indicesAtivos(); // Sem as linhas (vazias) de estações removidas
+        int totalLinhas = ativos != null ? ativos.length : inc.getNumLinhas();
+        int totalColunas = inc.getNumColunas();
+        int[] janela = limitarJanela(linhaInicial, numLinhas, colunaInicial, numColunas, totalLinhas, totalColunas);
+
+        saida.write("Matriz de Incidência\n\n");
+        if (!janelaCompleta(janela, totalLinhas, totalColunas)) {
+            saida.write(String.format("(Linhas %d a %d de %d, colunas C%02d a C%02d de %d)%n%n",
+                    janela[0] + 1, janela[1], totalLinhas, janela[2] + 1, janela[3], totalColunas));
         }
         
         // Cabeçalho para a Matriz de Incidência (mostrando as conexões)
-        StringBuilder header = new StringBuilder("        "); // Espaço para os IDs das estações
-        for(int j = 0; j < conexoes.size(); j++) {
-            header.append(String.format("C%02d   ", j+1)); // C01, C02...
+        saida.write("        "); // Espaço para os IDs das estações
+        for (int j = janela[2]; j < janela[3]; j++) {
+            saida.write('C'); // C01, C02...
+            RenderizadorTexto.escreverDoisDigitos(saida, j + 1);
+            saida.write("   ");
+        }
+        saida.write('\n');
+        if (estacoes.isEmpty()) {
+            saida.write("\n\n(Nenhuma estação para exibir)");
+            return;
+        }
+        saida.write("\n\n");
+
+        // Linhas: só as colunas da janela, a partir da lista de incidências da linha
+        RenderizadorTexto.Celulas idLinha = new RenderizadorTexto.Celulas(3, " | ");
+        RenderizadorTexto.Celulas celulas = new RenderizadorTexto.Celulas(6, " ");
+        int[] valores = new int[janela[3] - janela[2]];
+        for (int i = janela[0]; i < janela[1]; i++) {
+            int indice = indiceNaPosicao(ativos, i);
+            saida.write("ID ");
+            idLinha.escrever(saida, indiceParaId.obter(indice));
+            inc.preencherLinha(indice, janela[2], valores.length, valores);
+            for (int valor : valores) {
+                celulas.escrever(saida, valor);
+            }
+            saida.write('\n');
         }
-        header.append("\n");
-        
-        String matrizFormatada = formatarMatriz("", matrizIncidencia, false);
-        return "Matriz de Incidência\n\n" + header.toString() + matrizFormatada;
     }
 
     public String getListaArestas() {
-        if(conexoes.isEmpty()) return "Lista de Arestas (Conexões):\n\n(Nenhuma conexão)";
-        
-        StringBuilder sb = new StringBuilder("Lista de Arestas (Conexões):\n\n");
-        for (Conexao c : conexoes) {
-            String nomeOrigem = estacoes.get(c.getIdOrigem()).getNome();
-            String nomeDestino = estacoes.get(c.getIdDestino()).getNome();
-            sb.append(String.format("[%d] %s <--(Peso: %d)--> [%d] %s\n",
-                c.getIdOrigem(), nomeOrigem, c.getPeso(), c.getIdDestino(), nomeDestino));
+        return RenderizadorTexto.paraTexto(this::escreverListaArestas);
+    }
+
+    /**
+     * Escreve a lista de arestas (uma conexão por linha, na ordem de inserção).
+     */
+    public void escreverListaArestas(Writer saida) throws IOException {
+        if (numConexoes == 0) {
+            saida.write("Lista de Arestas (Conexões):\n\n(Nenhuma conexão)");
+            return;
+        }
+        saida.write("Lista de Arestas (Conexões):\n\n");
+        for (Conexao c : getTodasConexoes()) {
+            escreverEstacao(saida, c.getIdOrigem());
+            saida.write(" <--(Peso: ");
+            saida.write(Integer.toString(c.getPeso()));
+            saida.write(")--> ");
+            escreverEstacao(saida, c.getIdDestino());
+            saida.write('\n');
         }
-        return sb.toString();
     }
 
     public String getListaSucessores() {
-        if(estacoes.isEmpty()) return "Lista de Sucessores (Adjacências):\n\n(Nenhuma estação)";
-        
-        StringBuilder sb = new StringBuilder("Lista de Sucessores (Adjacências):\n\n");
-        int numEstacoes = estacoes.size();
+        return RenderizadorTexto.paraTexto(this::escreverListaSucessores);
+    }
 
-        for (int i = 0; i < numEstacoes; i++) {
-            int idOrigem = indiceParaId.get(i);
-            String nomeOrigem = estacoes.get(idOrigem).getNome();
-            sb.append(String.format("[%d] %s -> ", idOrigem, nomeOrigem));
+    /**
+     * Escreve a lista de sucessores (uma estação por linha, em ordem de ID).
+     */
+    public void escreverListaSucessores(Writer saida) throws IOException {
+        if (estacoes.isEmpty()) {
+            saida.write("Lista de Sucessores (Adjacências):\n\n(Nenhuma estação)");
+            return;
+        }
+        saida.write("Lista de Sucessores (Adjacências):\n\n");
+        int numIndices = adjacencia.getNumVertices();
+
+        for (int i = 0; i < numIndices; i++) {
+            int idOrigem = indiceParaId.obter(i);
+            if (idOrigem == ID_REMOVIDO) {
+                continue; // Estação removida
+            }
+            escreverEstacao(saida, idOrigem);
+            saida.write(" -> ");
 
             boolean temSucessor = false;
-            for (int j = 0; j < numEstacoes; j++) {
-                if (matrizAdjacencia[i][j] > 0) { // Se há conexão
-                    int idDestino = indiceParaId.get(j);
-                    String nomeDestino = estacoes.get(idDestino).getNome();
-                    sb.append(String.format("[%d] %s (Peso: %d) | ", idDestino, nomeDestino, matrizAdjacencia[i][j]));
-                    temSucessor = true;
-                }
+            for (int k = adjacencia.inicio(i); k < adjacencia.fim(i); k++) {
+                escreverEstacao(saida, indiceParaId.obter(adjacencia.destino(k)));
+                saida.write(" (Peso: ");
+                saida.write(Integer.toString(adjacencia.peso(k)));
+                saida.write(") | ");
+                temSucessor = true;
             }
             if (!temSucessor) {
-                sb.append("(Nenhum)");
+                saida.write("(Nenhum)");
             }
-            sb.append("\n");
+            saida.write('\n');
         }
-        return sb.toString();
     }
 
-    // --- MÉTODOS PARA O MENU 2 (Operações) - (sem alterações) ---
+    // "[id] nome"
+    private void escreverEstacao(Writer saida, int id) throws IOException {
+        saida.write('[');
+        saida.write(Integer.toString(id));
+        saida.write("] ");
+        saida.write(String.valueOf(estacoes.obter(id).getNome()));
+    }
+
+    // --- MÉTODOS PARA O MENU 2 (Operações) ---
 
     public String calcularGraus() {
         if(estacoes.isEmpty()) return "Grau dos Vértices (Estações):\n\n(Nenhuma estação)";
         
         StringBuilder sb = new StringBuilder("Grau dos Vértices (Estações):\n\n");
-        int numEstacoes = estacoes.size();
+        int numIndices = adjacencia.getNumVertices();
         
-        for (int i = 0; i < numEstacoes; i++) {
-            int grau = 0;
-            for (int j = 0; j < numEstacoes; j++) {
-                if (matrizAdjacencia[i][j] > 0) {
-                    grau++;
-                }
+        for (int i = 0; i < numIndices; i++) {
+            int id = indiceParaId.obter(i);
+            if (id == ID_REMOVIDO) {
+                continue; // Estação removida
             }
-            int id = indiceParaId.get(i);
-            String nome = estacoes.get(id).getNome();
+            int grau = adjacencia.grau(i);
+            String nome = estacoes.obter(id).getNome();
             sb.append(String.format("[%d] %s: Grau %d\n", id, nome, grau));
         }
         return sb.toString();
@@ -296,240 +958,513 @@ public class Grafo {
 
     // BFS (Busca em Largura) - Caminho mais curto em número de paradas
     public String bfs(int idOrigem, int idDestino) {
-        if (!idParaIndice.containsKey(idOrigem) || !idParaIndice.containsKey(idDestino)) {
+        ResultadoCaminho resultado = caminhoPorParadas(idOrigem, idDestino);
+        return resultado != null ? resultado.formatar() : "Erro: ID de origem ou destino não encontrado.";
+    }
+
+    /**
+     * Caminho com menos paradas, sem formatação (ver {@link ResultadoCaminho}).
+     * @param idOrigem ID da estação de origem
+     * @param idDestino ID da estação de destino
+     * @return O resultado (que indica se há caminho), ou null se alguma das estações não existe
+     */
+    public ResultadoCaminho caminhoPorParadas(int idOrigem, int idDestino) {
+        int idxOrigem = idParaIndice.obter(idOrigem, -1);
+        int idxDestino = idParaIndice.obter(idDestino, -1);
+        if (idxOrigem < 0 || idxDestino < 0) {
+            return null;
+        }
+        return new ResultadoCaminho(this, null, idxOrigem, idxDestino, buscarCaminhoParadas(idxOrigem, idxDestino));
+    }
+    
+    /**
+     * BFS completa a partir de uma estação: número mínimo de paradas até cada
+     * uma das outras (usa a BFS com otimização de direção).
+     * @param idOrigem ID da estação de origem
+     * @return Texto com as paradas até cada estação
+     */
+    public String calcularParadasDesde(int idOrigem) {
+        int idxOrigem = idParaIndice.obter(idOrigem, -1);
+        if (idxOrigem < 0) {
+            return "Erro: ID de origem não encontrado.";
+        }
+        int[] niveis = BuscaLargura.niveis(adjacencia, idxOrigem);
+
+        StringBuilder sb = new StringBuilder("Paradas a partir de [" + idOrigem + "] "
+                + estacoes.obter(idOrigem).getNome() + " (BFS):\n\n");
+        for (int i = 0; i < niveis.length; i++) {
+            int id = indiceParaId.obter(i);
+            if (id == ID_REMOVIDO) {
+                continue; // Estação removida
+            }
+            String nome = estacoes.obter(id).getNome();
+            if (niveis[i] < 0) {
+                sb.append(String.format("[%d] %s: inalcançável\n", id, nome));
+            } else {
+                sb.append(String.format("[%d] %s: %d parada(s)\n", id, nome, niveis[i]));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Dijkstra - Caminho mais curto por peso (distância)
+    public String dijkstra(int idOrigem, int idDestino) {
+        return dijkstra(idOrigem, idDestino, ModoBusca.DIJKSTRA);
+    }
+
+    /**
+     * Caminho mais curto por peso usando o algoritmo escolhido. Todos os modos
+     * retornam o mesmo custo; o A* usa a heurística nula (ver {@link #aEstrela})
+     * e o ALT usa as tabelas de landmarks. Em um grafo publicado, o
+     * pré-processamento de ALT, Contraction Hierarchies e da tabela de todos
+     * os pares é feito em segundo plano a partir da primeira consulta (ou ao
+     * publicar, se o modo já era usado); até ficar pronto, esses modos
+     * respondem pelo Dijkstra bidirecional, sem esperar.
+     * @param idOrigem ID da estação de origem
+     * @param idDestino ID da estação de destino
+     * @param modo Algoritmo a usar
+     * @return Texto com o caminho e o resumo
+     */
+    public String dijkstra(int idOrigem, int idDestino, ModoBusca modo) {
+        ResultadoCaminho resultado = caminhoPorPeso(idOrigem, idDestino, modo);
+        return resultado != null ? resultado.formatar() : "Erro: ID de origem ou destino não encontrado.";
+    }
+
+    /**
+     * Caminho mais curto por peso, sem formatação (ver {@link ResultadoCaminho}
+     * e {@link #dijkstra(int, int, ModoBusca)}).
+     * @param idOrigem ID da estação de origem
+     * @param idDestino ID da estação de destino
+     * @param modo Algoritmo a usar
+     * @return O resultado (que indica se há caminho), ou null se alguma das estações não existe
+     */
+    public ResultadoCaminho caminhoPorPeso(int idOrigem, int idDestino, ModoBusca modo) {
+        int idxOrigem = idParaIndice.obter(idOrigem, -1);
+        int idxDestino = idParaIndice.obter(idDestino, -1);
+        if (idxOrigem < 0 || idxDestino < 0) {
+            return null;
+        }
+        return new ResultadoCaminho(this, modo, idxOrigem, idxDestino, buscarCaminho(idxOrigem, idxDestino, modo));
+    }
+
+    /**
+     * Caminho mais curto por peso usando A* com a heurística informada.
+     * @param idOrigem ID da estação de origem
+     * @param idDestino ID da estação de destino
+     * @param heuristica Estimativa admissível da distância até o destino
+     * @return Texto com o caminho e o resumo
+     */
+    public String aEstrela(int idOrigem, int idDestino, Heuristica heuristica) {
+        int idxOrigem = idParaIndice.obter(idOrigem, -1);
+        int idxDestino = idParaIndice.obter(idDestino, -1);
+        if (idxOrigem < 0 || idxDestino < 0) {
             return "Erro: ID de origem ou destino não encontrado.";
         }
+        EspacoBusca espaco = MotorDijkstra.aEstrela(adjacencia, idxOrigem, idxDestino, heuristica);
+        return new ResultadoCaminho(this, ModoBusca.A_ESTRELA, idxOrigem, idxDestino,
+                espaco.extrairCaminho(idxOrigem, idxDestino)).formatar();
+    }
 
-        int idxOrigem = idParaIndice.get(idOrigem);
-        int idxDestino = idParaIndice.get(idDestino);
-        int numEstacoes = estacoes.size();
+    /**
+     * Retorna o índice interno (usado pelas buscas e heurísticas) de uma estação.
+     * @param id O ID da estação
+     * @return O índice, ou -1 se a estação não existe
+     */
+    public int indiceDe(int id) {
+        return idParaIndice.obter(id, -1);
+    }
 
-        Queue<Integer> fila = new LinkedList<>();
-        int[] anterior = new int[numEstacoes]; // Guarda o "pai" de cada nó no caminho
-        boolean[] visitado = new boolean[numEstacoes];
+    /**
+     * Retorna o ID da estação que ocupa um índice interno.
+     * @param indice O índice
+     * @return O ID da estação, ou {@link #ID_REMOVIDO} se o índice é de uma
+     *         estação removida (qualquer outro valor, inclusive negativo, é um ID real)
+     */
+    public int idDe(int indice) {
+        return indiceParaId.obter(indice);
+    }
 
-        Arrays.fill(anterior, -1);
-        Arrays.fill(visitado, false);
+    /**
+     * Diz se um índice interno ainda pertence a uma estação (os índices de
+     * estações removidas ficam vagos até a próxima compactação).
+     * @param indice O índice
+     * @return false se o índice é de uma estação removida
+     */
+    public boolean indiceAtivo(int indice) {
+        return indiceParaId.obter(indice) != ID_REMOVIDO;
+    }
 
-        fila.add(idxOrigem);
-        visitado[idxOrigem] = true;
+    // Usado pelas classes de busca do pacote (validação, pré-processamentos)
+    AdjacenciaCSR getAdjacencia() {
+        return adjacencia;
+    }
 
-        while (!fila.isEmpty()) {
-            int idxAtual = fila.poll();
+    // --- PRÉ-PROCESSAMENTO ALT (LANDMARKS) ---
 
-            if (idxAtual == idxDestino) {
-                break; // Achou o destino
-            }
+    /**
+     * Escolhe os landmarks e calcula as tabelas de distância usadas pelo modo
+     * {@link ModoBusca#ALT}. As tabelas valem até a próxima alteração do grafo.
+     * @param k Quantidade de landmarks
+     * @param selecao Estratégia de escolha dos landmarks
+     */
+    public synchronized void prepararALT(int k, LandmarksALT.Selecao selecao) {
+        alt = LandmarksALT.calcular(adjacencia, k, selecao, versao, calcularAssinatura());
+        marcarEmUso(ModoBusca.ALT);
+    }
 
-            // Para cada vizinho do nó atual
-            for (int idxVizinho = 0; idxVizinho < numEstacoes; idxVizinho++) {
-                // Se existe conexão (peso > 0) e ainda não foi visitado
-                if (matrizAdjacencia[idxAtual][idxVizinho] > 0 && !visitado[idxVizinho]) {
-                    visitado[idxVizinho] = true;
-                    anterior[idxVizinho] = idxAtual;
-                    fila.add(idxVizinho);
+    /**
+     * Salva as tabelas ALT em disco (calculando-as antes, se necessário).
+     * @param nomeArquivo Caminho do arquivo
+     */
+    public void salvarALT(String nomeArquivo) throws IOException {
+        obterALT().salvar(nomeArquivo);
+    }
+
+    /**
+     * Carrega tabelas ALT salvas anteriormente, se forem deste mesmo grafo.
+     * @param nomeArquivo Caminho do arquivo
+     * @return true se o arquivo foi carregado; false se não existe ou está desatualizado
+     */
+    public synchronized boolean carregarALT(String nomeArquivo) throws IOException {
+        if (!new File(nomeArquivo).exists()) {
+            return false;
+        }
+        LandmarksALT carregado = LandmarksALT.carregar(nomeArquivo, calcularAssinatura());
+        if (carregado != null) {
+            alt = carregado;
+            marcarEmUso(ModoBusca.ALT);
+        }
+        return carregado != null;
+    }
+
+    /**
+     * Indica se as tabelas ALT estão prontas (calculadas ou carregadas e válidas).
+     */
+    public boolean isALTPronto() {
+        return alt != null;
+    }
+
+    // Retorna o ALT atual, calculando com os parâmetros padrão se ainda não
+    // existe (usado para salvar: quem pediu espera o cálculo)
+    private LandmarksALT obterALT() {
+        LandmarksALT atual = alt;
+        if (atual == null) {
+            synchronized (this) {
+                if (alt == null) {
+                    prepararALT(LandmarksALT.K_PADRAO, LandmarksALT.Selecao.EVITAR);
                 }
+                atual = alt;
             }
         }
+        return atual;
+    }
 
-        // Monta o caminho de volta
-        return construirCaminho(idxOrigem, idxDestino, anterior, null, false);
+    // --- CONTRACTION HIERARCHIES ---
+
+    /**
+     * Constrói a Contraction Hierarchy usada pelo modo
+     * {@link ModoBusca#CONTRACTION_HIERARCHIES}. Vale até a próxima alteração do grafo.
+     */
+    public synchronized void prepararCH() {
+        ch = HierarquiaContracao.construir(adjacencia, calcularAssinatura());
+        marcarEmUso(ModoBusca.CONTRACTION_HIERARCHIES);
     }
-    
-    // Dijkstra - Caminho mais curto por peso (distância)
-    public String dijkstra(int idOrigem, int idDestino) {
-        if (!idParaIndice.containsKey(idOrigem) || !idParaIndice.containsKey(idDestino)) {
-            return "Erro: ID de origem ou destino não encontrado.";
-        }
-        
-        int idxOrigem = idParaIndice.get(idOrigem);
-        int idxDestino = idParaIndice.get(idDestino);
-        int numEstacoes = estacoes.size();
 
-        int[] distancias = new int[numEstacoes];
-        int[] anterior = new int[numEstacoes];
-        boolean[] visitado = new boolean[numEstacoes];
-        
-        // Fila de prioridade para pegar sempre o nó com menor distância
-        // Guarda um array [idEstacao, distancia]
-        PriorityQueue<int[]> filaPrioridade = new PriorityQueue<>((a, b) -> a[1] - b[1]);
+    /**
+     * Indica se a Contraction Hierarchy está pronta.
+     */
+    public boolean isCHPronta() {
+        return ch != null;
+    }
 
-        Arrays.fill(distancias, Integer.MAX_VALUE);
-        Arrays.fill(anterior, -1);
-        Arrays.fill(visitado, false);
+    // --- TABELA DE TODOS OS PARES ---
 
-        distancias[idxOrigem] = 0;
-        filaPrioridade.add(new int[]{idxOrigem, 0});
+    /**
+     * Calcula a tabela de caminhos entre todos os pares usada pelo modo
+     * {@link ModoBusca#TODOS_OS_PARES} e pelas buscas por paradas. Vale até a
+     * próxima alteração do grafo.
+     * @return false se a rede passa de {@link TabelaTodosPares#LIMITE_VERTICES}
+     *         estações (a tabela não é montada)
+     */
+    public synchronized boolean prepararTodosPares() {
+        if (adjacencia.getNumVertices() > TabelaTodosPares.LIMITE_VERTICES) {
+            return false;
+        }
+        todosPares = TabelaTodosPares.calcular(adjacencia, calcularAssinatura());
+        marcarEmUso(ModoBusca.TODOS_OS_PARES);
+        return true;
+    }
 
-        while (!filaPrioridade.isEmpty()) {
-            int[] parAtual = filaPrioridade.poll();
-            int idxAtual = parAtual[0];
+    /**
+     * Salva a tabela de todos os pares em disco (calculando-a antes, se necessário).
+     * @param nomeArquivo Caminho do arquivo
+     * @throws IllegalStateException se a rede é grande demais para a tabela
+     */
+    public void salvarTodosPares(String nomeArquivo) throws IOException {
+        TabelaTodosPares tabela = obterTodosPares();
+        if (tabela == null) {
+            throw new IllegalStateException("Rede grande demais para a tabela de todos os pares ("
+                    + getNumIndices() + " estações, limite " + TabelaTodosPares.LIMITE_VERTICES + ")");
+        }
+        tabela.salvar(nomeArquivo);
+    }
 
-            if (visitado[idxAtual]) {
-                continue;
-            }
-            visitado[idxAtual] = true;
+    /**
+     * Carrega uma tabela de todos os pares salva anteriormente, se for deste mesmo grafo.
+     * @param nomeArquivo Caminho do arquivo
+     * @return true se o arquivo foi carregado; false se não existe ou está desatualizado
+     */
+    public synchronized boolean carregarTodosPares(String nomeArquivo) throws IOException {
+        if (!new File(nomeArquivo).exists()) {
+            return false;
+        }
+        TabelaTodosPares carregada = TabelaTodosPares.carregar(nomeArquivo, calcularAssinatura());
+        if (carregada != null) {
+            todosPares = carregada;
+            marcarEmUso(ModoBusca.TODOS_OS_PARES);
+        }
+        return carregada != null;
+    }
 
-            if (idxAtual == idxDestino) {
-                break; // Achou o destino
-            }
+    /**
+     * Indica se a tabela de todos os pares está pronta.
+     */
+    public boolean isTodosParesPronta() {
+        return todosPares != null;
+    }
 
-            // Para cada vizinho
-            for (int idxVizinho = 0; idxVizinho < numEstacoes; idxVizinho++) {
-                int peso = matrizAdjacencia[idxAtual][idxVizinho];
-                
-                // Se existe conexão (peso > 0)
-                if (peso > 0 && !visitado[idxVizinho]) {
-                    int novaDistancia = distancias[idxAtual] + peso;
-                    
-                    if (novaDistancia < distancias[idxVizinho]) {
-                        distancias[idxVizinho] = novaDistancia;
-                        anterior[idxVizinho] = idxAtual;
-                        filaPrioridade.add(new int[]{idxVizinho, novaDistancia});
-                    }
+    // Retorna a tabela atual, calculando-a se ainda não existe; null se a
+    // rede é grande demais para ela
+    private TabelaTodosPares obterTodosPares() {
+        TabelaTodosPares atual = todosPares;
+        if (atual == null && adjacencia.getNumVertices() <= TabelaTodosPares.LIMITE_VERTICES) {
+            synchronized (this) {
+                if (todosPares == null) {
+                    prepararTodosPares();
                 }
+                atual = todosPares;
             }
         }
-        
-        // Monta o caminho de volta
-        return construirCaminho(idxOrigem, idxDestino, anterior, distancias, true);
+        return atual;
     }
 
+    // --- PREPARO EM SEGUNDO PLANO ---
 
-    // --- MÉTODOS AUXILIARES (sem alterações) ---
+    /**
+     * Agenda, em segundo plano, os pré-processamentos dos modos que já foram
+     * usados (consultados, preparados ou carregados) nas versões anteriores.
+     * Chamado ao publicar este grafo (ver {@link EstadoRede}); até o preparo
+     * terminar, as consultas nesses modos usam o Dijkstra bidirecional.
+     */
+    void prepararEmSegundoPlano() {
+        synchronized (modosEmUso) {
+            for (ModoBusca modo : modosEmUso) {
+                agendarPreparo(modo);
+            }
+        }
+    }
 
-    // Formata uma matriz para exibição
-    private String formatarMatriz(String titulo, int[][] matriz) {
-        return formatarMatriz(titulo, matriz, true);
+    /**
+     * Avisa que este grafo foi substituído por uma versão mais nova: os
+     * preparos dele que ainda estão na fila são descartados.
+     */
+    void marcarSubstituido() {
+        substituido = true;
     }
-    
-    private String formatarMatriz(String titulo, int[][] matriz, boolean mostrarHeaderIds) {
-        if (matriz == null) {
-            return titulo + "\nMatriz ainda não gerada.";
+
+    private void marcarEmUso(ModoBusca modo) {
+        synchronized (modosEmUso) {
+            modosEmUso.add(modo);
         }
-        if (estacoes.isEmpty()) {
-            return titulo + "\n\n(Nenhuma estação para exibir)";
+    }
+
+    // O pré-processamento do modo não está pronto. Em um grafo publicado, pede
+    // o preparo em segundo plano e retorna false: a consulta não espera (nem
+    // segura a trava do grafo), e usa o Dijkstra bidirecional. Um grafo ainda
+    // não publicado é usado por uma thread só: o preparo é feito na hora
+    private boolean prepararOuAgendar(ModoBusca modo) {
+        if (!congelado) {
+            return preparar(modo);
         }
-        
-        StringBuilder sb = new StringBuilder(titulo + "\n\n");
-        int numLinhas = matriz.length;
-        if (numLinhas == 0) return sb.toString();
-        int numColunas = matriz[0].length;
+        boolean novo;
+        synchronized (modosEmUso) {
+            novo = modosEmUso.add(modo);
+        }
+        if (novo) {
+            agendarPreparo(modo);
+        }
+        return false;
+    }
 
-        // Cabeçalho das colunas (IDs das Estações)
-        if(mostrarHeaderIds) {
-            sb.append("        "); // Espaço para o ID da linha
-            for (int j = 0; j < numColunas; j++) {
-                sb.append(String.format("ID %-3d ", indiceParaId.get(j)));
+    private void agendarPreparo(ModoBusca modo) {
+        PREPARO.execute(() -> {
+            if (substituido) {
+                return;
+            }
+            try {
+                preparar(modo);
+            } catch (RuntimeException e) {
+                System.err.println("Falha no pré-processamento (" + modo.getNome() + "): " + e);
             }
-            sb.append("\n");
+        });
+    }
+
+    // Monta o pré-processamento do modo, se ainda não existe; false se não há
+    // como montá-lo (tabela de todos os pares em uma rede grande demais)
+    private boolean preparar(ModoBusca modo) {
+        switch (modo) {
+            case ALT:
+                if (alt == null) {
+                    prepararALT(LandmarksALT.K_PADRAO, LandmarksALT.Selecao.EVITAR);
+                }
+                return true;
+            case CONTRACTION_HIERARCHIES:
+                if (ch == null) {
+                    prepararCH();
+                }
+                return true;
+            case TODOS_OS_PARES:
+                return todosPares != null || prepararTodosPares();
+            default:
+                return true;
         }
+    }
 
-        // Linhas
-        for (int i = 0; i < numLinhas; i++) {
-            // Cabeçalho da linha (ID da Estação)
-            sb.append(String.format("ID %-3d | ", indiceParaId.get(i)));
-            
-            // Valores
-            for (int j = 0; j < numColunas; j++) {
-                sb.append(String.format("%-6d ", matriz[i][j]));
+    /**
+     * Calcula uma assinatura (hash de 64 bits) da adjacência atual: IDs das
+     * estações por índice e todas as conexões com pesos. Usada para saber se
+     * dados pré-processados salvos em disco ainda correspondem a este grafo.
+     */
+    long calcularAssinatura() {
+        long h = 0xcbf29ce484222325L; // FNV-1a
+        int numVertices = adjacencia.getNumVertices();
+        h = misturar(h, numVertices);
+        for (int v = 0; v < numVertices; v++) {
+            h = misturar(h, indiceParaId.obter(v)); // ID_REMOVIDO: índice de estação removida
+            for (int k = adjacencia.inicio(v); k < adjacencia.fim(v); k++) {
+                h = misturar(h, adjacencia.destino(k));
+                h = misturar(h, adjacencia.peso(k));
             }
-            sb.append("\n");
+            h = misturar(h, -1); // Separador entre linhas
         }
-        return sb.toString();
+        return h;
+    }
+
+    private static long misturar(long h, int valor) {
+        h ^= valor;
+        return h * 0x100000001b3L;
     }
-    
-    // Constroi a string do caminho (usado por BFS e Dijkstra)
-    private String construirCaminho(int idxOrigem, int idxDestino, int[] anterior, int[] distancias, boolean usarPeso) {
-        List<Integer> caminhoIndices = new ArrayList<>();
-        int idxAtual = idxDestino;
-        
-        // Verifica se o destino é alcançável
-        if (anterior[idxAtual] == -1 && idxAtual != idxOrigem) {
-            return "Caminho não encontrado da estação " + estacoes.get(indiceParaId.get(idxOrigem)).getNome() +
-                   " para " + estacoes.get(indiceParaId.get(idxDestino)).getNome() + ".";
-        }
 
-        // Reconstrói o caminho de trás para frente
-        while (idxAtual != -1) {
-            caminhoIndices.add(idxAtual);
-            idxAtual = anterior[idxAtual];
+    /**
+     * Cache dos caminhos calculados nesta versão do grafo (com as estatísticas
+     * de acertos e falhas).
+     */
+    public CacheRotas getCacheRotas() {
+        return cacheRotas;
+    }
+
+    // Caminho com menos paradas (índices, null se inalcançável): lido da tabela
+    // de todos os pares se ela já está pronta; senão, do cache ou da BFS
+    // bidirecional (expande a partir da origem e do destino até se encontrarem).
+    // O array pode ser compartilhado com o cache: não deve ser alterado
+    int[] buscarCaminhoParadas(int idxOrigem, int idxDestino) {
+        TabelaTodosPares tabela = todosPares;
+        if (tabela != null) {
+            return tabela.caminhoParadas(idxOrigem, idxDestino);
+        }
+        int[] caminho = cacheRotas.obter(versao, CacheRotas.TIPO_PARADAS, idxOrigem, idxDestino);
+        if (caminho == CacheRotas.AUSENTE) {
+            caminho = BuscaLargura.bidirecional(adjacencia, idxOrigem, idxDestino);
+            cacheRotas.guardar(versao, CacheRotas.TIPO_PARADAS, idxOrigem, idxDestino, caminho);
         }
-        Collections.reverse(caminhoIndices); // Inverte para (Origem -> Destino)
+        return caminho;
+    }
 
-        // Monta a string de resultado
-        StringBuilder sb = new StringBuilder();
-        String tipoCaminho = usarPeso ? "Caminho por Distância (Dijkstra)" : "Caminho por Paradas (BFS)";
-        sb.append(tipoCaminho + "\n\n");
-        
-        int custoTotal = 0;
-        
-        for (int i = 0; i < caminhoIndices.size(); i++) {
-            int idx = caminhoIndices.get(i);
-            int idEstacao = indiceParaId.get(idx);
-            Estacao estacao = estacoes.get(idEstacao);
-            sb.append(String.format("[%d] %s", idEstacao, estacao.getNome()));
-
-            if (i < caminhoIndices.size() - 1) {
-                if(usarPeso) {
-                    int idxProximo = caminhoIndices.get(i+1);
-                    int peso = matrizAdjacencia[idx][idxProximo];
-                    custoTotal += peso;
-                    sb.append(String.format(" --(Peso: %d)-->\n", peso));
-                } else {
-                     sb.append(" -->\n");
-                }
-            }
+    // Caminho pelo algoritmo escolhido (índices, null se inalcançável), do cache
+    // se este par já foi calculado nesta versão. O array pode ser compartilhado
+    // com o cache: não deve ser alterado
+    int[] buscarCaminho(int idxOrigem, int idxDestino, ModoBusca modo) {
+        if (modo == ModoBusca.TODOS_OS_PARES && todosPares != null) {
+            return calcularCaminho(idxOrigem, idxDestino, modo); // Já é só uma leitura de tabela
         }
-        
-        sb.append("\n\n--- RESUMO ---\n");
-        if(usarPeso) {
-             sb.append("Custo Total (Distância): " + custoTotal + "\n");
+        int[] caminho = cacheRotas.obter(versao, modo.ordinal(), idxOrigem, idxDestino);
+        if (caminho == CacheRotas.AUSENTE) {
+            caminho = calcularCaminho(idxOrigem, idxDestino, modo);
+            cacheRotas.guardar(versao, modo.ordinal(), idxOrigem, idxDestino, caminho);
         }
-        sb.append("Número de Paradas: " + (caminhoIndices.size() - 1) + "\n");
+        return caminho;
+    }
 
-        return sb.toString();
+    // Executa o algoritmo escolhido (sem cache) e retorna os índices do caminho (null se inalcançável)
+    int[] calcularCaminho(int idxOrigem, int idxDestino, ModoBusca modo) {
+        switch (modo) {
+            case DIJKSTRA_BIDIRECIONAL:
+                return MotorDijkstra.bidirecional(adjacencia, idxOrigem, idxDestino);
+            case A_ESTRELA:
+                return MotorDijkstra.aEstrela(adjacencia, idxOrigem, idxDestino, Heuristica.ZERO)
+                        .extrairCaminho(idxOrigem, idxDestino);
+            case ALT:
+                if (alt == null && !prepararOuAgendar(modo)) {
+                    return MotorDijkstra.bidirecional(adjacencia, idxOrigem, idxDestino);
+                }
+                return MotorDijkstra.aEstrela(adjacencia, idxOrigem, idxDestino, alt)
+                        .extrairCaminho(idxOrigem, idxDestino);
+            case CONTRACTION_HIERARCHIES:
+                if (ch == null && !prepararOuAgendar(modo)) {
+                    return MotorDijkstra.bidirecional(adjacencia, idxOrigem, idxDestino);
+                }
+                return ch.consultar(idxOrigem, idxDestino);
+            case TODOS_OS_PARES:
+                if (todosPares == null && !prepararOuAgendar(modo)) {
+                    return MotorDijkstra.bidirecional(adjacencia, idxOrigem, idxDestino);
+                }
+                return todosPares.caminho(idxOrigem, idxDestino);
+            case DIJKSTRA:
+            default:
+                // Dijkstra com heap indexado e espaço de busca reaproveitado (sem alocação por consulta)
+                return MotorDijkstra.executar(adjacencia, idxOrigem, idxDestino)
+                        .extrairCaminho(idxOrigem, idxDestino);
+        }
     }
 
+
     // --- MÉTODO ATUALIZADO (GERA CÓDIGO MERMAID) ---
     /**
      * Gera um código na linguagem Mermaid.js para visualização do grafo.
      * @return Uma string contendo o código-fonte do grafo em Mermaid.
      */
     public String gerarCodigoMermaid() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("graph LR;\n"); // LR = Left to Right (Esquerda para Direita)
-        sb.append("\n    %% --- Definição dos Nós (Estações) --- \n");
+        return RenderizadorTexto.paraTexto(this::escreverCodigoMermaid);
+    }
+
+    /**
+     * Escreve o código Mermaid.js do grafo (ver {@link #gerarCodigoMermaid()}).
+     */
+    public void escreverCodigoMermaid(Writer saida) throws IOException {
+        saida.append("graph LR;\n"); // LR = Left to Right (Esquerda para Direita)
+        saida.append("\n    %% --- Definição dos Nós (Estações) --- \n");
         
-        // 1. Define todos os nós primeiro.
+        // 1. Define todos os nós primeiro (em ordem de ID).
         // Sintaxe Mermaid: ID["Texto do Nó"]
-        for (Estacao e : estacoes.values()) {
-            sb.append("    ");
-            sb.append(e.getId()); // Usa o ID numérico como ID do nó
-            sb.append("[\"");
-            sb.append(e.getNome().replace("\"", "")); // Remove aspas do nome
-            sb.append(" [").append(e.getId()).append("]");
-            sb.append("\"];\n");
+        int[] ids = estacoes.chaves();
+        Arrays.sort(ids);
+        for (int id : ids) {
+            ExportadorGrafo.escreverNoMermaid(saida, id, estacoes.obter(id).getNome());
         }
 
-        sb.append("\n    %% --- Definição das Arestas (Conexões) com Pesos --- \n");
+        saida.append("\n    %% --- Definição das Arestas (Conexões) com Pesos --- \n");
         
         // 2. Define as conexões
-        // Sintaxe Mermaid: ID1 -- "Texto do Peso" --- ID2
-        for (Conexao c : conexoes) {
-            sb.append("    ");
-            sb.append(c.getIdOrigem());
-            sb.append(" -- \"Peso: ").append(c.getPeso()).append("\" --- "); // Ligação sem seta
-            sb.append(c.getIdDestino());
-            sb.append(";\n");
-        }
-
-        sb.append("\n\n// --- INSTRUÇÕES ---\n");
-        sb.append("// 1. Copie todo este código (Ctrl+C).\n");
-        sb.append("// 2. Abra um editor Mermaid online (ex: mermaid.live)\n");
-        sb.append("// 3. Cole o código (Ctrl+V) no editor.\n");
-        sb.append("// 4. A imagem do seu grafo aparecerá automaticamente.\n");
-        sb.append("// 5. Exporte a imagem (como PNG ou SVG) para o seu relatório.\n");
-        return sb.toString();
+        // Sintaxe Mermaid: ID1 -- "Texto do Peso" --- ID2 (ligação sem seta)
+        for (Conexao c : getTodasConexoes()) {
+            ExportadorGrafo.escreverArestaMermaid(saida, c.getIdOrigem(), c.getIdDestino(), c.getPeso());
+        }
+
+        saida.append("\n\n// --- INSTRUÇÕES ---\n");
+        saida.append("// 1. Copie todo este código (Ctrl+C).\n");
+        saida.append("// 2. Abra um editor Mermaid online (ex: mermaid.live)\n");
+        saida.append("// 3. Cole o código (Ctrl+V) no editor.\n");
+        saida.append("// 4. A imagem do seu grafo aparecerá automaticamente.\n");
+        saida.append("// 5. Exporte a imagem (como PNG ou SVG) para o seu relatório.\n");
     }
 }
\ No newline at end of file
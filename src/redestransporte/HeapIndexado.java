@@ -0,0 +1,145 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap d-ário indexado sobre arrays primitivos.
+ *
+ * Cada vértice aparece no máximo uma vez, então a relaxação de uma aresta
+ * vira um "diminuir chave" em vez de inserir um novo par {vértice, distância}
+ * (como fazia a PriorityQueue do Dijkstra original). Nenhum objeto é criado
+ * durante a busca. Empates na chave são desfeitos pelo menor índice, deixando
+ * o resultado determinístico.
+ */
+public class HeapIndexado {
+
+    private static final int ARIDADE = 4; // Heap 4-ário: árvore mais rasa, melhor uso de cache
+
+    private int[] heap;     // Posição no heap -> vértice
+    private int[] posicao;  // Vértice -> posição no heap (-1 se não está no heap)
+    private int[] chave;    // Vértice -> prioridade atual
+    private int tamanho;
+
+    public HeapIndexado(int capacidade) {
+        heap = new int[capacidade];
+        posicao = new int[capacidade];
+        chave = new int[capacidade];
+        Arrays.fill(posicao, -1);
+    }
+
+    public int getCapacidade() {
+        return posicao.length;
+    }
+
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean contem(int v) {
+        return posicao[v] >= 0;
+    }
+
+    /** Chave atual do vértice (válida apenas enquanto ele está no heap). */
+    public int chave(int v) {
+        return chave[v];
+    }
+
+    /** Menor chave do heap, sem removê-la. */
+    public int chaveMinima() {
+        return chave[heap[0]];
+    }
+
+    /**
+     * Insere o vértice com a chave dada ou, se ele já estiver no heap,
+     * diminui sua chave (chaves maiores que a atual são ignoradas).
+     */
+    public void inserirOuDiminuir(int v, int novaChave) {
+        int pos = posicao[v];
+        if (pos < 0) {
+            pos = tamanho++;
+            heap[pos] = v;
+            posicao[v] = pos;
+        } else if (novaChave >= chave[v]) {
+            return;
+        }
+        chave[v] = novaChave;
+        subir(pos);
+    }
+
+    /** Remove e retorna o vértice de menor chave. */
+    public int removerMinimo() {
+        int minimo = heap[0];
+        posicao[minimo] = -1;
+        tamanho--;
+        if (tamanho > 0) {
+            int ultimo = heap[tamanho];
+            heap[0] = ultimo;
+            posicao[ultimo] = 0;
+            descer(0);
+        }
+        return minimo;
+    }
+
+    /**
+     * Esvazia o heap. Custa O(tamanho atual), não O(capacidade), pois só
+     * os vértices que ainda estão no heap têm a posição restaurada.
+     */
+    public void limpar() {
+        for (int i = 0; i < tamanho; i++) {
+            posicao[heap[i]] = -1;
+        }
+        tamanho = 0;
+    }
+
+    // --- MÉTODOS AUXILIARES ---
+
+    private boolean menor(int a, int b) {
+        return chave[a] < chave[b] || (chave[a] == chave[b] && a < b);
+    }
+
+    private void subir(int pos) {
+        int v = heap[pos];
+        while (pos > 0) {
+            int pai = (pos - 1) / ARIDADE;
+            int p = heap[pai];
+            if (!menor(v, p)) {
+                break;
+            }
+            heap[pos] = p;
+            posicao[p] = pos;
+            pos = pai;
+        }
+        heap[pos] = v;
+        posicao[v] = pos;
+    }
+
+    private void descer(int pos) {
+        int v = heap[pos];
+        while (true) {
+            int primeiroFilho = pos * ARIDADE + 1;
+            if (primeiroFilho >= tamanho) {
+                break;
+            }
+            // Procura o menor entre os (até) ARIDADE filhos
+            int melhor = primeiroFilho;
+            int ultimoFilho = Math.min(primeiroFilho + ARIDADE, tamanho);
+            for (int f = primeiroFilho + 1; f < ultimoFilho; f++) {
+                if (menor(heap[f], heap[melhor])) {
+                    melhor = f;
+                }
+            }
+            if (!menor(heap[melhor], v)) {
+                break;
+            }
+            heap[pos] = heap[melhor];
+            posicao[heap[pos]] = pos;
+            pos = melhor;
+        }
+        heap[pos] = v;
+        posicao[v] = pos;
+    }
+}
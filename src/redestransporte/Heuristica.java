@@ -0,0 +1,21 @@
+package redestransporte;
+
+/**
+ * Estimativa usada pelo A* para a distância restante até o destino.
+ *
+ * Para o A* devolver o caminho mínimo a estimativa precisa ser admissível,
+ * ou seja, nunca maior que a distância real. Os vértices são os índices
+ * internos do grafo (ver {@link Grafo#indiceDe(int)}).
+ */
+public interface Heuristica {
+
+    /** Heurística nula: com ela o A* se comporta exatamente como o Dijkstra. */
+    Heuristica ZERO = (vertice, destino) -> 0;
+
+    /**
+     * @param vertice Índice do vértice atual
+     * @param destino Índice do destino
+     * @return Um limite inferior para a distância entre os dois
+     */
+    int estimar(int vertice, int destino);
+}
@@ -0,0 +1,423 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchies (CH) para consultas rápidas em redes grandes e estáticas.
+ *
+ * Pré-processamento: as estações são "contraídas" uma a uma, da menos para a
+ * mais importante (ordem pela diferença de arestas: atalhos criados menos
+ * conexões removidas). Ao contrair v, para cada par de vizinhos (u, w) ainda
+ * não contraídos cria-se um atalho u-w com peso d(u,v) + d(v,w), a menos que
+ * uma busca local (witness search) encontre outro caminho tão curto sem
+ * passar por v.
+ *
+ * Consulta: Dijkstra bidirecional que só sobe na hierarquia (arestas para
+ * vértices de ordem maior). Os atalhos do caminho encontrado são então
+ * desempacotados até virarem conexões originais.
+ */
+public class HierarquiaContracao {
+
+    // Limite de vértices finalizados por busca local (só afeta a quantidade de atalhos)
+    private static final int LIMITE_BUSCA_LOCAL = 200;
+
+    private final int numVertices;
+    private final int[] ordem; // ordem[v] = posição de v na contração (maior = mais importante)
+    // Grafo "para cima" em CSR: para cada v, as arestas até vértices de ordem maior
+    private final int[] inicio;
+    private final int[] destinos;
+    private final int[] pesos;
+    private final int[] meios; // Vértice do meio de um atalho, ou -1 se é uma conexão original
+    private final int numAtalhos;
+    private final long assinatura;
+
+    private HierarquiaContracao(int numVertices, int[] ordem, int[] inicio, int[] destinos,
+                                int[] pesos, int[] meios, int numAtalhos, long assinatura) {
+        this.numVertices = numVertices;
+        this.ordem = ordem;
+        this.inicio = inicio;
+        this.destinos = destinos;
+        this.pesos = pesos;
+        this.meios = meios;
+        this.numAtalhos = numAtalhos;
+        this.assinatura = assinatura;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumAtalhos() {
+        return numAtalhos;
+    }
+
+    public long getAssinatura() {
+        return assinatura;
+    }
+
+    // --- PRÉ-PROCESSAMENTO ---
+
+    /**
+     * Constrói a hierarquia a partir da adjacência do grafo.
+     * @param adjacencia O grafo (não direcionado, pesos positivos)
+     * @param assinatura Assinatura do grafo (ver {@link Grafo#calcularAssinatura()})
+     * @return A hierarquia pronta para consultas
+     */
+    public static HierarquiaContracao construir(AdjacenciaCSR adjacencia, long assinatura) {
+        return new Contracao(adjacencia).executar(assinatura);
+    }
+
+    /*
+     * Estado da contração: listas de adjacência dinâmicas (conexões + atalhos),
+     * uma por vértice. Ao contrair v, ele sai das listas dos vizinhos, então as
+     * listas dos vértices ativos só têm vértices ativos; a lista de v congela e
+     * passa a conter exatamente as suas arestas "para cima".
+     */
+    private static class Contracao {
+        final int n;
+        int[][] vizinhos;
+        int[][] pesosViz;
+        int[][] meiosViz;
+        int[] grau;
+        int[] vizinhosContraidos; // Termo de uniformidade da prioridade
+        final EspacoBusca espaco = new EspacoBusca();
+        int[] marcaAlvo;      // marcaAlvo[w] == rodadaAlvo: w é alvo da busca local atual
+        int rodadaAlvo = 0;
+        int atalhosCriados;
+
+        // Atalhos calculados pela última chamada de calcularAtalhos (u, w, peso)
+        int[] atalhoU = new int[16];
+        int[] atalhoW = new int[16];
+        int[] atalhoPeso = new int[16];
+        int numPendentes;
+
+        Contracao(AdjacenciaCSR adjacencia) {
+            n = adjacencia.getNumVertices();
+            vizinhos = new int[n][];
+            pesosViz = new int[n][];
+            meiosViz = new int[n][];
+            grau = new int[n];
+            vizinhosContraidos = new int[n];
+            marcaAlvo = new int[n];
+            for (int v = 0; v < n; v++) {
+                int tamanho = Math.max(2, adjacencia.grau(v));
+                vizinhos[v] = new int[tamanho];
+                pesosViz[v] = new int[tamanho];
+                meiosViz[v] = new int[tamanho];
+                for (int k = adjacencia.inicio(v); k < adjacencia.fim(v); k++) {
+                    int w = adjacencia.destino(k);
+                    if (w != v) { // Laços não fazem parte de caminhos mínimos
+                        vizinhos[v][grau[v]] = w;
+                        pesosViz[v][grau[v]] = adjacencia.peso(k);
+                        meiosViz[v][grau[v]] = -1;
+                        grau[v]++;
+                    }
+                }
+            }
+        }
+
+        HierarquiaContracao executar(long assinatura) {
+            // Prioridades iniciais
+            HeapIndexado fila = new HeapIndexado(n);
+            for (int v = 0; v < n; v++) {
+                fila.inserirOuDiminuir(v, prioridade(v));
+            }
+
+            int[] ordem = new int[n];
+            int proximaOrdem = 0;
+            while (!fila.isEmpty()) {
+                int v = fila.removerMinimo();
+                // Atualização preguiçosa: se a prioridade piorou, devolve para a fila
+                int atual = prioridade(v);
+                if (!fila.isEmpty() && atual > fila.chaveMinima()) {
+                    fila.inserirOuDiminuir(v, atual);
+                    continue;
+                }
+                contrair(v); // Usa os atalhos calculados por prioridade(v)
+                ordem[v] = proximaOrdem++;
+                // A prioridade dos vizinhos é recalculada quando eles saírem da fila
+            }
+            return montarGrafoParaCima(ordem, assinatura);
+        }
+
+        // Diferença de arestas (atalhos - arestas removidas), com peso 2, + vizinhos já contraídos
+        int prioridade(int v) {
+            calcularAtalhos(v);
+            return 2 * (numPendentes - grau[v]) + vizinhosContraidos[v];
+        }
+
+        // Contrai v usando os atalhos calculados pela última chamada de prioridade(v)
+        void contrair(int v) {
+            for (int i = 0; i < numPendentes; i++) {
+                adicionarOuMelhorar(atalhoU[i], atalhoW[i], atalhoPeso[i], v);
+                adicionarOuMelhorar(atalhoW[i], atalhoU[i], atalhoPeso[i], v);
+                atalhosCriados++;
+            }
+            // Tira v das listas dos vizinhos (a aresta continua na lista de v)
+            for (int i = 0; i < grau[v]; i++) {
+                int u = vizinhos[v][i];
+                removerDaLista(u, v);
+                vizinhosContraidos[u]++;
+            }
+        }
+
+        // Calcula (em atalhoU/W/Peso) os atalhos que a contração de v exigiria
+        void calcularAtalhos(int v) {
+            numPendentes = 0;
+            for (int i = 0; i + 1 < grau[v]; i++) {
+                int u = vizinhos[v][i];
+                int pesoUV = pesosViz[v][i];
+
+                // Maior distância que precisa ser testada a partir de u, e os alvos
+                int maximo = 0;
+                rodadaAlvo++;
+                for (int j = i + 1; j < grau[v]; j++) {
+                    maximo = Math.max(maximo, pesoUV + pesosViz[v][j]);
+                    marcaAlvo[vizinhos[v][j]] = rodadaAlvo;
+                }
+                buscaLocal(u, v, maximo, grau[v] - i - 1);
+
+                for (int j = i + 1; j < grau[v]; j++) {
+                    int w = vizinhos[v][j];
+                    int viaV = pesoUV + pesosViz[v][j];
+                    if (espaco.distancia(w) > viaV) {
+                        // Nenhuma testemunha: o atalho u-w é necessário
+                        guardarAtalho(u, w, viaV);
+                    }
+                }
+            }
+        }
+
+        // Dijkstra local a partir de u, sem passar por v; para quando todos os alvos
+        // foram finalizados, quando passa de maximo ou no limite de vértices
+        void buscaLocal(int u, int ignorado, int maximo, int alvosRestantes) {
+            espaco.iniciar(n);
+            HeapIndexado heap = espaco.getHeap();
+            espaco.definir(u, 0, -1);
+            heap.inserirOuDiminuir(u, 0);
+            int finalizados = 0;
+            while (!heap.isEmpty() && heap.chaveMinima() <= maximo && finalizados < LIMITE_BUSCA_LOCAL) {
+                int x = heap.removerMinimo();
+                espaco.fechar(x);
+                finalizados++;
+                if (marcaAlvo[x] == rodadaAlvo && --alvosRestantes == 0) {
+                    break;
+                }
+                int dx = espaco.distancia(x);
+                for (int i = 0; i < grau[x]; i++) {
+                    int y = vizinhos[x][i];
+                    if (y == ignorado || espaco.estaFechado(y)) {
+                        continue;
+                    }
+                    int nd = dx + pesosViz[x][i];
+                    if (nd < espaco.distancia(y)) {
+                        espaco.definir(y, nd, x);
+                        heap.inserirOuDiminuir(y, nd);
+                    }
+                }
+            }
+        }
+
+        void guardarAtalho(int u, int w, int peso) {
+            if (numPendentes == atalhoU.length) {
+                atalhoU = Arrays.copyOf(atalhoU, numPendentes * 2);
+                atalhoW = Arrays.copyOf(atalhoW, numPendentes * 2);
+                atalhoPeso = Arrays.copyOf(atalhoPeso, numPendentes * 2);
+            }
+            atalhoU[numPendentes] = u;
+            atalhoW[numPendentes] = w;
+            atalhoPeso[numPendentes] = peso;
+            numPendentes++;
+        }
+
+        void removerDaLista(int a, int b) {
+            for (int i = 0; i < grau[a]; i++) {
+                if (vizinhos[a][i] == b) {
+                    int ultimo = --grau[a];
+                    vizinhos[a][i] = vizinhos[a][ultimo];
+                    pesosViz[a][i] = pesosViz[a][ultimo];
+                    meiosViz[a][i] = meiosViz[a][ultimo];
+                    return;
+                }
+            }
+        }
+
+        // Cria a aresta a-b, ou reduz o peso se ela já existe com peso maior
+        void adicionarOuMelhorar(int a, int b, int peso, int meio) {
+            for (int i = 0; i < grau[a]; i++) {
+                if (vizinhos[a][i] == b) {
+                    if (peso < pesosViz[a][i]) {
+                        pesosViz[a][i] = peso;
+                        meiosViz[a][i] = meio;
+                    }
+                    return;
+                }
+            }
+            if (grau[a] == vizinhos[a].length) {
+                int novo = grau[a] * 2;
+                vizinhos[a] = Arrays.copyOf(vizinhos[a], novo);
+                pesosViz[a] = Arrays.copyOf(pesosViz[a], novo);
+                meiosViz[a] = Arrays.copyOf(meiosViz[a], novo);
+            }
+            vizinhos[a][grau[a]] = b;
+            pesosViz[a][grau[a]] = peso;
+            meiosViz[a][grau[a]] = meio;
+            grau[a]++;
+        }
+
+        // Mantém, para cada v, só as arestas para vértices de ordem maior (ordenadas pelo destino)
+        HierarquiaContracao montarGrafoParaCima(int[] ordem, long assinatura) {
+            int[] inicio = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                for (int i = 0; i < grau[v]; i++) {
+                    if (ordem[vizinhos[v][i]] > ordem[v]) {
+                        inicio[v + 1]++;
+                    }
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                inicio[v + 1] += inicio[v];
+            }
+            int total = inicio[n];
+            int[] destinos = new int[total];
+            int[] pesos = new int[total];
+            int[] meios = new int[total];
+            long[] chaves = new long[total];
+            for (int v = 0; v < n; v++) {
+                int base = inicio[v];
+                int quantidade = 0;
+                for (int i = 0; i < grau[v]; i++) {
+                    if (ordem[vizinhos[v][i]] > ordem[v]) {
+                        chaves[base + quantidade++] = ((long) vizinhos[v][i] << 32) | i;
+                    }
+                }
+                Arrays.sort(chaves, base, base + quantidade);
+                for (int q = 0; q < quantidade; q++) {
+                    int i = (int) chaves[base + q];
+                    destinos[base + q] = vizinhos[v][i];
+                    pesos[base + q] = pesosViz[v][i];
+                    meios[base + q] = meiosViz[v][i];
+                }
+            }
+            return new HierarquiaContracao(n, ordem, inicio, destinos, pesos, meios, atalhosCriados, assinatura);
+        }
+    }
+
+    // --- CONSULTA ---
+
+    /**
+     * Caminho mínimo entre dois vértices usando a hierarquia.
+     * @return Os índices das estações do caminho (já desempacotado), ou null se não há caminho
+     */
+    public int[] consultar(int origem, int destino) {
+        if (origem == destino) {
+            return new int[]{origem};
+        }
+        EspacoBusca frente = EspacoBusca.daThread();
+        EspacoBusca tras = EspacoBusca.reversoDaThread();
+        frente.iniciar(numVertices);
+        tras.iniciar(numVertices);
+        frente.definir(origem, 0, -1);
+        frente.getHeap().inserirOuDiminuir(origem, 0);
+        tras.definir(destino, 0, -1);
+        tras.getHeap().inserirOuDiminuir(destino, 0);
+
+        long melhor = Long.MAX_VALUE;
+        int encontro = -1;
+
+        while (true) {
+            // Cada lado continua enquanto seu topo ainda pode melhorar o resultado
+            boolean podeFrente = !frente.getHeap().isEmpty() && frente.getHeap().chaveMinima() < melhor;
+            boolean podeTras = !tras.getHeap().isEmpty() && tras.getHeap().chaveMinima() < melhor;
+            if (!podeFrente && !podeTras) {
+                break;
+            }
+            boolean ladoFrente = podeFrente
+                    && (!podeTras || frente.getHeap().chaveMinima() <= tras.getHeap().chaveMinima());
+            EspacoBusca atual = ladoFrente ? frente : tras;
+            EspacoBusca outro = ladoFrente ? tras : frente;
+            HeapIndexado heap = atual.getHeap();
+
+            int u = heap.removerMinimo();
+            atual.fechar(u);
+            int du = atual.distancia(u);
+            if (outro.foiAlcancado(u) && (long) du + outro.distancia(u) < melhor) {
+                melhor = (long) du + outro.distancia(u);
+                encontro = u;
+            }
+            for (int k = inicio[u]; k < inicio[u + 1]; k++) {
+                int w = destinos[k];
+                int nd = du + pesos[k];
+                if (nd < atual.distancia(w)) {
+                    atual.definir(w, nd, u);
+                    heap.inserirOuDiminuir(w, nd);
+                    if (outro.foiAlcancado(w) && (long) nd + outro.distancia(w) < melhor) {
+                        melhor = (long) nd + outro.distancia(w);
+                        encontro = w;
+                    }
+                }
+            }
+        }
+
+        if (encontro < 0) {
+            return null;
+        }
+
+        // Caminho na hierarquia: origem -> encontro (frente) e encontro -> destino (trás)
+        int[] subida = frente.extrairCaminho(origem, encontro);
+        int tamanho = subida.length;
+        for (int v = tras.anterior(encontro); v != -1; v = tras.anterior(v)) {
+            tamanho++;
+        }
+        int[] caminhoCH = Arrays.copyOf(subida, tamanho);
+        int i = subida.length;
+        for (int v = tras.anterior(encontro); v != -1; v = tras.anterior(v)) {
+            caminhoCH[i++] = v;
+        }
+        return desempacotar(caminhoCH);
+    }
+
+    // Substitui cada atalho pelas conexões originais que ele representa
+    private int[] desempacotar(int[] caminhoCH) {
+        int[] resultado = new int[Math.max(16, caminhoCH.length * 2)];
+        int tamanho = 0;
+        resultado[tamanho++] = caminhoCH[0];
+
+        // Pilha de arestas (a, b) a expandir, processada da esquerda para a direita
+        int[] pilha = new int[64];
+        for (int p = 0; p + 1 < caminhoCH.length; p++) {
+            int topo = 0;
+            pilha[topo++] = caminhoCH[p];
+            pilha[topo++] = caminhoCH[p + 1];
+            while (topo > 0) {
+                int b = pilha[--topo];
+                int a = pilha[--topo];
+                int meio = meioEntre(a, b);
+                if (meio < 0) {
+                    if (tamanho == resultado.length) {
+                        resultado = Arrays.copyOf(resultado, tamanho * 2);
+                    }
+                    resultado[tamanho++] = b;
+                } else {
+                    if (topo + 4 > pilha.length) {
+                        pilha = Arrays.copyOf(pilha, pilha.length * 2);
+                    }
+                    // Empilha (meio, b) antes para que (a, meio) saia primeiro
+                    pilha[topo++] = meio;
+                    pilha[topo++] = b;
+                    pilha[topo++] = a;
+                    pilha[topo++] = meio;
+                }
+            }
+        }
+        return Arrays.copyOf(resultado, tamanho);
+    }
+
+    // A aresta a-b fica guardada no vértice de menor ordem
+    private int meioEntre(int a, int b) {
+        int baixo = ordem[a] < ordem[b] ? a : b;
+        int alto = baixo == a ? b : a;
+        int k = Arrays.binarySearch(destinos, inicio[baixo], inicio[baixo + 1], alto);
+        return meios[k];
+    }
+}
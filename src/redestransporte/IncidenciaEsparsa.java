@@ -0,0 +1,134 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Matriz de incidência (V x E) guardada de forma esparsa.
+ *
+ * Cada coluna (conexão) tem no máximo dois valores diferentes de zero:
+ * +1 na linha da origem e -1 na linha do destino. Em vez de int[V][E],
+ * guardam-se os dois extremos de cada coluna (formato CSC com dois
+ * elementos por coluna) e, para consultas por linha, a lista de colunas
+ * incidentes a cada vértice (a transposta, em CSR). Ocupa O(V + E).
+ */
+public class IncidenciaEsparsa {
+
+    private final int numLinhas;
+    private final int numColunas;
+    private final int[] origens;  // Linha com +1 em cada coluna (-1 se nenhuma)
+    private final int[] destinos; // Linha com -1 em cada coluna (-1 se nenhuma)
+    private final int[] inicioLinha;   // Tamanho V + 1
+    private final int[] colunasLinha;  // Colunas incidentes a cada linha, em ordem crescente
+
+    private IncidenciaEsparsa(int numLinhas, int numColunas, int[] origens, int[] destinos,
+                              int[] inicioLinha, int[] colunasLinha) {
+        this.numLinhas = numLinhas;
+        this.numColunas = numColunas;
+        this.origens = origens;
+        this.destinos = destinos;
+        this.inicioLinha = inicioLinha;
+        this.colunasLinha = colunasLinha;
+    }
+
+    /**
+     * Monta a incidência a partir dos extremos de cada conexão.
+     * @param numLinhas Quantidade de vértices
+     * @param origens Índice da origem de cada coluna (ou -1 para coluna vazia)
+     * @param destinos Índice do destino de cada coluna (ou -1 para coluna vazia)
+     * @param numColunas Quantidade de colunas válidas nos arrays
+     * @return A incidência construída
+     */
+    public static IncidenciaEsparsa construir(int numLinhas, int[] origens, int[] destinos, int numColunas) {
+        int[] inicioLinha = new int[numLinhas + 1];
+        for (int j = 0; j < numColunas; j++) {
+            if (origens[j] >= 0) {
+                inicioLinha[origens[j] + 1]++;
+                if (destinos[j] != origens[j]) {
+                    inicioLinha[destinos[j] + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < numLinhas; i++) {
+            inicioLinha[i + 1] += inicioLinha[i];
+        }
+        // Percorrendo as colunas em ordem, cada linha já sai ordenada
+        int[] colunasLinha = new int[inicioLinha[numLinhas]];
+        int[] proximo = Arrays.copyOf(inicioLinha, numLinhas);
+        for (int j = 0; j < numColunas; j++) {
+            if (origens[j] >= 0) {
+                colunasLinha[proximo[origens[j]]++] = j;
+                if (destinos[j] != origens[j]) {
+                    colunasLinha[proximo[destinos[j]]++] = j;
+                }
+            }
+        }
+        return new IncidenciaEsparsa(numLinhas, numColunas, Arrays.copyOf(origens, numColunas),
+                Arrays.copyOf(destinos, numColunas), inicioLinha, colunasLinha);
+    }
+
+    public int getNumLinhas() {
+        return numLinhas;
+    }
+
+    public int getNumColunas() {
+        return numColunas;
+    }
+
+    /** Linha com +1 na coluna, ou -1 se a coluna é vazia. */
+    public int origem(int coluna) {
+        return origens[coluna];
+    }
+
+    /** Linha com -1 na coluna, ou -1 se a coluna é vazia. */
+    public int destino(int coluna) {
+        return destinos[coluna];
+    }
+
+    /**
+     * Valor da posição (linha, coluna): 1 para a origem, -1 para o destino
+     * (um laço, com origem = destino, vale -1), 0 caso contrário.
+     */
+    public int valor(int linha, int coluna) {
+        if (destinos[coluna] == linha) {
+            return -1;
+        }
+        return origens[coluna] == linha ? 1 : 0;
+    }
+
+    /** Quantidade de colunas (conexões) incidentes à linha. */
+    public int grau(int linha) {
+        return inicioLinha[linha + 1] - inicioLinha[linha];
+    }
+
+    /** Posição da primeira coluna incidente à linha (ver {@link #coluna(int)}). */
+    public int inicio(int linha) {
+        return inicioLinha[linha];
+    }
+
+    /** Posição logo após a última coluna incidente à linha. */
+    public int fim(int linha) {
+        return inicioLinha[linha + 1];
+    }
+
+    /** Coluna na posição k da lista de incidências. */
+    public int coluna(int k) {
+        return colunasLinha[k];
+    }
+
+    /**
+     * Preenche valores[0 .. numColunasJanela) com a linha restrita às colunas
+     * [colunaInicial, colunaInicial + numColunasJanela), sem percorrer a linha inteira.
+     */
+    public void preencherLinha(int linha, int colunaInicial, int numColunasJanela, int[] valores) {
+        Arrays.fill(valores, 0, numColunasJanela, 0);
+        int fim = inicioLinha[linha + 1];
+        int k = Arrays.binarySearch(colunasLinha, inicioLinha[linha], fim, colunaInicial);
+        if (k < 0) {
+            k = -k - 1;
+        }
+        for (; k < fim && colunasLinha[k] < colunaInicial + numColunasJanela; k++) {
+            int j = colunasLinha[k];
+            valores[j - colunaInicial] = valor(linha, j);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package redestransporte;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * Pré-processamento ALT (A*, Landmarks e desigualdade Triangular).
+ *
+ * Escolhe k estações "marco" (landmarks) e guarda a distância de cada marco
+ * até todas as estações. Pela desigualdade triangular, para qualquer marco L:
+ * dist(v, t) >= |dist(L, t) - dist(L, v)|, então o maior desses valores é uma
+ * heurística admissível (e consistente) para o A*.
+ *
+ * A tabela é guardada por vértice (tabela[v * k + i] = distância do marco i
+ * até v), para que o cálculo da heurística leia posições contíguas.
+ */
+public class LandmarksALT implements Heuristica {
+
+    /** Estratégias de escolha dos marcos. */
+    public enum Selecao {
+        /** Cada novo marco é o vértice mais distante (em paradas) dos já escolhidos. */
+        MAIS_DISTANTE,
+        /** "Avoid": cria marcos nas regiões onde a heurística atual é mais fraca. */
+        EVITAR
+    }
+
+    public static final int K_PADRAO = 16;
+
+    private static final int MAGICO = 0x414C5431; // "ALT1"
+
+    private final int numVertices;
+    private final int k;
+    private final int[] marcos;  // Índices dos vértices escolhidos como marcos
+    private final int[] tabela;  // tabela[v * k + i] = dist(marcos[i], v)
+    private final long assinatura; // Identifica o grafo para o qual as tabelas valem
+
+    private LandmarksALT(int numVertices, int[] marcos, int[] tabela, long assinatura) {
+        this.numVertices = numVertices;
+        this.k = marcos.length;
+        this.marcos = marcos;
+        this.tabela = tabela;
+        this.assinatura = assinatura;
+    }
+
+    /**
+     * Escolhe os marcos e calcula as tabelas de distância.
+     * @param adjacencia O grafo
+     * @param k Quantidade de marcos desejada (limitada ao número de vértices)
+     * @param selecao Estratégia de escolha
+     * @param semente Semente para o vértice inicial
+     * @param assinatura Assinatura do grafo (ver {@link Grafo#calcularAssinatura()})
+     * @return O pré-processamento pronto para uso como heurística
+     */
+    public static LandmarksALT calcular(AdjacenciaCSR adjacencia, int k, Selecao selecao, long semente, long assinatura) {
+        int numVertices = adjacencia.getNumVertices();
+        k = Math.min(k, numVertices);
+        if (k <= 0) {
+            return new LandmarksALT(numVertices, new int[0], new int[0], assinatura);
+        }
+        int[] tabela = new int[numVertices * k];
+        int[] marcos;
+
+        if (selecao == Selecao.EVITAR) {
+            // Cada escolha depende das tabelas dos marcos anteriores: escolhe um por vez,
+            // preenchendo a tabela de um marco enquanto busca a partir da próxima raiz
+            marcos = escolherEvitando(adjacencia, k, new Random(semente), tabela);
+        } else {
+            // Escolha barata (BFS em paradas) e depois as tabelas, em paralelo
+            marcos = escolherMaisDistantes(adjacencia, k, new Random(semente));
+            final int[] escolhidos = marcos;
+            IntStream.range(0, k).parallel().forEach(i -> preencherTabela(adjacencia, escolhidos, i, tabela));
+        }
+        return new LandmarksALT(numVertices, marcos, tabela, assinatura);
+    }
+
+    public int getNumMarcos() {
+        return k;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public long getAssinatura() {
+        return assinatura;
+    }
+
+    /** Índice do vértice usado como i-ésimo marco. */
+    public int getMarco(int i) {
+        return marcos[i];
+    }
+
+    @Override
+    public int estimar(int vertice, int destino) {
+        int baseV = vertice * k;
+        int baseT = destino * k;
+        int melhor = 0;
+        for (int i = 0; i < k; i++) {
+            int dv = tabela[baseV + i];
+            int dt = tabela[baseT + i];
+            if (dv == EspacoBusca.INFINITO || dt == EspacoBusca.INFINITO) {
+                continue; // Marco em outro componente: não dá informação
+            }
+            int limite = Math.abs(dt - dv);
+            if (limite > melhor) {
+                melhor = limite;
+            }
+        }
+        return melhor;
+    }
+
+    // --- PERSISTÊNCIA ---
+
+    /**
+     * Salva os marcos e as tabelas em um arquivo binário.
+     */
+    public void salvar(String nomeArquivo) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(nomeArquivo)))) {
+            out.writeInt(MAGICO);
+            out.writeLong(assinatura);
+            out.writeInt(numVertices);
+            out.writeInt(k);
+            for (int marco : marcos) {
+                out.writeInt(marco);
+            }
+            for (int d : tabela) {
+                out.writeInt(d);
+            }
+        }
+    }
+
+    /**
+     * Lê um arquivo salvo por {@link #salvar(String)}.
+     * @param assinaturaEsperada Assinatura do grafo atual
+     * @return O pré-processamento, ou null se o arquivo é de outro grafo (desatualizado)
+     */
+    public static LandmarksALT carregar(String nomeArquivo, long assinaturaEsperada) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(nomeArquivo)))) {
+            if (in.readInt() != MAGICO) {
+                throw new IOException("Arquivo de landmarks inválido: " + nomeArquivo);
+            }
+            long assinatura = in.readLong();
+            if (assinatura != assinaturaEsperada) {
+                return null;
+            }
+            int numVertices = in.readInt();
+            int k = in.readInt();
+            int[] marcos = new int[k];
+            for (int i = 0; i < k; i++) {
+                marcos[i] = in.readInt();
+            }
+            int[] tabela = new int[numVertices * k];
+            for (int i = 0; i < tabela.length; i++) {
+                tabela[i] = in.readInt();
+            }
+            return new LandmarksALT(numVertices, marcos, tabela, assinatura);
+        }
+    }
+
+    // --- ESCOLHA DOS MARCOS ---
+
+    private static int[] escolherMaisDistantes(AdjacenciaCSR adjacencia, int k, Random sorteio) {
+        int numVertices = adjacencia.getNumVertices();
+        int[] marcos = new int[k];
+        // menorDistancia[v] = menor número de paradas entre v e os marcos já escolhidos
+        int[] menorDistancia = new int[numVertices];
+        Arrays.fill(menorDistancia, Integer.MAX_VALUE);
+
+        // O primeiro marco é o vértice mais distante de um vértice sorteado
+        int inicial = sorteio.nextInt(numVertices);
+        int proximo = maisDistante(BuscaLargura.niveis(adjacencia, inicial));
+
+        for (int i = 0; i < k; i++) {
+            marcos[i] = proximo;
+            int[] niveis = BuscaLargura.niveis(adjacencia, proximo);
+            proximo = -1;
+            int maior = -1;
+            for (int v = 0; v < numVertices; v++) {
+                // Vértice inalcançável conta como distância infinita: o próximo marco
+                // vai para outro componente
+                int d = niveis[v] < 0 ? Integer.MAX_VALUE : niveis[v];
+                if (d < menorDistancia[v]) {
+                    menorDistancia[v] = d;
+                }
+                if (menorDistancia[v] > maior) {
+                    maior = menorDistancia[v];
+                    proximo = v;
+                }
+            }
+        }
+        return marcos;
+    }
+
+    private static int maisDistante(int[] niveis) {
+        int melhor = 0;
+        for (int v = 1; v < niveis.length; v++) {
+            if (niveis[v] > niveis[melhor]) {
+                melhor = v;
+            }
+        }
+        return melhor;
+    }
+
+    /*
+     * Estratégia "avoid" (Goldberg e Werneck): sorteia uma raiz r, monta a árvore
+     * de caminhos mínimos a partir dela e dá a cada vértice o peso
+     * dist(r, v) - limiteInferior(r, v), ou seja, o quanto a heurística atual erra.
+     * O tamanho de uma subárvore é a soma dos pesos (zero se já contém um marco).
+     * Descendo sempre pelo filho de maior tamanho até uma folha, obtém-se o novo marco.
+     *
+     * As duas buscas completas de cada rodada rodam em paralelo: o Dijkstra da
+     * raiz da rodada não depende das tabelas, então corre junto com o
+     * preenchimento da tabela do marco escolhido na rodada anterior; só os
+     * pesos da árvore esperam essa tabela. Os marcos saem os mesmos da versão
+     * sequencial para a mesma semente.
+     */
+    private static int[] escolherEvitando(AdjacenciaCSR adjacencia, int k, Random sorteio, int[] tabela) {
+        int numVertices = adjacencia.getNumVertices();
+        int[] marcos = new int[k];
+        boolean[] ehMarco = new boolean[numVertices];
+        int[] distRaiz = new int[numVertices];
+        int[] pai = new int[numVertices];
+        long[] tamanho = new long[numVertices];
+        int[] melhorFilho = new int[numVertices];
+        CompletableFuture<Void> tabelaAnterior = CompletableFuture.completedFuture(null);
+
+        for (int i = 0; i < k; i++) {
+            int raiz = sorteio.nextInt(numVertices);
+            EspacoBusca espaco = MotorDijkstra.executar(adjacencia, raiz, -1);
+
+            // Ordena os vértices alcançados por distância decrescente (folhas primeiro)
+            int alcancados = 0;
+            long[] ordem = new long[numVertices];
+            for (int v = 0; v < numVertices; v++) {
+                distRaiz[v] = espaco.distancia(v);
+                pai[v] = espaco.anterior(v);
+                if (distRaiz[v] != EspacoBusca.INFINITO) {
+                    ordem[alcancados++] = ((long) distRaiz[v] << 32) | v;
+                }
+            }
+            Arrays.sort(ordem, 0, alcancados);
+
+            tabelaAnterior.join(); // limiteInferior usa as tabelas dos marcos 0..i-1
+            Arrays.fill(tamanho, 0);
+            Arrays.fill(melhorFilho, -1);
+            boolean[] contemMarco = new boolean[numVertices];
+            for (int j = alcancados - 1; j >= 0; j--) {
+                int v = (int) ordem[j];
+                long limite = limiteInferior(tabela, k, i, raiz, v);
+                tamanho[v] += distRaiz[v] - limite;
+                contemMarco[v] |= ehMarco[v];
+                if (contemMarco[v]) {
+                    tamanho[v] = 0;
+                }
+                int p = pai[v];
+                if (p >= 0) {
+                    tamanho[p] += tamanho[v];
+                    contemMarco[p] |= contemMarco[v];
+                    if (melhorFilho[p] < 0 || tamanho[v] > tamanho[melhorFilho[p]]) {
+                        melhorFilho[p] = v;
+                    }
+                }
+            }
+
+            // Desce pelo filho de maior tamanho até uma folha
+            int escolhido = raiz;
+            while (melhorFilho[escolhido] >= 0 && tamanho[melhorFilho[escolhido]] > 0) {
+                escolhido = melhorFilho[escolhido];
+            }
+            if (ehMarco[escolhido]) {
+                // Nada a melhorar a partir desta raiz: usa um vértice ainda livre
+                escolhido = primeiroLivre(ehMarco, sorteio);
+            }
+
+            marcos[i] = escolhido;
+            ehMarco[escolhido] = true;
+            int marco = i;
+            tabelaAnterior = CompletableFuture.runAsync(() -> preencherTabela(adjacencia, marcos, marco, tabela));
+        }
+        tabelaAnterior.join();
+        return marcos;
+    }
+
+    // Maior limite inferior de dist(a, b) dado pelos primeiros numMarcos marcos
+    private static long limiteInferior(int[] tabela, int k, int numMarcos, int a, int b) {
+        long melhor = 0;
+        for (int i = 0; i < numMarcos; i++) {
+            int da = tabela[a * k + i];
+            int db = tabela[b * k + i];
+            if (da != EspacoBusca.INFINITO && db != EspacoBusca.INFINITO) {
+                melhor = Math.max(melhor, Math.abs((long) da - db));
+            }
+        }
+        return melhor;
+    }
+
+    private static int primeiroLivre(boolean[] ehMarco, Random sorteio) {
+        int inicio = sorteio.nextInt(ehMarco.length);
+        for (int j = 0; j < ehMarco.length; j++) {
+            int v = (inicio + j) % ehMarco.length;
+            if (!ehMarco[v]) {
+                return v;
+            }
+        }
+        return inicio;
+    }
+
+    // Dijkstra completo a partir do marco i, copiando as distâncias para a coluna i
+    private static void preencherTabela(AdjacenciaCSR adjacencia, int[] marcos, int i, int[] tabela) {
+        int k = marcos.length;
+        EspacoBusca espaco = MotorDijkstra.executar(adjacencia, marcos[i], -1);
+        for (int v = 0; v < adjacencia.getNumVertices(); v++) {
+            tabela[v * k + i] = espaco.distancia(v);
+        }
+    }
+}
@@ -1,42 +1,64 @@
 package redestransporte;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+/**
+ * Leitura dos arquivos de estações e conexões.
+ *
+ * Os arquivos são lidos em blocos (NIO) e analisados direto nos bytes:
+ * os campos numéricos são convertidos por um analisador de inteiros próprio,
+ * sem criar uma String por linha. Só o nome das estações (e o texto das
+ * linhas com erro) vira String. As regras são as mesmas da leitura por
+ * linha com split(";"): linhas em branco são ignoradas, espaços em volta
+ * dos campos não importam e linhas inválidas são informadas em System.err
+ * (agora com o número da linha) e puladas.
+ */
 public class LeitorArquivos {
 
+    // Tamanho máximo de cada trecho lido para a memória (também o limite de uma linha)
+    private static final int TAMANHO_JANELA = 64 << 20;
+
+    /** Tamanho (em bytes) a partir do qual o arquivo de conexões é lido em paralelo. */
+    public static final long LIMIAR_LEITURA_PARALELA = 16L << 20;
+
+    // Menor trecho entregue a uma tarefa na leitura paralela
+    private static final long TAMANHO_MINIMO_TRECHO = 1L << 20;
+
+    private static final long INVALIDO = Long.MIN_VALUE;
+
     /**
      * Lê o arquivo de estações (ex: "estacoes.txt").
      * Formato esperado: ID;Nome da Estacao
      */
     public static List<Estacao> lerEstacoes(String nomeArquivo) throws IOException {
         List<Estacao> estacoes = new ArrayList<>();
+        int[] campos = new int[4];
 
-        // Usamos try-with-resources para garantir que o arquivo seja fechado
-        try (BufferedReader br = new BufferedReader(new FileReader(nomeArquivo))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                if (linha.trim().isEmpty()) { // Ignora linhas em branco
-                    continue;
-                }
-
-                String[] partes = linha.split(";");
-                if (partes.length == 2) {
-                    try {
-                        int id = Integer.parseInt(partes[0].trim());
-                        String nome = partes[1].trim();
-                        estacoes.add(new Estacao(id, nome));
-                    } catch (NumberFormatException e) {
-                        System.err.println("Erro ao converter número na linha: " + linha);
-                    }
-                } else {
-                    System.err.println("Linha mal formatada (Estacao): " + linha);
+        percorrerArquivo(nomeArquivo, (buffer, inicio, fim, numeroLinha) -> {
+            if (separarCampos(buffer, inicio, fim, campos) == 2) {
+                long id = lerInteiro(buffer, campos[0], campos[1]);
+                if (id == INVALIDO) {
+                    System.err.println("Erro ao converter número na linha " + numeroLinha + ": "
+                            + texto(buffer, inicio, fim));
+                    return;
                 }
+                String nome = texto(buffer, campos[2], campos[3]).trim();
+                estacoes.add(new Estacao((int) id, nome));
+            } else {
+                System.err.println("Linha " + numeroLinha + " mal formatada (Estacao): " + texto(buffer, inicio, fim));
             }
-        }
+        });
         return estacoes;
     }
 
@@ -45,30 +67,390 @@ public class LeitorArquivos {
      * Formato esperado: ID_Origem;ID_Destino;Peso
      */
     public static List<Conexao> lerConexoes(String nomeArquivo) throws IOException {
-        List<Conexao> conexoes = new ArrayList<>();
+        LoteConexoes lote = lerLoteConexoes(nomeArquivo);
+        List<Conexao> conexoes = new ArrayList<>(lote.tamanho());
+        for (int i = 0; i < lote.tamanho(); i++) {
+            conexoes.add(lote.getConexao(i));
+        }
+        return conexoes;
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(nomeArquivo))) {
-            String linha;
-            while ((linha = br.readLine()) != null) {
-                if (linha.trim().isEmpty()) {
-                    continue;
-                }
+    /**
+     * Lê o arquivo de conexões direto para arrays primitivos, sem criar
+     * objetos por linha (ver {@link #lerConexoes(String)} para o formato).
+     * Arquivos a partir de {@link #LIMIAR_LEITURA_PARALELA} bytes são lidos
+     * em paralelo quando há mais de um processador.
+     */
+    public static LoteConexoes lerLoteConexoes(String nomeArquivo) throws IOException {
+        boolean paralelo = Runtime.getRuntime().availableProcessors() > 1
+                && Files.size(Paths.get(nomeArquivo)) >= LIMIAR_LEITURA_PARALELA;
+        return lerLoteConexoes(nomeArquivo, paralelo);
+    }
 
-                String[] partes = linha.split(";");
-                if (partes.length == 3) {
+    /**
+     * Lê o arquivo de conexões direto para arrays primitivos.
+     *
+     * No modo paralelo o arquivo é dividido em trechos terminados em '\n',
+     * cada trecho é analisado no pool fork-join comum e os lotes são juntados
+     * na ordem original, com as mesmas conexões e mensagens de erro (e
+     * números de linha) da leitura sequencial.
+     * @param paralelo false mantém a leitura sequencial, em uma thread só
+     */
+    public static LoteConexoes lerLoteConexoes(String nomeArquivo, boolean paralelo) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(nomeArquivo), StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            // Metade da janela: o trecho ainda vai até o fim da linha em que o corte cai
+            long tamanhoTrecho = TAMANHO_JANELA / 2;
+            if (paralelo) {
+                int partes = 4 * ForkJoinPool.getCommonPoolParallelism();
+                tamanhoTrecho = Math.min(TAMANHO_JANELA / 2, Math.max(TAMANHO_MINIMO_TRECHO, tamanho / partes + 1));
+            }
+            long[] limites = dividirEmTrechos(canal, nomeArquivo, tamanhoTrecho);
+            int numTrechos = limites.length - 1;
+
+            TrechoConexoes[] trechos = new TrechoConexoes[numTrechos];
+            try {
+                IntStream indices = IntStream.range(0, numTrechos);
+                (paralelo ? indices.parallel() : indices).forEach(t -> {
                     try {
-                        int idOrigem = Integer.parseInt(partes[0].trim());
-                        int idDestino = Integer.parseInt(partes[1].trim());
-                        int peso = Integer.parseInt(partes[2].trim());
-                        conexoes.add(new Conexao(idOrigem, idDestino, peso));
-                    } catch (NumberFormatException e) {
-                        System.err.println("Erro ao converter número na linha: " + linha);
+                        trechos[t] = lerTrechoConexoes(canal, limites[t], limites[t + 1]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
-                } else {
-                    System.err.println("Linha mal formatada (Conexao): " + linha);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return juntarTrechos(trechos);
+        }
+    }
+
+    // Resultado da análise de um trecho do arquivo de conexões
+    private static final class TrechoConexoes {
+        final LoteConexoes lote = new LoteConexoes(1024);
+        final List<ErroLinha> erros = new ArrayList<>();
+        long numLinhas;
+    }
+
+    // Erro guardado até se saber o número real da linha: "antes" + linha + "depois"
+    private static final class ErroLinha {
+        final String antes;
+        final long linha; // Número da linha dentro do trecho
+        final String depois;
+
+        ErroLinha(String antes, long linha, String depois) {
+            this.antes = antes;
+            this.linha = linha;
+            this.depois = depois;
+        }
+    }
+
+    // Analisa os bytes [inicio, fim) do arquivo, que começam no início de uma linha
+    private static TrechoConexoes lerTrechoConexoes(FileChannel canal, long inicio, long fim) throws IOException {
+        ByteBuffer buffer = lerBytes(canal, inicio, (int) (fim - inicio));
+        TrechoConexoes trecho = new TrechoConexoes();
+        LoteConexoes lote = trecho.lote;
+        int[] campos = new int[6];
+        int[] valores = new int[3];
+
+        long proximaLinha = percorrerLinhas(buffer, 0, (int) (fim - inicio), 1, (b, ini, f, numeroLinha) -> {
+            // Caminho rápido para a linha típica "1;2;3" (uma passada só)
+            if (lerTresInteiros(b, ini, f, valores)) {
+                lote.adicionar(valores[0], valores[1], valores[2]);
+                return;
+            }
+            if (separarCampos(b, ini, f, campos) == 3) {
+                long idOrigem = lerInteiro(b, campos[0], campos[1]);
+                long idDestino = lerInteiro(b, campos[2], campos[3]);
+                long peso = lerInteiro(b, campos[4], campos[5]);
+                if (idOrigem == INVALIDO || idDestino == INVALIDO || peso == INVALIDO) {
+                    trecho.erros.add(new ErroLinha("Erro ao converter número na linha ", numeroLinha,
+                            ": " + texto(b, ini, f)));
+                    return;
                 }
+                lote.adicionar((int) idOrigem, (int) idDestino, (int) peso);
+            } else {
+                trecho.erros.add(new ErroLinha("Linha ", numeroLinha,
+                        " mal formatada (Conexao): " + texto(b, ini, f)));
             }
+        });
+        trecho.numLinhas = proximaLinha - 1;
+        return trecho;
+    }
+
+    // Junta os lotes na ordem dos trechos e informa os erros com o número real da linha
+    private static LoteConexoes juntarTrechos(TrechoConexoes[] trechos) {
+        int total = 0;
+        for (TrechoConexoes trecho : trechos) {
+            total += trecho.lote.tamanho();
         }
-        return conexoes;
+        LoteConexoes lote = trechos.length == 1 ? trechos[0].lote : new LoteConexoes(total);
+        long linhasAnteriores = 0;
+        for (TrechoConexoes trecho : trechos) {
+            if (trechos.length > 1) {
+                lote.adicionarTodos(trecho.lote);
+            }
+            for (ErroLinha erro : trecho.erros) {
+                System.err.println(erro.antes + (linhasAnteriores + erro.linha) + erro.depois);
+            }
+            linhasAnteriores += trecho.numLinhas;
+        }
+        return lote;
+    }
+
+    /*
+     * Divide o arquivo em trechos de cerca de tamanhoTrecho bytes, cada um
+     * terminando logo depois de um '\n' (ou no fim do arquivo). Retorna as
+     * posições de corte, começando em 0 e terminando no tamanho do arquivo.
+     */
+    private static long[] dividirEmTrechos(FileChannel canal, String nomeArquivo, long tamanhoTrecho)
+            throws IOException {
+        long tamanho = canal.size();
+        List<Long> cortes = new ArrayList<>();
+        cortes.add(0L);
+        long posicao = 0;
+        while (posicao < tamanho) {
+            long proxima = tamanho;
+            if (tamanho - posicao > tamanhoTrecho) {
+                proxima = inicioDaProximaLinha(canal, posicao + tamanhoTrecho, tamanho);
+            }
+            if (proxima - posicao > TAMANHO_JANELA) {
+                throw new IOException("Linha maior que " + (TAMANHO_JANELA - tamanhoTrecho) + " bytes em " + nomeArquivo);
+            }
+            cortes.add(proxima);
+            posicao = proxima;
+        }
+        if (cortes.size() == 1) {
+            cortes.add(0L); // Arquivo vazio: um trecho vazio
+        }
+        long[] limites = new long[cortes.size()];
+        for (int i = 0; i < limites.length; i++) {
+            limites[i] = cortes.get(i);
+        }
+        return limites;
+    }
+
+    // Posição logo depois do primeiro '\n' a partir de posicao, ou o tamanho do arquivo
+    private static long inicioDaProximaLinha(FileChannel canal, long posicao, long tamanho) throws IOException {
+        ByteBuffer bloco = ByteBuffer.allocate(8192);
+        while (posicao < tamanho) {
+            bloco.clear();
+            int lidos = canal.read(bloco, posicao);
+            if (lidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < lidos; i++) {
+                if (bloco.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanho;
+    }
+
+    // Lê os bytes [posicao, posicao + tamanho) para um buffer no heap. O arquivo
+    // não é mapeado em memória: no Windows, um arquivo mapeado não pode ser
+    // substituído nem truncado enquanto o buffer não for coletado, o que
+    // impediria a compactação do diário e a gravação dos .txt por um editor
+    private static ByteBuffer lerBytes(FileChannel canal, long posicao, int tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new IOException("O arquivo diminuiu durante a leitura");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // --- ANÁLISE DOS BYTES ---
+
+    /** Recebe cada linha não vazia: bytes [inicio, fim) do buffer, sem o fim de linha. */
+    interface ProcessadorLinha {
+        void processar(ByteBuffer buffer, int inicio, int fim, long numeroLinha);
+    }
+
+    // Lê o arquivo em trechos de até TAMANHO_JANELA bytes, cortados sempre
+    // depois de um '\n', e entrega as linhas ao processador
+    private static void percorrerArquivo(String nomeArquivo, ProcessadorLinha processador) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(nomeArquivo), StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long posicao = 0;
+            long numeroLinha = 1;
+            while (posicao < tamanho) {
+                int tamanhoTrecho = (int) Math.min(TAMANHO_JANELA, tamanho - posicao);
+                ByteBuffer buffer = lerBytes(canal, posicao, tamanhoTrecho);
+                int fim = tamanhoTrecho;
+                if (posicao + tamanhoTrecho < tamanho) {
+                    fim = ultimaQuebraDeLinha(buffer, tamanhoTrecho);
+                    if (fim == 0) {
+                        throw new IOException("Linha maior que " + TAMANHO_JANELA + " bytes em " + nomeArquivo);
+                    }
+                }
+                numeroLinha = percorrerLinhas(buffer, 0, fim, numeroLinha, processador);
+                posicao += fim;
+            }
+        }
+    }
+
+    /**
+     * Entrega ao processador as linhas não vazias dos bytes [inicio, fim).
+     * Aceita "\n", "\r\n" e "\r" como fim de linha, como o BufferedReader.
+     * @param numeroLinha Número da primeira linha do trecho
+     * @return Número da linha seguinte ao trecho
+     */
+    static long percorrerLinhas(ByteBuffer buffer, int inicio, int fim, long numeroLinha,
+                                ProcessadorLinha processador) {
+        int i = inicio;
+        while (i < fim) {
+            int inicioLinha = i;
+            while (i < fim && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+                i++;
+            }
+            int fimLinha = i;
+            if (i < fim) {
+                if (buffer.get(i) == '\r' && i + 1 < fim && buffer.get(i + 1) == '\n') {
+                    i++;
+                }
+                i++;
+            }
+            if (!emBranco(buffer, inicioLinha, fimLinha)) { // Ignora linhas em branco
+                processador.processar(buffer, inicioLinha, fimLinha, numeroLinha);
+            }
+            numeroLinha++;
+        }
+        return numeroLinha;
+    }
+
+    // Posição logo após o último '\n' do trecho (0 se não há nenhum)
+    static int ultimaQuebraDeLinha(ByteBuffer buffer, int fim) {
+        for (int i = fim - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Como String.trim().isEmpty(): só bytes <= ' '
+    private static boolean emBranco(ByteBuffer buffer, int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Separa a linha nos ';' como String.split(";"): campos vazios no final
+     * são descartados. Guarda início/fim de cada campo em limites (dois
+     * valores por campo, até a capacidade do array) e retorna quantos campos
+     * a linha tem.
+     */
+    private static int separarCampos(ByteBuffer buffer, int inicio, int fim, int[] limites) {
+        int numCampos = 0;
+        int ultimoNaoVazio = 0; // Quantidade de campos até o último não vazio
+        int inicioCampo = inicio;
+        for (int i = inicio; i <= fim; i++) {
+            if (i == fim || buffer.get(i) == ';') {
+                if (2 * numCampos + 1 < limites.length) {
+                    limites[2 * numCampos] = inicioCampo;
+                    limites[2 * numCampos + 1] = i;
+                }
+                numCampos++;
+                if (i > inicioCampo) {
+                    ultimoNaoVazio = numCampos;
+                }
+                inicioCampo = i + 1;
+            }
+        }
+        return ultimoNaoVazio;
+    }
+
+    /*
+     * Converte o campo em int como Integer.parseInt(campo.trim()): sinal
+     * opcional e pelo menos um dígito. Retorna INVALIDO se o campo não é um
+     * número ou não cabe em um int.
+     */
+    static long lerInteiro(ByteBuffer buffer, int inicio, int fim) {
+        while (inicio < fim && (buffer.get(inicio) & 0xFF) <= ' ') {
+            inicio++;
+        }
+        while (fim > inicio && (buffer.get(fim - 1) & 0xFF) <= ' ') {
+            fim--;
+        }
+        if (inicio == fim) {
+            return INVALIDO;
+        }
+        boolean negativo = false;
+        byte primeiro = buffer.get(inicio);
+        if (primeiro == '-' || primeiro == '+') {
+            negativo = primeiro == '-';
+            inicio++;
+            if (inicio == fim) {
+                return INVALIDO;
+            }
+        }
+        long valor = 0;
+        for (int i = inicio; i < fim; i++) {
+            int digito = buffer.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return INVALIDO;
+            }
+            valor = valor * 10 + digito;
+            if (valor > (long) Integer.MAX_VALUE + 1) {
+                return INVALIDO; // Estouro
+            }
+        }
+        if (negativo) {
+            valor = -valor;
+        }
+        return valor > Integer.MAX_VALUE ? INVALIDO : valor;
+    }
+
+    /*
+     * Lê "a;b;c" (inteiros sem espaços, só com sinal '-' opcional) em uma
+     * passada. Retorna false em qualquer outro formato (espaços, campos a
+     * mais, números grandes demais...), e aí a linha segue o caminho geral.
+     */
+    private static boolean lerTresInteiros(ByteBuffer buffer, int inicio, int fim, int[] valores) {
+        int i = inicio;
+        for (int campo = 0; campo < 3; campo++) {
+            boolean negativo = i < fim && buffer.get(i) == '-';
+            if (negativo) {
+                i++;
+            }
+            int inicioDigitos = i;
+            int valor = 0;
+            while (i < fim) {
+                int digito = buffer.get(i) - '0';
+                if (digito < 0 || digito > 9) {
+                    break;
+                }
+                valor = valor * 10 + digito;
+                i++;
+            }
+            int numDigitos = i - inicioDigitos;
+            if (numDigitos == 0 || numDigitos > 9) {
+                return false; // Vazio, ou talvez fora do int: o caminho geral decide
+            }
+            valores[campo] = negativo ? -valor : valor;
+            if (campo < 2) {
+                if (i >= fim || buffer.get(i) != ';') {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return i == fim;
+    }
+
+    // Decodifica os bytes [inicio, fim) como UTF-8
+    private static String texto(ByteBuffer buffer, int inicio, int fim) {
+        byte[] bytes = new byte[fim - inicio];
+        buffer.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Conexões lidas de um arquivo, guardadas em arrays primitivos (origem,
+ * destino e peso) em vez de um objeto {@link Conexao} por linha.
+ */
+public class LoteConexoes {
+
+    private int[] origens;
+    private int[] destinos;
+    private int[] pesos;
+    private int tamanho;
+
+    public LoteConexoes() {
+        this(16);
+    }
+
+    public LoteConexoes(int capacidade) {
+        capacidade = Math.max(1, capacidade);
+        origens = new int[capacidade];
+        destinos = new int[capacidade];
+        pesos = new int[capacidade];
+    }
+
+    public void adicionar(int idOrigem, int idDestino, int peso) {
+        if (tamanho == origens.length) {
+            int capacidade = tamanho + (tamanho >> 1) + 1;
+            origens = Arrays.copyOf(origens, capacidade);
+            destinos = Arrays.copyOf(destinos, capacidade);
+            pesos = Arrays.copyOf(pesos, capacidade);
+        }
+        origens[tamanho] = idOrigem;
+        destinos[tamanho] = idDestino;
+        pesos[tamanho] = peso;
+        tamanho++;
+    }
+
+    /**
+     * Acrescenta todas as conexões de outro lote, na ordem dele.
+     */
+    public void adicionarTodos(LoteConexoes outro) {
+        int necessario = tamanho + outro.tamanho;
+        if (necessario > origens.length) {
+            int capacidade = Math.max(necessario, tamanho + (tamanho >> 1) + 1);
+            origens = Arrays.copyOf(origens, capacidade);
+            destinos = Arrays.copyOf(destinos, capacidade);
+            pesos = Arrays.copyOf(pesos, capacidade);
+        }
+        System.arraycopy(outro.origens, 0, origens, tamanho, outro.tamanho);
+        System.arraycopy(outro.destinos, 0, destinos, tamanho, outro.tamanho);
+        System.arraycopy(outro.pesos, 0, pesos, tamanho, outro.tamanho);
+        tamanho = necessario;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public int getIdOrigem(int i) {
+        return origens[i];
+    }
+
+    public int getIdDestino(int i) {
+        return destinos[i];
+    }
+
+    public int getPeso(int i) {
+        return pesos[i];
+    }
+
+    /**
+     * Cria o objeto {@link Conexao} da i-ésima conexão.
+     */
+    public Conexao getConexao(int i) {
+        return new Conexao(origens[i], destinos[i], pesos[i]);
+    }
+}
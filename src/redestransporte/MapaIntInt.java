@@ -0,0 +1,244 @@
+package redestransporte;
+
+/**
+ * Mapa int -> int com endereçamento aberto (sondagem linear), sem
+ * Integer/Entry por elemento: chaves e valores ficam em dois vetores de
+ * int em blocos ({@link VetorInt}), compartilhados com as cópias.
+ * Remoções deslocam os elementos seguintes do mesmo bloco para trás
+ * (backward shift), então não há marcas de "removido".
+ */
+public class MapaIntInt {
+
+    // Chave usada para marcar posição livre; se ela for usada como chave de
+    // verdade, o valor fica guardado à parte
+    private static final int LIVRE = Integer.MIN_VALUE;
+
+    private VetorInt chaves;
+    private VetorInt valores;
+    private int mascara;
+    private int tamanho;     // Inclui a chave LIVRE, se presente
+    private boolean temChaveLivre;
+    private int valorChaveLivre;
+
+    public MapaIntInt() {
+        this(16);
+    }
+
+    /**
+     * @param capacidadeEsperada Quantidade de elementos prevista (evita crescer)
+     */
+    public MapaIntInt(int capacidadeEsperada) {
+        alocar(capacidadeTabela(capacidadeEsperada));
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    /**
+     * Retorna o valor da chave, ou padrao se ela não está no mapa.
+     */
+    public int obter(int chave, int padrao) {
+        if (chave == LIVRE) {
+            return temChaveLivre ? valorChaveLivre : padrao;
+        }
+        int i = posicaoInicial(chave);
+        while (true) {
+            int k = chaves.obter(i);
+            if (k == chave) {
+                return valores.obter(i);
+            }
+            if (k == LIVRE) {
+                return padrao;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    public boolean contem(int chave) {
+        if (chave == LIVRE) {
+            return temChaveLivre;
+        }
+        int i = posicaoInicial(chave);
+        while (true) {
+            int k = chaves.obter(i);
+            if (k == chave) {
+                return true;
+            }
+            if (k == LIVRE) {
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Associa o valor à chave (substituindo o anterior, se houver).
+     */
+    public void colocar(int chave, int valor) {
+        if (chave == LIVRE) {
+            if (!temChaveLivre) {
+                temChaveLivre = true;
+                tamanho++;
+            }
+            valorChaveLivre = valor;
+            return;
+        }
+        int i = posicaoInicial(chave);
+        while (true) {
+            int k = chaves.obter(i);
+            if (k == chave) {
+                valores.definir(i, valor);
+                return;
+            }
+            if (k == LIVRE) {
+                chaves.definir(i, chave);
+                valores.definir(i, valor);
+                if (++tamanho > limiteCrescimento()) {
+                    crescer();
+                }
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Remove a chave.
+     * @return O valor que ela tinha, ou padrao se não estava no mapa
+     */
+    public int remover(int chave, int padrao) {
+        if (chave == LIVRE) {
+            if (!temChaveLivre) {
+                return padrao;
+            }
+            temChaveLivre = false;
+            tamanho--;
+            return valorChaveLivre;
+        }
+        int i = posicaoInicial(chave);
+        while (true) {
+            int k = chaves.obter(i);
+            if (k == LIVRE) {
+                return padrao;
+            }
+            if (k == chave) {
+                int valor = valores.obter(i);
+                deslocarParaTras(i);
+                tamanho--;
+                return valor;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    public void limpar() {
+        chaves.preencher(0, chaves.tamanho(), LIVRE);
+        temChaveLivre = false;
+        tamanho = 0;
+    }
+
+    /**
+     * Retorna uma cópia do mapa que compartilha as tabelas com este, em
+     * blocos: custa O(capacidade / {@link VetorInt#TAMANHO_BLOCO}), e cada
+     * bloco só é copiado quando a cópia o altera. Este mapa não deve mais
+     * ser alterado depois (ver {@link Grafo#copiar()}).
+     */
+    public MapaIntInt copiar() {
+        MapaIntInt copia = new MapaIntInt(0);
+        copia.chaves = chaves.copiar();
+        copia.valores = valores.copiar();
+        copia.mascara = mascara;
+        copia.tamanho = tamanho;
+        copia.temChaveLivre = temChaveLivre;
+        copia.valorChaveLivre = valorChaveLivre;
+        return copia;
+    }
+
+    /**
+     * Retorna uma cópia das chaves (em ordem arbitrária).
+     */
+    public int[] chaves() {
+        int[] resultado = new int[tamanho];
+        int n = 0;
+        if (temChaveLivre) {
+            resultado[n++] = LIVRE;
+        }
+        for (int i = 0; i < chaves.tamanho(); i++) {
+            int k = chaves.obter(i);
+            if (k != LIVRE) {
+                resultado[n++] = k;
+            }
+        }
+        return resultado;
+    }
+
+    // Fecha o buraco em "livre": puxa para ele os elementos seguintes do bloco
+    // cuja posição ideal não fica entre o buraco e a posição atual
+    private void deslocarParaTras(int livre) {
+        int i = livre;
+        while (true) {
+            i = (i + 1) & mascara;
+            int k = chaves.obter(i);
+            if (k == LIVRE) {
+                break;
+            }
+            int ideal = posicaoInicial(k);
+            // Pode mover se "ideal" não está no intervalo circular (livre, i]
+            if (((i - ideal) & mascara) >= ((i - livre) & mascara)) {
+                chaves.definir(livre, k);
+                valores.definir(livre, valores.obter(i));
+                livre = i;
+            }
+        }
+        chaves.definir(livre, LIVRE);
+    }
+
+    private int posicaoInicial(int chave) {
+        return espalhar(chave) & mascara;
+    }
+
+    // Espalha os bits da chave (IDs costumam ser sequenciais)
+    static int espalhar(int chave) {
+        int h = chave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Carga máxima de 3/4 (a chave LIVRE não ocupa posição na tabela)
+    private int limiteCrescimento() {
+        return (chaves.tamanho() >> 1) + (chaves.tamanho() >> 2) + (temChaveLivre ? 1 : 0);
+    }
+
+    static int capacidadeTabela(int elementos) {
+        long minimo = Math.max(4L, (long) elementos * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(minimo - 1) << 1);
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new VetorInt(capacidade);
+        valores = new VetorInt(capacidade);
+        chaves.preencher(0, capacidade, LIVRE);
+        mascara = capacidade - 1;
+    }
+
+    private void crescer() {
+        VetorInt chavesAntigas = chaves;
+        VetorInt valoresAntigos = valores;
+        alocar(chaves.tamanho() * 2);
+        for (int j = 0; j < chavesAntigas.tamanho(); j++) {
+            int k = chavesAntigas.obter(j);
+            if (k != LIVRE) {
+                int i = posicaoInicial(k);
+                while (chaves.obter(i) != LIVRE) {
+                    i = (i + 1) & mascara;
+                }
+                chaves.definir(i, k);
+                valores.definir(i, valoresAntigos.obter(j));
+            }
+        }
+    }
+}
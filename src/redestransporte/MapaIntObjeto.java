@@ -0,0 +1,274 @@
+package redestransporte;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Mapa int -> objeto com endereçamento aberto (sondagem linear), como o
+ * {@link MapaIntInt}: a chave não é convertida em Integer e não há um
+ * objeto Entry por elemento. Valores null não são aceitos (null significa
+ * "chave ausente").
+ * @param <V> Tipo dos valores
+ */
+public class MapaIntObjeto<V> {
+
+    private static final int LIVRE = Integer.MIN_VALUE;
+
+    private VetorInt chaves;
+    private VetorObjeto<Object> valores;
+    private int mascara;
+    private int tamanho;
+    private Object valorChaveLivre; // Valor da chave LIVRE, se ela for usada de verdade
+
+    public MapaIntObjeto() {
+        this(16);
+    }
+
+    /**
+     * @param capacidadeEsperada Quantidade de elementos prevista (evita crescer)
+     */
+    public MapaIntObjeto(int capacidadeEsperada) {
+        alocar(MapaIntInt.capacidadeTabela(capacidadeEsperada));
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    /**
+     * Retorna o valor da chave, ou null se ela não está no mapa.
+     */
+    @SuppressWarnings("unchecked")
+    public V obter(int chave) {
+        if (chave == LIVRE) {
+            return (V) valorChaveLivre;
+        }
+        int i = posicaoInicial(chave);
+        while (true) {
+            int k = chaves.obter(i);
+            if (k == chave) {
+                return (V) valores.obter(i);
+            }
+            if (k == LIVRE) {
+                return null;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    public boolean contem(int chave) {
+        return obter(chave) != null;
+    }
+
+    /**
+     * Associa o valor (não nulo) à chave.
+     * @return O valor anterior, ou null se a chave era nova
+     */
+    @SuppressWarnings("unchecked")
+    public V colocar(int chave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("Valores nulos não são aceitos");
+        }
+        if (chave == LIVRE) {
+            Object anterior = valorChaveLivre;
+            valorChaveLivre = valor;
+            if (anterior == null) {
+                tamanho++;
+            }
+            return (V) anterior;
+        }
+        int i = posicaoInicial(chave);
+        while (true) {
+            int k = chaves.obter(i);
+            if (k == chave) {
+                Object anterior = valores.obter(i);
+                valores.definir(i, valor);
+                return (V) anterior;
+            }
+            if (k == LIVRE) {
+                chaves.definir(i, chave);
+                valores.definir(i, valor);
+                if (++tamanho > limiteCrescimento()) {
+                    crescer();
+                }
+                return null;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Remove a chave.
+     * @return O valor que ela tinha, ou null se não estava no mapa
+     */
+    @SuppressWarnings("unchecked")
+    public V remover(int chave) {
+        if (chave == LIVRE) {
+            Object anterior = valorChaveLivre;
+            if (anterior != null) {
+                valorChaveLivre = null;
+                tamanho--;
+            }
+            return (V) anterior;
+        }
+        int i = posicaoInicial(chave);
+        while (true) {
+            int k = chaves.obter(i);
+            if (k == LIVRE) {
+                return null;
+            }
+            if (k == chave) {
+                Object valor = valores.obter(i);
+                deslocarParaTras(i);
+                tamanho--;
+                return (V) valor;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    public void limpar() {
+        chaves.preencher(0, chaves.tamanho(), LIVRE);
+        valores.preencher(0, valores.tamanho(), null);
+        valorChaveLivre = null;
+        tamanho = 0;
+    }
+
+    /**
+     * Retorna uma cópia do mapa que compartilha as tabelas (em blocos) e os
+     * valores com este, como {@link MapaIntInt#copiar()}. Este mapa não deve
+     * mais ser alterado depois.
+     */
+    public MapaIntObjeto<V> copiar() {
+        MapaIntObjeto<V> copia = new MapaIntObjeto<>(0);
+        copia.chaves = chaves.copiar();
+        copia.valores = valores.copiar();
+        copia.mascara = mascara;
+        copia.tamanho = tamanho;
+        copia.valorChaveLivre = valorChaveLivre;
+        return copia;
+    }
+
+    /**
+     * Retorna uma cópia das chaves (em ordem arbitrária).
+     */
+    public int[] chaves() {
+        int[] resultado = new int[tamanho];
+        int n = 0;
+        if (valorChaveLivre != null) {
+            resultado[n++] = LIVRE;
+        }
+        for (int i = 0; i < chaves.tamanho(); i++) {
+            int k = chaves.obter(i);
+            if (k != LIVRE) {
+                resultado[n++] = k;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Visão (somente leitura) dos valores, em ordem arbitrária.
+     */
+    public Collection<V> valores() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<V>() {
+                    // -1 = valor da chave LIVRE; depois as posições da tabela
+                    private int proxima = avancar(valorChaveLivre != null ? -2 : -1);
+
+                    @Override
+                    public boolean hasNext() {
+                        return proxima < chaves.tamanho();
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Object valor = proxima < 0 ? valorChaveLivre : valores.obter(proxima);
+                        proxima = avancar(proxima);
+                        return (V) valor;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return tamanho;
+            }
+        };
+    }
+
+    // Próxima posição ocupada depois de i (-2 indica começar pela chave LIVRE)
+    private int avancar(int i) {
+        if (i == -2) {
+            return -1;
+        }
+        i++;
+        while (i < chaves.tamanho() && chaves.obter(i) == LIVRE) {
+            i++;
+        }
+        return i;
+    }
+
+    private void deslocarParaTras(int livre) {
+        int i = livre;
+        while (true) {
+            i = (i + 1) & mascara;
+            int k = chaves.obter(i);
+            if (k == LIVRE) {
+                break;
+            }
+            int ideal = posicaoInicial(k);
+            if (((i - ideal) & mascara) >= ((i - livre) & mascara)) {
+                chaves.definir(livre, k);
+                valores.definir(livre, valores.obter(i));
+                livre = i;
+            }
+        }
+        chaves.definir(livre, LIVRE);
+        valores.definir(livre, null);
+    }
+
+    private int posicaoInicial(int chave) {
+        return MapaIntInt.espalhar(chave) & mascara;
+    }
+
+    private int limiteCrescimento() {
+        return (chaves.tamanho() >> 1) + (chaves.tamanho() >> 2) + (valorChaveLivre != null ? 1 : 0);
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new VetorInt(capacidade);
+        valores = new VetorObjeto<>(capacidade);
+        chaves.preencher(0, capacidade, LIVRE);
+        mascara = capacidade - 1;
+    }
+
+    private void crescer() {
+        VetorInt chavesAntigas = chaves;
+        VetorObjeto<Object> valoresAntigos = valores;
+        alocar(chaves.tamanho() * 2);
+        for (int j = 0; j < chavesAntigas.tamanho(); j++) {
+            int k = chavesAntigas.obter(j);
+            if (k != LIVRE) {
+                int i = posicaoInicial(k);
+                while (chaves.obter(i) != LIVRE) {
+                    i = (i + 1) & mascara;
+                }
+                chaves.definir(i, k);
+                valores.definir(i, valoresAntigos.obter(j));
+            }
+        }
+    }
+}
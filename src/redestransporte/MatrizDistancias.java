@@ -0,0 +1,201 @@
+package redestransporte;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+/**
+ * Matriz de distâncias muitos-para-muitos: o custo do caminho mais curto de
+ * cada origem até cada destino. Em vez de uma busca por par, faz um único
+ * Dijkstra por origem, que para quando todos os destinos foram finalizados
+ * ({@link MotorDijkstra#executarAteAlvos}). As origens são processadas em
+ * paralelo (pool comum de fork-join), todas lendo a mesma adjacência, e
+ * cada thread usa o seu próprio {@link EspacoBusca}.
+ *
+ * Os valores ficam em arrays primitivos, linha a linha (origem x destino).
+ * Para matrizes grandes demais para a memória, {@link #gravar} calcula e
+ * grava um bloco de linhas por vez.
+ */
+public final class MatrizDistancias {
+
+    /** Valor da distância (e do anterior) quando o destino não é alcançável. */
+    public static final int SEM_CAMINHO = -1;
+
+    /** Linhas calculadas de cada vez por {@link #gravar}. */
+    public static final int LINHAS_POR_BLOCO = 256;
+
+    private final int[] idsOrigem;
+    private final int[] idsDestino;
+    private final int[] distancias; // distancias[linha * numDestinos + coluna]
+    private final int[] anteriores; // ID da estação anterior ao destino no caminho, ou null
+
+    private MatrizDistancias(int[] idsOrigem, int[] idsDestino, int[] distancias, int[] anteriores) {
+        this.idsOrigem = idsOrigem;
+        this.idsDestino = idsDestino;
+        this.distancias = distancias;
+        this.anteriores = anteriores;
+    }
+
+    /**
+     * Calcula a matriz completa em memória.
+     * @param grafo O grafo (com a adjacência já gerada); não pode mudar durante o cálculo
+     * @param idsOrigem IDs das estações de origem (linhas)
+     * @param idsDestino IDs das estações de destino (colunas)
+     * @param comAnteriores Se deve guardar também a matriz de anteriores (ver {@link #getAnterior})
+     * @return A matriz
+     * @throws IllegalArgumentException se algum ID não existe no grafo
+     */
+    public static MatrizDistancias calcular(Grafo grafo, int[] idsOrigem, int[] idsDestino, boolean comAnteriores) {
+        Calculo calculo = new Calculo(grafo, idsOrigem, idsDestino);
+        int numDestinos = idsDestino.length;
+        int[] distancias = new int[Math.multiplyExact(idsOrigem.length, numDestinos)];
+        int[] anteriores = comAnteriores ? new int[distancias.length] : null;
+        IntStream.range(0, idsOrigem.length).parallel().forEach(linha ->
+                calculo.preencherLinha(linha, distancias, anteriores, linha * numDestinos));
+        return new MatrizDistancias(idsOrigem.clone(), idsDestino.clone(), distancias, anteriores);
+    }
+
+    /**
+     * Calcula a matriz e grava em um arquivo de texto, um bloco de
+     * {@link #LINHAS_POR_BLOCO} origens por vez (só um bloco fica em memória).
+     * Formato (campos separados por ';'): a primeira linha é "origem" seguida
+     * dos IDs de destino; cada linha seguinte é o ID da origem seguido das
+     * distâncias ({@link #SEM_CAMINHO} se não há caminho).
+     * @param grafo O grafo (com a adjacência já gerada); não pode mudar durante o cálculo
+     * @param idsOrigem IDs das estações de origem
+     * @param idsDestino IDs das estações de destino
+     * @param nomeArquivo Arquivo de saída (sobrescrito)
+     * @throws IllegalArgumentException se algum ID não existe no grafo
+     */
+    public static void gravar(Grafo grafo, int[] idsOrigem, int[] idsDestino, String nomeArquivo) throws IOException {
+        Calculo calculo = new Calculo(grafo, idsOrigem, idsDestino);
+        int numDestinos = idsDestino.length;
+        int[] bloco = new int[Math.multiplyExact(Math.min(LINHAS_POR_BLOCO, idsOrigem.length), numDestinos)];
+
+        try (BufferedWriter escritor = Files.newBufferedWriter(Paths.get(nomeArquivo), StandardCharsets.UTF_8)) {
+            StringBuilder sb = new StringBuilder("origem");
+            for (int id : idsDestino) {
+                sb.append(';').append(id);
+            }
+            escritor.write(sb.toString());
+            escritor.newLine();
+
+            for (int inicio = 0; inicio < idsOrigem.length; inicio += LINHAS_POR_BLOCO) {
+                int primeira = inicio;
+                int fim = Math.min(idsOrigem.length, inicio + LINHAS_POR_BLOCO);
+                IntStream.range(primeira, fim).parallel().forEach(linha ->
+                        calculo.preencherLinha(linha, bloco, null, (linha - primeira) * numDestinos));
+                for (int linha = primeira; linha < fim; linha++) {
+                    sb.setLength(0);
+                    sb.append(idsOrigem[linha]);
+                    int deslocamento = (linha - primeira) * numDestinos;
+                    for (int coluna = 0; coluna < numDestinos; coluna++) {
+                        sb.append(';').append(bloco[deslocamento + coluna]);
+                    }
+                    escritor.write(sb.toString());
+                    escritor.newLine();
+                }
+            }
+        }
+    }
+
+    // Dados compartilhados (só leitura) pelas threads que calculam as linhas
+    private static final class Calculo {
+        private final Grafo grafo;
+        private final AdjacenciaCSR adjacencia;
+        private final int[] indicesOrigem;
+        private final int[] indicesDestino;
+        private final boolean[] alvo;
+        private final int numAlvos; // Destinos distintos
+
+        Calculo(Grafo grafo, int[] idsOrigem, int[] idsDestino) {
+            this.grafo = grafo;
+            this.adjacencia = grafo.getAdjacencia();
+            this.indicesOrigem = indicesDe(grafo, idsOrigem);
+            this.indicesDestino = indicesDe(grafo, idsDestino);
+            this.alvo = new boolean[adjacencia.getNumVertices()];
+            int distintos = 0;
+            for (int indice : indicesDestino) {
+                if (!alvo[indice]) {
+                    alvo[indice] = true;
+                    distintos++;
+                }
+            }
+            this.numAlvos = distintos;
+        }
+
+        private static int[] indicesDe(Grafo grafo, int[] ids) {
+            int[] indices = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                indices[i] = grafo.indiceDe(ids[i]);
+                if (indices[i] < 0) {
+                    throw new IllegalArgumentException("Estação não encontrada: " + ids[i]);
+                }
+            }
+            return indices;
+        }
+
+        // Uma busca a partir da origem da linha; grava a linha a partir de "deslocamento"
+        void preencherLinha(int linha, int[] distancias, int[] anteriores, int deslocamento) {
+            if (numAlvos == 0) {
+                return;
+            }
+            EspacoBusca espaco = MotorDijkstra.executarAteAlvos(adjacencia, indicesOrigem[linha], alvo, numAlvos);
+            for (int coluna = 0; coluna < indicesDestino.length; coluna++) {
+                int destino = indicesDestino[coluna];
+                boolean alcancado = espaco.foiAlcancado(destino);
+                distancias[deslocamento + coluna] = alcancado ? espaco.distancia(destino) : SEM_CAMINHO;
+                if (anteriores != null) {
+                    int anterior = alcancado ? espaco.anterior(destino) : -1;
+                    anteriores[deslocamento + coluna] = anterior >= 0 ? grafo.idDe(anterior) : SEM_CAMINHO;
+                }
+            }
+        }
+    }
+
+    public int getNumOrigens() {
+        return idsOrigem.length;
+    }
+
+    public int getNumDestinos() {
+        return idsDestino.length;
+    }
+
+    /** ID da estação de origem da linha. */
+    public int getIdOrigem(int linha) {
+        return idsOrigem[linha];
+    }
+
+    /** ID da estação de destino da coluna. */
+    public int getIdDestino(int coluna) {
+        return idsDestino[coluna];
+    }
+
+    /**
+     * Custo do caminho mais curto da origem da linha ao destino da coluna,
+     * ou {@link #SEM_CAMINHO}.
+     */
+    public int getDistancia(int linha, int coluna) {
+        return distancias[linha * idsDestino.length + coluna];
+    }
+
+    /**
+     * ID da estação imediatamente antes do destino no caminho mais curto
+     * (o último trecho do caminho), ou {@link #SEM_CAMINHO} se não há
+     * caminho ou se origem e destino são a mesma estação.
+     * @throws IllegalStateException se a matriz foi calculada sem anteriores
+     */
+    public int getAnterior(int linha, int coluna) {
+        if (anteriores == null) {
+            throw new IllegalStateException("Matriz calculada sem anteriores");
+        }
+        return anteriores[linha * idsDestino.length + coluna];
+    }
+
+    public boolean temAnteriores() {
+        return anteriores != null;
+    }
+}
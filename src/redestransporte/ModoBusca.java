@@ -0,0 +1,28 @@
+package redestransporte;
+
+/**
+ * Algoritmos disponíveis para o caminho mais curto por peso.
+ */
+public enum ModoBusca {
+    DIJKSTRA("Dijkstra"),
+    DIJKSTRA_BIDIRECIONAL("Dijkstra Bidirecional"),
+    A_ESTRELA("A*"),
+    ALT("A* com Landmarks (ALT)"),
+    CONTRACTION_HIERARCHIES("Contraction Hierarchies"),
+    TODOS_OS_PARES("Tabela de Todos os Pares");
+
+    private final String nome;
+
+    ModoBusca(String nome) {
+        this.nome = nome;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public String toString() {
+        return nome;
+    }
+}
@@ -0,0 +1,136 @@
+package redestransporte;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Observa os arquivos de estações e conexões (NIO WatchService) e, quando
+ * eles mudam, relê os dois e calcula a {@link DiferencaRede} em relação à
+ * última versão conhecida. A leitura e o cálculo são feitos na thread do
+ * monitor; a diferença é entregue ao consumidor, que decide quando aplicá-la.
+ *
+ * A comparação é feita com a versão anterior dos arquivos, e não com o
+ * grafo: assim as alterações feitas pelo CRUD (que estão só no diário)
+ * não são desfeitas por uma recarga.
+ */
+public class MonitorArquivos implements Closeable {
+
+    // Espera sem novos eventos antes de reler (editores gravam em várias etapas)
+    private static final long ESPERA_ESTABILIZAR_MS = 300;
+
+    private final Path arquivoEstacoes;
+    private final Path arquivoConexoes;
+    private final WatchService servico;
+    private final Consumer<DiferencaRede> consumidor;
+    private final Thread thread;
+    private DiferencaRede.Conteudo conteudoAtual; // Protegido por "this"
+
+    /**
+     * Começa a observar os arquivos.
+     * @param conteudoInicial Conteúdo dos arquivos já carregado (base da primeira diferença)
+     * @param consumidor Recebe cada diferença não vazia (na thread do monitor)
+     */
+    public MonitorArquivos(String arquivoEstacoes, String arquivoConexoes,
+                           DiferencaRede.Conteudo conteudoInicial,
+                           Consumer<DiferencaRede> consumidor) throws IOException {
+        this.arquivoEstacoes = Paths.get(arquivoEstacoes).toAbsolutePath();
+        this.arquivoConexoes = Paths.get(arquivoConexoes).toAbsolutePath();
+        this.conteudoAtual = conteudoInicial;
+        this.consumidor = consumidor;
+        this.servico = FileSystems.getDefault().newWatchService();
+        registrar(this.arquivoEstacoes.getParent());
+        if (!this.arquivoConexoes.getParent().equals(this.arquivoEstacoes.getParent())) {
+            registrar(this.arquivoConexoes.getParent());
+        }
+        this.thread = new Thread(this::observar, "monitor-arquivos");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void registrar(Path diretorio) throws IOException {
+        // Gravações por arquivo temporário + renomear chegam como CREATE
+        diretorio.register(servico, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Informa o novo conteúdo dos arquivos quando é o próprio programa que
+     * os regrava (compactação do diário), para que isso não vire uma recarga.
+     */
+    public synchronized void definirConteudo(DiferencaRede.Conteudo conteudo) {
+        this.conteudoAtual = conteudo;
+    }
+
+    private void observar() {
+        try {
+            while (true) {
+                WatchKey chave = servico.take();
+                boolean mudou = processarEventos(chave);
+                // Junta as rajadas de eventos de uma mesma gravação
+                while ((chave = servico.poll(ESPERA_ESTABILIZAR_MS, TimeUnit.MILLISECONDS)) != null) {
+                    mudou |= processarEventos(chave);
+                }
+                if (mudou) {
+                    recarregar();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Monitor encerrado
+        }
+    }
+
+    // Consome os eventos da chave; true se algum é de um dos arquivos observados
+    private boolean processarEventos(WatchKey chave) {
+        boolean mudou = false;
+        Path diretorio = (Path) chave.watchable();
+        for (WatchEvent<?> evento : chave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                mudou = true; // Eventos perdidos: relê por garantia
+                continue;
+            }
+            Path arquivo = diretorio.resolve((Path) evento.context());
+            if (arquivo.equals(arquivoEstacoes) || arquivo.equals(arquivoConexoes)) {
+                mudou = true;
+            }
+        }
+        chave.reset();
+        return mudou;
+    }
+
+    private void recarregar() {
+        DiferencaRede.Conteudo novo;
+        try {
+            novo = DiferencaRede.Conteudo.lerArquivos(arquivoEstacoes.toString(), arquivoConexoes.toString());
+        } catch (IOException e) {
+            // Arquivo sendo trocado ou removido: espera a próxima mudança
+            System.err.println("Recarga ignorada: " + e.getMessage());
+            return;
+        }
+        DiferencaRede diferenca;
+        synchronized (this) {
+            diferenca = DiferencaRede.calcular(conteudoAtual, novo);
+            conteudoAtual = novo;
+        }
+        if (!diferenca.isVazia()) {
+            consumidor.accept(diferenca);
+        }
+    }
+
+    /**
+     * Para de observar os arquivos.
+     */
+    @Override
+    public void close() throws IOException {
+        servico.close();
+        thread.interrupt();
+    }
+}
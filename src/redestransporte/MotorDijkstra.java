@@ -0,0 +1,222 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra sem alocação por consulta: usa a adjacência CSR, o
+ * {@link HeapIndexado} com diminuir-chave e o {@link EspacoBusca} da thread.
+ */
+public class MotorDijkstra {
+
+    private MotorDijkstra() {
+    }
+
+    /**
+     * Executa Dijkstra a partir da origem. A busca para assim que o destino é
+     * finalizado; use destino = -1 para calcular as distâncias a todos os vértices.
+     * @param adjacencia O grafo
+     * @param origem Índice da origem
+     * @param destino Índice do destino, ou -1
+     * @return O espaço de busca da thread, com distâncias e anteriores preenchidos
+     *         (válido até a próxima busca na mesma thread)
+     */
+    public static EspacoBusca executar(AdjacenciaCSR adjacencia, int origem, int destino) {
+        EspacoBusca espaco = EspacoBusca.daThread();
+        executar(adjacencia, origem, destino, espaco);
+        return espaco;
+    }
+
+    /**
+     * Mesmo que {@link #executar(AdjacenciaCSR, int, int)}, mas usando o espaço informado.
+     */
+    public static void executar(AdjacenciaCSR adjacencia, int origem, int destino, EspacoBusca espaco) {
+        AdjacenciaCSR.Plana plana = adjacencia.plana();
+        espaco.iniciar(adjacencia.getNumVertices());
+        HeapIndexado heap = espaco.getHeap();
+
+        espaco.definir(origem, 0, -1);
+        heap.inserirOuDiminuir(origem, 0);
+
+        while (!heap.isEmpty()) {
+            int atual = heap.removerMinimo();
+            espaco.fechar(atual);
+
+            if (atual == destino) {
+                break; // Achou o destino
+            }
+
+            int distanciaAtual = espaco.distancia(atual);
+            for (int k = plana.inicio[atual]; k < plana.fim[atual]; k++) {
+                int vizinho = plana.destinos[k];
+                if (espaco.estaFechado(vizinho)) {
+                    continue;
+                }
+                int novaDistancia = distanciaAtual + plana.pesos[k];
+                if (novaDistancia < espaco.distancia(vizinho)) {
+                    espaco.definir(vizinho, novaDistancia, atual);
+                    heap.inserirOuDiminuir(vizinho, novaDistancia);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dijkstra a partir da origem que para quando todos os alvos foram
+     * finalizados (ou quando acabam os vértices alcançáveis). Usado quando a
+     * mesma origem tem vários destinos (ver {@link MatrizDistancias}).
+     * @param adjacencia O grafo
+     * @param origem Índice da origem
+     * @param alvo alvo[v] = true para os vértices de interesse
+     * @param numAlvos Quantidade de vértices com alvo[v] = true
+     * @return O espaço de busca da thread (válido até a próxima busca na mesma thread)
+     */
+    public static EspacoBusca executarAteAlvos(AdjacenciaCSR adjacencia, int origem, boolean[] alvo, int numAlvos) {
+        EspacoBusca espaco = EspacoBusca.daThread();
+        AdjacenciaCSR.Plana plana = adjacencia.plana();
+        espaco.iniciar(adjacencia.getNumVertices());
+        HeapIndexado heap = espaco.getHeap();
+
+        espaco.definir(origem, 0, -1);
+        heap.inserirOuDiminuir(origem, 0);
+        int restantes = numAlvos;
+
+        while (!heap.isEmpty()) {
+            int atual = heap.removerMinimo();
+            espaco.fechar(atual);
+
+            if (alvo[atual] && --restantes == 0) {
+                break; // Todos os alvos já têm a distância final
+            }
+
+            int distanciaAtual = espaco.distancia(atual);
+            for (int k = plana.inicio[atual]; k < plana.fim[atual]; k++) {
+                int vizinho = plana.destinos[k];
+                if (espaco.estaFechado(vizinho)) {
+                    continue;
+                }
+                int novaDistancia = distanciaAtual + plana.pesos[k];
+                if (novaDistancia < espaco.distancia(vizinho)) {
+                    espaco.definir(vizinho, novaDistancia, atual);
+                    heap.inserirOuDiminuir(vizinho, novaDistancia);
+                }
+            }
+        }
+        return espaco;
+    }
+
+    /**
+     * Dijkstra bidirecional: uma busca parte da origem e outra do destino
+     * (o grafo não é direcionado, então ambas usam a mesma adjacência).
+     *
+     * mu guarda o menor dist(origem, v) + dist(v, destino) entre os vértices já
+     * alcançados pelos dois lados. A busca pode parar quando a soma dos topos das
+     * duas filas é >= mu: nenhum caminho ainda não visto pode ser menor que isso.
+     * @return Os índices do caminho, ou null se o destino não é alcançável
+     */
+    public static int[] bidirecional(AdjacenciaCSR adjacencia, int origem, int destino) {
+        if (origem == destino) {
+            return new int[]{origem};
+        }
+        EspacoBusca frente = EspacoBusca.daThread();
+        EspacoBusca tras = EspacoBusca.reversoDaThread();
+        frente.iniciar(adjacencia.getNumVertices());
+        tras.iniciar(adjacencia.getNumVertices());
+        AdjacenciaCSR.Plana plana = adjacencia.plana();
+
+        frente.definir(origem, 0, -1);
+        frente.getHeap().inserirOuDiminuir(origem, 0);
+        tras.definir(destino, 0, -1);
+        tras.getHeap().inserirOuDiminuir(destino, 0);
+
+        long mu = Long.MAX_VALUE;
+        int encontro = -1;
+
+        while (!frente.getHeap().isEmpty() && !tras.getHeap().isEmpty()) {
+            HeapIndexado heapFrente = frente.getHeap();
+            HeapIndexado heapTras = tras.getHeap();
+            if ((long) heapFrente.chaveMinima() + heapTras.chaveMinima() >= mu) {
+                break; // Critério de parada
+            }
+
+            // Avança o lado com a menor chave no topo
+            boolean ladoFrente = heapFrente.chaveMinima() <= heapTras.chaveMinima();
+            EspacoBusca atualEspaco = ladoFrente ? frente : tras;
+            EspacoBusca outroEspaco = ladoFrente ? tras : frente;
+            HeapIndexado heap = atualEspaco.getHeap();
+
+            int atual = heap.removerMinimo();
+            atualEspaco.fechar(atual);
+            int distanciaAtual = atualEspaco.distancia(atual);
+
+            for (int k = plana.inicio[atual]; k < plana.fim[atual]; k++) {
+                int vizinho = plana.destinos[k];
+                if (atualEspaco.estaFechado(vizinho)) {
+                    continue;
+                }
+                int novaDistancia = distanciaAtual + plana.pesos[k];
+                if (novaDistancia < atualEspaco.distancia(vizinho)) {
+                    atualEspaco.definir(vizinho, novaDistancia, atual);
+                    heap.inserirOuDiminuir(vizinho, novaDistancia);
+                    if (outroEspaco.foiAlcancado(vizinho)) {
+                        long total = (long) novaDistancia + outroEspaco.distancia(vizinho);
+                        if (total < mu) {
+                            mu = total;
+                            encontro = vizinho;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (encontro < 0) {
+            return null;
+        }
+        // Junta origem -> encontro (lado da frente) com encontro -> destino (lado de trás)
+        int[] metadeFrente = frente.extrairCaminho(origem, encontro);
+        int tamanho = metadeFrente.length;
+        for (int v = tras.anterior(encontro); v != -1; v = tras.anterior(v)) {
+            tamanho++;
+        }
+        int[] caminho = Arrays.copyOf(metadeFrente, tamanho);
+        int i = metadeFrente.length;
+        for (int v = tras.anterior(encontro); v != -1; v = tras.anterior(v)) {
+            caminho[i++] = v;
+        }
+        return caminho;
+    }
+
+    /**
+     * A*: como o Dijkstra, mas a fila é ordenada por distância + estimativa
+     * até o destino. Com uma heurística admissível o caminho é mínimo; vértices
+     * já finalizados podem ser reabertos, então a heurística não precisa ser
+     * consistente.
+     * @return O espaço de busca da thread, com o caminho até o destino
+     */
+    public static EspacoBusca aEstrela(AdjacenciaCSR adjacencia, int origem, int destino, Heuristica heuristica) {
+        EspacoBusca espaco = EspacoBusca.daThread();
+        AdjacenciaCSR.Plana plana = adjacencia.plana();
+        espaco.iniciar(adjacencia.getNumVertices());
+        HeapIndexado heap = espaco.getHeap();
+
+        espaco.definir(origem, 0, -1);
+        heap.inserirOuDiminuir(origem, heuristica.estimar(origem, destino));
+
+        while (!heap.isEmpty()) {
+            int atual = heap.removerMinimo();
+            if (atual == destino) {
+                break; // Achou o destino
+            }
+
+            int distanciaAtual = espaco.distancia(atual);
+            for (int k = plana.inicio[atual]; k < plana.fim[atual]; k++) {
+                int vizinho = plana.destinos[k];
+                int novaDistancia = distanciaAtual + plana.pesos[k];
+                if (novaDistancia < espaco.distancia(vizinho)) {
+                    espaco.definir(vizinho, novaDistancia, atual);
+                    heap.inserirOuDiminuir(vizinho, novaDistancia + heuristica.estimar(vizinho, destino));
+                }
+            }
+        }
+        return espaco;
+    }
+}
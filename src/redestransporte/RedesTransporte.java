@@ -4,21 +4,59 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextArea;
 import javax.swing.JScrollPane;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 /**
  * Classe principal do sistema de Redes de Transporte
  * @author elian
  */
 public class RedesTransporte {
-    private static Grafo grafo;
-    private static BST bst;
-    private static Trie trie;
+    // Versão atual da rede (grafo, BST e Trie). Quem lê pega a versão uma vez
+    // e usa só ela; quem altera publica uma versão nova (ver alterar())
+    private static final AtomicReference<EstadoRede> estado = new AtomicReference<>();
+    // Uma alteração por vez: cada uma parte da versão publicada pela anterior
+    private static final Object travaAlteracoes = new Object();
     
+    // Tabelas ALT pré-processadas, salvas junto com estacoes.txt e conexoes.txt
+    private static final String ARQUIVO_LANDMARKS = "landmarks.alt";
+    // Tabela de caminhos entre todos os pares (redes pequenas e médias, ver TabelaTodosPares)
+    private static final String ARQUIVO_TODOS_PARES = "todospares.tab";
+    // Cópia binária da rede, para abrir sem reprocessar os .txt (ver SnapshotGrafo)
+    private static final String ARQUIVO_SNAPSHOT = "rede.snapshot";
+    // Alterações feitas pelo CRUD, reaplicadas sobre os .txt na abertura (ver DiarioAlteracoes)
+    private static final String ARQUIVO_DIARIO = "rede.diario";
+    private static DiarioAlteracoes diario;
+    // Observa estacoes.txt/conexoes.txt; as diferenças viram novas versões da rede
+    private static MonitorArquivos monitor;
+    // Linhas por página ao exibir as representações grandes (listas, Mermaid)
+    private static final int LINHAS_POR_PAGINA = 1000;
+    
+    /**
+     * Abre o menu. Sem janelas: "--lote consultas.txt resultados.txt" executa
+     * as consultas do arquivo (ver {@link ConsultasLote}) e "--servidor [porta]"
+     * atende consultas HTTP em localhost (ver {@link ServidorConsultas}).
+     * "--exportar formato arquivo [vizinhanca id k | componente id]" grava a
+     * rede em DOT, GraphML, Mermaid ou CSV (ver {@link ExportadorGrafo}).
+     */
     public static void main(String[] args) {
-        grafo = new Grafo();
-        bst = new BST();
-        trie = new Trie();
+        if (args.length > 0 && args[0].equals("--lote")) {
+            executarLote(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            executarServidor(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--exportar")) {
+            executarExportacao(args);
+            return;
+        }
         
         // Carrega os dados dos arquivos
         if (!carregarDados()) {
@@ -61,29 +99,16 @@ public class RedesTransporte {
             }
         }
         
+        fecharDiario();
+        pararMonitor();
         JOptionPane.showMessageDialog(null, "Obrigado por usar o sistema!");
     }
     
     private static boolean carregarDados() {
         try { 
-            List<Estacao> estacoes = LeitorArquivos.lerEstacoes("estacoes.txt");
-            for (Estacao e : estacoes) {
-                grafo.adicionarEstacao(e);
-                bst.inserir(e);
-                trie.inserir(e);
-            }
-            List<Conexao> conexoes = LeitorArquivos.lerConexoes("conexoes.txt");
-            for (Conexao c : conexoes) {
-                grafo.adicionarConexao(c);
-            }
-            // Gera as matrizes
-            grafo.gerarMatrizAdjacencia();
-            grafo.gerarMatrizIncidencia();
             JOptionPane.showMessageDialog(
                     null,
-                    "Dados carregados com sucesso!\n\n" +
-                            "Estações: " + estacoes.size() + "\n" +
-                                    "Conexões: " + conexoes.size(),
+                    "Dados carregados com sucesso! " + carregarRede(true),
                     "Sucesso",
                     JOptionPane.INFORMATION_MESSAGE
             );
@@ -101,6 +126,371 @@ public class RedesTransporte {
         }
     }
     
+    /**
+     * Carrega a rede (da cópia binária ou dos .txt, mais o diário) e publica
+     * a primeira versão.
+     * @param monitorarArquivos Se deve observar os .txt para recarregá-los ao mudarem
+     * @return Resumo da carga (origem e tamanho da rede), para o usuário
+     */
+    private static String carregarRede(boolean monitorarArquivos) throws IOException {
+        int numEstacoes;
+        int numConexoes;
+        String origem;
+        // Montadas aqui e publicadas como a primeira versão da rede
+        Grafo grafo = new Grafo();
+        BST bst = new BST();
+        Trie trie = new Trie();
+        SnapshotGrafo snapshot = abrirSnapshot();
+        if (snapshot != null) {
+            grafo = snapshot.getGrafo();
+            bst = snapshot.getBst();
+            trie = snapshot.getTrie();
+            numEstacoes = grafo.getNumEstacoes();
+            numConexoes = grafo.getNumConexoes();
+            origem = ARQUIVO_SNAPSHOT;
+        } else {
+            List<Estacao> estacoes = LeitorArquivos.lerEstacoes("estacoes.txt");
+            for (Estacao e : estacoes) {
+                grafo.adicionarEstacao(e);
+                bst.inserir(e);
+                trie.inserir(e);
+            }
+            // Conexões lidas direto para arrays primitivos
+            LoteConexoes conexoes = LeitorArquivos.lerLoteConexoes("conexoes.txt");
+            grafo.adicionarConexoes(conexoes);
+            // Gera as matrizes
+            grafo.gerarMatrizAdjacencia();
+            grafo.gerarMatrizIncidencia();
+            salvarSnapshot(grafo, bst, trie);
+            numEstacoes = estacoes.size();
+            numConexoes = conexoes.tamanho();
+            origem = "arquivos .txt";
+        }
+        // Conteúdo dos arquivos base, antes do diário: referência para as recargas
+        DiferencaRede.Conteudo conteudoBase = monitorarArquivos ? DiferencaRede.Conteudo.deGrafo(grafo) : null;
+        int alteracoes = abrirDiario(grafo, bst, trie);
+        estado.set(EstadoRede.inicial(grafo, bst, trie));
+        if (monitorarArquivos) {
+            iniciarMonitor(conteudoBase);
+        }
+        carregarLandmarks(grafo);
+        carregarTodosPares(grafo);
+        if (alteracoes > 0) {
+            origem += " + " + alteracoes + " alteração(ões) do diário";
+            numEstacoes = grafo.getNumEstacoes();
+            numConexoes = grafo.getNumConexoes();
+        }
+        return "(" + origem + ")\n\n" +
+                "Estações: " + numEstacoes + "\n" +
+                "Conexões: " + numConexoes;
+    }
+    
+    // Modo em lote: carrega a rede, executa as consultas e mostra o resumo no console
+    private static void executarLote(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Uso: --lote <arquivo de consultas> <arquivo de resultados>");
+            System.exit(2);
+        }
+        boolean sucesso = false;
+        try {
+            System.out.println("Rede carregada " + carregarRede(false).replace("\n\n", "\n"));
+            EstadoRede versao = estado.get();
+            ConsultasLote.Resumo resumo = ConsultasLote.executar(versao, args[1], args[2]);
+            System.out.println(resumo);
+            System.out.println(versao.getGrafo().getCacheRotas());
+            sucesso = true;
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        } finally {
+            if (diario != null) {
+                fecharDiario();
+            }
+        }
+        if (!sucesso) {
+            System.exit(1);
+        }
+    }
+    
+    // Modo servidor: carrega a rede (com recarga automática dos .txt) e atende
+    // até o processo ser encerrado
+    private static void executarServidor(String[] args) {
+        int porta = 8080;
+        try {
+            if (args.length > 2) {
+                throw new NumberFormatException();
+            }
+            if (args.length == 2) {
+                porta = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Uso: --servidor [porta]");
+            System.exit(2);
+        }
+        try {
+            System.out.println("Rede carregada " + carregarRede(true).replace("\n\n", "\n"));
+            ServidorConsultas servidor = new ServidorConsultas(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), estado::get,
+                    ServidorConsultas.LIMITE_SIMULTANEAS_PADRAO, ServidorConsultas.TEMPO_LIMITE_PADRAO_MS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                servidor.close();
+                pararMonitor();
+                fecharDiario();
+            }, "encerramento"));
+            System.out.println("Atendendo em http://localhost:" + servidor.getPorta() + "/ (Ctrl+C para encerrar)");
+        } catch (IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+            if (diario != null) {
+                fecharDiario();
+            }
+            System.exit(1);
+        }
+    }
+    
+    // Modo exportação: carrega a rede e grava o arquivo no formato pedido
+    private static void executarExportacao(String[] args) {
+        ExportadorGrafo.Formato formato = null;
+        if (args.length >= 3) {
+            try {
+                formato = ExportadorGrafo.Formato.valueOf(args[1].toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                // Formato desconhecido: mostra o uso
+            }
+        }
+        boolean vizinhanca = args.length == 6 && args[3].equals("vizinhanca");
+        boolean componente = args.length == 5 && args[3].equals("componente");
+        if (formato == null || !(args.length == 3 || vizinhanca || componente)) {
+            System.err.println("Uso: --exportar <dot|graphml|mermaid|csv> <arquivo> [vizinhanca <id> <paradas> | componente <id>]");
+            System.exit(2);
+        }
+        boolean sucesso = false;
+        try {
+            System.out.println("Rede carregada " + carregarRede(false).replace("\n\n", "\n"));
+            Grafo grafo = estado.get().getGrafo();
+            ExportadorGrafo.Recorte recorte;
+            if (vizinhanca) {
+                recorte = ExportadorGrafo.Recorte.vizinhanca(grafo, Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+            } else if (componente) {
+                recorte = ExportadorGrafo.Recorte.componente(grafo, Integer.parseInt(args[4]));
+            } else {
+                recorte = ExportadorGrafo.Recorte.redeInteira();
+            }
+            ExportadorGrafo.Resumo resumo = ExportadorGrafo.exportar(grafo, formato, recorte, args[2]);
+            System.out.println(formato.getNome() + " (" + recorte.getDescricao() + ") gravado em " + args[2] + ": " + resumo);
+            sucesso = true;
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Erro: " + e.getMessage());
+        } finally {
+            if (diario != null) {
+                fecharDiario();
+            }
+        }
+        if (!sucesso) {
+            System.exit(1);
+        }
+    }
+    
+    // Abre a cópia binária da rede; null se não existe, está desatualizada ou corrompida
+    private static SnapshotGrafo abrirSnapshot() {
+        try {
+            return SnapshotGrafo.abrir(ARQUIVO_SNAPSHOT, "estacoes.txt", "conexoes.txt");
+        } catch (IOException e) {
+            System.err.println("Ignorando " + ARQUIVO_SNAPSHOT + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Grava a cópia binária da rede recém-lida dos .txt (falhas não impedem o uso)
+    private static void salvarSnapshot(Grafo grafo, BST bst, Trie trie) {
+        try {
+            SnapshotGrafo.salvar(ARQUIVO_SNAPSHOT, grafo, bst, trie, "estacoes.txt", "conexoes.txt");
+        } catch (IOException e) {
+            System.err.println("Não foi possível gravar " + ARQUIVO_SNAPSHOT + ": " + e.getMessage());
+        }
+    }
+    
+    // Abre o diário e reaplica as alterações feitas em execuções anteriores
+    // (antes de a rede ser publicada); retorna quantas foram reaplicadas
+    private static int abrirDiario(Grafo grafo, BST bst, Trie trie) throws IOException {
+        int[] contagem = new int[1];
+        diario = DiarioAlteracoes.abrir(ARQUIVO_DIARIO, new DiarioAlteracoes.Aplicador() {
+            @Override
+            public void adicionarEstacao(Estacao estacao) {
+                // Mesmo ID de uma estação existente: renomeação vinda de uma recarga
+                Estacao anterior = grafo.getEstacaoPorId(estacao.getId());
+                if (anterior != null) {
+                    bst.remover(anterior);
+                    trie.remover(anterior);
+                }
+                grafo.adicionarEstacao(estacao);
+                bst.inserir(estacao);
+                trie.inserir(estacao);
+                contagem[0]++;
+            }
+
+            @Override
+            public void adicionarConexao(Conexao conexao) {
+                grafo.adicionarConexao(conexao);
+                contagem[0]++;
+            }
+
+            @Override
+            public void removerEstacao(int idEstacao) {
+                Estacao estacao = grafo.getEstacaoPorId(idEstacao);
+                if (estacao != null && grafo.removerEstacao(idEstacao)) {
+                    bst.remover(estacao);
+                    trie.remover(estacao);
+                }
+                contagem[0]++;
+            }
+
+            @Override
+            public void removerConexao(int idOrigem, int idDestino) {
+                grafo.removerConexao(idOrigem, idDestino);
+                contagem[0]++;
+            }
+        });
+        return contagem[0];
+    }
+    
+    private static void iniciarMonitor(DiferencaRede.Conteudo conteudoBase) {
+        try {
+            monitor = new MonitorArquivos("estacoes.txt", "conexoes.txt", conteudoBase, RedesTransporte::aplicarRecarga);
+            // A compactação do diário regrava os arquivos base: isso não é uma recarga
+            diario.setAoGravarBase((estacoes, conexoes) ->
+                    monitor.definirConteudo(DiferencaRede.Conteudo.de(estacoes, conexoes)));
+        } catch (IOException e) {
+            System.err.println("Recarga automática desativada: " + e.getMessage());
+        }
+    }
+    
+    private static void pararMonitor() {
+        if (monitor != null) {
+            try {
+                monitor.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao parar o monitor de arquivos: " + e.getMessage());
+            }
+        }
+    }
+    
+    // Aplica as mudanças dos arquivos detectadas pelo monitor (só o que mudou),
+    // na thread do monitor: a tela em uso continua com a versão que já tinha
+    // (as mudanças vão para o diário depois das alterações já registradas, para
+    // que a próxima carga as repita na mesma ordem em que foram feitas aqui)
+    private static void aplicarRecarga(DiferencaRede diferenca) {
+        try {
+            alterar(rascunho -> {
+                diferenca.aplicar(rascunho.getGrafo(), rascunho.getBst(), rascunho.getTrie());
+                return true;
+            }, () -> diferenca.anexarAoDiario(diario));
+            System.out.println("Arquivos da rede recarregados. " + diferenca);
+        } catch (IOException e) {
+            System.err.println("Recarga descartada: não pôde ser gravada em " + ARQUIVO_DIARIO + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Monta a próxima versão da rede a partir da atual e a publica, se a
+     * alteração foi feita; nesse caso, grava-a também no diário. O registro é
+     * anexado antes da publicação, sob a trava (na mesma ordem das versões),
+     * mas a espera pelo disco fica fora dela: alterações de outras threads
+     * entram no mesmo fsync (gravação em grupo).
+     *
+     * Se o registro não pode ser anexado (o diário parou depois de uma falha
+     * de gravação), o rascunho é descartado: nada é publicado sem estar no
+     * diário. Só uma falha no fsync, depois da publicação, deixa a alteração
+     * valendo sem registro; nesse caso o usuário é avisado.
+     * @param alteracao Altera o rascunho; false se não houve alteração
+     * @param registro Gravação no diário
+     * @return true se uma nova versão foi publicada
+     * @throws IOException se o registro não pôde ser anexado (nada foi publicado)
+     */
+    private static boolean alterar(Predicate<EstadoRede.Rascunho> alteracao, Alteracao registro)
+            throws IOException {
+        long sequencia; // 0: nada a confirmar no diário
+        synchronized (travaAlteracoes) {
+            EstadoRede.Rascunho rascunho = estado.get().editar();
+            if (!alteracao.test(rascunho)) {
+                return false;
+            }
+            sequencia = registro.anexar();
+            estado.set(rascunho.publicar());
+            if (sequencia > 0) {
+                compactarDiarioSeNecessario();
+            }
+        }
+        if (sequencia > 0) {
+            try {
+                diario.confirmar(sequencia);
+            } catch (IOException e) {
+                avisarFalhaDiario(e);
+            }
+        }
+        return true;
+    }
+    
+    private static void fecharDiario() {
+        try {
+            diario.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar " + ARQUIVO_DIARIO + ": " + e.getMessage());
+        }
+    }
+    
+    // Interface para anexar ao diário uma alteração já feita no grafo; retorna o
+    // número de sequência do último registro (ver DiarioAlteracoes.confirmar),
+    // ou 0 se não há o que gravar
+    private interface Alteracao {
+        long anexar() throws IOException;
+    }
+    
+    // Compacta o diário se ficou grande; chamado sob travaAlteracoes, já que a
+    // compactação copia a versão publicada
+    private static void compactarDiarioSeNecessario() {
+        if (diario.compactarSeNecessario(estado.get().getGrafo(), "estacoes.txt", "conexoes.txt")) {
+            System.out.println("Compactando " + ARQUIVO_DIARIO + " em segundo plano.");
+        }
+    }
+    
+    // Avisa que a alteração não foi gravada no diário e se perderia ao sair
+    // (chamado fora de travaAlteracoes: o diálogo não bloqueia outras alterações)
+    private static void avisarFalhaDiario(IOException e) {
+        JOptionPane.showMessageDialog(null,
+                "A alteração foi feita, mas não pôde ser gravada em " + ARQUIVO_DIARIO
+                        + " e será perdida ao sair.\n\nErro: " + e.getMessage(),
+                "Aviso", JOptionPane.WARNING_MESSAGE);
+    }
+    
+    // Avisa que a alteração foi descartada porque o diário não a aceitou (ver alterar)
+    private static void avisarAlteracaoDescartada(IOException e) {
+        JOptionPane.showMessageDialog(null,
+                "A alteração não foi feita: não pôde ser gravada em " + ARQUIVO_DIARIO
+                        + ".\n\nErro: " + e.getMessage(),
+                "Erro", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    // Reaproveita as tabelas ALT salvas, se ainda correspondem aos arquivos carregados
+    private static void carregarLandmarks(Grafo grafo) {
+        try {
+            if (grafo.carregarALT(ARQUIVO_LANDMARKS)) {
+                System.out.println("Landmarks ALT carregados de " + ARQUIVO_LANDMARKS);
+            }
+        } catch (IOException e) {
+            System.err.println("Não foi possível ler " + ARQUIVO_LANDMARKS + ": " + e.getMessage());
+        }
+    }
+    
+    // Idem para a tabela de todos os pares
+    private static void carregarTodosPares(Grafo grafo) {
+        try {
+            if (grafo.carregarTodosPares(ARQUIVO_TODOS_PARES)) {
+                System.out.println("Tabela de todos os pares carregada de " + ARQUIVO_TODOS_PARES);
+            }
+        } catch (IOException e) {
+            System.err.println("Não foi possível ler " + ARQUIVO_TODOS_PARES + ": " + e.getMessage());
+        }
+    }
+    
     // --- MÉTODO ATUALIZADO ---
     private static void menuRepresentacoes() {
         String[] opcoes = {
@@ -109,6 +499,7 @@ public class RedesTransporte {
             "Lista de Arestas",
             "Lista de Sucessores",
             "Gerar Código do Diagrama (Mermaid)", // --- ATUALIZADO ---
+            "Exportar Rede para Arquivo (DOT, GraphML, Mermaid, CSV)",
             "Voltar"
         };
         
@@ -119,33 +510,142 @@ public class RedesTransporte {
         
         if (escolha == null || escolha.equals("Voltar")) return;
         
-        String resultado = "";
+        Grafo grafo = estado.get().getGrafo();
+        RenderizadorTexto.Fonte fonte;
         String titulo = "Representação"; // Título padrão
 
+        // As representações são escritas sob demanda, uma página por vez
         switch (escolha) {
-            case "Matriz de Adjacência": resultado = grafo.getMatrizAdjacencia(); break;
-            case "Matriz de Incidência": resultado = grafo.getMatrizIncidencia(); break;
-            case "Lista de Arestas": resultado = grafo.getListaArestas(); break;
-            case "Lista de Sucessores": resultado = grafo.getListaSucessores(); break;
+            case "Matriz de Adjacência":
+                if (grafo.getNumEstacoes() > Grafo.LIMITE_MATRIZ_DENSA) {
+                    mostrarTextoGrande(matrizAdjacenciaEmJanela(grafo), titulo);
+                    return;
+                }
+                fonte = grafo::escreverMatrizAdjacencia;
+                break;
+            case "Matriz de Incidência":
+                mostrarTextoGrande(matrizIncidenciaEmJanela(grafo), titulo);
+                return;
+            case "Lista de Arestas": fonte = grafo::escreverListaArestas; break;
+            case "Lista de Sucessores": fonte = grafo::escreverListaSucessores; break;
             
             // --- ATUALIZADO ---
             case "Gerar Código do Diagrama (Mermaid)":
-                resultado = grafo.gerarCodigoMermaid();
+                fonte = grafo::escreverCodigoMermaid;
                 titulo = "Código Mermaid (para o Diagrama)"; // Título customizado
                 break;
+            case "Exportar Rede para Arquivo (DOT, GraphML, Mermaid, CSV)":
+                exportarRede(grafo);
+                return;
             default:
-                break;
+                return;
         }
         
-        mostrarTextoGrande(resultado, titulo);
+        mostrarPaginado(fonte, titulo);
+    }
+
+    // Exporta a rede inteira, a vizinhança ou o componente de uma estação para um arquivo
+    private static void exportarRede(Grafo grafo) {
+        ExportadorGrafo.Formato formato = (ExportadorGrafo.Formato) JOptionPane.showInputDialog(
+            null, "Escolha o formato:", "Exportar Rede",
+            JOptionPane.QUESTION_MESSAGE, null, ExportadorGrafo.Formato.values(), ExportadorGrafo.Formato.DOT
+        );
+        if (formato == null) return;
+
+        String[] recortes = {
+            "Rede Inteira",
+            "Vizinhança de uma Estação (até k paradas)",
+            "Componente Conexo de uma Estação"
+        };
+        String escolha = (String) JOptionPane.showInputDialog(
+            null, "A rede tem " + grafo.getNumEstacoes() + " estações e " + grafo.getNumConexoes()
+                + " conexões.\nO que exportar?", "Exportar Rede",
+            JOptionPane.QUESTION_MESSAGE, null, recortes, recortes[0]
+        );
+        if (escolha == null) return;
+
+        try {
+            ExportadorGrafo.Recorte recorte;
+            if (escolha.startsWith("Rede")) {
+                recorte = ExportadorGrafo.Recorte.redeInteira();
+            } else {
+                String idStr = JOptionPane.showInputDialog(null, "Digite o ID da estação:", "Exportar Rede", JOptionPane.QUESTION_MESSAGE);
+                if (idStr == null) return;
+                int id = Integer.parseInt(idStr.trim());
+                if (escolha.startsWith("Vizinhança")) {
+                    String paradasStr = JOptionPane.showInputDialog(null, "Número máximo de paradas (k):", "2");
+                    if (paradasStr == null) return;
+                    recorte = ExportadorGrafo.Recorte.vizinhanca(grafo, id, Integer.parseInt(paradasStr.trim()));
+                } else {
+                    recorte = ExportadorGrafo.Recorte.componente(grafo, id);
+                }
+            }
+
+            String nomeArquivo = JOptionPane.showInputDialog(null, "Nome do arquivo:", "rede" + formato.getExtensao());
+            if (nomeArquivo == null || nomeArquivo.trim().isEmpty()) return;
+            ExportadorGrafo.Resumo resumo = ExportadorGrafo.exportar(grafo, formato, recorte, nomeArquivo.trim());
+            JOptionPane.showMessageDialog(null,
+                formato.getNome() + " (" + recorte.getDescricao() + ") gravado em " + nomeArquivo.trim() + ".\n\n" + resumo,
+                "Exportar Rede", JOptionPane.INFORMATION_MESSAGE);
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(null, "Por favor, digite números válidos!", "Erro", JOptionPane.ERROR_MESSAGE);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Não foi possível gravar o arquivo: " + e.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Matriz de adjacência de grafos grandes: pergunta qual janela mostrar
+    private static String matrizAdjacenciaEmJanela(Grafo grafo) {
+        try {
+            String linhaStr = JOptionPane.showInputDialog(null,
+                    "O grafo tem " + grafo.getNumEstacoes() + " estações (acima de " + Grafo.LIMITE_MATRIZ_DENSA
+                    + " para a matriz inteira).\nA matriz será mostrada em uma janela de " + Grafo.JANELA_ADJACENCIA_LINHAS
+                    + " linhas x " + Grafo.JANELA_ADJACENCIA_COLUNAS + " colunas.\n\nLinha inicial (1 = primeira estação):",
+                    "1");
+            if (linhaStr == null) return "Exibição cancelada.";
+            String colunaStr = JOptionPane.showInputDialog(null, "Coluna inicial (1 = primeira estação):", "1");
+            if (colunaStr == null) return "Exibição cancelada.";
+            return grafo.getMatrizAdjacencia(Integer.parseInt(linhaStr.trim()) - 1, Grafo.JANELA_ADJACENCIA_LINHAS,
+                    Integer.parseInt(colunaStr.trim()) - 1, Grafo.JANELA_ADJACENCIA_COLUNAS);
+        } catch (NumberFormatException e) {
+            return "Valores inválidos.";
+        }
     }
     // --- FIM DA ATUALIZAÇÃO ---
+
+    // Em grafos grandes, pergunta qual janela (linha e coluna iniciais) da matriz mostrar
+    private static String matrizIncidenciaEmJanela(Grafo grafo) {
+        if (grafo.getNumEstacoes() <= Grafo.JANELA_INCIDENCIA_LINHAS
+                && grafo.getNumConexoes() <= Grafo.JANELA_INCIDENCIA_COLUNAS) {
+            return grafo.getMatrizIncidencia();
+        }
+        try {
+            String linhaStr = JOptionPane.showInputDialog(null,
+                    "O grafo tem " + grafo.getNumEstacoes() + " estações e " + grafo.getNumConexoes()
+                    + " conexões.\nA matriz será mostrada em uma janela de " + Grafo.JANELA_INCIDENCIA_LINHAS
+                    + " linhas x " + Grafo.JANELA_INCIDENCIA_COLUNAS + " colunas.\n\nLinha inicial (1 = primeira estação):",
+                    "1");
+            if (linhaStr == null) return "Exibição cancelada.";
+            String colunaStr = JOptionPane.showInputDialog(null, "Coluna inicial (1 = C01):", "1");
+            if (colunaStr == null) return "Exibição cancelada.";
+            return grafo.getMatrizIncidencia(Integer.parseInt(linhaStr.trim()) - 1, Grafo.JANELA_INCIDENCIA_LINHAS,
+                    Integer.parseInt(colunaStr.trim()) - 1, Grafo.JANELA_INCIDENCIA_COLUNAS);
+        } catch (NumberFormatException e) {
+            return "Valores inválidos.";
+        }
+    }
     
     private static void menuOperacoes() {
         String[] opcoes = {
             "Calcular Grau dos Vértices",
             "Caminho Mais Curto (BFS)",
             "Caminho Mais Curto (Dijkstra)",
+            "Paradas a partir de uma Estação (BFS completa)",
+            "Validar Modos de Busca (pares aleatórios)",
+            "Pré-processar Landmarks (ALT)",
+            "Pré-calcular Tabela de Todos os Pares",
             "Voltar"
         };
         
@@ -156,16 +656,34 @@ public class RedesTransporte {
         
         if (escolha == null || escolha.equals("Voltar")) return;
         
+        Grafo grafo = estado.get().getGrafo();
         if (escolha.startsWith("Calcular")) {
             mostrarTextoGrande(grafo.calcularGraus(), "Grau dos Vértices");
+        } else if (escolha.startsWith("Paradas")) {
+            calcularParadasDesde(grafo);
+        } else if (escolha.startsWith("Pré-processar")) {
+            preprocessarLandmarks(grafo);
+        } else if (escolha.startsWith("Pré-calcular")) {
+            precalcularTodosPares(grafo);
+        } else if (escolha.startsWith("Validar")) {
+            mostrarTextoGrande(ValidadorBuscas.validar(grafo, 1000, System.nanoTime()), "Validação dos Modos de Busca");
         } else if (escolha.contains("BFS")) {
-            calcularCaminho(false);
+            calcularCaminho(grafo, false);
         } else if (escolha.contains("Dijkstra")) {
-            calcularCaminho(true);
+            calcularCaminho(grafo, true);
         }
     }
     
-    private static void calcularCaminho(boolean usarDijkstra) {
+    private static void calcularCaminho(Grafo grafo, boolean usarDijkstra) {
+        ModoBusca modo = ModoBusca.DIJKSTRA;
+        if (usarDijkstra) {
+            modo = (ModoBusca) JOptionPane.showInputDialog(
+                null, "Escolha o algoritmo:", "Modo de Busca",
+                JOptionPane.QUESTION_MESSAGE, null, ModoBusca.values(), ModoBusca.DIJKSTRA
+            );
+            if (modo == null) return;
+        }
+        
         String origemStr = JOptionPane.showInputDialog(null, "Digite o ID da estação de origem:", "Origem", JOptionPane.QUESTION_MESSAGE);
         if (origemStr == null) return;
         String destinoStr = JOptionPane.showInputDialog(null, "Digite o ID da estação de destino:", "Destino", JOptionPane.QUESTION_MESSAGE);
@@ -174,14 +692,62 @@ public class RedesTransporte {
         try {
             int origem = Integer.parseInt(origemStr.trim());
             int destino = Integer.parseInt(destinoStr.trim());
-            String resultado = usarDijkstra ? grafo.dijkstra(origem, destino) : grafo.bfs(origem, destino);
-            String titulo = usarDijkstra ? "Dijkstra (com pesos)" : "BFS (sem pesos)";
+            String resultado = usarDijkstra ? grafo.dijkstra(origem, destino, modo) : grafo.bfs(origem, destino);
+            String titulo = usarDijkstra ? modo.getNome() + " (com pesos)" : "BFS (sem pesos)";
             mostrarTextoGrande(resultado, titulo);
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(null, "Por favor, digite IDs válidos!", "Erro", JOptionPane.ERROR_MESSAGE);
         }
     }
     
+    private static void preprocessarLandmarks(Grafo grafo) {
+        long inicio = System.nanoTime();
+        grafo.prepararALT(LandmarksALT.K_PADRAO, LandmarksALT.Selecao.EVITAR);
+        long tempoMs = (System.nanoTime() - inicio) / 1_000_000;
+        try {
+            grafo.salvarALT(ARQUIVO_LANDMARKS);
+            JOptionPane.showMessageDialog(null,
+                "Landmarks calculados em " + tempoMs + " ms e salvos em " + ARQUIVO_LANDMARKS + ".",
+                "Landmarks (ALT)", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Landmarks calculados, mas não foi possível salvar: " + e.getMessage(),
+                "Landmarks (ALT)", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+    
+    private static void precalcularTodosPares(Grafo grafo) {
+        long inicio = System.nanoTime();
+        if (!grafo.prepararTodosPares()) {
+            JOptionPane.showMessageDialog(null,
+                "A rede tem " + grafo.getNumEstacoes() + " estações; a tabela de todos os pares só é montada até "
+                    + TabelaTodosPares.LIMITE_VERTICES + ".",
+                "Tabela de Todos os Pares", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        long tempoMs = (System.nanoTime() - inicio) / 1_000_000;
+        try {
+            grafo.salvarTodosPares(ARQUIVO_TODOS_PARES);
+            JOptionPane.showMessageDialog(null,
+                "Tabela calculada em " + tempoMs + " ms e salva em " + ARQUIVO_TODOS_PARES + ".",
+                "Tabela de Todos os Pares", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Tabela calculada, mas não foi possível salvar: " + e.getMessage(),
+                "Tabela de Todos os Pares", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+    
+    private static void calcularParadasDesde(Grafo grafo) {
+        String origemStr = JOptionPane.showInputDialog(null, "Digite o ID da estação de origem:", "Origem", JOptionPane.QUESTION_MESSAGE);
+        if (origemStr == null) return;
+
+        try {
+            int origem = Integer.parseInt(origemStr.trim());
+            mostrarTextoGrande(grafo.calcularParadasDesde(origem), "Paradas a partir da Origem (BFS)");
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(null, "Por favor, digite um ID válido!", "Erro", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
     private static void menuBuscas() {
         String[] opcoes = {
             "Buscar por Nome Completo (BST)",
@@ -197,6 +763,9 @@ public class RedesTransporte {
         
         if (escolha == null || escolha.equals("Voltar")) return;
         
+        EstadoRede atual = estado.get();
+        BST bst = atual.getBst();
+        Trie trie = atual.getTrie();
         if (escolha.contains("Nome Completo")) {
             String nome = JOptionPane.showInputDialog(null, "Digite o nome da estação:", "Busca BST", JOptionPane.QUESTION_MESSAGE);
             if (nome != null && !nome.trim().isEmpty()) {
@@ -219,7 +788,7 @@ public class RedesTransporte {
         }
     }
     
-    // --- MÉTODOS CRUD (sem alterações) ---
+    // --- MÉTODOS CRUD ---
 
     private static void menuGerenciamento() {
         String[] opcoes = {
@@ -248,7 +817,7 @@ public class RedesTransporte {
     private static void crudAdicionarEstacao() {
         try {
             // 1. Pega o maior ID em uso e soma 1
-            int id = grafo.getMaiorIdEstacao() + 1;
+            int id = estado.get().getGrafo().getMaiorIdEstacao() + 1;
 
             // 2. Pede apenas o nome ao usuário, informando qual será o ID
             String nome = JOptionPane.showInputDialog(null, 
@@ -260,19 +829,37 @@ public class RedesTransporte {
                 JOptionPane.showMessageDialog(null, "Adição cancelada.", "Cancelado", JOptionPane.INFORMATION_MESSAGE);
                 return;
             }
+            if (nome.contains(";")) {
+                // ';' separa os campos em estacoes.txt
+                JOptionPane.showMessageDialog(null, "O nome não pode conter ';'.", "Erro", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             
             // 3. Cria a nova estação
             Estacao novaEstacao = new Estacao(id, nome.trim());
-            grafo.adicionarEstacao(novaEstacao);
             
-            // 4. Ressincroniza todas as estruturas
-            resincronizarEstruturas();
+            // 4. O grafo se atualiza sozinho; BST e Trie só recebem a nova estação
+            boolean adicionou = alterar(rascunho -> {
+                if (rascunho.getBase().getGrafo().getEstacaoPorId(id) != null) {
+                    return false; // O ID foi usado por outra alteração enquanto o nome era digitado
+                }
+                rascunho.getGrafo().adicionarEstacao(novaEstacao);
+                rascunho.getBst().inserir(novaEstacao);
+                rascunho.getTrie().inserir(novaEstacao);
+                return true;
+            }, () -> diario.anexarAdicaoEstacao(novaEstacao));
+            if (!adicionou) {
+                JOptionPane.showMessageDialog(null, "O ID " + id + " passou a ser usado. Tente novamente.", "Erro", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             
             JOptionPane.showMessageDialog(null, 
                 "Estação adicionada com sucesso!\n\n" + novaEstacao.toString(), 
                 "Sucesso", 
                 JOptionPane.INFORMATION_MESSAGE);
 
+        } catch (IOException e) {
+            avisarAlteracaoDescartada(e);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, "Ocorreu um erro: " + e.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
         }
@@ -292,23 +879,27 @@ public class RedesTransporte {
             if (pesoStr == null) return;
             int peso = Integer.parseInt(pesoStr.trim());
             
-            // Verifica se as estações existem
-            if (grafo.getEstacaoPorId(idOrigem) == null || grafo.getEstacaoPorId(idDestino) == null) {
+            // Adiciona a conexão, se as estações existem (o grafo atualiza a adjacência em O(grau))
+            Conexao conexao = new Conexao(idOrigem, idDestino, peso);
+            boolean adicionou = alterar(rascunho -> {
+                Grafo atual = rascunho.getBase().getGrafo();
+                if (atual.getEstacaoPorId(idOrigem) == null || atual.getEstacaoPorId(idDestino) == null) {
+                    return false;
+                }
+                rascunho.getGrafo().adicionarConexao(conexao);
+                return true;
+            }, () -> diario.anexarAdicaoConexao(conexao));
+            if (!adicionou) {
                  JOptionPane.showMessageDialog(null, "Erro: ID de origem ou destino não existe.", "Erro", JOptionPane.ERROR_MESSAGE);
                  return;
             }
-
-            // Adiciona a conexão
-            grafo.adicionarConexao(new Conexao(idOrigem, idDestino, peso));
-            
-            // Ressincroniza (só as matrizes, bst/trie não mudam)
-            grafo.gerarMatrizAdjacencia();
-            grafo.gerarMatrizIncidencia();
             
             JOptionPane.showMessageDialog(null, "Conexão adicionada com sucesso!", "Sucesso", JOptionPane.INFORMATION_MESSAGE);
 
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(null, "Valores inválidos.", "Erro", JOptionPane.ERROR_MESSAGE);
+        } catch (IOException e) {
+            avisarAlteracaoDescartada(e);
         }
     }
     
@@ -318,10 +909,17 @@ public class RedesTransporte {
             if (idStr == null) return;
             int id = Integer.parseInt(idStr.trim());
             
-            // Tenta remover
-            if (grafo.removerEstacao(id)) {
-                // Se removeu, precisa ressincronizar TUDO
-                resincronizarEstruturas();
+            // Tenta remover (da BST e da Trie sai só a estação removida)
+            boolean removeu = alterar(rascunho -> {
+                Estacao estacao = rascunho.getBase().getGrafo().getEstacaoPorId(id);
+                if (estacao == null || !rascunho.getGrafo().removerEstacao(id)) {
+                    return false;
+                }
+                rascunho.getBst().remover(estacao);
+                rascunho.getTrie().remover(estacao);
+                return true;
+            }, () -> diario.anexarRemocaoEstacao(id));
+            if (removeu) {
                 JOptionPane.showMessageDialog(null, "Estação e suas conexões removidas com sucesso!", "Sucesso", JOptionPane.INFORMATION_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(null, "Erro: Estação com ID " + id + " não encontrada.", "Erro", JOptionPane.ERROR_MESSAGE);
@@ -329,6 +927,8 @@ public class RedesTransporte {
 
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(null, "ID inválido.", "Erro", JOptionPane.ERROR_MESSAGE);
+        } catch (IOException e) {
+            avisarAlteracaoDescartada(e);
         }
     }
     
@@ -342,11 +942,12 @@ public class RedesTransporte {
             if (destinoStr == null) return;
             int idDestino = Integer.parseInt(destinoStr.trim());
             
-            // Tenta remover
-            if (grafo.removerConexao(idOrigem, idDestino)) {
-                // Se removeu, só precisa refazer as matrizes
-                grafo.gerarMatrizAdjacencia();
-                grafo.gerarMatrizIncidencia();
+            // Tenta remover (o grafo atualiza a adjacência; bst/trie não mudam)
+            boolean removeu = alterar(rascunho ->
+                    rascunho.getBase().getGrafo().existeConexao(idOrigem, idDestino)
+                            && rascunho.getGrafo().removerConexao(idOrigem, idDestino),
+                    () -> diario.anexarRemocaoConexao(idOrigem, idDestino));
+            if (removeu) {
                 JOptionPane.showMessageDialog(null, "Conexão removida com sucesso!", "Sucesso", JOptionPane.INFORMATION_MESSAGE);
             } else {
                  JOptionPane.showMessageDialog(null, "Erro: Conexão não encontrada.", "Erro", JOptionPane.ERROR_MESSAGE);
@@ -354,46 +955,72 @@ public class RedesTransporte {
 
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(null, "Valores inválidos.", "Erro", JOptionPane.ERROR_MESSAGE);
+        } catch (IOException e) {
+            avisarAlteracaoDescartada(e);
         }
     }
     
-    /**
-     * Método central para recriar todas as estruturas após uma mudança
-     * (principalmente remoção/adição de estação).
-     */
-    private static void resincronizarEstruturas() {
-        // 1. Recria as matrizes no Grafo
-        grafo.gerarMatrizAdjacencia();
-        grafo.gerarMatrizIncidencia();
-
-        // 2. Recria a BST e a Trie do zero
-        bst = new BST();
-        trie = new Trie();
-        
-        // 3. Repopula a BST e a Trie com os dados atualizados do Grafo
-        for (Estacao e : grafo.getTodasEstacoes()) {
-            bst.inserir(e);
-            trie.inserir(e);
-        }
-        System.out.println("Estruturas ressincronizadas.");
-    }
-
     // --- FIM DOS MÉTODOS CRUD ---
 
     
     private static void mostrarTextoGrande(String texto, String titulo) {
+        JOptionPane.showMessageDialog(
+            null,
+            painelTexto(texto),
+            titulo,
+            JOptionPane.INFORMATION_MESSAGE
+        );
+    }
+    
+    private static JScrollPane painelTexto(String texto) {
         JTextArea textArea = new JTextArea(texto);
         textArea.setEditable(false);
         textArea.setFont(new java.awt.Font("Monospaced", java.awt.Font.PLAIN, 12));
         
         JScrollPane scrollPane = new JScrollPane(textArea);
         scrollPane.setPreferredSize(new java.awt.Dimension(600, 400));
-        
-        JOptionPane.showMessageDialog(
-            null,
-            scrollPane,
-            titulo,
-            JOptionPane.INFORMATION_MESSAGE
-        );
+        return scrollPane;
+    }
+    
+    // Mostra a representação em páginas de LINHAS_POR_PAGINA linhas (só a
+    // página atual é montada), com a opção de gravá-la inteira em um arquivo
+    private static void mostrarPaginado(RenderizadorTexto.Fonte fonte, String titulo) {
+        int primeira = 0;
+        while (true) {
+            RenderizadorTexto.Pagina pagina = RenderizadorTexto.pagina(fonte, primeira, LINHAS_POR_PAGINA);
+            if (primeira == 0 && !pagina.temMais()) {
+                mostrarTextoGrande(pagina.getTexto(), titulo); // Cabe em uma página
+                return;
+            }
+            List<String> opcoes = new ArrayList<>();
+            if (pagina.temMais()) opcoes.add("Próxima Página");
+            if (primeira > 0) opcoes.add("Página Anterior");
+            opcoes.add("Salvar em Arquivo");
+            opcoes.add("Fechar");
+            int escolha = JOptionPane.showOptionDialog(null, painelTexto(pagina.getTexto()),
+                    titulo + " (linhas " + (primeira + 1) + " a " + (primeira + pagina.getNumLinhas()) + ")",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null,
+                    opcoes.toArray(), opcoes.get(0));
+            String opcao = escolha >= 0 ? opcoes.get(escolha) : "Fechar";
+            switch (opcao) {
+                case "Próxima Página": primeira += LINHAS_POR_PAGINA; break;
+                case "Página Anterior": primeira = Math.max(0, primeira - LINHAS_POR_PAGINA); break;
+                case "Salvar em Arquivo": salvarRepresentacao(fonte); break;
+                default: return;
+            }
+        }
+    }
+    
+    private static void salvarRepresentacao(RenderizadorTexto.Fonte fonte) {
+        String nomeArquivo = JOptionPane.showInputDialog(null, "Nome do arquivo:", "representacao.txt");
+        if (nomeArquivo == null || nomeArquivo.isBlank()) return;
+        try {
+            RenderizadorTexto.paraArquivo(fonte, nomeArquivo.trim());
+            JOptionPane.showMessageDialog(null, "Representação salva em " + nomeArquivo.trim() + ".",
+                    "Salvar", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Não foi possível salvar: " + e.getMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+        }
     }
 }
\ No newline at end of file
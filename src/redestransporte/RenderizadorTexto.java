@@ -0,0 +1,272 @@
+package redestransporte;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Apoio às representações em texto do grafo (matrizes e listas), que são
+ * escritas direto em um {@link Writer} em vez de montadas em uma String:
+ * a mesma representação pode ir para a tela ({@link #paraTexto}), para um
+ * arquivo ({@link #paraArquivo}) ou ser lida uma página por vez
+ * ({@link #pagina}) sem nunca ficar inteira na memória.
+ *
+ * As células das matrizes são escritas por um {@link Celulas}, que
+ * produz o mesmo texto de String.format("%-Nd") sem formatar nada no laço.
+ */
+public final class RenderizadorTexto {
+
+    /**
+     * Uma representação que sabe se escrever.
+     */
+    @FunctionalInterface
+    public interface Fonte {
+        void escrever(Writer saida) throws IOException;
+    }
+
+    private RenderizadorTexto() {
+    }
+
+    /**
+     * Monta a representação inteira em uma String (para textos pequenos).
+     */
+    public static String paraTexto(Fonte fonte) {
+        StringWriter saida = new StringWriter();
+        try {
+            fonte.escrever(saida);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter não lança IOException
+        }
+        return saida.toString();
+    }
+
+    /**
+     * Grava a representação em um arquivo UTF-8 (sobrescrito), sem montá-la na memória.
+     */
+    public static void paraArquivo(Fonte fonte, String nomeArquivo) throws IOException {
+        try (BufferedWriter saida = Files.newBufferedWriter(Paths.get(nomeArquivo), StandardCharsets.UTF_8)) {
+            fonte.escrever(saida);
+        }
+    }
+
+    /**
+     * Uma página de linhas da representação.
+     */
+    public static final class Pagina {
+        private final String texto;
+        private final int primeiraLinha;
+        private final int numLinhas;
+        private final boolean temMais;
+
+        private Pagina(String texto, int primeiraLinha, int numLinhas, boolean temMais) {
+            this.texto = texto;
+            this.primeiraLinha = primeiraLinha;
+            this.numLinhas = numLinhas;
+            this.temMais = temMais;
+        }
+
+        public String getTexto() {
+            return texto;
+        }
+
+        /** Número (a partir de 0) da primeira linha da página. */
+        public int getPrimeiraLinha() {
+            return primeiraLinha;
+        }
+
+        /** Linhas na página (menos que o pedido na última página). */
+        public int getNumLinhas() {
+            return numLinhas;
+        }
+
+        /** Indica se há linhas depois desta página. */
+        public boolean temMais() {
+            return temMais;
+        }
+    }
+
+    /**
+     * Escreve a representação guardando só as linhas da página pedida. A
+     * escrita é interrompida logo depois da página, então o custo é
+     * proporcional ao texto até o fim da página, e a memória, ao da página.
+     * @param primeiraLinha Primeira linha (a partir de 0)
+     * @param numLinhas Quantidade de linhas da página
+     */
+    public static Pagina pagina(Fonte fonte, int primeiraLinha, int numLinhas) {
+        ColetorPagina coletor = new ColetorPagina(primeiraLinha, primeiraLinha + numLinhas);
+        try {
+            fonte.escrever(coletor);
+        } catch (PaginaCompleta e) {
+            // Passou do fim da página: o resto não precisa ser escrito
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder texto = coletor.pagina;
+        int linhas = coletor.linhasColetadas;
+        if (texto.length() > 0 && texto.charAt(texto.length() - 1) != '\n') {
+            linhas++; // Última linha do texto, sem quebra no fim
+        }
+        return new Pagina(texto.toString(), primeiraLinha, linhas, coletor.passouDoFim);
+    }
+
+    // Sinaliza que a página já foi coletada (interrompe a escrita)
+    private static final class PaginaCompleta extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this; // Só interrompe a escrita: a pilha não interessa
+        }
+    }
+
+    // Writer que descarta tudo fora das linhas [inicio, fim)
+    private static final class ColetorPagina extends Writer {
+        private final int inicio;
+        private final int fim;
+        private final StringBuilder pagina = new StringBuilder();
+        private int linha; // Linha atual (quebras de linha já vistas)
+        private int linhasColetadas;
+        private boolean passouDoFim;
+
+        ColetorPagina(int inicio, int fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                escreverCaractere(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                escreverCaractere(str.charAt(i));
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            escreverCaractere((char) c);
+        }
+
+        private void escreverCaractere(char c) throws PaginaCompleta {
+            if (linha >= fim) {
+                passouDoFim = true; // Há pelo menos um caractere depois da página
+                throw new PaginaCompleta();
+            }
+            if (linha >= inicio) {
+                pagina.append(c);
+                if (c == '\n') {
+                    linhasColetadas++;
+                }
+            }
+            if (c == '\n') {
+                linha++;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // --- CÉLULAS DE LARGURA FIXA ---
+
+    /**
+     * Escreve inteiros alinhados à esquerda e completados com espaços até
+     * uma largura mínima (o mesmo que "%-Nd"), seguidos de um sufixo fixo.
+     * O texto dos valores pequenos (os pesos e os 0 e ±1 das matrizes) é
+     * montado uma vez só, na criação.
+     */
+    public static final class Celulas {
+        private static final int MENOR_PRONTO = -1;
+        private static final int MAIOR_PRONTO = 1023;
+
+        private final int largura;
+        private final String sufixo;
+        private final char[][] prontas; // prontas[v - MENOR_PRONTO] = célula de v
+        private final char[] rascunho;  // Para os valores fora da faixa pronta
+
+        /**
+         * @param largura Largura mínima do número (N em "%-Nd")
+         * @param sufixo Texto depois de cada célula
+         */
+        public Celulas(int largura, String sufixo) {
+            this.largura = largura;
+            this.sufixo = sufixo;
+            this.rascunho = new char[Math.max(largura, 11) + sufixo.length()];
+            this.prontas = new char[MAIOR_PRONTO - MENOR_PRONTO + 1][];
+            for (int v = MENOR_PRONTO; v <= MAIOR_PRONTO; v++) {
+                int tamanho = montar(v, rascunho);
+                prontas[v - MENOR_PRONTO] = Arrays.copyOf(rascunho, tamanho);
+            }
+        }
+
+        /**
+         * Escreve a célula do valor.
+         */
+        public void escrever(Writer saida, int valor) throws IOException {
+            if (valor >= MENOR_PRONTO && valor <= MAIOR_PRONTO) {
+                char[] celula = prontas[valor - MENOR_PRONTO];
+                saida.write(celula, 0, celula.length);
+            } else {
+                saida.write(rascunho, 0, montar(valor, rascunho));
+            }
+        }
+
+        // Escreve a célula em destino e retorna o tamanho
+        private int montar(int valor, char[] destino) {
+            int tamanho = escreverDigitos(valor, destino);
+            while (tamanho < largura) {
+                destino[tamanho++] = ' ';
+            }
+            sufixo.getChars(0, sufixo.length(), destino, tamanho);
+            return tamanho + sufixo.length();
+        }
+
+        // Dígitos do valor (com sinal) no início de destino; retorna quantos
+        private static int escreverDigitos(int valor, char[] destino) {
+            long v = valor; // long: -Integer.MIN_VALUE não cabe em int
+            int tamanho = 0;
+            if (v < 0) {
+                destino[tamanho++] = '-';
+                v = -v;
+            }
+            int inicio = tamanho;
+            do {
+                destino[tamanho++] = (char) ('0' + v % 10);
+                v /= 10;
+            } while (v > 0);
+            // Os dígitos saíram do menos para o mais significativo
+            for (int i = inicio, j = tamanho - 1; i < j; i++, j--) {
+                char t = destino[i];
+                destino[i] = destino[j];
+                destino[j] = t;
+            }
+            return tamanho;
+        }
+    }
+
+    /**
+     * Escreve o inteiro com pelo menos dois dígitos, completando com zero à
+     * esquerda (o mesmo que "%02d" para valores não negativos).
+     */
+    public static void escreverDoisDigitos(Writer saida, int valor) throws IOException {
+        if (valor >= 0 && valor < 10) {
+            saida.write('0');
+        }
+        saida.write(Integer.toString(valor));
+    }
+}
@@ -0,0 +1,160 @@
+package redestransporte;
+
+/**
+ * Resultado de uma busca de caminho: os índices das estações, o custo total
+ * e o número de paradas, sem nenhum texto. O texto mostrado nas janelas só
+ * é montado quando pedido ({@link #formatar()}), então o lote e o serviço
+ * HTTP fazem a busca sem formatação alguma.
+ *
+ * Guarda uma referência ao grafo para traduzir índices em IDs e nomes: o
+ * grafo não deve ser alterado enquanto o resultado estiver em uso (o que
+ * vale para os grafos de versões publicadas, ver {@link EstadoRede}).
+ */
+public final class ResultadoCaminho {
+
+    private final Grafo grafo;
+    private final ModoBusca modo; // null: caminho por paradas (BFS)
+    private final int idxOrigem;
+    private final int idxDestino;
+    private final int[] indices;  // null se inalcançável; pode ser compartilhado com o cache, não alterar
+    private final long custo;
+
+    ResultadoCaminho(Grafo grafo, ModoBusca modo, int idxOrigem, int idxDestino, int[] indices) {
+        this.grafo = grafo;
+        this.modo = modo;
+        this.idxOrigem = idxOrigem;
+        this.idxDestino = idxDestino;
+        this.indices = indices;
+        long soma = -1;
+        if (indices != null) {
+            AdjacenciaCSR adjacencia = grafo.getAdjacencia();
+            soma = 0;
+            for (int i = 0; i + 1 < indices.length; i++) {
+                soma += adjacencia.pesoEntre(indices[i], indices[i + 1]);
+            }
+        }
+        this.custo = soma;
+    }
+
+    /**
+     * Indica se existe caminho entre a origem e o destino.
+     */
+    public boolean isAlcancavel() {
+        return indices != null;
+    }
+
+    /**
+     * Algoritmo usado, ou null para o caminho por paradas (BFS).
+     */
+    public ModoBusca getModo() {
+        return modo;
+    }
+
+    public int getIdOrigem() {
+        return grafo.idDe(idxOrigem);
+    }
+
+    public int getIdDestino() {
+        return grafo.idDe(idxDestino);
+    }
+
+    /**
+     * Soma dos pesos das conexões do caminho (também para o caminho por
+     * paradas), ou -1 se inalcançável.
+     */
+    public long getCusto() {
+        return custo;
+    }
+
+    /**
+     * Número de paradas (conexões percorridas), ou -1 se inalcançável.
+     */
+    public int getParadas() {
+        return indices != null ? indices.length - 1 : -1;
+    }
+
+    /**
+     * Número de estações do caminho, origem e destino incluídos (0 se inalcançável).
+     */
+    public int getNumEstacoes() {
+        return indices != null ? indices.length : 0;
+    }
+
+    /**
+     * Índice interno da i-ésima estação do caminho.
+     */
+    public int getIndice(int i) {
+        return indices[i];
+    }
+
+    /**
+     * ID da i-ésima estação do caminho.
+     */
+    public int getIdEstacao(int i) {
+        return grafo.idDe(indices[i]);
+    }
+
+    /**
+     * A i-ésima estação do caminho.
+     */
+    public Estacao getEstacao(int i) {
+        return grafo.getEstacaoPorId(grafo.idDe(indices[i]));
+    }
+
+    /**
+     * IDs das estações do caminho, em ordem (array novo; vazio se inalcançável).
+     */
+    public int[] getIds() {
+        int[] ids = new int[getNumEstacoes()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = grafo.idDe(indices[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Texto do caminho como mostrado nas janelas: cada estação com o peso
+     * da conexão seguinte (no caminho por peso) e o resumo.
+     */
+    public String formatar() {
+        // Verifica se o destino é alcançável
+        if (indices == null) {
+            return "Caminho não encontrado da estação " + nome(idxOrigem) + " para " + nome(idxDestino) + ".";
+        }
+
+        boolean usarPeso = modo != null;
+        StringBuilder sb = new StringBuilder();
+        sb.append(usarPeso ? "Caminho por Distância (" + modo.getNome() + ")" : "Caminho por Paradas (BFS)");
+        sb.append("\n\n");
+
+        AdjacenciaCSR adjacencia = grafo.getAdjacencia();
+        for (int i = 0; i < indices.length; i++) {
+            int idx = indices[i];
+            sb.append(String.format("[%d] %s", grafo.idDe(idx), nome(idx)));
+
+            if (i < indices.length - 1) {
+                if (usarPeso) {
+                    sb.append(String.format(" --(Peso: %d)-->\n", adjacencia.pesoEntre(idx, indices[i + 1])));
+                } else {
+                    sb.append(" -->\n");
+                }
+            }
+        }
+
+        sb.append("\n\n--- RESUMO ---\n");
+        if (usarPeso) {
+            sb.append("Custo Total (Distância): " + custo + "\n");
+        }
+        sb.append("Número de Paradas: " + getParadas() + "\n");
+        return sb.toString();
+    }
+
+    private String nome(int idx) {
+        return grafo.getEstacaoPorId(grafo.idDe(idx)).getNome();
+    }
+
+    @Override
+    public String toString() {
+        return formatar();
+    }
+}
@@ -0,0 +1,406 @@
+package redestransporte;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serviço HTTP de consultas (com.sun.net.httpserver), com respostas em JSON.
+ * Só aceita GET:
+ *   /dijkstra?origem=1&destino=2[&modo=ALT]   caminho mais curto por peso ({@link ModoBusca})
+ *   /bfs?origem=1&destino=2                   caminho com menos paradas
+ *   /prefixo?texto=Est[&limite=100]           estações cujo nome começa com o texto (Trie)
+ *   /estacao?nome=Estação Central             estação com o nome exato (BST)
+ *   /grau?id=1                                grau da estação
+ *   /cache                                    estatísticas do cache de rotas da versão atual
+ *
+ * Cada requisição é atendida por uma thread virtual, que só espera: a
+ * consulta em si roda em um grupo fixo de threads de plataforma, que
+ * reaproveitam os espaços de busca por thread ({@link EspacoBusca}). No
+ * máximo "limiteSimultaneas" consultas ficam em andamento (executando ou
+ * na fila); além disso o serviço responde 503 com Retry-After, em vez de
+ * acumular trabalho. Uma consulta que passa do tempo limite recebe 504.
+ *
+ * Toda consulta usa a versão da rede publicada no momento em que começou
+ * (ver {@link EstadoRede}); a resposta informa qual foi.
+ */
+public class ServidorConsultas implements Closeable {
+
+    /** Tempo limite padrão de uma consulta, em milissegundos. */
+    public static final long TEMPO_LIMITE_PADRAO_MS = 5000;
+
+    /** Máximo padrão de consultas em andamento: 4 por processador. */
+    public static final int LIMITE_SIMULTANEAS_PADRAO = 4 * Runtime.getRuntime().availableProcessors();
+
+    // Quanto uma requisição espera por uma vaga antes de ser recusada
+    private static final long ESPERA_VAGA_MS = 50;
+    // Quantidade padrão (e máxima) de estações na resposta do /prefixo
+    private static final int LIMITE_PREFIXO_PADRAO = 100;
+    private static final int LIMITE_PREFIXO_MAXIMO = 10_000;
+
+    private final HttpServer servidor;
+    private final Supplier<EstadoRede> estado;
+    private final Semaphore vagas;
+    private final long tempoLimiteMs;
+    private final ExecutorService atendimento = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService consultas;
+
+    // Erro com status HTTP, convertido em resposta {"erro": ...}
+    private static class ErroConsulta extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        ErroConsulta(int status, String mensagem) {
+            super(mensagem);
+            this.status = status;
+        }
+    }
+
+    // Consulta executada no grupo de threads de plataforma; retorna o JSON da resposta
+    private interface Consulta {
+        String executar(EstadoRede estado, Map<String, String> parametros) throws ErroConsulta;
+    }
+
+    /**
+     * Cria o serviço e começa a atender.
+     * @param endereco Endereço e porta (porta 0 escolhe uma livre, ver {@link #getPorta()})
+     * @param estado Fornece a versão atual da rede
+     * @param limiteSimultaneas Máximo de consultas em andamento
+     * @param tempoLimiteMs Tempo limite de cada consulta
+     */
+    public ServidorConsultas(InetSocketAddress endereco, Supplier<EstadoRede> estado,
+                             int limiteSimultaneas, long tempoLimiteMs) throws IOException {
+        this.estado = estado;
+        this.vagas = new Semaphore(limiteSimultaneas);
+        this.tempoLimiteMs = tempoLimiteMs;
+        int numThreads = Math.min(limiteSimultaneas, Runtime.getRuntime().availableProcessors());
+        AtomicInteger contador = new AtomicInteger();
+        this.consultas = Executors.newFixedThreadPool(numThreads, tarefa -> {
+            Thread thread = new Thread(tarefa, "consultas-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.servidor = HttpServer.create(endereco, 0);
+        registrar("/dijkstra", ServidorConsultas::dijkstra);
+        registrar("/bfs", ServidorConsultas::bfs);
+        registrar("/prefixo", ServidorConsultas::prefixo);
+        registrar("/estacao", ServidorConsultas::estacao);
+        registrar("/grau", ServidorConsultas::grau);
+        registrar("/cache", ServidorConsultas::cache);
+        servidor.createContext("/", troca -> {
+            try {
+                responder(troca, 404, erro("Recurso não encontrado: " + troca.getRequestURI().getPath()));
+            } finally {
+                troca.close();
+            }
+        });
+        servidor.setExecutor(atendimento);
+        servidor.start();
+    }
+
+    /**
+     * Porta em que o serviço está atendendo.
+     */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Para de aceitar requisições e espera até 1 s pelas que estão em andamento.
+     */
+    @Override
+    public void close() {
+        servidor.stop(1);
+        atendimento.shutdown();
+        consultas.shutdownNow();
+    }
+
+    private void registrar(String caminho, Consulta consulta) {
+        servidor.createContext(caminho, troca -> atender(troca, consulta));
+    }
+
+    // --- ATENDIMENTO ---
+
+    private void atender(HttpExchange troca, Consulta consulta) throws IOException {
+        try {
+            if (!troca.getRequestMethod().equals("GET")) {
+                troca.getResponseHeaders().set("Allow", "GET");
+                responder(troca, 405, erro("Método não permitido: " + troca.getRequestMethod()));
+                return;
+            }
+            if (!troca.getRequestURI().getPath().equals(troca.getHttpContext().getPath())) {
+                responder(troca, 404, erro("Recurso não encontrado: " + troca.getRequestURI().getPath()));
+                return;
+            }
+            Map<String, String> parametros = lerParametros(troca.getRequestURI().getRawQuery());
+            responder(troca, 200, executar(consulta, parametros));
+        } catch (ErroConsulta e) {
+            if (e.status == 503) {
+                troca.getResponseHeaders().set("Retry-After", "1");
+            }
+            responder(troca, e.status, erro(e.getMessage()));
+        } finally {
+            troca.close();
+        }
+    }
+
+    // Executa a consulta no grupo de threads, respeitando o limite de vagas e o tempo limite
+    private String executar(Consulta consulta, Map<String, String> parametros) throws ErroConsulta {
+        boolean conseguiuVaga;
+        try {
+            conseguiuVaga = vagas.tryAcquire(ESPERA_VAGA_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ErroConsulta(503, "Serviço encerrando");
+        }
+        if (!conseguiuVaga) {
+            throw new ErroConsulta(503, "Serviço ocupado, tente novamente");
+        }
+        EstadoRede atual = estado.get();
+        // Quem marcar primeiro fica com a vaga: a consulta, ao começar, ou a
+        // requisição, se desistiu (tempo limite) antes de a consulta começar
+        AtomicBoolean iniciada = new AtomicBoolean();
+        Future<String> resultado;
+        try {
+            // A vaga só é liberada quando a consulta termina de fato (mesmo depois de um 504)
+            resultado = consultas.submit((Callable<String>) () -> {
+                if (!iniciada.compareAndSet(false, true)) {
+                    return null; // Ninguém espera mais por esta consulta
+                }
+                try {
+                    return consulta.executar(atual, parametros);
+                } finally {
+                    vagas.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            vagas.release();
+            throw new ErroConsulta(503, "Serviço encerrando");
+        }
+        try {
+            return resultado.get(tempoLimiteMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            desistir(iniciada);
+            throw new ErroConsulta(504, "Consulta passou do tempo limite de " + tempoLimiteMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            desistir(iniciada);
+            throw new ErroConsulta(503, "Serviço encerrando");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ErroConsulta erro) {
+                throw erro;
+            }
+            throw new ErroConsulta(500, "Erro interno: " + e.getCause());
+        }
+    }
+
+    // Uma consulta que já começou vai até o fim e libera a vaga (as buscas não
+    // param no meio); uma que ainda está na fila não começa mais
+    private void desistir(AtomicBoolean iniciada) {
+        if (iniciada.compareAndSet(false, true)) {
+            vagas.release();
+        }
+    }
+
+    private static void responder(HttpExchange troca, int status, String json) throws IOException {
+        byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        troca.sendResponseHeaders(status, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+
+    private static Map<String, String> lerParametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    // --- CONSULTAS ---
+
+    private static String dijkstra(EstadoRede estado, Map<String, String> parametros) throws ErroConsulta {
+        ModoBusca modo = ModoBusca.DIJKSTRA;
+        String nomeModo = parametros.get("modo");
+        if (nomeModo != null) {
+            try {
+                modo = ModoBusca.valueOf(nomeModo.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ErroConsulta(400, "Modo desconhecido: " + nomeModo + " (use um de "
+                        + Arrays.stream(ModoBusca.values()).map(ModoBusca::name).toList() + ")");
+            }
+        }
+        return caminho(estado, parametros, modo);
+    }
+
+    private static String bfs(EstadoRede estado, Map<String, String> parametros) throws ErroConsulta {
+        return caminho(estado, parametros, null);
+    }
+
+    // BFS (modo null) ou caminho mais curto por peso
+    private static String caminho(EstadoRede estado, Map<String, String> parametros, ModoBusca modo) throws ErroConsulta {
+        Grafo grafo = estado.getGrafo();
+        int idOrigem = lerInteiro(parametros, "origem");
+        int idDestino = lerInteiro(parametros, "destino");
+        ResultadoCaminho resultado = modo == null
+                ? grafo.caminhoPorParadas(idOrigem, idDestino)
+                : grafo.caminhoPorPeso(idOrigem, idDestino, modo);
+        if (resultado == null) {
+            throw new ErroConsulta(404, "Estação não encontrada: " + (grafo.indiceDe(idOrigem) < 0 ? idOrigem : idDestino));
+        }
+
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"versao\":").append(estado.getVersao());
+        json.append(",\"origem\":").append(idOrigem).append(",\"destino\":").append(idDestino);
+        json.append(",\"modo\":").append(modo == null ? "\"BFS\"" : texto(modo.name()));
+        json.append(",\"alcancavel\":").append(resultado.isAlcancavel());
+        if (resultado.isAlcancavel()) {
+            json.append(",\"custo\":").append(resultado.getCusto()).append(",\"paradas\":").append(resultado.getParadas());
+            json.append(",\"caminho\":[");
+            for (int i = 0; i < resultado.getNumEstacoes(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                estacao(json, resultado.getEstacao(i));
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String prefixo(EstadoRede estado, Map<String, String> parametros) throws ErroConsulta {
+        String texto = parametros.get("texto");
+        if (texto == null || texto.trim().isEmpty()) {
+            throw new ErroConsulta(400, "Parâmetro obrigatório: texto");
+        }
+        int limite = parametros.containsKey("limite") ? lerInteiro(parametros, "limite") : LIMITE_PREFIXO_PADRAO;
+        if (limite < 0 || limite > LIMITE_PREFIXO_MAXIMO) {
+            throw new ErroConsulta(400, "limite deve estar entre 0 e " + LIMITE_PREFIXO_MAXIMO);
+        }
+        List<Estacao> encontradas = estado.getTrie().listarPorPrefixo(texto.trim());
+        encontradas.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"versao\":").append(estado.getVersao());
+        json.append(",\"texto\":").append(texto(texto.trim()));
+        json.append(",\"quantidade\":").append(encontradas.size());
+        json.append(",\"estacoes\":[");
+        for (int i = 0; i < Math.min(limite, encontradas.size()); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            estacao(json, encontradas.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String estacao(EstadoRede estado, Map<String, String> parametros) throws ErroConsulta {
+        String nome = parametros.get("nome");
+        if (nome == null || nome.trim().isEmpty()) {
+            throw new ErroConsulta(400, "Parâmetro obrigatório: nome");
+        }
+        Estacao encontrada = estado.getBst().buscar(nome.trim());
+        if (encontrada == null) {
+            throw new ErroConsulta(404, "Estação não encontrada: " + nome.trim());
+        }
+        StringBuilder json = new StringBuilder("{\"versao\":").append(estado.getVersao()).append(",\"estacao\":");
+        estacao(json, encontrada);
+        return json.append('}').toString();
+    }
+
+    private static String grau(EstadoRede estado, Map<String, String> parametros) throws ErroConsulta {
+        Grafo grafo = estado.getGrafo();
+        int id = lerInteiro(parametros, "id");
+        int indice = grafo.indiceDe(id);
+        if (indice < 0) {
+            throw new ErroConsulta(404, "Estação não encontrada: " + id);
+        }
+        StringBuilder json = new StringBuilder("{\"versao\":").append(estado.getVersao()).append(",\"estacao\":");
+        estacao(json, grafo.getEstacaoPorId(id));
+        return json.append(",\"grau\":").append(grafo.getAdjacencia().grau(indice)).append('}').toString();
+    }
+
+    private static String cache(EstadoRede estado, Map<String, String> parametros) {
+        CacheRotas cache = estado.getGrafo().getCacheRotas();
+        return new StringBuilder("{\"versao\":").append(estado.getVersao())
+                .append(",\"entradas\":").append(cache.getTamanho())
+                .append(",\"acertos\":").append(cache.getAcertos())
+                .append(",\"falhas\":").append(cache.getFalhas())
+                .append(",\"descartes\":").append(cache.getDescartes())
+                .append('}').toString();
+    }
+
+    // --- AUXILIARES ---
+
+    private static int lerInteiro(Map<String, String> parametros, String nome) throws ErroConsulta {
+        String valor = parametros.get(nome);
+        if (valor == null) {
+            throw new ErroConsulta(400, "Parâmetro obrigatório: " + nome);
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new ErroConsulta(400, "Parâmetro " + nome + " não é um número: " + valor);
+        }
+    }
+
+    private static void estacao(StringBuilder json, Estacao estacao) {
+        json.append("{\"id\":").append(estacao.getId()).append(",\"nome\":").append(texto(estacao.getNome())).append('}');
+    }
+
+    private static String erro(String mensagem) {
+        return "{\"erro\":" + texto(mensagem) + "}";
+    }
+
+    // Texto como string JSON (entre aspas, com os caracteres especiais escapados)
+    private static String texto(String valor) {
+        StringBuilder sb = new StringBuilder(valor.length() + 2).append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
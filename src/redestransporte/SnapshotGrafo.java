@@ -0,0 +1,317 @@
+package redestransporte;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Cópia binária da rede já carregada (grafo, BST e Trie), para abrir o
+ * programa sem reler e reprocessar estacoes.txt e conexoes.txt.
+ *
+ * Formato (big-endian), versão {@link #VERSAO}:
+ * <pre>
+ * Cabeçalho (72 bytes):
+ *   int  mágico "RTG1", int versão
+ *   long tamanho e long data de modificação de estacoes.txt e de conexoes.txt
+ *   int  estações (V), conexões (E), arcos da adjacência (A),
+ *        estações da BST (B), estações da Trie (T), bytes de texto
+ *   long CRC32 do restante do arquivo
+ * Dados:
+ *   int[V]       IDs das estações, na ordem dos índices
+ *   int[V+T+1]   início de cada texto: V nomes e T chaves normalizadas da Trie
+ *   int[B]       índices das estações da BST, em ordem alfabética
+ *   int[T]       índices das estações da Trie
+ *   int[E] x 3   origem, destino e peso de cada conexão, na ordem de inserção
+ *   int[V+1]     início de cada linha da adjacência (CSR)
+ *   int[A] x 2   destino e peso de cada arco
+ *   byte[]       textos em UTF-8
+ * </pre>
+ * Na leitura o arquivo é carregado inteiro em um buffer e os arrays são
+ * copiados em bloco. Se os arquivos .txt mudaram (tamanho ou data) desde a gravação,
+ * ou a versão é outra, a cópia é considerada desatualizada.
+ */
+public class SnapshotGrafo {
+
+    private static final int MAGICO = 0x52544731; // "RTG1"
+    public static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 72;
+
+    private final Grafo grafo;
+    private final BST bst;
+    private final Trie trie;
+
+    private SnapshotGrafo(Grafo grafo, BST bst, Trie trie) {
+        this.grafo = grafo;
+        this.bst = bst;
+        this.trie = trie;
+    }
+
+    public Grafo getGrafo() {
+        return grafo;
+    }
+
+    public BST getBst() {
+        return bst;
+    }
+
+    public Trie getTrie() {
+        return trie;
+    }
+
+    // --- GRAVAÇÃO ---
+
+    /**
+     * Grava a rede em um arquivo binário. O arquivo é escrito em um
+     * temporário e depois renomeado, para nunca ficar pela metade.
+     * @param nomeArquivo Arquivo a gravar
+     * @param arquivoEstacoes Arquivo de estações de onde a rede foi lida
+     * @param arquivoConexoes Arquivo de conexões de onde a rede foi lida
+     */
+    public static void salvar(String nomeArquivo, Grafo grafo, BST bst, Trie trie,
+                              String arquivoEstacoes, String arquivoConexoes) throws IOException {
+        if (grafo.getAdjacencia() == null || grafo.getNumIndices() != grafo.getNumEstacoes()) {
+            grafo.compactar(); // Índices sem lacunas de estações removidas
+        }
+        AdjacenciaCSR adjacencia = grafo.getAdjacencia();
+        int numEstacoes = adjacencia.getNumVertices();
+        Estacao[] porIndice = new Estacao[numEstacoes];
+        MapaIntInt indiceDoId = new MapaIntInt(numEstacoes);
+        for (int i = 0; i < numEstacoes; i++) {
+            porIndice[i] = grafo.getEstacaoPorId(grafo.idDe(i));
+            indiceDoId.colocar(porIndice[i].getId(), i);
+        }
+        int[] ordemBST = indicesDe(bst.listarEmOrdem(), indiceDoId);
+        int[] ordemTrie = indicesDe(trie.listarTodas(), indiceDoId);
+
+        // Textos: nomes das estações e depois as chaves da Trie
+        byte[][] textos = new byte[numEstacoes + ordemTrie.length][];
+        int[] inicioTexto = new int[textos.length + 1];
+        for (int i = 0; i < textos.length; i++) {
+            String texto = i < numEstacoes ? porIndice[i].getNome()
+                    : Trie.normalizarString(porIndice[ordemTrie[i - numEstacoes]].getNome());
+            textos[i] = texto.getBytes(StandardCharsets.UTF_8);
+            inicioTexto[i + 1] = inicioTexto[i] + textos[i].length;
+        }
+
+        Collection<Conexao> conexoes = grafo.getTodasConexoes();
+        int numConexoes = conexoes.size();
+        int[] origens = new int[numConexoes];
+        int[] destinos = new int[numConexoes];
+        int[] pesos = new int[numConexoes];
+        int e = 0;
+        for (Conexao c : conexoes) {
+            origens[e] = c.getIdOrigem();
+            destinos[e] = c.getIdDestino();
+            pesos[e] = c.getPeso();
+            e++;
+        }
+
+        int numArcos = adjacencia.getNumArcos();
+        int[] inicioLinha = new int[numEstacoes + 1];
+        int[] arcos = new int[numArcos];
+        int[] pesosArcos = new int[numArcos];
+        for (int v = 0; v < numEstacoes; v++) {
+            int n = adjacencia.fim(v) - adjacencia.inicio(v);
+            for (int k = 0; k < n; k++) {
+                arcos[inicioLinha[v] + k] = adjacencia.destino(adjacencia.inicio(v) + k);
+                pesosArcos[inicioLinha[v] + k] = adjacencia.peso(adjacencia.inicio(v) + k);
+            }
+            inicioLinha[v + 1] = inicioLinha[v] + n;
+        }
+
+        int tamanhoTextos = inicioTexto[textos.length];
+        long tamanhoDados = 4L * (numEstacoes + inicioTexto.length + ordemBST.length + ordemTrie.length
+                + 3L * numConexoes + inicioLinha.length + 2L * numArcos) + tamanhoTextos;
+        if (TAMANHO_CABECALHO + tamanhoDados > Integer.MAX_VALUE) {
+            throw new IOException("Rede grande demais para o formato binário");
+        }
+        ByteBuffer dados = ByteBuffer.allocate((int) tamanhoDados);
+        for (int i = 0; i < numEstacoes; i++) {
+            dados.putInt(porIndice[i].getId());
+        }
+        colocar(dados, inicioTexto);
+        colocar(dados, ordemBST);
+        colocar(dados, ordemTrie);
+        colocar(dados, origens);
+        colocar(dados, destinos);
+        colocar(dados, pesos);
+        colocar(dados, inicioLinha);
+        colocar(dados, arcos);
+        colocar(dados, pesosArcos);
+        for (byte[] texto : textos) {
+            dados.put(texto);
+        }
+        dados.flip();
+        CRC32 crc = new CRC32();
+        crc.update(dados.duplicate());
+
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        cabecalho.putInt(MAGICO).putInt(VERSAO);
+        Path estacoes = Paths.get(arquivoEstacoes);
+        Path conexoesTxt = Paths.get(arquivoConexoes);
+        cabecalho.putLong(Files.size(estacoes)).putLong(Files.getLastModifiedTime(estacoes).toMillis());
+        cabecalho.putLong(Files.size(conexoesTxt)).putLong(Files.getLastModifiedTime(conexoesTxt).toMillis());
+        cabecalho.putInt(numEstacoes).putInt(numConexoes).putInt(numArcos)
+                 .putInt(ordemBST.length).putInt(ordemTrie.length).putInt(tamanhoTextos);
+        cabecalho.putLong(crc.getValue());
+        cabecalho.flip();
+
+        Path destino = Paths.get(nomeArquivo).toAbsolutePath();
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho);
+            }
+            while (dados.hasRemaining()) {
+                canal.write(dados);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Índice (no grafo) de cada estação da lista; as que não estão mais no grafo ficam de fora
+    private static int[] indicesDe(List<Estacao> lista, MapaIntInt indiceDoId) {
+        int[] indices = new int[lista.size()];
+        int n = 0;
+        for (Estacao e : lista) {
+            int indice = indiceDoId.obter(e.getId(), -1);
+            if (indice >= 0) {
+                indices[n++] = indice;
+            }
+        }
+        return Arrays.copyOf(indices, n);
+    }
+
+    private static void colocar(ByteBuffer dados, int[] valores) {
+        dados.asIntBuffer().put(valores);
+        dados.position(dados.position() + 4 * valores.length);
+    }
+
+    // --- LEITURA ---
+
+    /**
+     * Abre uma rede gravada por {@link #salvar}.
+     * @param nomeArquivo Arquivo binário
+     * @param arquivoEstacoes Arquivo de estações atual
+     * @param arquivoConexoes Arquivo de conexões atual
+     * @return A rede, ou null se o arquivo não existe ou está desatualizado
+     *         (outra versão do formato, ou os .txt mudaram)
+     * @throws IOException Se o arquivo está corrompido (CRC ou tamanho não conferem)
+     */
+    public static SnapshotGrafo abrir(String nomeArquivo, String arquivoEstacoes, String arquivoConexoes)
+            throws IOException {
+        Path caminho = Paths.get(nomeArquivo);
+        if (!Files.exists(caminho)) {
+            return null;
+        }
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            if (tamanhoArquivo < TAMANHO_CABECALHO) {
+                throw new IOException("Arquivo binário da rede inválido: " + nomeArquivo);
+            }
+            if (tamanhoArquivo > Integer.MAX_VALUE - 8) {
+                throw new IOException("Arquivo binário da rede grande demais: " + nomeArquivo);
+            }
+            // Lido para o heap, sem mapear: no Windows um arquivo mapeado não pode
+            // ser substituído (ver salvar) até o buffer ser coletado
+            ByteBuffer buffer = ByteBuffer.allocate((int) tamanhoArquivo);
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer, buffer.position()) < 0) {
+                    throw new IOException("Arquivo binário da rede com tamanho inválido: " + nomeArquivo);
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGICO) {
+                throw new IOException("Arquivo binário da rede inválido: " + nomeArquivo);
+            }
+            if (buffer.getInt() != VERSAO
+                    || !mesmoArquivo(buffer, arquivoEstacoes) || !mesmoArquivo(buffer, arquivoConexoes)) {
+                return null;
+            }
+            int numEstacoes = buffer.getInt();
+            int numConexoes = buffer.getInt();
+            int numArcos = buffer.getInt();
+            int numBST = buffer.getInt();
+            int numTrie = buffer.getInt();
+            int tamanhoTextos = buffer.getInt();
+            long crcEsperado = buffer.getLong();
+
+            long tamanhoDados = 4L * (numEstacoes + (numEstacoes + numTrie + 1) + numBST + numTrie
+                    + 3L * numConexoes + (numEstacoes + 1) + 2L * numArcos) + tamanhoTextos;
+            if (TAMANHO_CABECALHO + tamanhoDados != tamanhoArquivo) {
+                throw new IOException("Arquivo binário da rede com tamanho inválido: " + nomeArquivo);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(TAMANHO_CABECALHO, (int) tamanhoDados));
+            if (crc.getValue() != crcEsperado) {
+                throw new IOException("Arquivo binário da rede corrompido (CRC): " + nomeArquivo);
+            }
+
+            int[] ids = ler(buffer, numEstacoes);
+            int[] inicioTexto = ler(buffer, numEstacoes + numTrie + 1);
+            int[] ordemBST = ler(buffer, numBST);
+            int[] ordemTrie = ler(buffer, numTrie);
+            int[] origens = ler(buffer, numConexoes);
+            int[] destinos = ler(buffer, numConexoes);
+            int[] pesos = ler(buffer, numConexoes);
+            int[] inicioLinha = ler(buffer, numEstacoes + 1);
+            int[] arcos = ler(buffer, numArcos);
+            int[] pesosArcos = ler(buffer, numArcos);
+            byte[] textos = new byte[tamanhoTextos];
+            buffer.get(textos);
+
+            Estacao[] porIndice = new Estacao[numEstacoes];
+            for (int i = 0; i < numEstacoes; i++) {
+                porIndice[i] = new Estacao(ids[i], texto(textos, inicioTexto, i));
+            }
+            Grafo grafo = Grafo.restaurar(porIndice, origens, destinos, pesos,
+                    AdjacenciaCSR.deArrays(numEstacoes, inicioLinha, arcos, pesosArcos));
+
+            BST bst = new BST();
+            List<Estacao> ordenadas = new ArrayList<>(numBST);
+            for (int indice : ordemBST) {
+                ordenadas.add(porIndice[indice]);
+            }
+            bst.construirBalanceada(ordenadas);
+
+            Trie trie = new Trie();
+            for (int k = 0; k < numTrie; k++) {
+                trie.inserir(porIndice[ordemTrie[k]], texto(textos, inicioTexto, numEstacoes + k));
+            }
+            return new SnapshotGrafo(grafo, bst, trie);
+        }
+    }
+
+    // Confere o tamanho e a data gravados com os do arquivo atual
+    private static boolean mesmoArquivo(ByteBuffer buffer, String nomeArquivo) throws IOException {
+        long tamanho = buffer.getLong();
+        long modificacao = buffer.getLong();
+        Path caminho = Paths.get(nomeArquivo);
+        return Files.exists(caminho) && Files.size(caminho) == tamanho
+                && Files.getLastModifiedTime(caminho).toMillis() == modificacao;
+    }
+
+    private static int[] ler(ByteBuffer buffer, int quantidade) {
+        int[] valores = new int[quantidade];
+        buffer.asIntBuffer().get(valores);
+        buffer.position(buffer.position() + 4 * quantidade);
+        return valores;
+    }
+
+    private static String texto(byte[] textos, int[] inicioTexto, int i) {
+        return new String(textos, inicioTexto[i], inicioTexto[i + 1] - inicioTexto[i], StandardCharsets.UTF_8);
+    }
+}
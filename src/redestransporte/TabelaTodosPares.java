@@ -0,0 +1,275 @@
+package redestransporte;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * Caminhos mais curtos entre todos os pares de estações, pré-calculados
+ * para redes pequenas e médias (até {@link #LIMITE_VERTICES} estações):
+ * uma consulta vira só a leitura das tabelas, sem busca.
+ *
+ * Para cada destino guarda, para todo vértice v, a distância de v até o
+ * destino e o próximo vértice depois de v no caminho (por peso e por número
+ * de paradas). O caminho é remontado seguindo os próximos a partir da
+ * origem. Como o grafo não é direcionado, a linha de um destino sai de uma
+ * única busca a partir dele: o anterior de v nessa busca é o próximo de v
+ * no caminho até o destino. As linhas são calculadas em paralelo.
+ *
+ * As tabelas são guardadas por destino (tabela[destino * n + v]), então
+ * remontar um caminho lê sempre a mesma linha. Os próximos são char (16
+ * bits), o que limita o número de vértices e deixa as três tabelas com
+ * 8 bytes por par.
+ */
+public class TabelaTodosPares {
+
+    /** Máximo de vértices para montar as tabelas (n² pares: 128 MB em 4096). */
+    public static final int LIMITE_VERTICES = 4096;
+
+    /** Distância quando o destino não é alcançável. */
+    public static final int SEM_CAMINHO = -1;
+
+    private static final char SEM_PROXIMO = (char) 0xFFFF;
+    // Arquivo: int mágico, long assinatura, int n, int[n²] distâncias,
+    // char[n²] x 2 próximos (peso e paradas) e long CRC32 de tudo que vem antes
+    private static final int MAGICO = 0x41505032; // "APP2"
+    private static final int TAMANHO_CABECALHO = 16;
+    private static final int TAMANHO_BLOCO = 1 << 20;
+
+    private final int numVertices;
+    private final int[] distancias;       // distancias[destino * n + v] = dist(v, destino)
+    private final char[] proximosPeso;    // Próximo vértice depois de v no caminho por peso
+    private final char[] proximosParadas; // Próximo vértice depois de v no caminho por paradas
+    private final long assinatura;        // Identifica o grafo para o qual as tabelas valem
+
+    private TabelaTodosPares(int numVertices, int[] distancias, char[] proximosPeso, char[] proximosParadas,
+            long assinatura) {
+        this.numVertices = numVertices;
+        this.distancias = distancias;
+        this.proximosPeso = proximosPeso;
+        this.proximosParadas = proximosParadas;
+        this.assinatura = assinatura;
+    }
+
+    /**
+     * Calcula as tabelas: um Dijkstra e uma BFS completos por vértice.
+     * @param adjacencia O grafo (no máximo {@link #LIMITE_VERTICES} vértices)
+     * @param assinatura Assinatura do grafo (ver {@link Grafo#calcularAssinatura()})
+     * @return As tabelas prontas
+     * @throws IllegalArgumentException se o grafo passa do limite
+     */
+    public static TabelaTodosPares calcular(AdjacenciaCSR adjacencia, long assinatura) {
+        int n = adjacencia.getNumVertices();
+        if (n > LIMITE_VERTICES) {
+            throw new IllegalArgumentException("Rede grande demais para a tabela de todos os pares: "
+                    + n + " estações (limite " + LIMITE_VERTICES + ")");
+        }
+        int[] distancias = new int[n * n];
+        char[] proximosPeso = new char[n * n];
+        char[] proximosParadas = new char[n * n];
+        AdjacenciaCSR.Plana plana = adjacencia.plana();
+
+        IntStream.range(0, n).parallel().forEach(destino -> {
+            int linha = destino * n;
+
+            // Dijkstra completo (destino -1: não para antes de fechar todos)
+            EspacoBusca espaco = MotorDijkstra.executar(adjacencia, destino, -1);
+            for (int v = 0; v < n; v++) {
+                if (espaco.foiAlcancado(v)) {
+                    distancias[linha + v] = espaco.distancia(v);
+                    int anterior = espaco.anterior(v);
+                    proximosPeso[linha + v] = anterior >= 0 ? (char) anterior : SEM_PROXIMO;
+                } else {
+                    distancias[linha + v] = SEM_CAMINHO;
+                    proximosPeso[linha + v] = SEM_PROXIMO;
+                }
+            }
+
+            // Por paradas: o próximo de v é um vizinho um nível mais perto do destino
+            int[] nivel = BuscaLargura.niveis(adjacencia, destino);
+            for (int v = 0; v < n; v++) {
+                char proximo = SEM_PROXIMO;
+                if (nivel[v] > 0) {
+                    for (int k = plana.inicio[v]; k < plana.fim[v]; k++) {
+                        int vizinho = plana.destinos[k];
+                        if (nivel[vizinho] == nivel[v] - 1) {
+                            proximo = (char) vizinho;
+                            break;
+                        }
+                    }
+                }
+                proximosParadas[linha + v] = proximo;
+            }
+        });
+        return new TabelaTodosPares(n, distancias, proximosPeso, proximosParadas, assinatura);
+    }
+
+    public long getAssinatura() {
+        return assinatura;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * Custo do caminho mais curto por peso, ou {@link #SEM_CAMINHO}.
+     */
+    public int distancia(int origem, int destino) {
+        return distancias[destino * numVertices + origem];
+    }
+
+    /**
+     * Caminho mais curto por peso, remontado pelos próximos.
+     * @return Os índices do caminho (origem e destino incluídos), ou null se inalcançável
+     */
+    public int[] caminho(int origem, int destino) {
+        return remontar(proximosPeso, origem, destino);
+    }
+
+    /**
+     * Caminho com menos paradas, remontado pelos próximos.
+     * @return Os índices do caminho (origem e destino incluídos), ou null se inalcançável
+     */
+    public int[] caminhoParadas(int origem, int destino) {
+        return remontar(proximosParadas, origem, destino);
+    }
+
+    private int[] remontar(char[] proximos, int origem, int destino) {
+        if (distancias[destino * numVertices + origem] == SEM_CAMINHO) {
+            return null;
+        }
+        int linha = destino * numVertices;
+        int tamanho = 1;
+        for (int v = origem; v != destino; v = proximos[linha + v]) {
+            // Um caminho simples tem no máximo n vértices: além disso, os próximos têm um ciclo
+            if (tamanho == numVertices || proximos[linha + v] == SEM_PROXIMO) {
+                throw new IllegalStateException("Tabela de todos os pares inconsistente: "
+                        + origem + " -> " + destino);
+            }
+            tamanho++;
+        }
+        int[] caminho = new int[tamanho];
+        int v = origem;
+        for (int i = 0; i < tamanho; i++) {
+            caminho[i] = v;
+            if (v != destino) {
+                v = proximos[linha + v];
+            }
+        }
+        return caminho;
+    }
+
+    // --- PERSISTÊNCIA ---
+
+    /**
+     * Salva as tabelas em um arquivo binário. O arquivo é escrito em um
+     * temporário e depois renomeado, para nunca ficar pela metade.
+     */
+    public void salvar(String nomeArquivo) throws IOException {
+        Path destino = Paths.get(nomeArquivo).toAbsolutePath();
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bloco = ByteBuffer.allocate(TAMANHO_BLOCO);
+            bloco.putInt(MAGICO).putLong(assinatura).putInt(numVertices);
+            for (int d : distancias) {
+                if (bloco.remaining() < Integer.BYTES) {
+                    escreverBloco(canal, bloco, crc);
+                }
+                bloco.putInt(d);
+            }
+            for (char[] proximos : new char[][] {proximosPeso, proximosParadas}) {
+                for (char p : proximos) {
+                    if (bloco.remaining() < Character.BYTES) {
+                        escreverBloco(canal, bloco, crc);
+                    }
+                    bloco.putChar(p);
+                }
+            }
+            escreverBloco(canal, bloco, crc);
+            bloco.putLong(crc.getValue());
+            bloco.flip();
+            while (bloco.hasRemaining()) {
+                canal.write(bloco);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Grava o conteúdo do bloco (somando-o ao CRC) e o deixa vazio
+    private static void escreverBloco(FileChannel canal, ByteBuffer bloco, CRC32 crc) throws IOException {
+        bloco.flip();
+        crc.update(bloco.duplicate());
+        while (bloco.hasRemaining()) {
+            canal.write(bloco);
+        }
+        bloco.clear();
+    }
+
+    /**
+     * Lê um arquivo salvo por {@link #salvar(String)}.
+     * @param assinaturaEsperada Assinatura do grafo atual
+     * @return As tabelas, ou null se o arquivo é de outro grafo (desatualizado)
+     * @throws IOException se o arquivo é inválido ou está corrompido (CRC)
+     */
+    public static TabelaTodosPares carregar(String nomeArquivo, long assinaturaEsperada) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(nomeArquivo), StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            if (tamanhoArquivo < TAMANHO_CABECALHO || canal.read(cabecalho, 0) != TAMANHO_CABECALHO) {
+                throw new IOException("Arquivo de tabela de todos os pares inválido: " + nomeArquivo);
+            }
+            cabecalho.flip();
+            if (cabecalho.getInt() != MAGICO) {
+                throw new IOException("Arquivo de tabela de todos os pares inválido: " + nomeArquivo);
+            }
+            long assinatura = cabecalho.getLong();
+            if (assinatura != assinaturaEsperada) {
+                return null;
+            }
+            int numVertices = cabecalho.getInt();
+            if (numVertices < 0 || numVertices > LIMITE_VERTICES) {
+                throw new IOException("Arquivo de tabela de todos os pares inválido: " + nomeArquivo);
+            }
+            int pares = numVertices * numVertices;
+            long tamanhoDados = TAMANHO_CABECALHO + (long) pares * (Integer.BYTES + 2 * Character.BYTES);
+            if (tamanhoArquivo != tamanhoDados + Long.BYTES) {
+                throw new IOException("Arquivo de tabela de todos os pares com tamanho inválido: " + nomeArquivo);
+            }
+
+            // Lido inteiro para o heap (no máximo 128 MB, ver LIMITE_VERTICES)
+            ByteBuffer buffer = ByteBuffer.allocate((int) tamanhoArquivo);
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer, buffer.position()) < 0) {
+                    throw new IOException("Arquivo de tabela de todos os pares com tamanho inválido: " + nomeArquivo);
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) tamanhoDados));
+            if (crc.getValue() != buffer.getLong((int) tamanhoDados)) {
+                throw new IOException("Arquivo de tabela de todos os pares corrompido (CRC): " + nomeArquivo);
+            }
+
+            buffer.position(TAMANHO_CABECALHO);
+            int[] distancias = new int[pares];
+            buffer.asIntBuffer().get(distancias);
+            buffer.position(buffer.position() + pares * Integer.BYTES);
+            char[] proximosPeso = new char[pares];
+            buffer.asCharBuffer().get(proximosPeso);
+            buffer.position(buffer.position() + pares * Character.BYTES);
+            char[] proximosParadas = new char[pares];
+            buffer.asCharBuffer().get(proximosParadas);
+            return new TabelaTodosPares(numVertices, distancias, proximosPeso, proximosParadas, assinatura);
+        }
+    }
+}
@@ -13,15 +13,29 @@ public class Trie {
         Map<Character, NoTrie> filhos;
         boolean fimDePalavra;
         Estacao estacao; // Guarda a estação completa no final da palavra
+        final Object dono; // Trie que pode alterar o nó (ver copiar())
 
         public NoTrie() {
             filhos = new HashMap<>();
             fimDePalavra = false;
             estacao = null;
+            dono = Trie.this.dono;
+        }
+
+        // Cópia do nó pertencente a esta Trie (o mapa de filhos é copiado)
+        NoTrie(NoTrie original) {
+            filhos = new HashMap<>(original.filhos);
+            fimDePalavra = original.fimDePalavra;
+            estacao = original.estacao;
+            dono = Trie.this.dono;
         }
     }
 
     private NoTrie raiz;
+    private boolean removeu; // Resultado da última remoção (ver removerRecursivo)
+    // Identifica os nós que esta Trie pode alterar; os demais são
+    // compartilhados com uma cópia e são copiados antes de mudar
+    private Object dono = new Object();
 
     public Trie() {
         raiz = new NoTrie();
@@ -34,14 +48,26 @@ public class Trie {
      * Os nomes são normalizados (minúsculos e sem acentos) para a busca.
      */
     public void inserir(Estacao e) {
-        String nome = normalizarString(e.getNome());
+        inserir(e, normalizarString(e.getNome()));
+    }
+
+    /**
+     * Insere uma estação cujo nome já foi normalizado (ver {@link #normalizarString(String)}).
+     */
+    void inserir(Estacao e, String nome) {
+        raiz = editavel(raiz);
         NoTrie noAtual = raiz;
 
         for (char ch : nome.toCharArray()) {
             // Se o caractere não existe nos filhos, cria um novo nó
-            noAtual.filhos.putIfAbsent(ch, new NoTrie());
+            // (um filho compartilhado com outra Trie é copiado antes de mudar)
+            NoTrie filho = noAtual.filhos.get(ch);
+            NoTrie proximo = filho == null ? new NoTrie() : editavel(filho);
+            if (proximo != filho) {
+                noAtual.filhos.put(ch, proximo);
+            }
             // Move para o próximo nó
-            noAtual = noAtual.filhos.get(ch);
+            noAtual = proximo;
         }
         
         // Marca o fim da palavra e guarda a estação
@@ -49,6 +75,17 @@ public class Trie {
         noAtual.estacao = e;
     }
 
+    /**
+     * Remove a estação da Trie, se é ela (mesmo ID) que está guardada com o
+     * seu nome. Nós que ficam sem uso são descartados.
+     * @return true se a estação foi encontrada e removida
+     */
+    public boolean remover(Estacao e) {
+        removeu = false;
+        raiz = removerRecursivo(raiz, normalizarString(e.getNome()), 0, e.getId());
+        return removeu;
+    }
+
     /**
      * Busca todas as estações que começam com um prefixo e formata a saída.
      */
@@ -68,17 +105,84 @@ public class Trie {
         return sb.toString();
     }
 
+    /**
+     * Retorna as estações cujo nome começa com o prefixo (normalizado como
+     * na inserção), em ordem arbitrária.
+     */
+    public List<Estacao> listarPorPrefixo(String prefixo) {
+        return buscarPorPrefixo(normalizarString(prefixo));
+    }
+
+    /**
+     * Retorna todas as estações guardadas na Trie (em ordem arbitrária).
+     */
+    public List<Estacao> listarTodas() {
+        List<Estacao> resultados = new ArrayList<>();
+        coletarTodasEstacoes(raiz, resultados);
+        return resultados;
+    }
+
+    /**
+     * Retorna uma cópia da Trie em O(1): as duas compartilham os nós, e cada
+     * alteração posterior copia só os nós do caminho da chave alterada.
+     */
+    public Trie copiar() {
+        Trie copia = new Trie();
+        copia.raiz = this.raiz;
+        this.dono = new Object(); // Os nós atuais passam a ser compartilhados
+        return copia;
+    }
+
     // --- MÉTODOS PRIVADOS ---
 
+    // O próprio nó, se a Trie pode alterá-lo; senão, uma cópia dele
+    private NoTrie editavel(NoTrie no) {
+        return no.dono == dono ? no : new NoTrie(no);
+    }
+
     /**
      * Remove acentos e converte para minúsculo.
      */
-    private String normalizarString(String str) {
+    static String normalizarString(String str) {
         // Esta é uma forma simples de "normalizar" para busca
         String temp = java.text.Normalizer.normalize(str, java.text.Normalizer.Form.NFD);
         return temp.replaceAll("[^\\p{ASCII}]", "").toLowerCase();
     }
     
+    /**
+     * Método recursivo de remoção: desce pelo caractere "posicao" da chave
+     * e, na volta, apaga o filho que ficou vazio. Retorna o nó que fica no
+     * lugar de "no" (uma cópia, se ele era compartilhado e mudou).
+     */
+    private NoTrie removerRecursivo(NoTrie no, String chave, int posicao, int id) {
+        if (posicao == chave.length()) {
+            if (!no.fimDePalavra || no.estacao == null || no.estacao.getId() != id) {
+                return no;
+            }
+            removeu = true;
+            NoTrie novo = editavel(no);
+            novo.fimDePalavra = false;
+            novo.estacao = null;
+            return novo;
+        }
+        char ch = chave.charAt(posicao);
+        NoTrie filho = no.filhos.get(ch);
+        if (filho == null) {
+            return no;
+        }
+        NoTrie novoFilho = removerRecursivo(filho, chave, posicao + 1, id);
+        if (!removeu) {
+            return no;
+        }
+        NoTrie novo = editavel(no);
+        if (!novoFilho.fimDePalavra && novoFilho.filhos.isEmpty()) {
+            novo.filhos.remove(ch);
+        } else {
+            novo.filhos.put(ch, novoFilho);
+        }
+        return novo;
+    }
+
     /**
      * Retorna a lista de Estações que correspondem ao prefixo.
      */
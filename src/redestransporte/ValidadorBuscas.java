@@ -0,0 +1,93 @@
+package redestransporte;
+
+import java.util.Random;
+
+/**
+ * Confere os modos de busca ({@link ModoBusca}) contra o Dijkstra tradicional
+ * em pares aleatórios de estações: mesmo custo, mesma alcançabilidade e um
+ * caminho que realmente existe no grafo.
+ */
+public class ValidadorBuscas {
+
+    private ValidadorBuscas() {
+    }
+
+    /**
+     * Valida todos os modos de busca em pares aleatórios. Os
+     * pré-processamentos que ainda não estão prontos são feitos antes (sem
+     * eles, um grafo publicado responderia pelo Dijkstra bidirecional).
+     * @param grafo O grafo (com a adjacência já gerada)
+     * @param numPares Quantidade de pares origem/destino sorteados
+     * @param semente Semente do sorteio (para repetir a validação)
+     * @return Relatório com o número de divergências por modo
+     */
+    public static String validar(Grafo grafo, int numPares, long semente) {
+        AdjacenciaCSR adjacencia = grafo.getAdjacencia();
+        int numVertices = adjacencia.getNumVertices();
+        if (numVertices == 0) {
+            return "Validação dos Modos de Busca\n\n(Nenhuma estação para validar)";
+        }
+
+        if (!grafo.isALTPronto()) {
+            grafo.prepararALT(LandmarksALT.K_PADRAO, LandmarksALT.Selecao.EVITAR);
+        }
+        if (!grafo.isCHPronta()) {
+            grafo.prepararCH();
+        }
+        if (!grafo.isTodosParesPronta()) {
+            grafo.prepararTodosPares(); // Se a rede for grande demais, o modo usa o Dijkstra bidirecional
+        }
+
+        ModoBusca[] modos = ModoBusca.values();
+        int[] divergencias = new int[modos.length];
+        StringBuilder detalhes = new StringBuilder();
+        Random sorteio = new Random(semente);
+
+        for (int p = 0; p < numPares; p++) {
+            int origem = sorteio.nextInt(numVertices);
+            int destino = sorteio.nextInt(numVertices);
+            long esperado = custo(adjacencia, grafo.calcularCaminho(origem, destino, ModoBusca.DIJKSTRA), origem, destino);
+
+            for (int m = 0; m < modos.length; m++) {
+                long obtido = custo(adjacencia, grafo.calcularCaminho(origem, destino, modos[m]), origem, destino);
+                if (obtido != esperado) {
+                    divergencias[m]++;
+                    if (divergencias[m] <= 5) {
+                        detalhes.append(String.format("%s: [%d] -> [%d] custo %d, esperado %d\n",
+                                modos[m].getNome(), grafo.idDe(origem), grafo.idDe(destino), obtido, esperado));
+                    }
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder("Validação dos Modos de Busca\n\n");
+        sb.append("Pares aleatórios: ").append(numPares).append(" (semente ").append(semente).append(")\n\n");
+        for (int m = 0; m < modos.length; m++) {
+            sb.append(String.format("%-25s %s\n", modos[m].getNome(),
+                    divergencias[m] == 0 ? "OK" : divergencias[m] + " divergência(s)"));
+        }
+        if (detalhes.length() > 0) {
+            sb.append("\n--- DIVERGÊNCIAS ---\n").append(detalhes);
+        }
+        return sb.toString();
+    }
+
+    // Soma os pesos do caminho; -1 se não há caminho e -2 se o caminho é inválido
+    private static long custo(AdjacenciaCSR adjacencia, int[] caminho, int origem, int destino) {
+        if (caminho == null) {
+            return -1;
+        }
+        if (caminho[0] != origem || caminho[caminho.length - 1] != destino) {
+            return -2;
+        }
+        long total = 0;
+        for (int i = 0; i + 1 < caminho.length; i++) {
+            int peso = adjacencia.pesoEntre(caminho[i], caminho[i + 1]);
+            if (peso == 0) {
+                return -2; // Não existe conexão entre as duas estações
+            }
+            total += peso;
+        }
+        return total;
+    }
+}
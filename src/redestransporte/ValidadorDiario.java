@@ -0,0 +1,412 @@
+package redestransporte;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Confere as garantias do {@link DiarioAlteracoes} em arquivos temporários:
+ * <ul>
+ * <li>um registro final cortado ou com CRC inválido é descartado, os
+ *     anteriores são reaplicados e o diário continua aceitando registros;</li>
+ * <li>depois de uma compactação, reaplicar o diário antigo sobre a base nova
+ *     (ou sobre a mistura que sobra se o programa parar entre as duas trocas
+ *     de arquivo base) dá o mesmo estado que o programa tinha;</li>
+ * <li>uma recarga dos arquivos base entra no diário depois das alterações
+ *     anteriores, e reaplicar o diário sobre os arquivos editados dá o
+ *     estado que o programa tinha (a edição do arquivo vale).</li>
+ * </ul>
+ *
+ * Uso: java redestransporte.ValidadorDiario (ou ant verificar-diario);
+ * termina com código 1 se alguma verificação falha.
+ */
+public class ValidadorDiario {
+
+    private static final int NUM_IDS = 80;
+
+    private ValidadorDiario() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path diretorio = Files.createTempDirectory("validador-diario");
+        StringBuilder relatorio = new StringBuilder();
+        int falhas;
+        try {
+            falhas = validar(diretorio, relatorio);
+        } finally {
+            apagar(diretorio);
+        }
+        System.out.println(relatorio);
+        if (falhas > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Executa todas as verificações.
+     * @param diretorio Diretório vazio para os arquivos de teste
+     * @param relatorio Recebe uma linha por verificação
+     * @return Quantidade de verificações que falharam
+     */
+    public static int validar(Path diretorio, StringBuilder relatorio) throws IOException {
+        relatorio.append("Validação do Diário de Alterações\n");
+        relatorio.append("(os avisos de registros descartados e conexões inválidas durante as repetições são esperados)\n\n");
+        int falhas = validarRegistrosDanificados(diretorio.resolve("danificados"), relatorio);
+        falhas += validarCompactacao(diretorio.resolve("compactacao"), relatorio);
+        falhas += validarRecarga(diretorio.resolve("recarga"), relatorio);
+        relatorio.append(falhas == 0 ? "\nTudo OK\n" : "\n" + falhas + " falha(s)\n");
+        return falhas;
+    }
+
+    private static int conferir(StringBuilder relatorio, String descricao, Object obtido, Object esperado) {
+        boolean ok = obtido.equals(esperado);
+        relatorio.append(String.format("%-66s %s\n", descricao, ok ? "OK" : "FALHOU"));
+        if (!ok) {
+            relatorio.append("    esperado: ").append(esperado).append("\n    obtido:   ").append(obtido).append('\n');
+        }
+        return ok ? 0 : 1;
+    }
+
+    // --- REGISTROS CORTADOS E CORROMPIDOS ---
+
+    private static int validarRegistrosDanificados(Path diretorio, StringBuilder relatorio) throws IOException {
+        Files.createDirectories(diretorio);
+        Path original = diretorio.resolve("original.diario");
+        List<String> registrados = new ArrayList<>();
+        List<Long> fins = new ArrayList<>(); // Fim de cada registro no arquivo
+        try (DiarioAlteracoes diario = DiarioAlteracoes.abrir(original.toString(), new Gravador(new ArrayList<>()))) {
+            for (int i = 1; i <= 10; i++) {
+                Estacao estacao = new Estacao(i, "Estação " + i);
+                diario.registrarAdicaoEstacao(estacao);
+                registrados.add(Gravador.descrever(estacao));
+                fins.add(diario.getTamanho());
+            }
+        }
+        long tamanho = Files.size(original);
+        int falhas = 0;
+
+        Path cortado = copiar(original, diretorio.resolve("cortado.diario"));
+        try (FileChannel canal = FileChannel.open(cortado, StandardOpenOption.WRITE)) {
+            canal.truncate(tamanho - 3);
+        }
+        falhas += conferir(relatorio, "Registro final cortado: reaplica os anteriores",
+                repetir(cortado), registrados.subList(0, 9));
+        falhas += conferir(relatorio, "Registro final cortado: o arquivo volta ao último registro válido",
+                Files.size(cortado), fins.get(8));
+        Estacao nova = new Estacao(11, "Estação 11");
+        try (DiarioAlteracoes diario = DiarioAlteracoes.abrir(cortado.toString(), new Gravador(new ArrayList<>()))) {
+            diario.registrarAdicaoEstacao(nova);
+        }
+        List<String> esperado = new ArrayList<>(registrados.subList(0, 9));
+        esperado.add(Gravador.descrever(nova));
+        falhas += conferir(relatorio, "Registro final cortado: novos registros continuam o diário",
+                repetir(cortado), esperado);
+
+        Path crcFinal = copiar(original, diretorio.resolve("crc-final.diario"));
+        inverterByte(crcFinal, tamanho - 6);
+        falhas += conferir(relatorio, "CRC inválido no último registro: reaplica os anteriores",
+                repetir(crcFinal), registrados.subList(0, 9));
+
+        Path crcMeio = copiar(original, diretorio.resolve("crc-meio.diario"));
+        inverterByte(crcMeio, fins.get(4) - 6); // Dentro do 5º registro
+        falhas += conferir(relatorio, "CRC inválido no meio: reaplica só os anteriores a ele",
+                repetir(crcMeio), registrados.subList(0, 4));
+
+        Path cabecalho = copiar(original, diretorio.resolve("cabecalho.diario"));
+        try (FileChannel canal = FileChannel.open(cabecalho, StandardOpenOption.WRITE)) {
+            canal.truncate(10);
+        }
+        falhas += conferir(relatorio, "Cabeçalho cortado: começa um diário vazio",
+                repetir(cabecalho), List.of());
+        return falhas;
+    }
+
+    private static List<String> repetir(Path arquivo) throws IOException {
+        List<String> aplicados = new ArrayList<>();
+        DiarioAlteracoes.abrir(arquivo.toString(), new Gravador(aplicados)).close();
+        return aplicados;
+    }
+
+    private static void inverterByte(Path arquivo, long posicao) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer umByte = ByteBuffer.allocate(1);
+            canal.read(umByte, posicao);
+            umByte.put(0, (byte) ~umByte.get(0));
+            umByte.rewind();
+            canal.write(umByte, posicao);
+        }
+    }
+
+    // Anota cada alteração reaplicada, na ordem
+    private static final class Gravador implements DiarioAlteracoes.Aplicador {
+        private final List<String> aplicados;
+
+        Gravador(List<String> aplicados) {
+            this.aplicados = aplicados;
+        }
+
+        static String descrever(Estacao estacao) {
+            return "+E " + estacao.getId() + " " + estacao.getNome();
+        }
+
+        @Override
+        public void adicionarEstacao(Estacao estacao) {
+            aplicados.add(descrever(estacao));
+        }
+
+        @Override
+        public void adicionarConexao(Conexao conexao) {
+            aplicados.add("+C " + conexao.getIdOrigem() + "-" + conexao.getIdDestino() + " " + conexao.getPeso());
+        }
+
+        @Override
+        public void removerEstacao(int idEstacao) {
+            aplicados.add("-E " + idEstacao);
+        }
+
+        @Override
+        public void removerConexao(int idOrigem, int idDestino) {
+            aplicados.add("-C " + idOrigem + "-" + idDestino);
+        }
+    }
+
+    // --- COMPACTAÇÃO ---
+
+    /*
+     * Faz alterações aleatórias até o diário passar do limite, compacta e
+     * guarda cópias dos arquivos de antes. Depois reaplica o diário antigo
+     * sobre cada combinação de arquivos base que uma parada no meio da
+     * compactação pode deixar, e o diário novo sobre a base nova.
+     */
+    private static int validarCompactacao(Path diretorio, StringBuilder relatorio) throws IOException {
+        Path antes = Files.createDirectories(diretorio.resolve("antes"));
+        Path depois = Files.createDirectories(diretorio.resolve("depois"));
+        Path estacoes = depois.resolve("estacoes.txt");
+        Path conexoes = depois.resolve("conexoes.txt");
+        Path arquivoDiario = depois.resolve("rede.diario");
+
+        Random sorteio = new Random(14);
+        Grafo grafo = new Grafo();
+        List<Estacao> base = new ArrayList<>();
+        for (int id = 1; id <= NUM_IDS / 2; id++) {
+            base.add(new Estacao(id, "Estação " + id));
+        }
+        Files.write(estacoes, linhas(base.stream().map(e -> e.getId() + ";" + e.getNome())));
+        List<String> conexoesBase = new ArrayList<>();
+        for (int id = 2; id <= NUM_IDS / 2; id++) {
+            conexoesBase.add((1 + sorteio.nextInt(id - 1)) + ";" + id + ";" + (1 + sorteio.nextInt(30)));
+        }
+        Files.write(conexoes, linhas(conexoesBase.stream()));
+        carregarBase(grafo, estacoes, conexoes);
+
+        List<String> estadoCompactado;
+        try (DiarioAlteracoes diario = DiarioAlteracoes.abrir(arquivoDiario.toString(), aplicadorPara(grafo))) {
+            while (diario.getTamanho() < DiarioAlteracoes.LIMITE_COMPACTACAO) {
+                alterarAoAcaso(grafo, diario, sorteio, true);
+            }
+            copiar(estacoes, antes.resolve("estacoes.txt"));
+            copiar(conexoes, antes.resolve("conexoes.txt"));
+            copiar(arquivoDiario, antes.resolve("rede.diario"));
+            estadoCompactado = estado(grafo);
+
+            if (!diario.compactarSeNecessario(grafo, estacoes.toString(), conexoes.toString())) {
+                return conferir(relatorio, "Compactação iniciada ao passar do limite", false, true);
+            }
+            for (int i = 0; i < 50; i++) {
+                alterarAoAcaso(grafo, diario, sorteio, false); // Durante a compactação
+            }
+        } // close() espera a compactação
+        List<String> estadoFinal = estado(grafo);
+
+        int falhas = 0;
+        falhas += conferir(relatorio, "Compactação: o diário encolheu",
+                Files.size(arquivoDiario) < DiarioAlteracoes.LIMITE_COMPACTACAO, true);
+        falhas += conferir(relatorio, "Compactação completa: base nova + diário novo",
+                repetir(diretorio, estacoes, conexoes, arquivoDiario), estadoFinal);
+        Path diarioAntigo = antes.resolve("rede.diario");
+        falhas += conferir(relatorio, "Parada antes das trocas: base antiga + diário antigo",
+                repetir(diretorio, antes.resolve("estacoes.txt"), antes.resolve("conexoes.txt"), diarioAntigo),
+                estadoCompactado);
+        falhas += conferir(relatorio, "Parada entre as trocas: estações novas + conexões antigas",
+                repetir(diretorio, estacoes, antes.resolve("conexoes.txt"), diarioAntigo), estadoCompactado);
+        falhas += conferir(relatorio, "Parada antes de reescrever o diário: base nova + diário antigo",
+                repetir(diretorio, estacoes, conexoes, diarioAntigo), estadoCompactado);
+        return falhas;
+    }
+
+    // Uma alteração com efeito no grafo, registrada no diário (como faz o programa)
+    private static void alterarAoAcaso(Grafo grafo, DiarioAlteracoes diario, Random sorteio, boolean nomesLongos)
+            throws IOException {
+        List<Estacao> existentes = new ArrayList<>(grafo.getTodasEstacoes());
+        int operacao = sorteio.nextInt(10);
+        if (operacao < 3 || existentes.size() < 2) {
+            // Nomes longos enchem o diário com poucos registros (e poucos fsyncs)
+            int id = 1 + sorteio.nextInt(NUM_IDS);
+            String nome = "Estação " + id + (nomesLongos ? " " + "x".repeat(12000 + sorteio.nextInt(8000)) : "");
+            Estacao estacao = new Estacao(id, nome);
+            grafo.adicionarEstacao(estacao);
+            diario.registrarAdicaoEstacao(estacao);
+        } else if (operacao < 7) {
+            int a = existentes.get(sorteio.nextInt(existentes.size())).getId();
+            int b = existentes.get(sorteio.nextInt(existentes.size())).getId();
+            if (a != b) {
+                Conexao conexao = new Conexao(a, b, 1 + sorteio.nextInt(30));
+                grafo.adicionarConexao(conexao);
+                diario.registrarAdicaoConexao(conexao);
+            }
+        } else if (operacao < 9) {
+            List<Conexao> ligadas = new ArrayList<>(grafo.getTodasConexoes());
+            if (!ligadas.isEmpty()) {
+                Conexao conexao = ligadas.get(sorteio.nextInt(ligadas.size()));
+                grafo.removerConexao(conexao.getIdOrigem(), conexao.getIdDestino());
+                diario.registrarRemocaoConexao(conexao.getIdOrigem(), conexao.getIdDestino());
+            }
+        } else {
+            int id = existentes.get(sorteio.nextInt(existentes.size())).getId();
+            grafo.removerEstacao(id);
+            diario.registrarRemocaoEstacao(id);
+        }
+    }
+
+    // Reaplica o diário sobre a base, em cópias (abrir o diário pode truncá-lo)
+    private static List<String> repetir(Path diretorio, Path estacoes, Path conexoes, Path diario)
+            throws IOException {
+        Path repeticao = Files.createDirectories(diretorio.resolve("repeticao"));
+        Grafo grafo = new Grafo();
+        carregarBase(grafo, copiar(estacoes, repeticao.resolve("estacoes.txt")),
+                copiar(conexoes, repeticao.resolve("conexoes.txt")));
+        Path copia = copiar(diario, repeticao.resolve("rede.diario"));
+        DiarioAlteracoes.abrir(copia.toString(), aplicadorPara(grafo)).close();
+        return estado(grafo);
+    }
+
+    private static void carregarBase(Grafo grafo, Path estacoes, Path conexoes) throws IOException {
+        for (Estacao e : LeitorArquivos.lerEstacoes(estacoes.toString())) {
+            grafo.adicionarEstacao(e);
+        }
+        for (Conexao c : LeitorArquivos.lerConexoes(conexoes.toString())) {
+            grafo.adicionarConexao(c);
+        }
+    }
+
+    private static DiarioAlteracoes.Aplicador aplicadorPara(Grafo grafo) {
+        return new DiarioAlteracoes.Aplicador() {
+            @Override
+            public void adicionarEstacao(Estacao estacao) {
+                grafo.adicionarEstacao(estacao);
+            }
+
+            @Override
+            public void adicionarConexao(Conexao conexao) {
+                grafo.adicionarConexao(conexao);
+            }
+
+            @Override
+            public void removerEstacao(int idEstacao) {
+                grafo.removerEstacao(idEstacao);
+            }
+
+            @Override
+            public void removerConexao(int idOrigem, int idDestino) {
+                grafo.removerConexao(idOrigem, idDestino);
+            }
+        };
+    }
+
+    // Estações e conexões (sem sentido) do grafo, em uma ordem fixa
+    private static List<String> estado(Grafo grafo) {
+        List<String> estado = new ArrayList<>();
+        List<Estacao> estacoes = new ArrayList<>(grafo.getTodasEstacoes());
+        estacoes.sort(Comparator.comparingInt(Estacao::getId));
+        for (Estacao e : estacoes) {
+            estado.add("E " + e.getId() + " " + e.getNome().hashCode());
+        }
+        List<String> conexoes = new ArrayList<>();
+        for (Conexao c : grafo.getTodasConexoes()) {
+            conexoes.add("C " + Math.min(c.getIdOrigem(), c.getIdDestino()) + "-"
+                    + Math.max(c.getIdOrigem(), c.getIdDestino()) + " " + c.getPeso());
+        }
+        conexoes.sort(null);
+        estado.addAll(conexoes);
+        return estado;
+    }
+
+    // --- RECARGA DOS ARQUIVOS ---
+
+    /*
+     * O CRUD muda o peso de 1-2 para 5 e remove a estação 3; depois os
+     * arquivos são editados (1-2 com peso 7, estação 2 renomeada e uma
+     * conexão 2-3, que o grafo ignora) e a diferença é aplicada e registrada
+     * como faz a recarga do programa. Repetir o diário sobre os arquivos
+     * editados deve dar o estado do programa, e não desfazer a edição.
+     */
+    private static int validarRecarga(Path diretorio, StringBuilder relatorio) throws IOException {
+        Files.createDirectories(diretorio);
+        Path estacoes = diretorio.resolve("estacoes.txt");
+        Path conexoes = diretorio.resolve("conexoes.txt");
+        Path arquivoDiario = diretorio.resolve("rede.diario");
+        Files.write(estacoes, linhas(Stream.of("1;Estação 1", "2;Estação 2", "3;Estação 3")));
+        Files.write(conexoes, linhas(Stream.of("1;2;3", "1;3;4")));
+
+        Grafo grafo = new Grafo();
+        carregarBase(grafo, estacoes, conexoes);
+        DiferencaRede.Conteudo conteudoBase = DiferencaRede.Conteudo.deGrafo(grafo);
+        try (DiarioAlteracoes diario = DiarioAlteracoes.abrir(arquivoDiario.toString(), aplicadorPara(grafo))) {
+            Conexao conexao = new Conexao(1, 2, 5);
+            grafo.adicionarConexao(conexao);
+            diario.registrarAdicaoConexao(conexao);
+            grafo.removerEstacao(3);
+            diario.registrarRemocaoEstacao(3);
+
+            Files.write(estacoes, linhas(Stream.of("1;Estação 1", "2;Estação Dois", "3;Estação 3")));
+            Files.write(conexoes, linhas(Stream.of("1;2;7", "1;3;4", "2;3;2")));
+            DiferencaRede diferenca = DiferencaRede.calcular(conteudoBase,
+                    DiferencaRede.Conteudo.lerArquivos(estacoes.toString(), conexoes.toString()));
+            diferenca.aplicar(grafo, new BST(), new Trie());
+            diario.confirmar(diferenca.anexarAoDiario(diario));
+        }
+        List<String> estadoFinal = estado(grafo);
+
+        int falhas = 0;
+        falhas += conferir(relatorio, "Recarga: o peso editado no arquivo vale no programa",
+                grafo.getConexao(1, 2).getPeso(), 7);
+        falhas += conferir(relatorio, "Recarga: arquivos editados + diário dão o estado do programa",
+                repetir(diretorio, estacoes, conexoes, arquivoDiario), estadoFinal);
+        return falhas;
+    }
+
+    // --- ARQUIVOS ---
+
+    private static byte[] linhas(Stream<String> linhas) {
+        StringBuilder sb = new StringBuilder();
+        linhas.forEach(linha -> sb.append(linha).append('\n'));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Path copiar(Path origem, Path destino) throws IOException {
+        return Files.copy(origem, destino, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> caminhos = Files.walk(diretorio)) {
+            caminhos.sorted(Comparator.reverseOrder()).forEach(caminho -> {
+                try {
+                    Files.delete(caminho);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
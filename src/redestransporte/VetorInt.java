@@ -0,0 +1,146 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Vetor de int dividido em blocos de tamanho fixo, que podem ser
+ * compartilhados entre versões: {@link #copiar()} copia só o diretório de
+ * blocos (O(n / TAMANHO_BLOCO)), e um bloco só é copiado na primeira vez
+ * que a cópia escreve nele. Duas versões de uma estrutura grande (ver
+ * {@link Grafo#copiar()}) diferem então só nos blocos alterados.
+ *
+ * Depois de copiado, o vetor de origem não deve mais ser alterado: os
+ * blocos que ele criou passaram a ser lidos também pela cópia.
+ */
+final class VetorInt {
+
+    static final int BITS_BLOCO = 12;
+    static final int TAMANHO_BLOCO = 1 << BITS_BLOCO;
+    private static final int MASCARA_BLOCO = TAMANHO_BLOCO - 1;
+
+    // Até TAMANHO_BLOCO posições há um bloco só, do tamanho exato (vetores
+    // pequenos, como os mapas de vizinhos de uma estação); acima disso todos
+    // os blocos têm TAMANHO_BLOCO posições
+    private int[][] blocos;
+    private boolean[] proprios; // Blocos criados por este vetor; os demais são copiados antes de alterar
+    private int tamanho;
+
+    /**
+     * @param tamanho Quantidade de posições (todas valem 0)
+     */
+    VetorInt(int tamanho) {
+        this.blocos = new int[][]{new int[0]};
+        this.proprios = new boolean[]{true};
+        crescer(tamanho);
+    }
+
+    /**
+     * Cria um vetor com uma cópia de valores[de .. ate).
+     */
+    static VetorInt de(int[] valores, int de, int ate) {
+        VetorInt vetor = new VetorInt(ate - de);
+        for (int b = 0; b < vetor.blocos.length; b++) {
+            int inicio = de + (b << BITS_BLOCO);
+            System.arraycopy(valores, inicio, vetor.blocos[b], 0, Math.min(vetor.blocos[b].length, ate - inicio));
+        }
+        return vetor;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    int obter(int i) {
+        return blocos[i >>> BITS_BLOCO][i & MASCARA_BLOCO];
+    }
+
+    void definir(int i, int valor) {
+        blocoParaEscrita(i >>> BITS_BLOCO)[i & MASCARA_BLOCO] = valor;
+    }
+
+    /**
+     * Atribui o valor às posições [de .. ate).
+     */
+    void preencher(int de, int ate, int valor) {
+        while (de < ate) {
+            int b = de >>> BITS_BLOCO;
+            int fimBloco = Math.min(ate, (b + 1) << BITS_BLOCO);
+            Arrays.fill(blocoParaEscrita(b), de & MASCARA_BLOCO, fimBloco - (b << BITS_BLOCO), valor);
+            de = fimBloco;
+        }
+    }
+
+    /**
+     * Copia n posições a partir de origem para a partir de destino, como
+     * System.arraycopy (os intervalos podem se sobrepor).
+     */
+    void mover(int origem, int destino, int n) {
+        if (destino < origem) {
+            for (int k = 0; k < n; k++) {
+                definir(destino + k, obter(origem + k));
+            }
+        } else if (destino > origem) {
+            for (int k = n - 1; k >= 0; k--) {
+                definir(destino + k, obter(origem + k));
+            }
+        }
+    }
+
+    /**
+     * Aumenta o vetor para novoTamanho posições (as novas valem 0). Os
+     * blocos existentes continuam os mesmos, exceto o bloco único de um
+     * vetor pequeno, que é realocado.
+     */
+    void crescer(int novoTamanho) {
+        if (novoTamanho <= tamanho) {
+            return;
+        }
+        if (blocos.length == 1 && blocos[0].length < TAMANHO_BLOCO) {
+            blocos[0] = Arrays.copyOf(blocos[0], Math.min(novoTamanho, TAMANHO_BLOCO));
+            proprios[0] = true;
+        }
+        int numBlocos = (int) (((long) novoTamanho + MASCARA_BLOCO) >>> BITS_BLOCO);
+        if (numBlocos > blocos.length) {
+            int anteriores = blocos.length;
+            blocos = Arrays.copyOf(blocos, numBlocos);
+            proprios = Arrays.copyOf(proprios, numBlocos);
+            for (int b = anteriores; b < numBlocos; b++) {
+                blocos[b] = new int[TAMANHO_BLOCO];
+                proprios[b] = true;
+            }
+        }
+        tamanho = novoTamanho;
+    }
+
+    /**
+     * Copia as n primeiras posições para um array comum.
+     */
+    int[] paraArray(int n) {
+        int[] array = new int[n];
+        for (int b = 0, de = 0; de < n; b++, de += TAMANHO_BLOCO) {
+            System.arraycopy(blocos[b], 0, array, de, Math.min(blocos[b].length, n - de));
+        }
+        return array;
+    }
+
+    /**
+     * Retorna uma cópia que compartilha todos os blocos com este vetor.
+     * Este vetor não deve mais ser alterado depois.
+     */
+    VetorInt copiar() {
+        VetorInt copia = new VetorInt(0);
+        copia.blocos = blocos.clone();
+        copia.proprios = new boolean[blocos.length];
+        copia.tamanho = tamanho;
+        return copia;
+    }
+
+    // Bloco b pronto para ser alterado (copiado se ainda é compartilhado)
+    private int[] blocoParaEscrita(int b) {
+        if (!proprios[b]) {
+            blocos[b] = blocos[b].clone();
+            proprios[b] = true;
+        }
+        return blocos[b];
+    }
+}
@@ -0,0 +1,100 @@
+package redestransporte;
+
+import java.util.Arrays;
+
+/**
+ * Vetor de objetos dividido em blocos compartilháveis entre versões, como o
+ * {@link VetorInt} (ver lá o funcionamento e a regra sobre o original).
+ * @param <T> Tipo dos elementos
+ */
+final class VetorObjeto<T> {
+
+    private static final int BITS_BLOCO = VetorInt.BITS_BLOCO;
+    private static final int TAMANHO_BLOCO = VetorInt.TAMANHO_BLOCO;
+    private static final int MASCARA_BLOCO = TAMANHO_BLOCO - 1;
+
+    private Object[][] blocos;
+    private boolean[] proprios; // Blocos criados por este vetor; os demais são copiados antes de alterar
+    private int tamanho;
+
+    /**
+     * @param tamanho Quantidade de posições (todas valem null)
+     */
+    VetorObjeto(int tamanho) {
+        this.blocos = new Object[][]{new Object[0]};
+        this.proprios = new boolean[]{true};
+        crescer(tamanho);
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    @SuppressWarnings("unchecked")
+    T obter(int i) {
+        return (T) blocos[i >>> BITS_BLOCO][i & MASCARA_BLOCO];
+    }
+
+    void definir(int i, T valor) {
+        blocoParaEscrita(i >>> BITS_BLOCO)[i & MASCARA_BLOCO] = valor;
+    }
+
+    /**
+     * Atribui o valor às posições [de .. ate).
+     */
+    void preencher(int de, int ate, T valor) {
+        while (de < ate) {
+            int b = de >>> BITS_BLOCO;
+            int fimBloco = Math.min(ate, (b + 1) << BITS_BLOCO);
+            Arrays.fill(blocoParaEscrita(b), de & MASCARA_BLOCO, fimBloco - (b << BITS_BLOCO), valor);
+            de = fimBloco;
+        }
+    }
+
+    /**
+     * Aumenta o vetor para novoTamanho posições (as novas valem null). Os
+     * blocos existentes continuam os mesmos, exceto o bloco único de um
+     * vetor pequeno, que é realocado.
+     */
+    void crescer(int novoTamanho) {
+        if (novoTamanho <= tamanho) {
+            return;
+        }
+        if (blocos.length == 1 && blocos[0].length < TAMANHO_BLOCO) {
+            blocos[0] = Arrays.copyOf(blocos[0], Math.min(novoTamanho, TAMANHO_BLOCO));
+            proprios[0] = true;
+        }
+        int numBlocos = (int) (((long) novoTamanho + MASCARA_BLOCO) >>> BITS_BLOCO);
+        if (numBlocos > blocos.length) {
+            int anteriores = blocos.length;
+            blocos = Arrays.copyOf(blocos, numBlocos);
+            proprios = Arrays.copyOf(proprios, numBlocos);
+            for (int b = anteriores; b < numBlocos; b++) {
+                blocos[b] = new Object[TAMANHO_BLOCO];
+                proprios[b] = true;
+            }
+        }
+        tamanho = novoTamanho;
+    }
+
+    /**
+     * Retorna uma cópia que compartilha todos os blocos com este vetor.
+     * Este vetor não deve mais ser alterado depois.
+     */
+    VetorObjeto<T> copiar() {
+        VetorObjeto<T> copia = new VetorObjeto<>(0);
+        copia.blocos = blocos.clone();
+        copia.proprios = new boolean[blocos.length];
+        copia.tamanho = tamanho;
+        return copia;
+    }
+
+    // Bloco b pronto para ser alterado (copiado se ainda é compartilhado)
+    private Object[] blocoParaEscrita(int b) {
+        if (!proprios[b]) {
+            blocos[b] = blocos[b].clone();
+            proprios[b] = true;
+        }
+        return blocos[b];
+    }
+}